@@ -36,7 +36,7 @@ public class ApexTokenizer implements Tokenizer {
 
     @Override
     public void tokenize(SourceCode sourceCode, Tokens tokenEntries) {
-        StringBuilder code = sourceCode.getCodeBuffer();
+        SourceText code = sourceCode.getText();
 
         ANTLRStringStream ass = new ANTLRStringStream(code.toString());
         ApexLexer lexer = new ApexLexer(ass) {
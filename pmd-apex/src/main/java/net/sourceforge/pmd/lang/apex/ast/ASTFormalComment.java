@@ -5,8 +5,6 @@
 package net.sourceforge.pmd.lang.apex.ast;
 
 
-import org.antlr.runtime.Token;
-
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.apex.ast.ASTFormalComment.AstComment;
 
@@ -25,14 +23,14 @@ public class ASTFormalComment extends AbstractApexNode<AstComment> {
 
     private final String image;
 
-    ASTFormalComment(Token token) {
-        super(new AstComment(token));
-        this.image = token.getText();
+    ASTFormalComment(String image, int line, int column) {
+        super(new AstComment(Locations.loc(line, column)));
+        this.image = image;
     }
 
     @Deprecated
     public ASTFormalComment(String token) {
-        super(new AstComment(null));
+        super(new AstComment(Locations.NONE));
         image = token;
     }
 
@@ -57,10 +55,8 @@ public class ASTFormalComment extends AbstractApexNode<AstComment> {
 
         private final Location loc;
 
-        private AstComment(Token token) {
-            this.loc = token == null
-                       ? Locations.NONE
-                       : Locations.loc(token.getLine(), token.getCharPositionInLine() + 1);
+        private AstComment(Location loc) {
+            this.loc = loc;
         }
 
         @Override
@@ -6,7 +6,9 @@ package net.sourceforge.pmd.lang.apex.ast;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.apex.ApexJorjeLogging;
@@ -15,6 +17,7 @@ import net.sourceforge.pmd.lang.ast.ParseException;
 import net.sourceforge.pmd.util.IOUtil;
 
 import apex.jorje.data.Locations;
+import apex.jorje.parser.impl.HiddenToken;
 import apex.jorje.semantic.ast.compilation.Compilation;
 import apex.jorje.semantic.ast.compilation.UserClass;
 import apex.jorje.semantic.ast.compilation.UserEnum;
@@ -22,6 +25,8 @@ import apex.jorje.semantic.ast.compilation.UserInterface;
 import apex.jorje.semantic.ast.compilation.UserTrigger;
 import apex.jorje.semantic.ast.visitor.AdditionalPassScope;
 import apex.jorje.semantic.ast.visitor.AstVisitor;
+import apex.jorje.semantic.compiler.ApexCompiler;
+import apex.jorje.semantic.compiler.CodeUnit;
 
 /**
  * @deprecated Internal API
@@ -50,8 +55,18 @@ public class ApexParser {
     public ApexNode<Compilation> parse(final Reader reader) {
         try {
             final String sourceCode = IOUtil.readToString(reader);
-            final Compilation astRoot = parseApex(sourceCode);
-            final ApexTreeBuilder treeBuilder = new ApexTreeBuilder(sourceCode, parserOptions);
+
+            // the comments are collected by the lexer of the compiler, the source is lexed only once
+            final TopLevelVisitor visitor = new TopLevelVisitor();
+            Locations.useIndexFactory();
+            final ApexCompiler compiler = CompilerService.INSTANCE
+                .visitAstFromStringCollectingComments(sourceCode, visitor);
+            final Compilation astRoot = visitor.getTopLevel();
+            final List<CodeUnit> codeUnits = compiler.getCodeUnits();
+            final NavigableMap<Integer, HiddenToken> comments = codeUnits.isEmpty()
+                ? null : codeUnits.get(0).getHiddenTokenMap();
+
+            final ApexTreeBuilder treeBuilder = new ApexTreeBuilder(sourceCode, parserOptions, comments);
             suppressMap = treeBuilder.getSuppressMap();
 
             if (astRoot == null) {
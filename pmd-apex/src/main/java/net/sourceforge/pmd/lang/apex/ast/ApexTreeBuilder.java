@@ -9,9 +9,11 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.RandomAccess;
 import java.util.Stack;
 
@@ -26,6 +28,8 @@ import net.sourceforge.pmd.lang.ast.SourceCodePositioner;
 import apex.jorje.data.Location;
 import apex.jorje.data.Locations;
 import apex.jorje.parser.impl.ApexLexer;
+import apex.jorje.parser.impl.HiddenToken;
+import apex.jorje.parser.impl.HiddenTokens;
 import apex.jorje.semantic.ast.AstNode;
 import apex.jorje.semantic.ast.compilation.AnonymousClass;
 import apex.jorje.semantic.ast.compilation.ConstructorPreamble;
@@ -256,12 +260,31 @@ public final class ApexTreeBuilder extends AstVisitor<AdditionalPassScope> {
     private final String sourceCode;
     private final CommentInformation commentInfo;
 
+    // The nodes to which an ApexDoc comment could belong, in visiting order.
+    private final List<ApexDocCandidate> apexDocCandidates = new ArrayList<>();
+
+    /**
+     * Creates a tree builder, which lexes the source again to find the comments.
+     */
     public ApexTreeBuilder(String sourceCode, ApexParserOptions parserOptions) {
         this.sourceCode = sourceCode;
         sourceCodePositioner = new SourceCodePositioner(sourceCode);
         commentInfo = extractInformationFromComments(sourceCode, parserOptions.getSuppressMarker());
     }
 
+    /**
+     * Creates a tree builder using the comments collected by the compiler when it lexed the source.
+     *
+     * @param hiddenTokens The comments by start index,
+     *                     see {@link apex.jorje.semantic.compiler.CodeUnit#getHiddenTokenMap()}
+     */
+    ApexTreeBuilder(String sourceCode, ApexParserOptions parserOptions,
+                    NavigableMap<Integer, HiddenToken> hiddenTokens) {
+        this.sourceCode = sourceCode;
+        sourceCodePositioner = new SourceCodePositioner(sourceCode);
+        commentInfo = extractInformationFromComments(hiddenTokens, parserOptions.getSuppressMarker());
+    }
+
     static <T extends AstNode> AbstractApexNode<T> createNodeAdapter(T node) {
         try {
             @SuppressWarnings("unchecked")
@@ -344,12 +367,15 @@ public final class ApexTreeBuilder extends AstVisitor<AdditionalPassScope> {
     }
 
     private void addFormalComments() {
+        assignApexDocTokensToNodes();
+
         for (ApexDocTokenLocation tokenLocation : commentInfo.docTokenLocations) {
             ApexNode<?> parent = tokenLocation.nearestNode;
             if (parent != null) {
-                ASTFormalComment comment = new ASTFormalComment(tokenLocation.token);
+                ASTFormalComment comment = new ASTFormalComment(tokenLocation.image, tokenLocation.line,
+                                                                tokenLocation.column);
                 comment.calculateLineNumbers(sourceCodePositioner, tokenLocation.index,
-                                             tokenLocation.index + tokenLocation.token.getText().length());
+                                             tokenLocation.index + tokenLocation.image.length());
 
                 // move existing nodes so that we can insert the comment as the first node
                 for (int i = parent.getNumChildren(); i > 0; i--) {
@@ -373,8 +399,8 @@ public final class ApexTreeBuilder extends AstVisitor<AdditionalPassScope> {
      * Only remembers the node, to which the comment could belong.
      * Since the visiting order of the nodes does not match the source order,
      * the nodes appearing later in the source might be visiting first.
-     * The correct node will then be visited afterwards, and since the distance
-     * to the comment is smaller, it overrides the remembered node.
+     * The comments are assigned to the nearest nodes once the tree is built,
+     * see {@link #assignApexDocTokensToNodes()}.
      *
      * @param jorjeNode the original node
      * @param node the potential parent node, to which the comment could belong
@@ -386,20 +412,35 @@ public final class ApexTreeBuilder extends AstVisitor<AdditionalPassScope> {
             // source code, since they are generated by the compiler
             return;
         }
-        // find the token, that appears as close as possible before the node
-        int nodeStart = loc.getStartIndex();
-        for (ApexDocTokenLocation tokenLocation : commentInfo.docTokenLocations) {
-            if (tokenLocation.index > nodeStart) {
-                // this and all remaining tokens are after the node
-                // so no need to check the remaining tokens.
-                break;
+        apexDocCandidates.add(new ApexDocCandidate(loc.getStartIndex(), node));
+    }
+
+    /**
+     * Assigns every ApexDoc comment to the node, that starts as close as possible
+     * after the comment. If several nodes start at the same index, the node visited
+     * first gets the comment. Both the comments and the nodes are sorted by index,
+     * so that a single sweep over them finds the nearest nodes.
+     */
+    private void assignApexDocTokensToNodes() {
+        // the sort is stable, the nodes at the same index stay in visiting order
+        Collections.sort(apexDocCandidates, new Comparator<ApexDocCandidate>() {
+            @Override
+            public int compare(ApexDocCandidate o1, ApexDocCandidate o2) {
+                return Integer.compare(o1.startIndex, o2.startIndex);
             }
+        });
 
-            int distance = nodeStart - tokenLocation.index;
-            if (tokenLocation.nearestNode == null || distance < tokenLocation.nearestNodeDistance) {
-                tokenLocation.nearestNode = node;
-                tokenLocation.nearestNodeDistance = distance;
+        int candidate = 0;
+        for (ApexDocTokenLocation tokenLocation : commentInfo.docTokenLocations) {
+            while (candidate < apexDocCandidates.size()
+                && apexDocCandidates.get(candidate).startIndex < tokenLocation.index) {
+                candidate++;
             }
+            if (candidate == apexDocCandidates.size()) {
+                // this and all remaining comments are after the last node
+                break;
+            }
+            tokenLocation.nearestNode = apexDocCandidates.get(candidate).node;
         }
     }
 
@@ -407,40 +448,16 @@ public final class ApexTreeBuilder extends AstVisitor<AdditionalPassScope> {
         ANTLRStringStream stream = new ANTLRStringStream(source);
         ApexLexer lexer = new ApexLexer(stream);
 
-        ArrayList<TokenLocation> allCommentTokens = new ArrayList<>();
-        List<ApexDocTokenLocation> tokenLocations = new ArrayList<>();
-        Map<Integer, String> suppressMap = new HashMap<>();
+        CommentInformation commentInfo = new CommentInformation(suppressMarker);
 
         int startIndex = 0;
         Token token = lexer.nextToken();
         int endIndex = lexer.getCharIndex();
 
-        boolean checkForCommentSuppression = suppressMarker != null;
-
         while (token.getType() != Token.EOF) {
-            // Keep track of all comment tokens
             if (token.getType() == ApexLexer.BLOCK_COMMENT || token.getType() == ApexLexer.EOL_COMMENT) {
-                assert allCommentTokens.isEmpty()
-                    || allCommentTokens.get(allCommentTokens.size() - 1).index < startIndex
-                    : "Comments should be sorted";
-                if (!token.getText().startsWith(DOC_COMMENT_PREFIX)) {
-                    allCommentTokens.add(new TokenLocation(startIndex, token));
-                }
-            }
-
-            if (token.getType() == ApexLexer.BLOCK_COMMENT) {
-                // Filter only block comments starting with "/**"
-                if (token.getText().startsWith(DOC_COMMENT_PREFIX)) {
-                    tokenLocations.add(new ApexDocTokenLocation(startIndex, token));
-                }
-            } else if (checkForCommentSuppression && token.getType() == ApexLexer.EOL_COMMENT) {
-                // check if it starts with the suppress marker
-                String trimmedCommentText = token.getText().substring(2).trim();
-
-                if (trimmedCommentText.startsWith(suppressMarker)) {
-                    String userMessage = trimmedCommentText.substring(suppressMarker.length()).trim();
-                    suppressMap.put(token.getLine(), userMessage);
-                }
+                commentInfo.addComment(token.getType() == ApexLexer.BLOCK_COMMENT, token.getText(), startIndex,
+                                       token.getLine(), token.getCharPositionInLine() + 1);
             }
 
             startIndex = endIndex;
@@ -448,22 +465,64 @@ public final class ApexTreeBuilder extends AstVisitor<AdditionalPassScope> {
             endIndex = lexer.getCharIndex();
         }
 
-        return new CommentInformation(suppressMap, allCommentTokens, tokenLocations);
+        return commentInfo;
+    }
+
+    private static CommentInformation extractInformationFromComments(NavigableMap<Integer, HiddenToken> hiddenTokens,
+                                                                     String suppressMarker) {
+        CommentInformation commentInfo = new CommentInformation(suppressMarker);
+        if (hiddenTokens != null) {
+            // the map is sorted by start index
+            for (HiddenToken token : hiddenTokens.values()) {
+                Location loc = token.getLocation();
+                commentInfo.addComment(token instanceof HiddenTokens.BlockComment, token.getValue(),
+                                       loc.getStartIndex(), loc.getLine(), loc.getColumn());
+            }
+        }
+        return commentInfo;
     }
 
     private static class CommentInformation {
 
-        final Map<Integer, String> suppressMap;
-        final List<TokenLocation> allCommentTokens;
-        final TokenListByStartIndex allCommentTokensByStartIndex;
-        final List<ApexDocTokenLocation> docTokenLocations;
-
-        <T extends List<TokenLocation> & RandomAccess>
-            CommentInformation(Map<Integer, String> suppressMap, T allCommentTokens, List<ApexDocTokenLocation> docTokenLocations) {
-            this.suppressMap = suppressMap;
-            this.allCommentTokens = allCommentTokens;
-            this.docTokenLocations = docTokenLocations;
-            this.allCommentTokensByStartIndex = new TokenListByStartIndex(allCommentTokens);
+        final Map<Integer, String> suppressMap = new HashMap<>();
+        final ArrayList<TokenLocation> allCommentTokens = new ArrayList<>();
+        final TokenListByStartIndex allCommentTokensByStartIndex = new TokenListByStartIndex(allCommentTokens);
+        final List<ApexDocTokenLocation> docTokenLocations = new ArrayList<>();
+        private final String suppressMarker;
+
+        CommentInformation(String suppressMarker) {
+            this.suppressMarker = suppressMarker;
+        }
+
+        /**
+         * Adds a comment. The comments must be added in source order.
+         */
+        void addComment(boolean blockComment, String image, int startIndex, int line, int column) {
+            // Keep track of all comment tokens
+            assert allCommentTokens.isEmpty()
+                || allCommentTokens.get(allCommentTokens.size() - 1).index < startIndex
+                : "Comments should be sorted";
+
+            if (blockComment) {
+                // Filter only block comments starting with "/**"
+                if (image.startsWith(DOC_COMMENT_PREFIX)) {
+                    docTokenLocations.add(new ApexDocTokenLocation(startIndex, image, line, column));
+                } else {
+                    allCommentTokens.add(new TokenLocation(startIndex, image, line, column));
+                }
+            } else {
+                allCommentTokens.add(new TokenLocation(startIndex, image, line, column));
+
+                if (suppressMarker != null) {
+                    // check if it starts with the suppress marker
+                    String trimmedCommentText = image.substring(2).trim();
+
+                    if (trimmedCommentText.startsWith(suppressMarker)) {
+                        String userMessage = trimmedCommentText.substring(suppressMarker.length()).trim();
+                        suppressMap.put(line, userMessage);
+                    }
+                }
+            }
         }
     }
 
@@ -494,21 +553,34 @@ public final class ApexTreeBuilder extends AstVisitor<AdditionalPassScope> {
     }
 
     private static class TokenLocation {
-        int index;
-        Token token;
+        final int index;
+        final String image;
+        final int line;
+        final int column;
 
-        TokenLocation(int index, Token token) {
+        TokenLocation(int index, String image, int line, int column) {
             this.index = index;
-            this.token = token;
+            this.image = image;
+            this.line = line;
+            this.column = column;
         }
     }
 
     private static class ApexDocTokenLocation extends TokenLocation {
         ApexNode<?> nearestNode;
-        int nearestNodeDistance;
 
-        ApexDocTokenLocation(int index, Token token) {
-            super(index, token);
+        ApexDocTokenLocation(int index, String image, int line, int column) {
+            super(index, image, line, column);
+        }
+    }
+
+    private static final class ApexDocCandidate {
+        final int startIndex;
+        final ApexNode<?> node;
+
+        ApexDocCandidate(int startIndex, ApexNode<?> node) {
+            this.startIndex = startIndex;
+            this.node = node;
         }
     }
 
@@ -21,6 +21,7 @@ import apex.jorje.semantic.compiler.CompilerContext;
 import apex.jorje.semantic.compiler.CompilerOperation;
 import apex.jorje.semantic.compiler.CompilerStage;
 import apex.jorje.semantic.compiler.SourceFile;
+import apex.jorje.semantic.compiler.parser.ParserEngine.HiddenTokenBehavior;
 import apex.jorje.semantic.compiler.sfdc.AccessEvaluator;
 import apex.jorje.semantic.compiler.sfdc.NoopCompilerProgressCallback;
 import apex.jorje.semantic.compiler.sfdc.QueryValidator;
@@ -80,17 +81,33 @@ public class CompilerService {
         return visitAstsFromStrings(sources, visitor, CompilerStage.POST_TYPE_RESOLVE);
     }
 
+    /**
+     * Compiles the source, and collects its comments while lexing it. The comments
+     * are then available with {@link CodeUnit#getHiddenTokenMap()}.
+     *
+     * @throws ParseException If the code is unparsable
+     */
+    public ApexCompiler visitAstFromStringCollectingComments(String source, AstVisitor<AdditionalPassScope> visitor) {
+        List<SourceFile> sourceFiles = ImmutableList.of(SourceFile.builder().setBody(source).build());
+        CompilationInput compilationUnit = createCompilationInput(sourceFiles, visitor);
+        return compile(compilationUnit, CompilerStage.POST_TYPE_RESOLVE, HiddenTokenBehavior.COLLECT_COMMENTS);
+    }
+
     /** @throws ParseException If the code is unparsable */
     public ApexCompiler visitAstsFromStrings(List<String> sources, AstVisitor<AdditionalPassScope> visitor,
             CompilerStage compilerStage) {
         List<SourceFile> sourceFiles = sources.stream().map(s -> SourceFile.builder().setBody(s).build())
                 .collect(Collectors.toList());
         CompilationInput compilationUnit = createCompilationInput(sourceFiles, visitor);
-        return compile(compilationUnit, compilerStage);
+        return compile(compilationUnit, compilerStage, HiddenTokenBehavior.IGNORE);
     }
 
-    private ApexCompiler compile(CompilationInput compilationInput, CompilerStage compilerStage) {
-        ApexCompiler compiler = ApexCompiler.builder().setInput(compilationInput).build();
+    private ApexCompiler compile(CompilationInput compilationInput, CompilerStage compilerStage,
+                                 HiddenTokenBehavior hiddenTokenBehavior) {
+        ApexCompiler compiler = ApexCompiler.builder()
+                .setInput(compilationInput)
+                .setHiddenTokenBehavior(hiddenTokenBehavior)
+                .build();
         compiler.compile(compilerStage);
         callAdditionalPassVisitor(compiler);
         throwParseErrorIfAny(compiler);
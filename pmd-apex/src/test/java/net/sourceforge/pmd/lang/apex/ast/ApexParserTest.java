@@ -11,12 +11,16 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import net.sourceforge.pmd.lang.apex.ApexParserOptions;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.xpath.internal.FileNameXPathFunction;
 import net.sourceforge.pmd.util.IOUtil;
@@ -144,6 +148,61 @@ public class ApexParserTest extends ApexParserTestBase {
         assertEquals("/** Comment on m1 */", ((ASTFormalComment) comment2).getToken());
     }
 
+    @Test
+    public void checkCommentsAreAssignedToTheNearestNode() {
+        String code = "/** Comment on Class */\n" // line 1
+            + "public class SimpleClass {\n" // line 2
+            + "    public void method1() {\n" // line 3
+            + "    }\n" // line 4
+            + "    /** Comment on field */\n" // line 5
+            + "    /** Comment on f */ String f;\n" // line 6
+            + "    /** Comment on method2 */\n" // line 7
+            + "    public void method2() {\n" // line 8
+            + "    }\n" // line 9
+            + "    /** Trailing comment */\n" // line 10
+            + "}\n"; // line 11
+
+        ApexNode<?> root = parse(code);
+
+        List<ASTFormalComment> comments = root.findDescendantsOfType(ASTFormalComment.class);
+        assertEquals(4, comments.size());
+        assertEquals("/** Comment on Class */", comments.get(0).getToken());
+        assertThat(comments.get(0).getParent(), instanceOf(ASTUserClass.class));
+
+        ASTField field = root.getFirstDescendantOfType(ASTField.class);
+        assertEquals("/** Comment on f */", field.getFirstChildOfType(ASTFormalComment.class).getToken());
+
+        ASTMethod method2 = null;
+        for (ASTMethod method : root.findDescendantsOfType(ASTMethod.class)) {
+            if ("method2".equals(method.getImage())) {
+                method2 = method;
+            }
+        }
+        assertEquals("/** Comment on method2 */", method2.getFirstChildOfType(ASTFormalComment.class).getToken());
+    }
+
+    @Test
+    public void checkSuppressMarkers() {
+        String code = "public class SimpleClass {\n" // line 1
+            + "    // NOPMD first\n" // line 2
+            + "    public void method1() { // NOPMD\n" // line 3
+            + "    }\n" // line 4
+            + "    /* NOPMD not a line comment */\n" // line 5
+            + "}\n"; // line 6
+
+        ApexParserOptions parserOptions = new ApexParserOptions();
+        parserOptions.setSuppressMarker("NOPMD");
+        ApexParser parser = new ApexParser(parserOptions);
+        parser.parse(new StringReader(code));
+
+        Map<Integer, String> expected = new HashMap<>();
+        expected.put(2, "first");
+        expected.put(3, "");
+        assertEquals(expected, parser.getSuppressMap());
+        // the comments found by the compiler are the same as the ones found by lexing the source again
+        assertEquals(expected, new ApexTreeBuilder(code, parserOptions).getSuppressMap());
+    }
+
     @Test
     public void parsesRealWorldClasses() throws Exception {
         File directory = new File("src/test/resources");
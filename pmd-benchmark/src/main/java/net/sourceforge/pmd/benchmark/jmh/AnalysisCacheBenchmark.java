@@ -0,0 +1,149 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.RuleViolation;
+import net.sourceforge.pmd.cache.AnalysisCache;
+import net.sourceforge.pmd.cache.FileAnalysisCache;
+import net.sourceforge.pmd.cache.IndexedFileAnalysisCache;
+import net.sourceforge.pmd.lang.ast.Node;
+
+/**
+ * Time to load and to persist the analysis cache of a corpus. The cache
+ * holds the violations of the standard Java categories, which are found
+ * once by the setup.
+ *
+ * <p>Loading includes the validity check of the cache, which fingerprints
+ * the classpath of the benchmarks, and the lookup of the violations of
+ * every file, as in an analysis in which no file changed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AnalysisCacheBenchmark {
+
+    @Param("1000")
+    public int fileCount;
+
+    /** Whether to use the {@link IndexedFileAnalysisCache}, or the {@link FileAnalysisCache}. */
+    @Param({"false", "true"})
+    public boolean indexed;
+
+    private File directory;
+    private File cacheFile;
+    private List<File> files;
+    private List<List<RuleViolation>> violations;
+    private RuleSets ruleSets;
+
+    /** Cache with all the results, ready to be persisted. */
+    private AnalysisCache updatedCache;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("pmd-cache-benchmark").toFile();
+        cacheFile = new File(directory, "pmd.cache");
+        JavaCorpus corpus = JavaCorpus.generate(fileCount);
+        files = corpus.writeTo(new File(directory, "src"));
+        ruleSets = new RuleSets(JavaCorpus.loadCategories());
+
+        violations = new ArrayList<>(fileCount);
+        for (File file : files) {
+            String code = new String(Files.readAllBytes(file.toPath()), "UTF-8");
+            Node root = JavaCorpus.parse(file.getPath(), code, true);
+
+            RuleContext ctx = new RuleContext();
+            ctx.setReport(new Report());
+            ctx.setSourceCodeFile(file);
+            ctx.setLanguageVersion(JavaCorpus.JAVA);
+            ruleSets.start(ctx);
+            ruleSets.apply(Collections.singletonList(root), ctx, JavaCorpus.JAVA.getLanguage());
+            ruleSets.end(ctx);
+            violations.add(ctx.getReport().getViolations());
+        }
+
+        prepareUpdatedCache();
+        updatedCache.persist();
+    }
+
+    /**
+     * Loads the existing cache and adds the results of all the files, like
+     * an analysis does.
+     */
+    @Setup(Level.Invocation)
+    public void prepareUpdatedCache() {
+        updatedCache = newCache();
+        updatedCache.checkValidity(ruleSets, AnalysisCacheBenchmark.class.getClassLoader());
+        for (int i = 0; i < files.size(); i++) {
+            updatedCache.isUpToDate(files.get(i));
+            for (RuleViolation violation : violations.get(i)) {
+                updatedCache.ruleViolationAdded(violation);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        delete(directory);
+    }
+
+    @Benchmark
+    public void load(Blackhole blackhole) {
+        AnalysisCache cache = newCache();
+        cache.checkValidity(ruleSets, AnalysisCacheBenchmark.class.getClassLoader());
+        for (File file : files) {
+            if (cache.isUpToDate(file)) {
+                blackhole.consume(cache.getCachedViolations(file));
+            }
+        }
+    }
+
+    @Benchmark
+    public void persist() {
+        updatedCache.persist();
+    }
+
+    private AnalysisCache newCache() {
+        return indexed ? new IndexedFileAnalysisCache(cacheFile) : new FileAnalysisCache(cacheFile);
+    }
+
+    private static void delete(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+}
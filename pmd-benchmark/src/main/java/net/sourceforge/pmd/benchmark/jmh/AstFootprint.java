@@ -0,0 +1,132 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark.jmh;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.LanguageVersionDiscoverer;
+import net.sourceforge.pmd.lang.LanguageVersionHandler;
+import net.sourceforge.pmd.lang.ast.Node;
+
+/**
+ * Measures the memory footprint of the ASTs of the language modules, in
+ * bytes per node. JMH doesn't measure the retained heap, so this is a
+ * plain main class. Run it with
+ * <pre>
+ * java -cp pmd-benchmark/target/benchmarks.jar net.sourceforge.pmd.benchmark.jmh.AstFootprint [file or directory...]
+ * </pre>
+ *
+ * <p>The given files are grouped by language, and parsed with the default
+ * version of their language. Without arguments, the synthetic Java sources
+ * of the other benchmarks are measured.
+ */
+public final class AstFootprint {
+
+    /** Number of copies of the ASTs kept in memory, to smooth out the measurement. */
+    private static final int REPETITIONS = 20;
+
+    private AstFootprint() {
+        // main class
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<LanguageVersion, Map<String, String>> sources;
+        if (args.length == 0) {
+            sources = Collections.singletonMap(JavaCorpus.JAVA, JavaCorpus.generate(100).getSources());
+        } else {
+            sources = collectSources(args);
+        }
+
+        for (Map.Entry<LanguageVersion, Map<String, String>> entry : sources.entrySet()) {
+            measure(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static Map<LanguageVersion, Map<String, String>> collectSources(String[] paths) throws IOException {
+        LanguageVersionDiscoverer discoverer = new LanguageVersionDiscoverer();
+        Map<LanguageVersion, Map<String, String>> sources = new LinkedHashMap<>();
+        for (String path : paths) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(Paths.get(path))) {
+                files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                LanguageVersion version = discoverer.getDefaultLanguageVersionForFile(file.toString());
+                if (version != null) {
+                    String code = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                    sources.computeIfAbsent(version, v -> new LinkedHashMap<>()).put(file.toString(), code);
+                }
+            }
+        }
+        return sources;
+    }
+
+    private static void measure(LanguageVersion version, Map<String, String> sources) {
+        // also warms up the parser
+        Map<String, String> parsed = new LinkedHashMap<>();
+        long nodesPerCopy = 0;
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            try {
+                nodesPerCopy += countNodes(parse(version, source.getKey(), source.getValue()));
+                parsed.put(source.getKey(), source.getValue());
+            } catch (RuntimeException e) {
+                System.err.println("Skipping " + source.getKey() + ": " + e.getMessage());
+            }
+        }
+        if (parsed.isEmpty()) {
+            return;
+        }
+
+        List<Node> roots = new ArrayList<>(parsed.size() * REPETITIONS);
+        long usedBefore = usedMemory();
+        for (int i = 0; i < REPETITIONS; i++) {
+            for (Map.Entry<String, String> source : parsed.entrySet()) {
+                roots.add(parse(version, source.getKey(), source.getValue()));
+            }
+        }
+        long usedAfter = usedMemory();
+
+        // uses the roots after the measurement, so that they stay reachable
+        System.out.println(String.format(Locale.ROOT, "%s %s: %d files, %d nodes, %.1f bytes per node",
+                                         version.getLanguage().getTerseName(), version.getVersion(),
+                                         roots.size() / REPETITIONS, nodesPerCopy,
+                                         (double) (usedAfter - usedBefore) / (nodesPerCopy * REPETITIONS)));
+    }
+
+    private static Node parse(LanguageVersion version, String fileName, String code) {
+        LanguageVersionHandler handler = version.getLanguageVersionHandler();
+        return handler.getParser(handler.getDefaultParserOptions()).parse(fileName, new StringReader(code));
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long countNodes(Node node) {
+        long count = 1;
+        for (int i = 0; i < node.getNumChildren(); i++) {
+            count += countNodes(node.getChild(i));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark.jmh;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sourceforge.pmd.cpd.JavaTokenizer;
+import net.sourceforge.pmd.cpd.Match;
+import net.sourceforge.pmd.cpd.MatchAlgorithm;
+import net.sourceforge.pmd.cpd.SourceCode;
+import net.sourceforge.pmd.cpd.SourceCode.StringCodeLoader;
+import net.sourceforge.pmd.cpd.TokenEntry;
+import net.sourceforge.pmd.cpd.Tokens;
+
+/**
+ * Time to find the duplicates of a corpus with {@link MatchAlgorithm#findMatches()}.
+ * The files are tokenized beforehand.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CpdBenchmark {
+
+    @Param("500")
+    public int fileCount;
+
+    @Param({"50", "100"})
+    public int minimumTileSize;
+
+    private Map<String, SourceCode> sources;
+    private Tokens tokens;
+
+    @Setup
+    public void setUp() throws IOException {
+        TokenEntry.clearImages();
+        JavaTokenizer tokenizer = new JavaTokenizer();
+        sources = new LinkedHashMap<>();
+        tokens = new Tokens();
+        for (Map.Entry<String, String> source : JavaCorpus.generate(fileCount).getSources().entrySet()) {
+            SourceCode sourceCode = new SourceCode(new StringCodeLoader(source.getValue(), source.getKey()));
+            tokenizer.tokenize(sourceCode, tokens);
+            sources.put(source.getKey(), sourceCode);
+        }
+    }
+
+    @Benchmark
+    public Iterator<Match> findMatches() {
+        // the hashes are stored in the tokens, each run overwrites them
+        MatchAlgorithm algorithm = new MatchAlgorithm(sources, tokens, minimumTileSize);
+        algorithm.findMatches();
+        return algorithm.matches();
+    }
+}
@@ -0,0 +1,280 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import net.sourceforge.pmd.RuleSet;
+import net.sourceforge.pmd.RuleSetLoader;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.LanguageVersionHandler;
+import net.sourceforge.pmd.lang.Parser;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.java.JavaLanguageModule;
+
+/**
+ * Synthetic Java sources the benchmarks are run on. The sources are
+ * generated from a fixed seed, so that every run, and every version of
+ * PMD, analyses exactly the same code. They mix the constructs the rules
+ * of the standard categories look at. The methods are picked among a few
+ * bodies, so that CPD finds duplicates.
+ */
+final class JavaCorpus {
+
+    static final LanguageVersion JAVA = LanguageRegistry.getLanguage(JavaLanguageModule.NAME).getDefaultVersion();
+
+    /** Rulesets used by the benchmarks which apply rules. */
+    static final String[] CATEGORIES = {
+        "category/java/bestpractices.xml",
+        "category/java/codestyle.xml",
+        "category/java/design.xml",
+        "category/java/errorprone.xml",
+        "category/java/multithreading.xml",
+        "category/java/performance.xml",
+    };
+
+    /** Number of different method bodies, see {@link #appendMethod(StringBuilder, int, String)}. */
+    private static final int METHOD_KINDS = 8;
+
+    private final Map<String, String> sources;
+
+    private JavaCorpus(Map<String, String> sources) {
+        this.sources = sources;
+    }
+
+    /**
+     * Generates the given number of files. The first files are the same
+     * whatever the number of files.
+     */
+    static JavaCorpus generate(int fileCount) {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int i = 0; i < fileCount; i++) {
+            String packageName = "net.sourceforge.pmd.benchmark.corpus.p" + i % 10;
+            String className = "Generated" + i;
+            sources.put(packageName.replace('.', '/') + '/' + className + ".java",
+                        generateClass(new Random(i), packageName, className));
+        }
+        return new JavaCorpus(sources);
+    }
+
+    /**
+     * Returns the sources by file name. The file names are relative paths.
+     */
+    Map<String, String> getSources() {
+        return sources;
+    }
+
+    /**
+     * Writes the sources into the given directory, and returns the files.
+     */
+    List<File> writeTo(File directory) throws IOException {
+        List<File> files = new ArrayList<>();
+        for (Map.Entry<String, String> entry : sources.entrySet()) {
+            File file = new File(directory, entry.getKey());
+            file.getParentFile().mkdirs();
+            Files.write(file.toPath(), entry.getValue().getBytes(StandardCharsets.UTF_8));
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * Parses the sources. If {@code resolve} is true, the trees are then
+     * processed like PMD does before applying rules, that is, the qualified
+     * names, symbol table, data flow and types are computed.
+     */
+    List<Node> parse(boolean resolve) {
+        List<Node> roots = new ArrayList<>(sources.size());
+        for (Map.Entry<String, String> entry : sources.entrySet()) {
+            roots.add(parse(entry.getKey(), entry.getValue(), resolve));
+        }
+        return roots;
+    }
+
+    static Node parse(String fileName, String code, boolean resolve) {
+        LanguageVersionHandler handler = JAVA.getLanguageVersionHandler();
+        Parser parser = handler.getParser(handler.getDefaultParserOptions());
+        Node root = parser.parse(fileName, new StringReader(code));
+        if (resolve) {
+            ClassLoader classLoader = JavaCorpus.class.getClassLoader();
+            handler.getQualifiedNameResolutionFacade(classLoader).start(root);
+            handler.getSymbolFacade(classLoader).start(root);
+            handler.getDataFlowFacade().start(root);
+            handler.getTypeResolutionFacade(classLoader).start(root);
+        }
+        return root;
+    }
+
+    /**
+     * Loads the rulesets of {@link #CATEGORIES}.
+     */
+    static List<RuleSet> loadCategories() {
+        List<RuleSet> ruleSets = new ArrayList<>();
+        RuleSetLoader loader = new RuleSetLoader().warnDeprecated(false);
+        for (String category : CATEGORIES) {
+            ruleSets.add(loader.loadFromResource(category));
+        }
+        return ruleSets;
+    }
+
+    private static String generateClass(Random random, String packageName, String className) {
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("package ").append(packageName).append(";\n\n")
+          .append("import java.io.IOException;\n")
+          .append("import java.io.InputStream;\n")
+          .append("import java.util.ArrayList;\n")
+          .append("import java.util.HashMap;\n")
+          .append("import java.util.List;\n")
+          .append("import java.util.Map;\n\n")
+          .append("/**\n * Generated class ").append(className).append(".\n */\n")
+          .append("public class ").append(className).append(" implements Runnable {\n\n")
+          .append("    private static final int LIMIT = ").append(10 + random.nextInt(90)).append(";\n")
+          .append("    private final List<String> names = new ArrayList<>();\n")
+          .append("    private Map<String, Integer> counts = new HashMap<String, Integer>();\n")
+          .append("    private int state;\n")
+          .append("    private String label = \"").append(className).append("\";\n\n")
+          .append("    public ").append(className).append("(int state) {\n")
+          .append("        this.state = state;\n")
+          .append("    }\n\n")
+          .append("    @Override\n")
+          .append("    public void run() {\n")
+          .append("        state++;\n")
+          .append("    }\n");
+
+        int methodCount = 8 + random.nextInt(8);
+        for (int m = 0; m < methodCount; m++) {
+            sb.append('\n');
+            appendMethod(sb, random.nextInt(METHOD_KINDS), "method" + m);
+        }
+
+        sb.append("\n    static class Entry {\n")
+          .append("        String key;\n")
+          .append("        int value;\n\n")
+          .append("        Entry(String key, int value) {\n")
+          .append("            this.key = key;\n")
+          .append("            this.value = value;\n")
+          .append("        }\n")
+          .append("    }\n")
+          .append("}\n");
+        return sb.toString();
+    }
+
+    private static void appendMethod(StringBuilder sb, int kind, String name) {
+        switch (kind) {
+        case 0:
+            sb.append("    public int ").append(name).append("(int start) {\n")
+              .append("        int total = 0;\n")
+              .append("        for (int i = start; i < LIMIT; i++) {\n")
+              .append("            if (i % 3 == 0) {\n")
+              .append("                total += i;\n")
+              .append("            } else if (i % 5 == 0) {\n")
+              .append("                total -= state;\n")
+              .append("            } else {\n")
+              .append("                total = total * 2 + 1;\n")
+              .append("            }\n")
+              .append("        }\n")
+              .append("        return total;\n")
+              .append("    }\n");
+            break;
+        case 1:
+            sb.append("    public String ").append(name).append("() {\n")
+              .append("        String result = \"\";\n")
+              .append("        for (String n : names) {\n")
+              .append("            result = result + n + \", \";\n")
+              .append("        }\n")
+              .append("        return result;\n")
+              .append("    }\n");
+            break;
+        case 2:
+            sb.append("    public void ").append(name).append("(InputStream in) {\n")
+              .append("        try {\n")
+              .append("            int b = in.read();\n")
+              .append("            while (b != -1) {\n")
+              .append("                state += b;\n")
+              .append("                b = in.read();\n")
+              .append("            }\n")
+              .append("        } catch (IOException e) {\n")
+              .append("            e.printStackTrace();\n")
+              .append("        } catch (RuntimeException e) {\n")
+              .append("        }\n")
+              .append("    }\n");
+            break;
+        case 3:
+            sb.append("    String ").append(name).append("(int code) {\n")
+              .append("        switch (code) {\n")
+              .append("        case 1:\n")
+              .append("            return \"one\";\n")
+              .append("        case 2:\n")
+              .append("            label = \"two\";\n")
+              .append("            break;\n")
+              .append("        default:\n")
+              .append("            label = String.valueOf(code);\n")
+              .append("        }\n")
+              .append("        return label;\n")
+              .append("    }\n");
+            break;
+        case 4:
+            sb.append("    boolean ").append(name).append("(String key, Integer value) {\n")
+              .append("        if (key != null) {\n")
+              .append("            if (value != null && value > 0) {\n")
+              .append("                counts.put(key, value);\n")
+              .append("            }\n")
+              .append("        }\n")
+              .append("        if (counts.size() > LIMIT) {\n")
+              .append("            return true;\n")
+              .append("        } else {\n")
+              .append("            return false;\n")
+              .append("        }\n")
+              .append("    }\n");
+            break;
+        case 5:
+            sb.append("    public List<Entry> ").append(name).append("() {\n")
+              .append("        List<Entry> entries = new ArrayList<>();\n")
+              .append("        for (Map.Entry<String, Integer> e : counts.entrySet()) {\n")
+              .append("            entries.add(new Entry(e.getKey(), e.getValue()));\n")
+              .append("        }\n")
+              .append("        if (entries.isEmpty()) {\n")
+              .append("            return null;\n")
+              .append("        }\n")
+              .append("        return entries;\n")
+              .append("    }\n");
+            break;
+        case 6:
+            sb.append("    public synchronized void ").append(name).append("(final String prefix) {\n")
+              .append("        names.forEach(n -> counts.merge(prefix + n, 1, Integer::sum));\n")
+              .append("        Runnable r = new Runnable() {\n")
+              .append("            @Override\n")
+              .append("            public void run() {\n")
+              .append("                names.add(prefix);\n")
+              .append("            }\n")
+              .append("        };\n")
+              .append("        r.run();\n")
+              .append("    }\n");
+            break;
+        default:
+            sb.append("    private long ").append(name).append("(long[] values) {\n")
+              .append("        long max = Long.MIN_VALUE;\n")
+              .append("        int i = 0;\n")
+              .append("        do {\n")
+              .append("            max = Math.max(max, values[i]);\n")
+              .append("            i++;\n")
+              .append("        } while (i < values.length);\n")
+              .append("        Object o = (Object) Long.valueOf(max);\n")
+              .append("        return o instanceof Long ? ((Long) o).longValue() : 0L;\n")
+              .append("    }\n");
+            break;
+        }
+    }
+}
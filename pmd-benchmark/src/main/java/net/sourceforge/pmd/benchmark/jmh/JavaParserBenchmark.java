@@ -0,0 +1,64 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark.jmh;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of the Java parser, in corpora per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JavaParserBenchmark {
+
+    @Param("100")
+    public int fileCount;
+
+    private Map<String, String> sources;
+
+    @Setup
+    public void setUp() {
+        sources = JavaCorpus.generate(fileCount).getSources();
+    }
+
+    /**
+     * Only builds the trees.
+     */
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            blackhole.consume(JavaCorpus.parse(source.getKey(), source.getValue(), false));
+        }
+    }
+
+    /**
+     * Builds the trees and runs the symbol table, data flow and type
+     * resolution on them, as needed by most rules.
+     */
+    @Benchmark
+    public void parseAndResolve(Blackhole blackhole) {
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            blackhole.consume(JavaCorpus.parse(source.getKey(), source.getValue(), true));
+        }
+    }
+}
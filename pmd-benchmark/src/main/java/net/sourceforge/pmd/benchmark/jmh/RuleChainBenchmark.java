@@ -0,0 +1,83 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark.jmh;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RuleSet;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.java.rule.JavaRuleChainVisitor;
+
+/**
+ * Time to apply the rule chain rules of the standard Java categories to
+ * a corpus, with {@link JavaRuleChainVisitor#visitAll(List, RuleContext)}.
+ * The files are parsed and resolved beforehand. The XPath rules build the
+ * Saxon trees of the files on the first invocation, later invocations
+ * reuse them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RuleChainBenchmark {
+
+    @Param("100")
+    public int fileCount;
+
+    private List<Node> roots;
+    private List<File> files;
+    private JavaRuleChainVisitor visitor;
+
+    @Setup
+    public void setUp() {
+        JavaCorpus corpus = JavaCorpus.generate(fileCount);
+        roots = corpus.parse(true);
+        files = new ArrayList<>(fileCount);
+        for (String fileName : corpus.getSources().keySet()) {
+            files.add(new File(fileName));
+        }
+
+        visitor = new JavaRuleChainVisitor();
+        for (RuleSet ruleSet : JavaCorpus.loadCategories()) {
+            for (Rule rule : ruleSet.getRules()) {
+                // the visitor drops the rules that don't use the rule chain
+                visitor.add(ruleSet, rule);
+            }
+        }
+    }
+
+    @Benchmark
+    public Report visitAll() {
+        RuleContext ctx = new RuleContext();
+        ctx.setReport(new Report());
+        ctx.setLanguageVersion(JavaCorpus.JAVA);
+        for (int i = 0; i < roots.size(); i++) {
+            ctx.setSourceCodeFile(files.get(i));
+            visitor.visitAll(Collections.singletonList(roots.get(i)), ctx);
+        }
+        return ctx.getReport();
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RuleSetLoader;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.RuleReference;
+import net.sourceforge.pmd.lang.rule.XPathRule;
+import net.sourceforge.pmd.lang.rule.xpath.SaxonXPathRuleQuery;
+
+/**
+ * Time to evaluate the query of an XPath rule of the standard categories
+ * on a corpus with {@link SaxonXPathRuleQuery#evaluate(Node, RuleContext)}.
+ * As when applied by the rule chain, the query is evaluated on the nodes
+ * it visits, or on the root if it can't use the rule chain. The Saxon trees
+ * of the files are built by the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class XPathBenchmark {
+
+    @Param("100")
+    public int fileCount;
+
+    /** Reference of the rule, as in a ruleset. */
+    @Param({
+        "category/java/bestpractices.xml/AvoidPrintStackTrace",
+        "category/java/codestyle.xml/UselessParentheses",
+        "category/java/design.xml/CollapsibleIfStatements",
+        "category/java/errorprone.xml/EmptyCatchBlock",
+    })
+    public String rule;
+
+    private SaxonXPathRuleQuery query;
+    private List<Node> nodes;
+    private RuleContext ctx;
+
+    @Setup
+    public void setUp() {
+        int lastSlash = rule.lastIndexOf('/');
+        Rule loaded = new RuleSetLoader().warnDeprecated(false)
+                                         .loadFromResource(rule.substring(0, lastSlash))
+                                         .getRuleByName(rule.substring(lastSlash + 1));
+        while (loaded instanceof RuleReference) {
+            loaded = ((RuleReference) loaded).getRule();
+        }
+        XPathRule xpathRule = (XPathRule) loaded;
+
+        query = new SaxonXPathRuleQuery();
+        query.setXPath(xpathRule.getXPathExpression());
+        query.setVersion(xpathRule.getVersion().getXmlName());
+        query.setProperties(xpathRule.getPropertiesByPropertyDescriptor());
+
+        ctx = new RuleContext();
+        ctx.setLanguageVersion(JavaCorpus.JAVA);
+        List<Node> roots = JavaCorpus.generate(fileCount).parse(true);
+        for (Node root : roots) {
+            // compiles the query and builds the Saxon tree
+            query.evaluate(root, ctx);
+        }
+
+        List<String> visits = query.getRuleChainVisits();
+        if (visits.isEmpty()) {
+            nodes = roots;
+        } else {
+            nodes = new ArrayList<>();
+            for (Node root : roots) {
+                collectNodes(root, visits, nodes);
+            }
+        }
+    }
+
+    private static void collectNodes(Node node, List<String> names, List<Node> result) {
+        if (names.contains(node.getXPathNodeName())) {
+            result.add(node);
+        }
+        for (int i = 0; i < node.getNumChildren(); i++) {
+            collectNodes(node.getChild(i), names, result);
+        }
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        for (Node node : nodes) {
+            blackhole.consume(query.evaluate(node, ctx));
+        }
+    }
+}
@@ -9,6 +9,9 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
@@ -23,6 +26,11 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.benchmark.CsvRuleProfileRenderer;
+import net.sourceforge.pmd.benchmark.JsonRuleProfileRenderer;
+import net.sourceforge.pmd.benchmark.RuleProfile;
+import net.sourceforge.pmd.benchmark.RuleProfileRenderer;
+import net.sourceforge.pmd.benchmark.RuleProfiler;
 import net.sourceforge.pmd.benchmark.TextTimingReportRenderer;
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
@@ -43,6 +51,7 @@ import net.sourceforge.pmd.lang.document.FileCollector;
 import net.sourceforge.pmd.processor.AbstractPMDProcessor;
 import net.sourceforge.pmd.processor.MonoThreadProcessor;
 import net.sourceforge.pmd.processor.MultiThreadProcessor;
+import net.sourceforge.pmd.processor.WorkStealingProcessor;
 import net.sourceforge.pmd.renderers.Renderer;
 import net.sourceforge.pmd.util.database.DBMSMetadata;
 import net.sourceforge.pmd.util.database.DBURI;
@@ -252,13 +261,14 @@ public class PMD {
                 return pmd.getReporter().numErrors() > 0 ? -1 : 0;
             }
             try {
-                Report report = pmd.performAnalysisAndCollectReport();
+                // only the counts are needed, the renderers see the violations
+                ReportStats stats = pmd.performAnalysisAndCollectStats();
 
-                if (!report.getProcessingErrors().isEmpty()) {
-                    printErrorDetected(report.getProcessingErrors().size());
+                if (stats.getNumErrors() > 0) {
+                    printErrorDetected(stats.getNumErrors());
                 }
 
-                return report.getViolations().size();
+                return stats.getNumViolations();
             } catch (Exception e) {
                 pmd.getReporter().errorEx("Exception during processing", e);
                 printErrorDetected(1);
@@ -386,7 +396,11 @@ public class PMD {
      * "-threads 0" command line option.
      */
     private static AbstractPMDProcessor newFileProcessor(final PMDConfiguration configuration) {
-        return configuration.getThreads() > 0 ? new MultiThreadProcessor(configuration) : new MonoThreadProcessor(configuration);
+        if (configuration.getThreads() <= 0) {
+            return new MonoThreadProcessor(configuration);
+        }
+        return configuration.isWorkStealing() ? new WorkStealingProcessor(configuration)
+                                              : new MultiThreadProcessor(configuration);
     }
 
     /**
@@ -495,6 +509,11 @@ public class PMD {
         if (configuration.isBenchmark()) {
             TimeTracker.startGlobalTracking();
         }
+        RuleProfiler profiler = null;
+        if (configuration.getProfileFile() != null) {
+            profiler = new RuleProfiler(configuration.getProfileSlowestCount());
+            TimeTracker.addListener(profiler);
+        }
 
         final Level logLevel = configuration.isDebug() ? Level.FINER : Level.INFO;
         final ScopedLogHandlersManager logHandlerManager = new ScopedLogHandlersManager(logLevel, new ConsoleHandler());
@@ -534,10 +553,25 @@ public class PMD {
                     System.err.println(e.getMessage());
                 }
             }
+            if (profiler != null) {
+                TimeTracker.removeListener(profiler);
+                writeProfile(profiler.getProfile(), configuration.getProfileFile());
+            }
         }
         return status;
     }
 
+    private static void writeProfile(RuleProfile profile, Path file) {
+        final RuleProfileRenderer renderer = file.toString().endsWith(".csv")
+            ? new CsvRuleProfileRenderer()
+            : new JsonRuleProfileRenderer();
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            renderer.render(profile, writer);
+        } catch (final IOException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+
     /**
      * Represents status codes that are used as exit codes during CLI runs.
      *
@@ -18,8 +18,11 @@ import java.util.Properties;
 
 import org.apache.commons.lang3.StringUtils;
 
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.benchmark.RuleProfiler;
 import net.sourceforge.pmd.cache.AnalysisCache;
 import net.sourceforge.pmd.cache.FileAnalysisCache;
+import net.sourceforge.pmd.cache.IndexedFileAnalysisCache;
 import net.sourceforge.pmd.cache.NoopAnalysisCache;
 import net.sourceforge.pmd.cli.PmdParametersParseResult;
 import net.sourceforge.pmd.internal.util.AssertionUtil;
@@ -99,7 +102,11 @@ public class PMDConfiguration extends AbstractConfiguration {
     // General behavior options
     private String suppressMarker = DEFAULT_SUPPRESS_MARKER;
     private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean workStealing;
+    private long fileTimeBudget;
+    private long ruleTimeBudget;
     private ClassLoader classLoader = getClass().getClassLoader();
+    private File auxClasspathIndexDirectory;
     private LanguageVersionDiscoverer languageVersionDiscoverer = new LanguageVersionDiscoverer();
     private LanguageVersion forceLanguageVersion;
 
@@ -124,6 +131,8 @@ public class PMDConfiguration extends AbstractConfiguration {
     private boolean stressTest;
     @Deprecated
     private boolean benchmark;
+    private Path profileFile;
+    private int profileSlowestCount = RuleProfiler.DEFAULT_SLOWEST_COUNT;
     private AnalysisCache analysisCache = new NoopAnalysisCache();
     private boolean ignoreIncrementalAnalysis;
 
@@ -166,6 +175,78 @@ public class PMDConfiguration extends AbstractConfiguration {
         this.threads = threads;
     }
 
+    /**
+     * Returns whether files are scheduled onto a work-stealing pool with
+     * a bounded number of files in flight, largest files first. This is
+     * only relevant if {@link #getThreads()} is positive. Defaults to
+     * {@code false}.
+     *
+     * @return {@code true} if the work-stealing scheduler is used
+     */
+    public boolean isWorkStealing() {
+        return workStealing;
+    }
+
+    /**
+     * Sets whether files should be scheduled onto a work-stealing pool
+     * with a bounded number of files in flight, largest files first.
+     *
+     * @param workStealing Whether to use the work-stealing scheduler
+     *
+     * @see #isWorkStealing()
+     */
+    public void setWorkStealing(boolean workStealing) {
+        this.workStealing = workStealing;
+    }
+
+    /**
+     * Returns the time allowed for the analysis of a file, in milliseconds.
+     * When it is exceeded, the remaining rules are skipped for that file,
+     * and a processing error is reported. The budget is checked between
+     * rules and while rules visit the nodes, so a file may take somewhat
+     * longer. Zero, the default, means no limit.
+     *
+     * @return The time budget of a file in milliseconds
+     */
+    public long getFileTimeBudget() {
+        return fileTimeBudget;
+    }
+
+    /**
+     * Sets the time allowed for the analysis of a file, in milliseconds.
+     *
+     * @param fileTimeBudget The time budget of a file, zero for no limit
+     *
+     * @see #getFileTimeBudget()
+     */
+    public void setFileTimeBudget(long fileTimeBudget) {
+        this.fileTimeBudget = fileTimeBudget;
+    }
+
+    /**
+     * Returns the time allowed for a single rule on a file, in milliseconds.
+     * When it is exceeded, the rule is stopped for that file, and a
+     * processing error is reported. Zero, the default, means no limit.
+     *
+     * @return The time budget of a rule in milliseconds
+     *
+     * @see #getFileTimeBudget()
+     */
+    public long getRuleTimeBudget() {
+        return ruleTimeBudget;
+    }
+
+    /**
+     * Sets the time allowed for a single rule on a file, in milliseconds.
+     *
+     * @param ruleTimeBudget The time budget of a rule, zero for no limit
+     *
+     * @see #getRuleTimeBudget()
+     */
+    public void setRuleTimeBudget(long ruleTimeBudget) {
+        this.ruleTimeBudget = ruleTimeBudget;
+    }
+
     /**
      * Get the ClassLoader being used by PMD when processing Rules.
      *
@@ -240,7 +321,9 @@ public class PMDConfiguration extends AbstractConfiguration {
                 classLoader = PMDConfiguration.class.getClassLoader();
             }
             if (classpath != null) {
-                classLoader = new ClasspathClassLoader(classpath, classLoader);
+                ClasspathClassLoader auxClasspathLoader = new ClasspathClassLoader(classpath, classLoader);
+                auxClasspathLoader.setIndexDirectory(auxClasspathIndexDirectory);
+                classLoader = auxClasspathLoader;
             }
         } catch (IOException e) {
             // Note: IOExceptions shouldn't appear anymore, they should already be converted
@@ -249,6 +332,35 @@ public class PMDConfiguration extends AbstractConfiguration {
         }
     }
 
+    /**
+     * Returns the directory in which the index of the classes of the
+     * auxclasspath is stored, or null if it is not persisted.
+     *
+     * @see #setAuxClasspathIndexDirectory(File)
+     */
+    public File getAuxClasspathIndexDirectory() {
+        return auxClasspathIndexDirectory;
+    }
+
+    /**
+     * Sets the directory in which the index of the classes of the
+     * auxclasspath is stored. Each jar of the auxclasspath is indexed
+     * once, and the index is reused by later runs as long as the
+     * fingerprint of the jar doesn't change. The directory may be
+     * shared by runs with different auxclasspaths.
+     *
+     * <p>This applies to the auxclasspath set by {@link #prependAuxClasspath(String)},
+     * before or after this call.
+     *
+     * @param directory The directory, or null to not persist the index
+     */
+    public void setAuxClasspathIndexDirectory(File directory) {
+        this.auxClasspathIndexDirectory = directory;
+        if (classLoader instanceof ClasspathClassLoader) {
+            ((ClasspathClassLoader) classLoader).setIndexDirectory(directory);
+        }
+    }
+
     /**
      * Get the LanguageVersionDiscoverer, used to determine the LanguageVersion
      * of a source file.
@@ -833,6 +945,59 @@ public class PMDConfiguration extends AbstractConfiguration {
         this.benchmark = benchmark;
     }
 
+    /**
+     * Returns the file to which the cost of every rule on every file is
+     * written upon completion, or null if the rules are not profiled.
+     * The file is written as CSV if its name ends with {@code .csv},
+     * and as JSON otherwise.
+     *
+     * @return The profile file, may be null
+     *
+     * @see RuleProfiler
+     */
+    @Experimental
+    public Path getProfileFile() {
+        return profileFile;
+    }
+
+    /**
+     * Sets the file to which the cost of every rule on every file is
+     * written upon completion. If null, the rules are not profiled.
+     *
+     * @param profileFile The profile file, may be null
+     *
+     * @see #getProfileFile()
+     */
+    @Experimental
+    public void setProfileFile(Path profileFile) {
+        this.profileFile = profileFile;
+    }
+
+    /**
+     * Returns the number of slowest applications of a rule to a file
+     * written to the {@linkplain #getProfileFile() profile file}.
+     * Defaults to {@value RuleProfiler#DEFAULT_SLOWEST_COUNT}.
+     *
+     * @return The number of slowest files
+     */
+    @Experimental
+    public int getProfileSlowestCount() {
+        return profileSlowestCount;
+    }
+
+    /**
+     * Sets the number of slowest applications of a rule to a file
+     * written to the {@linkplain #getProfileFile() profile file}.
+     *
+     * @param profileSlowestCount The number of slowest files
+     *
+     * @see #getProfileSlowestCount()
+     */
+    @Experimental
+    public void setProfileSlowestCount(int profileSlowestCount) {
+        this.profileSlowestCount = profileSlowestCount;
+    }
+
     /**
      * Whether PMD should exit with status 4 (the default behavior, true) if
      * violations are found or just with 0 (to not break the build, e.g.).
@@ -917,6 +1082,23 @@ public class PMDConfiguration extends AbstractConfiguration {
                                  : new FileAnalysisCache(new File(cacheLocation)));
     }
 
+    /**
+     * Sets the location of an indexed analysis cache. Contrary to
+     * {@link #setAnalysisCacheLocation(String)}, the given file only holds
+     * an index, which is read into memory. The results are stored in a second
+     * file next to it, suffixed with {@code .data}, or {@code .<n>.data} once
+     * it was rewritten. That data file is memory-mapped, so the results of each
+     * file are only read when that file is analysed. Persisting the cache only
+     * writes the results of the files that changed.
+     *
+     * @param cacheLocation The location of the index of the analysis cache to be used.
+     */
+    public void setIndexedAnalysisCacheLocation(final String cacheLocation) {
+        setAnalysisCache(cacheLocation == null
+                                 ? new NoopAnalysisCache()
+                                 : new IndexedFileAnalysisCache(new File(cacheLocation)));
+    }
+
 
     /**
      * Sets whether the user has explicitly disabled incremental analysis or not.
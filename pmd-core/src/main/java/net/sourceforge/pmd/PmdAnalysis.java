@@ -26,6 +26,8 @@ import net.sourceforge.pmd.lang.document.FileCollector;
 import net.sourceforge.pmd.processor.AbstractPMDProcessor;
 import net.sourceforge.pmd.processor.MonoThreadProcessor;
 import net.sourceforge.pmd.processor.MultiThreadProcessor;
+import net.sourceforge.pmd.processor.WorkStealingProcessor;
+import net.sourceforge.pmd.renderers.AbstractAccumulatingRenderer;
 import net.sourceforge.pmd.renderers.Renderer;
 import net.sourceforge.pmd.util.ClasspathClassLoader;
 import net.sourceforge.pmd.util.IOUtil;
@@ -214,11 +216,13 @@ public final class PmdAnalysis implements AutoCloseable {
      * Run PMD with the current state of this instance. This will start
      * and finish the registered renderers. All files collected in the
      * {@linkplain #files() file collector} are processed. This does not
-     * return a report, for compatibility with PMD 7. Note that this does
-     * not throw, errors are instead accumulated into a {@link MessageReporter}.
+     * return a report, for compatibility with PMD 7, so the violations
+     * are not retained once they were passed to the renderers. Note that
+     * this does not throw, errors are instead accumulated into a
+     * {@link MessageReporter}.
      */
     public void performAnalysis() {
-        performAnalysisAndCollectReport();
+        performAnalysisImpl(Report.newStreamingReport());
     }
 
     /**
@@ -230,11 +234,36 @@ public final class PmdAnalysis implements AutoCloseable {
      */
     // TODO PMD 7 @DeprecatedUntil700
     public Report performAnalysisAndCollectReport() {
+        return performAnalysisImpl(new Report());
+    }
+
+    /**
+     * Run PMD with the current state of this instance, without retaining
+     * the violations in a global report. Violations are passed to the
+     * registered renderers file by file, and only their number is kept.
+     * This keeps the memory usage independent of the number of violations,
+     * provided the renderers don't accumulate violations themselves (see
+     * {@link net.sourceforge.pmd.renderers.AbstractIncrementingRenderer}).
+     * Note that this does not throw, errors are instead accumulated into
+     * a {@link MessageReporter}.
+     *
+     * @return The number of violations and errors found
+     */
+    public ReportStats performAnalysisAndCollectStats() {
+        for (Renderer renderer : renderers) {
+            if (renderer instanceof AbstractAccumulatingRenderer) {
+                reporter.trace("Renderer {0} accumulates all violations in memory", renderer.getName());
+            }
+        }
+        return performAnalysisImpl(Report.newStreamingReport()).getStats();
+    }
+
+    private Report performAnalysisImpl(Report globalReport) {
         try (FileCollector files = collector) {
             files.filterLanguages(getApplicableLanguages());
             List<DataSource> dataSources = FileCollectionUtil.collectorToDataSource(files);
             startRenderers();
-            Report report = performAnalysisImpl(dataSources);
+            Report report = performAnalysisImpl(dataSources, globalReport);
             finishRenderers();
             return report;
         }
@@ -242,9 +271,12 @@ public final class PmdAnalysis implements AutoCloseable {
 
 
     Report performAnalysisImpl(List<DataSource> sortedFiles) {
+        return performAnalysisImpl(sortedFiles, new Report());
+    }
+
+    private Report performAnalysisImpl(List<DataSource> sortedFiles, Report report) {
         try (TimedOperation ignored = TimeTracker.startOperation(TimedOperationCategory.FILE_PROCESSING)) {
             PMD.encourageToUseIncrementalAnalysis(configuration);
-            Report report = new Report();
             report.addListener(configuration.getAnalysisCache());
 
             RuleContext ctx = new RuleContext();
@@ -301,8 +333,11 @@ public final class PmdAnalysis implements AutoCloseable {
 
 
     private static AbstractPMDProcessor newFileProcessor(final PMDConfiguration configuration) {
-        return configuration.getThreads() > 0 ? new MultiThreadProcessor(configuration)
-                                              : new MonoThreadProcessor(configuration);
+        if (configuration.getThreads() <= 0) {
+            return new MonoThreadProcessor(configuration);
+        }
+        return configuration.isWorkStealing() ? new WorkStealingProcessor(configuration)
+                                              : new MultiThreadProcessor(configuration);
     }
 
     public MessageReporter getReporter() {
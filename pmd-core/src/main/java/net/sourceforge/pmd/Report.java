@@ -68,6 +68,11 @@ public class Report implements Iterable<RuleViolation> {
     private long end;
     private final List<SuppressedViolation> suppressedRuleViolations = new ArrayList<>();
 
+    // if false, merged violations are only counted, see #newStreamingReport
+    private final boolean retainMergedViolations;
+    private int numMergedViolations;
+    private int numMergedSuppressedViolations;
+
     /**
      * @deprecated {@link Report} instances are created by PMD. There is no need
      * to create a own report. This constructor will be hidden
@@ -75,8 +80,25 @@ public class Report implements Iterable<RuleViolation> {
      */
     @Deprecated
     @InternalApi
-    public Report() { // NOPMD - UnnecessaryConstructor
+    public Report() {
         // TODO: should be package-private, you have to use a listener to build a report.
+        this(true);
+    }
+
+    private Report(boolean retainMergedViolations) {
+        this.retainMergedViolations = retainMergedViolations;
+    }
+
+    /**
+     * Creates a global report, that doesn't retain the violations of the
+     * per-file reports {@linkplain #merge(Report) merged} into it. Only
+     * processing errors, configuration errors and metrics are kept, violations
+     * and suppressed violations are only counted (see {@link #getStats()}).
+     * The violations are still available to the renderers, which receive
+     * the per-file reports.
+     */
+    static Report newStreamingReport() {
+        return new Report(false);
     }
 
     /**
@@ -451,8 +473,14 @@ public class Report implements Iterable<RuleViolation> {
             errors.addAll(r.errors);
             configErrors.addAll(r.configErrors);
             metrics.addAll(r.metrics);
-            suppressedRuleViolations.addAll(r.suppressedRuleViolations);
 
+            if (!retainMergedViolations) {
+                numMergedViolations += r.violations.size();
+                numMergedSuppressedViolations += r.suppressedRuleViolations.size();
+                return;
+            }
+
+            suppressedRuleViolations.addAll(r.suppressedRuleViolations);
             for (RuleViolation violation : r.getViolations()) {
                 int index = Collections.binarySearch(violations, violation, RuleViolation.DEFAULT_COMPARATOR);
                 violations.add(index < 0 ? -index - 1 : index, violation);
@@ -461,6 +489,22 @@ public class Report implements Iterable<RuleViolation> {
         }
     }
 
+    /**
+     * Returns the number of violations and errors of this report. This
+     * includes the violations that were merged into a report created
+     * with {@link #newStreamingReport()}, even though those are not
+     * available through {@link #getViolations()}.
+     *
+     * @return A snapshot of the counters of this report
+     */
+    public ReportStats getStats() {
+        synchronized (lock) {
+            return new ReportStats(violations.size() + numMergedViolations,
+                                   suppressedRuleViolations.size() + numMergedSuppressedViolations,
+                                   errors.size());
+        }
+    }
+
     /**
      * Check whether any metrics have been reported
      *
@@ -0,0 +1,56 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd;
+
+/**
+ * Summary of the number of violations and errors found during an
+ * analysis. This is what {@link PmdAnalysis#performAnalysisAndCollectStats()}
+ * returns, instead of a full {@link Report}.
+ *
+ * @see Report#getStats()
+ */
+public final class ReportStats {
+
+    private final int numViolations;
+    private final int numSuppressedViolations;
+    private final int numErrors;
+
+    ReportStats(int numViolations, int numSuppressedViolations, int numErrors) {
+        this.numViolations = numViolations;
+        this.numSuppressedViolations = numSuppressedViolations;
+        this.numErrors = numErrors;
+    }
+
+    /**
+     * Returns the number of reported (non-suppressed) violations.
+     */
+    public int getNumViolations() {
+        return numViolations;
+    }
+
+    /**
+     * Returns the number of violations that were suppressed, eg by
+     * a NOPMD comment or an annotation.
+     */
+    public int getNumSuppressedViolations() {
+        return numSuppressedViolations;
+    }
+
+    /**
+     * Returns the number of processing errors.
+     */
+    public int getNumErrors() {
+        return numErrors;
+    }
+
+    @Override
+    public String toString() {
+        return "ReportStats{"
+            + "numViolations=" + numViolations
+            + ", numSuppressedViolations=" + numSuppressedViolations
+            + ", numErrors=" + numErrors
+            + '}';
+    }
+}
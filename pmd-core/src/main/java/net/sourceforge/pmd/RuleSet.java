@@ -10,8 +10,10 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.logging.Level;
@@ -28,7 +30,11 @@ import net.sourceforge.pmd.cache.ChecksumAware;
 import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.AbstractFusedRuleVisitor;
+import net.sourceforge.pmd.lang.rule.FusableRule;
 import net.sourceforge.pmd.lang.rule.RuleReference;
+import net.sourceforge.pmd.lang.rule.TimeBudget;
+import net.sourceforge.pmd.lang.rule.TimeBudgetExceededException;
 import net.sourceforge.pmd.lang.rule.XPathRule;
 import net.sourceforge.pmd.util.filter.Filter;
 import net.sourceforge.pmd.util.filter.Filters;
@@ -662,12 +668,37 @@ public class RuleSet implements ChecksumAware {
     @InternalApi
     public void apply(List<? extends Node> acuList, RuleContext ctx) {
         try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.RULE)) {
+            final TimeBudget budget = TimeBudget.current();
+            // fusable rules are applied together, in a single traversal per visitor
+            Map<AbstractFusedRuleVisitor, List<Rule>> fusedRules = new LinkedHashMap<>();
             for (Rule rule : rules) {
                 if (!rule.isRuleChain() && applies(rule, ctx.getLanguageVersion())) {
+                    AbstractFusedRuleVisitor fusedVisitor = getFusedRuleVisitor(rule);
+                    if (fusedVisitor != null) {
+                        List<Rule> fused = fusedRules.get(fusedVisitor);
+                        if (fused == null) {
+                            fused = new ArrayList<>();
+                            fusedRules.put(fusedVisitor, fused);
+                        }
+                        fused.add(rule);
+                        continue;
+                    }
 
+                    if (budget != null && budget.isFileExhausted(ctx)) {
+                        return;
+                    }
                     try (TimedOperation rto = TimeTracker.startOperation(TimedOperationCategory.RULE, rule.getName())) {
                         ctx.setCurrentRule(rule);
-                        rule.apply(acuList, ctx);
+                        if (budget != null) {
+                            budget.startRule(rule.getName());
+                            rule.apply(acuList, ctx);
+                            // the rule can't be stopped, but its timing is reported
+                            budget.checkNow();
+                        } else {
+                            rule.apply(acuList, ctx);
+                        }
+                    } catch (TimeBudgetExceededException e) {
+                        budget.report(ctx, e);
                     } catch (RuntimeException e) {
                         if (ctx.isIgnoreExceptions()) {
                             ctx.getReport().addError(new Report.ProcessingError(e, String.valueOf(ctx.getSourceCodeFile())));
@@ -681,10 +712,27 @@ public class RuleSet implements ChecksumAware {
                         }
                     } finally {
                         ctx.setCurrentRule(null);
+                        if (budget != null) {
+                            budget.finishRule();
+                        }
                     }
                 }
             }
+            for (Map.Entry<AbstractFusedRuleVisitor, List<Rule>> entry : fusedRules.entrySet()) {
+                if (budget != null && budget.isFileExhausted(ctx)) {
+                    return;
+                }
+                entry.getKey().apply(acuList, entry.getValue(), ctx);
+            }
+        }
+    }
+
+    private static AbstractFusedRuleVisitor getFusedRuleVisitor(Rule rule) {
+        Rule actualRule = rule;
+        while (actualRule instanceof RuleReference) {
+            actualRule = ((RuleReference) actualRule).getRule();
         }
+        return actualRule instanceof FusableRule ? ((FusableRule) actualRule).getFusedRuleVisitor() : null;
     }
 
     /**
@@ -25,6 +25,7 @@ import net.sourceforge.pmd.lang.Parser;
 import net.sourceforge.pmd.lang.VisitorStarter;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.ParseException;
+import net.sourceforge.pmd.lang.rule.TimeBudget;
 import net.sourceforge.pmd.lang.xpath.Initializer;
 
 /**
@@ -94,10 +95,26 @@ public class SourceCodeProcessor {
 
         // Coarse check to see if any RuleSet applies to file, will need to do a finer RuleSet specific check later
         if (ruleSets.applies(ctx.getSourceCodeFile())) {
-            if (isCacheUpToDate(ctx)) {
-                reportCachedRuleViolations(ctx);
-            } else {
-                processSourceCodeWithoutCache(sourceCode, ruleSets, ctx);
+            final String fileName = String.valueOf(ctx.getSourceCodeFile());
+            TimeTracker.startFile(fileName);
+            try {
+                if (isCacheUpToDate(ctx)) {
+                    reportCachedRuleViolations(ctx);
+                } else {
+                    TimeBudget.startFile(fileName, configuration.getFileTimeBudget(), configuration.getRuleTimeBudget());
+                    try {
+                        processSourceCodeWithoutCache(sourceCode, ruleSets, ctx);
+                    } finally {
+                        TimeBudget budget = TimeBudget.current();
+                        if (budget != null && budget.isExceeded()) {
+                            // the results are incomplete, don't cache them
+                            configuration.getAnalysisCache().analysisFailed(ctx.getSourceCodeFile());
+                        }
+                        TimeBudget.finishFile();
+                    }
+                }
+            } finally {
+                TimeTracker.finishFile(fileName);
             }
         }
     }
@@ -19,6 +19,7 @@ import org.apache.tools.ant.types.Path;
 import net.sourceforge.pmd.PMDConfiguration;
 import net.sourceforge.pmd.PmdAnalysis;
 import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.ReportStats;
 import net.sourceforge.pmd.RulePriority;
 import net.sourceforge.pmd.RuleSetLoader;
 import net.sourceforge.pmd.ant.Formatter;
@@ -100,7 +101,7 @@ public class PMDTaskImpl {
         // don't let PmdAnalysis.create create rulesets itself.
         configuration.setRuleSets(Collections.<String>emptyList());
 
-        Report report;
+        ReportStats stats;
         try (PmdAnalysis pmd = PmdAnalysis.create(configuration)) {
             RuleSetLoader rulesetLoader =
                 pmd.newRuleSetLoader().loadResourcesWith(setupResourceLoader());
@@ -126,14 +127,14 @@ public class PMDTaskImpl {
 
             pmd.addRenderer(getLogRenderer(StringUtils.join(fullInputPath, ",")));
 
-            report = pmd.performAnalysisAndCollectReport();
+            stats = pmd.performAnalysisAndCollectStats();
             if (failOnError && pmd.getReporter().numErrors() > 0) {
                 throw new BuildException("Some errors occurred while running PMD");
             }
 
         }
 
-        int problemCount = report.getViolations().size();
+        int problemCount = stats.getNumViolations();
         project.log(problemCount + " problems found", Project.MSG_VERBOSE);
 
         if (failuresPropertyName != null && problemCount > 0) {
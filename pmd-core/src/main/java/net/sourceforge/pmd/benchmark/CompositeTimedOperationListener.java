@@ -0,0 +1,95 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forwards the operations to several listeners.
+ */
+final class CompositeTimedOperationListener implements TimedOperationListener {
+
+    private final TimedOperationListener[] listeners;
+
+    CompositeTimedOperationListener(List<TimedOperationListener> listeners) {
+        this.listeners = listeners.toArray(new TimedOperationListener[0]);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        for (TimedOperationListener listener : listeners) {
+            if (listener.isEnabled()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void fileStarted(String fileName) {
+        for (TimedOperationListener listener : listeners) {
+            listener.fileStarted(fileName);
+        }
+    }
+
+    @Override
+    public void fileFinished(String fileName) {
+        for (TimedOperationListener listener : listeners) {
+            listener.fileFinished(fileName);
+        }
+    }
+
+    @Override
+    public TimedOperation operationStarted(TimedOperationCategory category, String label) {
+        List<TimedOperation> operations = null;
+        TimedOperation single = null;
+        for (TimedOperationListener listener : listeners) {
+            TimedOperation operation = listener.operationStarted(category, label);
+            if (operation == null) {
+                continue;
+            }
+            if (single == null) {
+                single = operation;
+            } else {
+                if (operations == null) {
+                    operations = new ArrayList<>(listeners.length);
+                    operations.add(single);
+                }
+                operations.add(operation);
+            }
+        }
+        return operations == null ? single : new CompositeTimedOperation(operations);
+    }
+
+    @Override
+    public void operationRecorded(TimedOperationCategory category, String label, long nanos, long extraDataCounter) {
+        for (TimedOperationListener listener : listeners) {
+            listener.operationRecorded(category, label, nanos, extraDataCounter);
+        }
+    }
+
+    private static final class CompositeTimedOperation implements TimedOperation {
+
+        private final List<TimedOperation> operations;
+
+        CompositeTimedOperation(List<TimedOperation> operations) {
+            this.operations = operations;
+        }
+
+        @Override
+        public void close() {
+            close(0);
+        }
+
+        @Override
+        public void close(int extraDataCounter) {
+            // in the reverse order, as if the operations were nested
+            for (int i = operations.size() - 1; i >= 0; i--) {
+                operations.get(i).close(extraDataCounter);
+            }
+        }
+    }
+}
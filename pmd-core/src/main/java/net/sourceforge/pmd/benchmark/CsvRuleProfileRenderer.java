@@ -0,0 +1,94 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.benchmark.RuleProfile.FileCost;
+import net.sourceforge.pmd.benchmark.RuleProfile.RuleCost;
+
+/**
+ * Renders a {@link RuleProfile} as CSV. Every row has the same columns:
+ * the rows of kind {@code rule} are the costs of a rule on all the files,
+ * the rows of kind {@code slowest} are the slowest applications of a rule
+ * to a file, and have no percentiles. Durations are in milliseconds. The
+ * allocations that were not measured are left empty.
+ */
+@Experimental
+public class CsvRuleProfileRenderer implements RuleProfileRenderer {
+
+    private static final String HEADER = "kind,rule,file,files,totalMillis,p50Millis,p99Millis,maxMillis,"
+        + "allocatedBytes,p50AllocatedBytes,p99AllocatedBytes,nodes";
+
+    @Override
+    public void render(final RuleProfile profile, final Writer writer) throws IOException {
+        writer.write(HEADER);
+        writer.write(PMD.EOL);
+
+        for (final RuleCost cost : profile.getRuleCosts()) {
+            writer.write("rule,");
+            writer.write(quote(cost.getRule()));
+            writer.write(",,");
+            writer.write(String.valueOf(cost.getFileCount()));
+            writer.write(',');
+            writer.write(millis(cost.getTotalNanos()));
+            writer.write(',');
+            writer.write(millis(cost.getP50Nanos()));
+            writer.write(',');
+            writer.write(millis(cost.getP99Nanos()));
+            writer.write(',');
+            writer.write(millis(cost.getMaxNanos()));
+            writer.write(',');
+            writer.write(bytes(cost.getAllocatedBytes()));
+            writer.write(',');
+            writer.write(bytes(cost.getP50AllocatedBytes()));
+            writer.write(',');
+            writer.write(bytes(cost.getP99AllocatedBytes()));
+            writer.write(',');
+            writer.write(String.valueOf(cost.getNodeCount()));
+            writer.write(PMD.EOL);
+        }
+
+        for (final FileCost cost : profile.getSlowestFiles()) {
+            writer.write("slowest,");
+            writer.write(quote(cost.getRule()));
+            writer.write(',');
+            writer.write(quote(cost.getFileName()));
+            writer.write(",1,");
+            final String millis = millis(cost.getNanos());
+            writer.write(millis);
+            writer.write(",,,");
+            writer.write(millis);
+            writer.write(',');
+            writer.write(bytes(cost.getAllocatedBytes()));
+            writer.write(",,,");
+            writer.write(String.valueOf(cost.getNodeCount()));
+            writer.write(PMD.EOL);
+        }
+        writer.flush();
+    }
+
+    private static String millis(final long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000000.0);
+    }
+
+    private static String bytes(final long bytes) {
+        return bytes < 0 ? "" : String.valueOf(bytes);
+    }
+
+    private static String quote(final String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
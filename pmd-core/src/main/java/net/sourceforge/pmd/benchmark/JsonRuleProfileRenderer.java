@@ -0,0 +1,67 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.benchmark.RuleProfile.FileCost;
+import net.sourceforge.pmd.benchmark.RuleProfile.RuleCost;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Renders a {@link RuleProfile} as a JSON object, with the arrays
+ * {@code rules} and {@code slowest}. Durations are in milliseconds.
+ * The allocations that were not measured are omitted.
+ */
+@Experimental
+public class JsonRuleProfileRenderer implements RuleProfileRenderer {
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    @Override
+    public void render(final RuleProfile profile, final Writer writer) throws IOException {
+        final JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.setIndent("  ");
+
+        jsonWriter.beginObject();
+        jsonWriter.name("rules").beginArray();
+        for (final RuleCost cost : profile.getRuleCosts()) {
+            jsonWriter.beginObject();
+            jsonWriter.name("rule").value(cost.getRule());
+            jsonWriter.name("files").value(cost.getFileCount());
+            jsonWriter.name("totalMillis").value(cost.getTotalNanos() / NANOS_PER_MILLI);
+            jsonWriter.name("p50Millis").value(cost.getP50Nanos() / NANOS_PER_MILLI);
+            jsonWriter.name("p99Millis").value(cost.getP99Nanos() / NANOS_PER_MILLI);
+            jsonWriter.name("maxMillis").value(cost.getMaxNanos() / NANOS_PER_MILLI);
+            if (cost.getAllocatedBytes() >= 0) {
+                jsonWriter.name("allocatedBytes").value(cost.getAllocatedBytes());
+                jsonWriter.name("p50AllocatedBytes").value(cost.getP50AllocatedBytes());
+                jsonWriter.name("p99AllocatedBytes").value(cost.getP99AllocatedBytes());
+            }
+            jsonWriter.name("nodes").value(cost.getNodeCount());
+            jsonWriter.endObject();
+        }
+        jsonWriter.endArray();
+
+        jsonWriter.name("slowest").beginArray();
+        for (final FileCost cost : profile.getSlowestFiles()) {
+            jsonWriter.beginObject();
+            jsonWriter.name("rule").value(cost.getRule());
+            jsonWriter.name("file").value(cost.getFileName());
+            jsonWriter.name("millis").value(cost.getNanos() / NANOS_PER_MILLI);
+            if (cost.getAllocatedBytes() >= 0) {
+                jsonWriter.name("allocatedBytes").value(cost.getAllocatedBytes());
+            }
+            jsonWriter.name("nodes").value(cost.getNodeCount());
+            jsonWriter.endObject();
+        }
+        jsonWriter.endArray();
+        jsonWriter.endObject();
+        jsonWriter.flush();
+    }
+}
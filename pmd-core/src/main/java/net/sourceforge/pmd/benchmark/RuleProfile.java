@@ -0,0 +1,168 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+
+import net.sourceforge.pmd.annotation.Experimental;
+
+/**
+ * The costs of the rules measured by a {@link RuleProfiler}. Durations
+ * are in nanoseconds. Allocations are in bytes, and are -1 if they were
+ * not measured, eg because the JVM doesn't support it.
+ */
+@Experimental
+public class RuleProfile {
+
+    private final List<RuleCost> ruleCosts;
+    private final List<FileCost> slowestFiles;
+
+    /* package */ RuleProfile(final List<RuleCost> ruleCosts, final List<FileCost> slowestFiles) {
+        this.ruleCosts = Collections.unmodifiableList(ruleCosts);
+        this.slowestFiles = Collections.unmodifiableList(slowestFiles);
+    }
+
+    /**
+     * Returns the costs of every rule, the most costly rules first.
+     */
+    public List<RuleCost> getRuleCosts() {
+        return ruleCosts;
+    }
+
+    /**
+     * Returns the costs of the slowest applications of a rule to a file,
+     * the slowest first.
+     */
+    public List<FileCost> getSlowestFiles() {
+        return slowestFiles;
+    }
+
+    /**
+     * The cost of a rule on all the files. The percentiles are computed
+     * over the files, and are approximated within 1/8 of their value.
+     */
+    public static final class RuleCost {
+        private final String rule;
+        private final long fileCount;
+        private final long totalNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+        private final long allocatedBytes;
+        private final long p50AllocatedBytes;
+        private final long p99AllocatedBytes;
+        private final long nodeCount;
+
+        /* package */ RuleCost(String rule, long fileCount, long totalNanos, long p50Nanos, long p99Nanos, long maxNanos,
+                               long allocatedBytes, long p50AllocatedBytes, long p99AllocatedBytes, long nodeCount) {
+            this.rule = rule;
+            this.fileCount = fileCount;
+            this.totalNanos = totalNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.p50AllocatedBytes = p50AllocatedBytes;
+            this.p99AllocatedBytes = p99AllocatedBytes;
+            this.nodeCount = nodeCount;
+        }
+
+        public String getRule() {
+            return rule;
+        }
+
+        /**
+         * Returns the number of times the rule was applied, usually
+         * the number of files.
+         */
+        public long getFileCount() {
+            return fileCount;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public long getP50AllocatedBytes() {
+            return p50AllocatedBytes;
+        }
+
+        public long getP99AllocatedBytes() {
+            return p99AllocatedBytes;
+        }
+
+        /**
+         * Returns the number of nodes visited by the rule, if it uses
+         * the rule chain, otherwise 0.
+         */
+        public long getNodeCount() {
+            return nodeCount;
+        }
+    }
+
+    /**
+     * The cost of a rule on a single file.
+     */
+    public static final class FileCost {
+        private final String rule;
+        private final String fileName;
+        private final long nanos;
+        private final long allocatedBytes;
+        private final long nodeCount;
+
+        /* package */ FileCost(String rule, String fileName, long nanos, long allocatedBytes, long nodeCount) {
+            this.rule = rule;
+            this.fileName = fileName;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+            this.nodeCount = nodeCount;
+        }
+
+        public String getRule() {
+            return rule;
+        }
+
+        /**
+         * Returns the name of the file, or null if the rule was not
+         * applied during the analysis of a file.
+         */
+        public String getFileName() {
+            return fileName;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /**
+         * Returns the number of nodes visited by the rule, if it uses
+         * the rule chain, otherwise 0.
+         */
+        public long getNodeCount() {
+            return nodeCount;
+        }
+    }
+}
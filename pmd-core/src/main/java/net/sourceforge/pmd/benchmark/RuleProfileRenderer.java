@@ -0,0 +1,25 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import net.sourceforge.pmd.annotation.Experimental;
+
+/**
+ * Defines a renderer for {@link RuleProfile}.
+ */
+@Experimental
+public interface RuleProfileRenderer {
+
+    /**
+     * Renders the given profile into the given writer.
+     * @param profile The profile to render
+     * @param writer The writer on which to render
+     * @throws IOException if the write operation fails
+     */
+    void render(RuleProfile profile, Writer writer) throws IOException;
+}
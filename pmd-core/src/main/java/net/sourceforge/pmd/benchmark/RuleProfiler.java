@@ -0,0 +1,242 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.management.ThreadMXBean;
+
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.benchmark.RuleProfile.FileCost;
+import net.sourceforge.pmd.benchmark.RuleProfile.RuleCost;
+
+/**
+ * Measures the cost of every rule on every file. Contrary to the
+ * {@link TimingReport}, which only sums the durations of each rule, this
+ * keeps the distribution of the costs over the files, the memory allocated
+ * by the rules, and the slowest applications of a rule to a file. This
+ * allows to find the rules which are slow on some files only.
+ *
+ * <p>The profiler is registered with {@link TimeTracker#addListener(TimedOperationListener)}
+ * for the duration of an analysis, then {@link #getProfile()} returns the
+ * results. Allocations are measured with the {@link ThreadMXBean} of
+ * HotSpot based JVMs, they are not measured for the rules which are
+ * applied together in a single traversal.
+ */
+@Experimental
+public class RuleProfiler implements TimedOperationListener {
+
+    /** Default number of slowest applications of a rule to a file that are kept. */
+    public static final int DEFAULT_SLOWEST_COUNT = 20;
+
+    private static final ThreadMXBean ALLOCATIONS = getAllocationBean();
+
+    private static final Comparator<FileCost> BY_NANOS = new Comparator<FileCost>() {
+        @Override
+        public int compare(FileCost o1, FileCost o2) {
+            return Long.compare(o1.getNanos(), o2.getNanos());
+        }
+    };
+
+    private final int slowestCount;
+    private final ConcurrentMap<String, RuleStats> stats = new ConcurrentHashMap<>();
+    private final ThreadLocal<String> currentFile = new ThreadLocal<>();
+    /** The slowest costs, the fastest of them first. Guarded by itself. */
+    private final PriorityQueue<FileCost> slowest;
+    /** Duration under which a cost is not one of the slowest. */
+    private volatile long slowestThreshold = -1;
+
+    /**
+     * Creates a profiler.
+     *
+     * @param slowestCount Number of slowest applications of a rule to a file to keep
+     */
+    public RuleProfiler(final int slowestCount) {
+        if (slowestCount < 0) {
+            throw new IllegalArgumentException("Negative count of slowest files: " + slowestCount);
+        }
+        this.slowestCount = slowestCount;
+        this.slowest = new PriorityQueue<>(Math.max(1, slowestCount + 1), BY_NANOS);
+    }
+
+    public RuleProfiler() {
+        this(DEFAULT_SLOWEST_COUNT);
+    }
+
+    private static ThreadMXBean getAllocationBean() {
+        try {
+            final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof ThreadMXBean) {
+                final ThreadMXBean hotspotBean = (ThreadMXBean) bean;
+                if (hotspotBean.isThreadAllocatedMemorySupported() && hotspotBean.isThreadAllocatedMemoryEnabled()) {
+                    return hotspotBean;
+                }
+            }
+        } catch (LinkageError | UnsupportedOperationException e) {
+            // not a HotSpot based JVM
+        }
+        return null;
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATIONS == null ? -1 : ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static boolean isRule(final TimedOperationCategory category, final String label) {
+        // the unlabeled operations span all the rules of a file
+        return label != null
+            && (category == TimedOperationCategory.RULE || category == TimedOperationCategory.RULECHAIN_RULE);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void fileStarted(final String fileName) {
+        currentFile.set(fileName);
+    }
+
+    @Override
+    public void fileFinished(final String fileName) {
+        currentFile.remove();
+    }
+
+    @Override
+    public TimedOperation operationStarted(final TimedOperationCategory category, final String label) {
+        return isRule(category, label) ? new ProfiledOperation(label) : null;
+    }
+
+    @Override
+    public void operationRecorded(final TimedOperationCategory category, final String label,
+                                  final long nanos, final long extraDataCounter) {
+        if (isRule(category, label)) {
+            record(label, nanos, -1, extraDataCounter);
+        }
+    }
+
+    private void record(final String rule, final long nanos, final long allocatedBytes, final long nodeCount) {
+        RuleStats ruleStats = stats.get(rule);
+        if (ruleStats == null) {
+            stats.putIfAbsent(rule, new RuleStats());
+            ruleStats = stats.get(rule);
+        }
+        ruleStats.record(nanos, allocatedBytes, nodeCount);
+
+        if (nanos > slowestThreshold && slowestCount > 0) {
+            synchronized (slowest) {
+                slowest.add(new FileCost(rule, currentFile.get(), nanos, allocatedBytes, nodeCount));
+                if (slowest.size() > slowestCount) {
+                    slowest.poll();
+                }
+                if (slowest.size() == slowestCount) {
+                    slowestThreshold = slowest.peek().getNanos();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the costs measured so far.
+     */
+    public RuleProfile getProfile() {
+        final List<RuleCost> ruleCosts = new ArrayList<>(stats.size());
+        for (final Map.Entry<String, RuleStats> entry : stats.entrySet()) {
+            ruleCosts.add(entry.getValue().toRuleCost(entry.getKey()));
+        }
+        Collections.sort(ruleCosts, new Comparator<RuleCost>() {
+            @Override
+            public int compare(RuleCost o1, RuleCost o2) {
+                return Long.compare(o2.getTotalNanos(), o1.getTotalNanos());
+            }
+        });
+
+        final List<FileCost> slowestFiles;
+        synchronized (slowest) {
+            slowestFiles = new ArrayList<>(slowest);
+        }
+        Collections.sort(slowestFiles, Collections.reverseOrder(BY_NANOS));
+
+        return new RuleProfile(ruleCosts, slowestFiles);
+    }
+
+    /**
+     * The costs of a rule measured so far.
+     */
+    private static final class RuleStats {
+        private final CostHistogram nanos = new CostHistogram();
+        private final CostHistogram allocatedBytes = new CostHistogram();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong totalAllocatedBytes = new AtomicLong();
+        private final AtomicLong nodeCount = new AtomicLong();
+
+        void record(final long duration, final long allocated, final long nodes) {
+            nanos.record(duration);
+            totalNanos.addAndGet(duration);
+            long max = maxNanos.get();
+            while (duration > max && !maxNanos.compareAndSet(max, duration)) {
+                max = maxNanos.get();
+            }
+            if (allocated >= 0) {
+                allocatedBytes.record(allocated);
+                totalAllocatedBytes.addAndGet(allocated);
+            }
+            nodeCount.addAndGet(nodes);
+        }
+
+        RuleCost toRuleCost(final String rule) {
+            final boolean allocationsMeasured = allocatedBytes.getCount() > 0;
+            return new RuleCost(rule, nanos.getCount(), totalNanos.get(),
+                                nanos.getPercentile(50), nanos.getPercentile(99), maxNanos.get(),
+                                allocationsMeasured ? totalAllocatedBytes.get() : -1,
+                                allocationsMeasured ? allocatedBytes.getPercentile(50) : -1,
+                                allocationsMeasured ? allocatedBytes.getPercentile(99) : -1,
+                                nodeCount.get());
+        }
+    }
+
+    /**
+     * The application of a rule to the current file.
+     */
+    private final class ProfiledOperation implements TimedOperation {
+        private final String rule;
+        private final long startNanos;
+        private final long startAllocatedBytes;
+        private boolean closed;
+
+        ProfiledOperation(final String rule) {
+            this.rule = rule;
+            this.startAllocatedBytes = allocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            close(0);
+        }
+
+        @Override
+        public void close(final int extraDataCounter) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            final long duration = System.nanoTime() - startNanos;
+            final long allocated = startAllocatedBytes < 0 ? -1 : allocatedBytes() - startAllocatedBytes;
+            record(rule, duration, allocated, extraDataCounter);
+        }
+    }
+}
@@ -4,19 +4,30 @@
 
 package net.sourceforge.pmd.benchmark;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import net.sourceforge.pmd.annotation.InternalApi;
+
 /**
  * A time tracker class to measure time spent on different sections of PMD analysis.
  * The class is thread-aware, allowing to differentiate CPU and wall clock time.
  *
+ * <p>The operations are also reported to the {@link TimedOperationListener}
+ * found on the classpath, if any, and to the added listeners, even if time
+ * is not tracked.
+ *
  * @author Juan Martín Sotuyo Dodero
  */
 public final class TimeTracker {
@@ -25,6 +36,11 @@ public final class TimeTracker {
     private static long wallClockStartMillis = -1;
     private static final ThreadLocal<Queue<TimerEntry>> TIMER_ENTRIES;
     private static final ConcurrentMap<TimedOperationKey, TimedResult> ACCUMULATED_RESULTS = new ConcurrentHashMap<>();
+    private static final TimedOperationListener SERVICE_LISTENER = loadListener();
+    /** Listeners added with {@link #addListener(TimedOperationListener)}, guarded by the class. */
+    private static final List<TimedOperationListener> ADDED_LISTENERS = new ArrayList<>();
+    /** The listener notified of the operations, null if there is none. */
+    private static volatile TimedOperationListener listener = SERVICE_LISTENER;
     private static final TimedOperation NOOP_TIMED_OPERATION = new TimedOperation() {
 
         @Override
@@ -51,6 +67,56 @@ public final class TimeTracker {
         throw new AssertionError("Can't instantiate utility class");
     }
 
+    private static TimedOperationListener loadListener() {
+        try {
+            Iterator<TimedOperationListener> listeners
+                = ServiceLoader.load(TimedOperationListener.class, TimeTracker.class.getClassLoader()).iterator();
+            return listeners.hasNext() ? listeners.next() : null;
+        } catch (ServiceConfigurationError | LinkageError e) {
+            // eg the listener needs a more recent JVM
+            return null;
+        }
+    }
+
+    /**
+     * Adds a listener, which is notified of the operations of all threads
+     * until it's removed.
+     *
+     * @param added The listener
+     */
+    @InternalApi
+    public static synchronized void addListener(final TimedOperationListener added) {
+        ADDED_LISTENERS.add(Objects.requireNonNull(added));
+        updateListener();
+    }
+
+    /**
+     * Removes a listener added with {@link #addListener(TimedOperationListener)}.
+     * The listener may still be notified of the operations that are running.
+     *
+     * @param removed The listener
+     */
+    @InternalApi
+    public static synchronized void removeListener(final TimedOperationListener removed) {
+        ADDED_LISTENERS.remove(removed);
+        updateListener();
+    }
+
+    private static void updateListener() {
+        final List<TimedOperationListener> listeners = new ArrayList<>();
+        if (SERVICE_LISTENER != null) {
+            listeners.add(SERVICE_LISTENER);
+        }
+        listeners.addAll(ADDED_LISTENERS);
+        if (listeners.isEmpty()) {
+            listener = null;
+        } else if (listeners.size() == 1) {
+            listener = listeners.get(0);
+        } else {
+            listener = new CompositeTimedOperationListener(listeners);
+        }
+    }
+
     /**
      * Starts global tracking. Allows tracking operations to take place and starts the wall clock.
      * Must be called once PMD starts if tracking is desired, no tracking will be performed otherwise.
@@ -126,12 +192,104 @@ public final class TimeTracker {
      * @return The current timed operation being tracked.
      */
     public static TimedOperation startOperation(final TimedOperationCategory category, final String label) {
+        final TimedOperationListener currentListener = listener;
+        final TimedOperation listenedOperation = currentListener == null ? null : currentListener.operationStarted(category, label);
         if (!trackTime) {
-            return NOOP_TIMED_OPERATION;
+            return listenedOperation == null ? NOOP_TIMED_OPERATION : listenedOperation;
         }
 
         TIMER_ENTRIES.get().add(new TimerEntry(category, label));
-        return new TimedOperationImpl();
+        return new TimedOperationImpl(listenedOperation);
+    }
+
+    /**
+     * Notifies the listeners, if any, that the current thread starts
+     * analysing the given file.
+     *
+     * @param fileName Name of the file
+     */
+    @InternalApi
+    public static void startFile(final String fileName) {
+        final TimedOperationListener currentListener = listener;
+        if (currentListener != null) {
+            currentListener.fileStarted(fileName);
+        }
+    }
+
+    /**
+     * Notifies the listeners, if any, that the current thread has
+     * finished analysing the given file.
+     *
+     * @param fileName Name of the file
+     */
+    @InternalApi
+    public static void finishFile(final String fileName) {
+        final TimedOperationListener currentListener = listener;
+        if (currentListener != null) {
+            currentListener.fileFinished(fileName);
+        }
+    }
+
+    /**
+     * Returns whether operations are currently tracked. If not, all
+     * operations are treated as NOOP.
+     */
+    @InternalApi
+    public static boolean isTrackingTime() {
+        return trackTime;
+    }
+
+    /**
+     * Returns whether the operations measured by callers, and passed to
+     * {@link #recordOperation(TimedOperationCategory, String, long, long)},
+     * are currently used, either to track time or by a listener.
+     * If not, callers shouldn't bother measuring them.
+     */
+    @InternalApi
+    public static boolean isRecordingOperations() {
+        final TimedOperationListener currentListener = listener;
+        return trackTime || currentListener != null && currentListener.isEnabled();
+    }
+
+    /**
+     * Records an operation, whose duration has been measured by the caller.
+     * This allows to track operations that are interleaved with others, and
+     * would be too short to be tracked one by one. The operation is counted
+     * as a single call, nested in the current operation.
+     *
+     * @param category         The category under which to track the operation.
+     * @param label            A label to be added to the category.
+     * @param nanos            The duration of the operation
+     * @param extraDataCounter An optional additional data counter to track along the measurements.
+     */
+    @InternalApi
+    public static void recordOperation(final TimedOperationCategory category, final String label,
+                                       final long nanos, final long extraDataCounter) {
+        final TimedOperationListener currentListener = listener;
+        if (currentListener != null) {
+            currentListener.operationRecorded(category, label, nanos, extraDataCounter);
+        }
+        if (!trackTime) {
+            return;
+        }
+
+        final TimedResult result = getResult(new TimedOperationKey(category, label));
+        result.accumulate(nanos, nanos, extraDataCounter);
+
+        final Queue<TimerEntry> queue = TIMER_ENTRIES.get();
+        if (!queue.isEmpty()) {
+            queue.peek().inNestedOperationsNanos += nanos;
+        }
+    }
+
+    private static TimedResult getResult(final TimedOperationKey operation) {
+        // Compute if absent
+        TimedResult result = ACCUMULATED_RESULTS.get(operation);
+        if (result == null) {
+            ACCUMULATED_RESULTS.putIfAbsent(operation, new TimedResult());
+            result = ACCUMULATED_RESULTS.get(operation);
+        }
+        return result;
     }
 
     /**
@@ -147,13 +305,7 @@ public final class TimeTracker {
 
         final Queue<TimerEntry> queue = TIMER_ENTRIES.get();
         final TimerEntry timerEntry = queue.remove();
-
-        // Compute if absent
-        TimedResult result = ACCUMULATED_RESULTS.get(timerEntry.operation);
-        if (result == null) {
-            ACCUMULATED_RESULTS.putIfAbsent(timerEntry.operation, new TimedResult());
-            result = ACCUMULATED_RESULTS.get(timerEntry.operation);
-        }
+        final TimedResult result = getResult(timerEntry.operation);
 
         // Update counters and let next element on the stack ignore the time we spent
         final long delta = result.accumulate(timerEntry, extraDataCounter);
@@ -198,13 +350,15 @@ public final class TimeTracker {
          */
         /* package */ long accumulate(final TimerEntry timerEntry, final long extraData) {
             final long delta = System.nanoTime() - timerEntry.start;
+            accumulate(delta, delta - timerEntry.inNestedOperationsNanos, extraData);
+            return delta;
+        }
 
-            totalTimeNanos.getAndAdd(delta);
-            selfTimeNanos.getAndAdd(delta - timerEntry.inNestedOperationsNanos);
+        /* package */ void accumulate(final long totalNanos, final long selfNanos, final long extraData) {
+            totalTimeNanos.getAndAdd(totalNanos);
+            selfTimeNanos.getAndAdd(selfNanos);
             callCount.getAndIncrement();
             extraDataCounter.getAndAdd(extraData);
-
-            return delta;
         }
 
         /**
@@ -266,8 +420,13 @@ public final class TimeTracker {
      * A standard timed operation implementation.
      */
     private static class TimedOperationImpl implements TimedOperation {
+        private final TimedOperation listenedOperation;
         private boolean closed = false;
 
+        TimedOperationImpl(final TimedOperation listenedOperation) {
+            this.listenedOperation = listenedOperation;
+        }
+
         @Override
         public void close() {
             close(0);
@@ -281,6 +440,9 @@ public final class TimeTracker {
 
             closed = true;
             TimeTracker.finishOperation(extraDataCounter);
+            if (listenedOperation != null) {
+                listenedOperation.close(extraDataCounter);
+            }
         }
     }
 }
@@ -0,0 +1,69 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import net.sourceforge.pmd.annotation.Experimental;
+
+/**
+ * Receives the operations tracked by the {@link TimeTracker}, whether
+ * the benchmark report is enabled or not. This allows to report them
+ * to an external profiler, eg the JDK Flight Recorder, during normal runs.
+ *
+ * <p>An implementation is found with a {@link java.util.ServiceLoader}:
+ * the first one on the classpath is used. Others may be registered for
+ * a run with {@link TimeTracker#addListener(TimedOperationListener)}.
+ * Listeners are called for every tracked operation, from all the analysis
+ * threads, so they must be thread-safe, and do as little as possible when
+ * they're not interested in the operations.
+ */
+@Experimental
+public interface TimedOperationListener {
+
+    /**
+     * Returns true if the listener is currently interested in the
+     * operations. If not, the operations whose duration is measured
+     * by the caller, see {@link #operationRecorded(TimedOperationCategory, String, long, long)},
+     * are not measured at all.
+     */
+    boolean isEnabled();
+
+    /**
+     * Called when the current thread starts analysing a file.
+     * The operations started until {@link #fileFinished(String)}
+     * is called on the same thread are about this file.
+     *
+     * @param fileName Name of the file
+     */
+    void fileStarted(String fileName);
+
+    /**
+     * Called when the current thread has finished analysing a file.
+     *
+     * @param fileName Name of the file
+     */
+    void fileFinished(String fileName);
+
+    /**
+     * Called when an operation starts on the current thread.
+     *
+     * @param category The category of the operation
+     * @param label    The label of the operation, eg the name of a rule (nullable)
+     *
+     * @return The operation, which is closed on the same thread when it finishes.
+     *     Null if the listener is not interested in it.
+     */
+    TimedOperation operationStarted(TimedOperationCategory category, String label);
+
+    /**
+     * Called when an operation has been measured by the caller, eg
+     * because it's interleaved with other operations.
+     *
+     * @param category         The category of the operation
+     * @param label            The label of the operation (nullable)
+     * @param nanos            The duration of the operation
+     * @param extraDataCounter An optional additional data counter, eg a number of nodes
+     */
+    void operationRecorded(TimedOperationCategory category, String label, long nanos, long extraDataCounter);
+}
@@ -71,7 +71,7 @@ public abstract class AbstractAnalysisCache implements AnalysisCache {
             updatedResultsCache.put(sourceFile.getPath(), updatedResult);
 
             // Now check the old cache
-            final AnalysisResult analysisResult = fileResultsCache.get(sourceFile.getPath());
+            final AnalysisResult analysisResult = getCachedResult(sourceFile.getPath());
 
             // is this a known file? has it changed?
             final boolean result = analysisResult != null
@@ -92,7 +92,7 @@ public abstract class AbstractAnalysisCache implements AnalysisCache {
 
     @Override
     public List<RuleViolation> getCachedViolations(final File sourceFile) {
-        final AnalysisResult analysisResult = fileResultsCache.get(sourceFile.getPath());
+        final AnalysisResult analysisResult = getCachedResult(sourceFile.getPath());
 
         if (analysisResult == null) {
             // new file, avoid nulls
@@ -108,6 +108,25 @@ public abstract class AbstractAnalysisCache implements AnalysisCache {
     }
 
 
+    /**
+     * Returns the result of the previous analysis of the given file,
+     * or null if there is none. By default, looks up the results loaded
+     * into {@link #fileResultsCache}.
+     *
+     * @param path The path of the file
+     */
+    protected AnalysisResult getCachedResult(final String path) {
+        return fileResultsCache.get(path);
+    }
+
+    /**
+     * Discards the results of the previous analysis, because the cache
+     * was found to be invalid. By default, clears {@link #fileResultsCache}.
+     */
+    protected void invalidateCachedResults() {
+        fileResultsCache.clear();
+    }
+
     /**
      * Returns true if the cache exists. If so, normal cache validity checks
      * will be performed. Otherwise, the cache is necessarily invalid (e.g. on a first run).
@@ -154,7 +173,7 @@ public abstract class AbstractAnalysisCache implements AnalysisCache {
 
             if (!cacheIsValid) {
                 // Clear the cache
-                fileResultsCache.clear();
+                invalidateCachedResults();
             }
 
             // Update the local checksums
@@ -0,0 +1,596 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.RuleViolation;
+import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperation;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+
+/**
+ * An analysis cache stored in an index file and a memory-mapped data file,
+ * which is read lazily. Contrary to {@link FileAnalysisCache}, opening the
+ * cache doesn't deserialize any violation, and persisting it only writes
+ * the results of the files that were actually analysed.
+ *
+ * <ul>
+ * <li>The data file is an append-only sequence of records. A record
+ * contains the path of a file, its checksum and its violations. Records of
+ * files that changed are appended, the records of unchanged files are kept
+ * as is. When more than half of the data file is made of records that are
+ * not referenced anymore, the live records are copied to a new data file.
+ * <li>The index file (the configured cache file) contains the checksums
+ * of the cache, the generation of the data file, and an open-addressing
+ * hash table keyed by the hash of the file path. Each slot holds the
+ * checksum of the file and the position of its record in the data file,
+ * so that a lookup is O(1) and only the record of the looked up file is
+ * deserialized. The index is small, it is read at once.
+ * </ul>
+ *
+ * <p>A mapped file can neither be replaced nor truncated on Windows, and
+ * a mapping can't be released explicitly. So the mapped data file is only
+ * ever appended to: a data file that is rewritten gets a new generation
+ * number, i.e. a new name ({@code <cache>.data}, {@code <cache>.1.data}, ...),
+ * and the index, which is not mapped, is replaced to point to it. Data
+ * files of previous generations are deleted once they are not mapped anymore.
+ *
+ * @deprecated This is internal API, will be hidden with 7.0.0
+ */
+@Deprecated
+@InternalApi
+public class IndexedFileAnalysisCache extends AbstractAnalysisCache {
+
+    private static final int MAGIC = 0x504D4449; // "PMDI"
+    private static final int FORMAT_VERSION = 2;
+
+    // hash (long), file checksum (long), record offset (long), record length (int)
+    private static final int SLOT_SIZE = 8 + 8 + 8 + 4;
+    private static final int MIN_CAPACITY = 16;
+
+    /** The data file is not compacted below this size. */
+    private static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+
+    private final File indexFile;
+    private final long minCompactionSize;
+
+    // Only set if a valid index was loaded. Both buffers are only read with absolute
+    // operations or through duplicates, and are never modified, so they can be shared
+    // between analysis threads.
+    private ByteBuffer index;
+    private ByteBuffer data;
+    private int slotsStart;
+    private int capacity;
+    /** Generation of the data file of the loaded index, or -1. */
+    private int dataGeneration = -1;
+
+    /**
+     * Creates a new cache backed by the given file. The records are
+     * stored in sibling files, with the same name, suffixed with {@code .data}.
+     *
+     * @param cache The file on which to store the index of the analysis cache
+     */
+    public IndexedFileAnalysisCache(final File cache) {
+        this(cache, MIN_COMPACTION_SIZE);
+    }
+
+    IndexedFileAnalysisCache(final File cache, final long minCompactionSize) {
+        super();
+        this.indexFile = cache;
+        this.minCompactionSize = minCompactionSize;
+    }
+
+    /**
+     * Returns the data file of the given generation.
+     */
+    File getDataFile(final int generation) {
+        return generation == 0 ? new File(indexFile.getPath() + ".data")
+                               : new File(indexFile.getPath() + "." + generation + ".data");
+    }
+
+    @Override
+    public void checkValidity(RuleSets ruleSets, ClassLoader auxclassPathClassLoader) {
+        // load the index before checking for validity
+        loadIndex();
+        super.checkValidity(ruleSets, auxclassPathClassLoader);
+    }
+
+    private void loadIndex() {
+        try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.ANALYSIS_CACHE, "load")) {
+            if (indexFile.isDirectory()) {
+                LOG.severe("The configured cache location must be the path to a file, but is a directory.");
+                return;
+            } else if (!indexFile.isFile() || indexFile.length() == 0) {
+                return;
+            }
+
+            try {
+                final ByteBuffer indexBuffer = readFully(indexFile.toPath());
+
+                if (indexBuffer.getInt() != MAGIC || indexBuffer.getInt() != FORMAT_VERSION) {
+                    LOG.info("Analysis cache invalidated, unknown cache format.");
+                    return;
+                }
+                final String cacheVersion = readUTF(indexBuffer);
+                if (!PMDVersion.VERSION.equals(cacheVersion)) {
+                    LOG.info("Analysis cache invalidated, PMD version changed.");
+                    return;
+                }
+
+                final long storedRulesetChecksum = indexBuffer.getLong();
+                final long storedAuxClassPathChecksum = indexBuffer.getLong();
+                final long storedExecutionClassPathChecksum = indexBuffer.getLong();
+                final int storedDataGeneration = indexBuffer.getInt();
+                final long dataLength = indexBuffer.getLong();
+                final int storedCapacity = indexBuffer.getInt();
+                final File dataFile = getDataFile(storedDataGeneration);
+
+                if (storedDataGeneration < 0
+                    || Integer.bitCount(storedCapacity) != 1
+                    || indexBuffer.remaining() < (long) storedCapacity * SLOT_SIZE
+                    || dataLength > Integer.MAX_VALUE // larger files can't be mapped at once
+                    || !dataFile.isFile()
+                    || dataFile.length() < dataLength) {
+                    LOG.warning("Cache file " + indexFile.getPath() + " is malformed, will not be used for current analysis");
+                    return;
+                }
+
+                try (FileChannel dataChannel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ)) {
+                    data = dataChannel.map(MapMode.READ_ONLY, 0, dataLength);
+                }
+                rulesetChecksum = storedRulesetChecksum;
+                auxClassPathChecksum = storedAuxClassPathChecksum;
+                executionClassPathChecksum = storedExecutionClassPathChecksum;
+                slotsStart = indexBuffer.position();
+                capacity = storedCapacity;
+                dataGeneration = storedDataGeneration;
+                index = indexBuffer;
+
+                LOG.info("Analysis cache loaded");
+            } catch (final BufferUnderflowException e) {
+                LOG.warning("Cache file " + indexFile.getPath() + " is malformed, will not be used for current analysis");
+            } catch (final IOException e) {
+                LOG.severe("Could not load analysis cache from file. " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    protected boolean cacheExists() {
+        return index != null;
+    }
+
+    @Override
+    protected void invalidateCachedResults() {
+        super.invalidateCachedResults();
+        // the data file will be rewritten from scratch
+        index = null;
+        data = null;
+    }
+
+    @Override
+    protected AnalysisResult getCachedResult(final String path) {
+        final int slot = findSlot(path, hash(path));
+        if (slot < 0) {
+            return null;
+        }
+        return new LazyAnalysisResult(path, slotChecksum(slot), slotOffset(slot), slotLength(slot));
+    }
+
+    /**
+     * Returns the position of the slot of the given path in the index,
+     * or -1 if the path is not indexed.
+     */
+    private int findSlot(final String path, final long hash) {
+        if (index == null) {
+            return -1;
+        }
+        int i = bucket(hash, capacity);
+        for (int probes = 0; probes < capacity; probes++) {
+            final int slot = slotsStart + i * SLOT_SIZE;
+            if (slotLength(slot) == 0) {
+                // empty slot, end of the probe sequence
+                return -1;
+            }
+            if (index.getLong(slot) == hash && path.equals(readRecordPath(slotOffset(slot), slotLength(slot)))) {
+                return slot;
+            }
+            i = (i + 1) & (capacity - 1);
+        }
+        return -1;
+    }
+
+    private long slotChecksum(int slot) {
+        return index.getLong(slot + 8);
+    }
+
+    private long slotOffset(int slot) {
+        return index.getLong(slot + 16);
+    }
+
+    private int slotLength(int slot) {
+        return index.getInt(slot + 24);
+    }
+
+    private DataInputStream openRecord(final long offset, final int length) {
+        final ByteBuffer record = data.duplicate();
+        record.position((int) offset);
+        record.limit((int) offset + length);
+        return new DataInputStream(new ByteBufferInputStream(record));
+    }
+
+    private String readRecordPath(final long offset, final int length) {
+        try {
+            return openRecord(offset, length).readUTF();
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    private List<RuleViolation> readRecordViolations(final String path, final long offset, final int length) {
+        try (DataInputStream stream = openRecord(offset, length)) {
+            stream.readUTF(); // path
+            stream.readLong(); // checksum
+            final int countViolations = stream.readInt();
+            final List<RuleViolation> violations = new ArrayList<>(countViolations);
+            for (int i = 0; i < countViolations; i++) {
+                violations.add(CachedRuleViolation.loadFromStream(stream, path, ruleMapper));
+            }
+            return violations;
+        } catch (final IOException e) {
+            LOG.warning("Cache record of " + path + " is malformed, will not be used for current analysis");
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public void persist() {
+        try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.ANALYSIS_CACHE, "persist")) {
+            if (indexFile.isDirectory()) {
+                LOG.severe("Cannot persist the cache, the given path points to a directory.");
+                return;
+            }
+
+            final boolean cacheFileShouldBeCreated = !indexFile.exists();
+
+            // Create directories missing along the way
+            final File parentFile = indexFile.getAbsoluteFile().getParentFile();
+            if (parentFile != null && !parentFile.exists()) {
+                parentFile.mkdirs();
+            }
+
+            try {
+                // the mapped data file is appended to, otherwise the records are written to a new one
+                int generation = data != null ? dataGeneration : dataGeneration + 1;
+                final List<IndexEntry> entries = new ArrayList<>(updatedResultsCache.size());
+                long dataLength = appendRecords(getDataFile(generation), entries);
+
+                long liveLength = 0;
+                for (IndexEntry entry : entries) {
+                    liveLength += entry.length;
+                }
+                if (dataLength > Integer.MAX_VALUE // it couldn't be mapped by the next analysis
+                    || dataLength > minCompactionSize && liveLength * 2 < dataLength) {
+                    dataLength = compact(getDataFile(generation), getDataFile(generation + 1), entries, dataLength);
+                    generation++;
+                }
+
+                writeIndex(entries, generation, dataLength);
+                index = null;
+                data = null;
+                dataGeneration = generation;
+                deleteOtherDataFiles(generation);
+
+                if (cacheFileShouldBeCreated) {
+                    LOG.info("Analysis cache created");
+                } else {
+                    LOG.info("Analysis cache updated");
+                }
+            } catch (final IOException e) {
+                LOG.severe("Could not persist analysis cache to file. " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Appends the records of the files that changed to the data file,
+     * and collects the index entries of all files of this analysis.
+     *
+     * @return The new length of the data file
+     */
+    private long appendRecords(final File dataFile, final List<IndexEntry> entries) throws IOException {
+        final boolean append = data != null;
+        final long start = append ? data.capacity() : 0;
+        long end = start;
+
+        try (FileChannel channel = FileChannel.open(dataFile.toPath(),
+                                                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel))) {
+            if (!append) {
+                channel.truncate(0);
+            }
+            // anything that was written after the last persisted index is overwritten, or
+            // ignored, the mapped file can't be truncated
+            channel.position(start);
+
+            final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+            final DataOutputStream record = new DataOutputStream(recordBytes);
+            for (final Map.Entry<String, AnalysisResult> resultEntry : updatedResultsCache.entrySet()) {
+                final String path = resultEntry.getKey();
+                final AnalysisResult result = resultEntry.getValue();
+                final long hash = hash(path);
+
+                final int slot = append ? findSlot(path, hash) : -1;
+                if (slot >= 0 && slotChecksum(slot) == result.getFileChecksum()) {
+                    // cache hit, the previous record is still accurate
+                    entries.add(new IndexEntry(hash, result.getFileChecksum(), slotOffset(slot), slotLength(slot)));
+                    continue;
+                }
+
+                recordBytes.reset();
+                record.writeUTF(path);
+                record.writeLong(result.getFileChecksum());
+                record.writeInt(result.getViolations().size());
+                for (final RuleViolation rv : result.getViolations()) {
+                    CachedRuleViolation.storeToStream(record, rv);
+                }
+                record.flush();
+                recordBytes.writeTo(out);
+
+                entries.add(new IndexEntry(hash, result.getFileChecksum(), end, recordBytes.size()));
+                end += recordBytes.size();
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Copies the records referenced by the entries to a new data file.
+     *
+     * @return The length of the new data file
+     */
+    private long compact(final File source, final File target, final List<IndexEntry> entries,
+                         final long dataLength) throws IOException {
+        long end = 0;
+        try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                                                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (final IndexEntry entry : entries) {
+                long position = entry.offset;
+                long remaining = entry.length;
+                while (remaining > 0) {
+                    final long n = in.transferTo(position, remaining, out);
+                    if (n <= 0) {
+                        throw new IOException("Unexpected end of " + source);
+                    }
+                    position += n;
+                    remaining -= n;
+                }
+                entry.offset = end;
+                end += entry.length;
+            }
+        }
+        LOG.fine("Analysis cache compacted from " + dataLength + " to " + end + " bytes");
+        return end;
+    }
+
+    /**
+     * Deletes the data files of other generations. A file that is still
+     * mapped can't be deleted on Windows, it's deleted by a later analysis.
+     */
+    private void deleteOtherDataFiles(final int generation) {
+        final File parent = indexFile.getAbsoluteFile().getParentFile();
+        final File[] files = parent == null ? null : parent.listFiles();
+        if (files == null) {
+            return;
+        }
+        final String current = getDataFile(generation).getName();
+        for (final File file : files) {
+            if (!file.getName().equals(current) && isDataFile(file.getName())) {
+                try {
+                    Files.deleteIfExists(file.toPath());
+                } catch (final IOException e) {
+                    LOG.fine("Could not delete the old analysis cache file " + file + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** Whether the file name is the one of a data file of some generation. */
+    private boolean isDataFile(final String name) {
+        final String cacheName = indexFile.getName();
+        if (name.equals(cacheName + ".data")) {
+            return true;
+        } else if (!name.startsWith(cacheName + ".") || !name.endsWith(".data")) {
+            return false;
+        }
+        final String generation = name.substring(cacheName.length() + 1, name.length() - ".data".length());
+        for (int i = 0; i < generation.length(); i++) {
+            if (!Character.isDigit(generation.charAt(i))) {
+                return false;
+            }
+        }
+        return !generation.isEmpty();
+    }
+
+    private void writeIndex(final List<IndexEntry> entries, final int generation, final long dataLength) throws IOException {
+        int tableCapacity = MIN_CAPACITY;
+        while (tableCapacity < entries.size() * 2) {
+            tableCapacity <<= 1;
+        }
+        final IndexEntry[] table = new IndexEntry[tableCapacity];
+        for (final IndexEntry entry : entries) {
+            int i = bucket(entry.hash, tableCapacity);
+            while (table[i] != null) {
+                i = (i + 1) & (tableCapacity - 1);
+            }
+            table[i] = entry;
+        }
+
+        final Path tmp = new File(indexFile.getPath() + ".tmp").toPath();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(pmdVersion);
+
+            out.writeLong(rulesetChecksum);
+            out.writeLong(auxClassPathChecksum);
+            out.writeLong(executionClassPathChecksum);
+            out.writeInt(generation);
+            out.writeLong(dataLength);
+            out.writeInt(tableCapacity);
+
+            for (final IndexEntry entry : table) {
+                if (entry == null) {
+                    out.writeLong(0);
+                    out.writeLong(0);
+                    out.writeLong(0);
+                    out.writeInt(0);
+                } else {
+                    out.writeLong(entry.hash);
+                    out.writeLong(entry.checksum);
+                    out.writeLong(entry.offset);
+                    out.writeInt(entry.length);
+                }
+            }
+        }
+        replaceFile(tmp, indexFile.toPath());
+    }
+
+    private static void replaceFile(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** 64-bit FNV-1a hash of the path. */
+    private static long hash(final String path) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < path.length(); i++) {
+            h ^= path.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static int bucket(final long hash, final int capacity) {
+        return (int) (hash ^ hash >>> 32) & (capacity - 1);
+    }
+
+    private static ByteBuffer readFully(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File " + file + " is too large");
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    private static String readUTF(final ByteBuffer buffer) throws IOException {
+        final ByteBuffer duplicate = buffer.duplicate();
+        final DataInputStream stream = new DataInputStream(new ByteBufferInputStream(duplicate));
+        final String result = stream.readUTF();
+        buffer.position(duplicate.position());
+        return result;
+    }
+
+    private static final class IndexEntry {
+        private final long hash;
+        private final long checksum;
+        private long offset;
+        private final int length;
+
+        IndexEntry(long hash, long checksum, long offset, int length) {
+            this.hash = hash;
+            this.checksum = checksum;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * An analysis result whose violations are only deserialized when requested.
+     */
+    private final class LazyAnalysisResult extends AnalysisResult {
+        private final String path;
+        private final long offset;
+        private final int length;
+
+        LazyAnalysisResult(String path, long fileChecksum, long offset, int length) {
+            super(fileChecksum, Collections.<RuleViolation>emptyList());
+            this.path = path;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public List<RuleViolation> getViolations() {
+            return readRecordViolations(path, offset, length);
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -4,6 +4,8 @@
 
 package net.sourceforge.pmd.cli;
 
+import java.io.File;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
@@ -14,6 +16,7 @@ import net.sourceforge.pmd.PMD;
 import net.sourceforge.pmd.PMDConfiguration;
 import net.sourceforge.pmd.RulePriority;
 import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.benchmark.RuleProfiler;
 import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.lang.LanguageRegistry;
 import net.sourceforge.pmd.lang.LanguageVersion;
@@ -88,10 +91,38 @@ public class PMDParameters {
             validateWith = PositiveInteger.class)
     private int threads = 1; // see also default in PMDTask (Ant)
 
+    @Parameter(names = "--work-stealing",
+            description = "Schedule files onto a work-stealing thread pool, largest files first, "
+                    + "with a bounded number of files in flight. Only relevant if --threads is positive.")
+    private boolean workStealing = false;
+
+    @Parameter(names = "--file-time-budget",
+            description = "Time allowed for the analysis of a file, in milliseconds. When it is exceeded, "
+                    + "the remaining rules are skipped for the file and an error is reported. 0 means no limit.",
+            validateWith = PositiveInteger.class)
+    private long fileTimeBudget = 0;
+
+    @Parameter(names = "--rule-time-budget",
+            description = "Time allowed for a single rule on a file, in milliseconds. When it is exceeded, "
+                    + "the rule is stopped for the file and an error is reported. 0 means no limit.",
+            validateWith = PositiveInteger.class)
+    private long ruleTimeBudget = 0;
+
     @Parameter(names = { "--benchmark", "-benchmark", "-b" },
             description = "Benchmark mode - output a benchmark report upon completion; default to System.err.")
     private boolean benchmark = false;
 
+    @Parameter(names = "--profile",
+            description = "Writes the cost of every rule on every file to the given file upon completion: "
+                    + "percentiles of the durations and allocations, and the slowest files. "
+                    + "The format is CSV if the file name ends with .csv, JSON otherwise.")
+    private String profileFile = null;
+
+    @Parameter(names = "--profile-slowest",
+            description = "Number of slowest applications of a rule to a file written by --profile.",
+            validateWith = PositiveInteger.class)
+    private int profileSlowestCount = RuleProfiler.DEFAULT_SLOWEST_COUNT;
+
     @Parameter(names = { "--stress", "-stress", "-S" }, description = "Performs a stress test.")
     private boolean stress = false;
 
@@ -146,6 +177,12 @@ public class PMDParameters {
                     + "can be specified.")
     private String auxclasspath;
 
+    @Parameter(names = "--aux-classpath-index",
+            description = "Specify a directory in which to store an index of the classes of the jars on the auxclasspath. "
+                    + "Each jar is indexed on the first run, later runs reuse the index as long as the jar doesn't change. "
+                    + "The directory can be shared by several projects.")
+    private String auxclasspathIndex;
+
     @Parameter(names = { "--fail-on-violation", "--failOnViolation", "-failOnViolation"}, arity = 1,
             description = "By default PMD exits with status 4 if violations are found. Disable this option with '-failOnViolation false' to exit with 0 instead and just write the report.")
     private boolean failOnViolation = true;
@@ -161,6 +198,13 @@ public class PMDParameters {
                     + "with the most up-to-date rule violations.")
     private String cacheLocation = null;
 
+    @Parameter(names = "--indexed-cache",
+            description = "Use an indexed format for the cache file given with --cache. The cache file only holds an index, "
+                    + "which is read into memory. The results are stored in a second file, named like the cache file "
+                    + "with the suffix '.data', or '.<n>.data' once it was rewritten. This data file is memory-mapped: "
+                    + "only the results of the analysed files are read, and only the results of changed files are written.")
+    private boolean indexedCache = false;
+
     @Parameter(names = { "--no-cache", "-no-cache" }, description = "Explicitly disable incremental analysis. The '-cache' option is ignored if this switch is present in the command line.")
     private boolean noCache = false;
 
@@ -234,6 +278,10 @@ public class PMDParameters {
         configuration.setInputUri(this.getUri());
         configuration.setReportFormat(this.getFormat());
         configuration.setBenchmark(this.isBenchmark());
+        if (this.profileFile != null) {
+            configuration.setProfileFile(Paths.get(this.profileFile));
+        }
+        configuration.setProfileSlowestCount(this.getProfileSlowestCount());
         configuration.setDebug(this.isDebug());
         configuration.setMinimumPriority(this.getMinimumPriority());
         configuration.setReportFile(this.getReportfile());
@@ -246,8 +294,15 @@ public class PMDParameters {
         configuration.setStressTest(this.isStress());
         configuration.setSuppressMarker(this.getSuppressmarker());
         configuration.setThreads(this.getThreads());
+        configuration.setWorkStealing(this.isWorkStealing());
+        configuration.setFileTimeBudget(this.getFileTimeBudget());
+        configuration.setRuleTimeBudget(this.getRuleTimeBudget());
         configuration.setFailOnViolation(this.isFailOnViolation());
-        configuration.setAnalysisCacheLocation(this.cacheLocation);
+        if (this.indexedCache) {
+            configuration.setIndexedAnalysisCacheLocation(this.cacheLocation);
+        } else {
+            configuration.setAnalysisCacheLocation(this.cacheLocation);
+        }
         configuration.setIgnoreIncrementalAnalysis(this.isIgnoreIncrementalAnalysis());
 
         LanguageVersion forceLangVersion = LanguageRegistry
@@ -280,6 +335,9 @@ public class PMDParameters {
             configuration.getLanguageVersionDiscoverer().setDefaultLanguageVersion(langVer);
         }
 
+        if (this.auxclasspathIndex != null) {
+            configuration.setAuxClasspathIndexDirectory(new File(this.auxclasspathIndex));
+        }
         try {
             configuration.prependAuxClasspath(this.getAuxclasspath());
         } catch (IllegalArgumentException e) {
@@ -293,6 +351,18 @@ public class PMDParameters {
         return noCache;
     }
 
+    public boolean isWorkStealing() {
+        return workStealing;
+    }
+
+    public long getFileTimeBudget() {
+        return fileTimeBudget;
+    }
+
+    public long getRuleTimeBudget() {
+        return ruleTimeBudget;
+    }
+
 
     /**
      * {@link #toConfiguration()}.
@@ -327,6 +397,14 @@ public class PMDParameters {
         return benchmark;
     }
 
+    public String getProfileFile() {
+        return profileFile;
+    }
+
+    public int getProfileSlowestCount() {
+        return profileSlowestCount;
+    }
+
     public boolean isStress() {
         return stress;
     }
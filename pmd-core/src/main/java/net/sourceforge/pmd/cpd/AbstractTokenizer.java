@@ -47,8 +47,9 @@ public abstract class AbstractTokenizer implements Tokenizer {
 
     private boolean downcaseString = true;
 
+    // synchronized, as the state of the current file is kept in fields
     @Override
-    public void tokenize(SourceCode tokens, Tokens tokenEntries) {
+    public synchronized void tokenize(SourceCode tokens, Tokens tokenEntries) {
         code = tokens.getCode();
 
         for (lineNumber = 0; lineNumber < code.size(); lineNumber++) {
@@ -61,7 +61,7 @@ public class AnyTokenizer implements Tokenizer {
 
     @Override
     public void tokenize(SourceCode sourceCode, Tokens tokenEntries) {
-        CharSequence text = sourceCode.getCodeBuffer();
+        CharSequence text = sourceCode.getText();
         Matcher matcher = pattern.matcher(text);
         int lineNo = 1;
         int lastLineStart = 0;
@@ -8,7 +8,9 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -16,6 +18,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -38,6 +45,9 @@ import net.sourceforge.pmd.util.log.ScopedLogHandlersManager;
 public class CPD {
     private static final Logger LOGGER = Logger.getLogger(CPD.class.getName());
 
+    /** Number of files that may be tokenized but not yet merged, per thread. */
+    private static final int FILES_IN_FLIGHT_PER_THREAD = 4;
+
     private CPDConfiguration configuration;
 
     private Map<String, SourceCode> source = new TreeMap<>();
@@ -47,6 +57,7 @@ public class CPD {
     private Set<String> current = new HashSet<>();
     private final Map<String, Integer> numberOfTokensPerFile = new HashMap<>();
     private int lastTokenSize = 0;
+    private final List<SourceCode> pendingSources = new ArrayList<>();
 
     public CPD(CPDConfiguration theConfiguration) {
         configuration = theConfiguration;
@@ -60,10 +71,39 @@ public class CPD {
     }
 
     public void go() {
-        LOGGER.fine("Running match algorithm on " + source.size() + " files...");
-        matchAlgorithm = new MatchAlgorithm(source, tokens, configuration.getMinimumTileSize(), listener);
-        matchAlgorithm.findMatches();
-        LOGGER.fine("Finished: " + matchAlgorithm.getMatches().size() + " duplicates found");
+        ExecutorService executor = null;
+        if (isTokenizingInGo()) {
+            executor = Executors.newFixedThreadPool(Math.max(1, configuration.getThreads()));
+        }
+        try {
+            if (executor != null) {
+                TokenCache cache = null;
+                if (configuration.getCacheLocation() != null) {
+                    cache = new TokenCache(new File(configuration.getCacheLocation()), configuration);
+                }
+                tokenizeConcurrently(executor, cache);
+                if (cache != null) {
+                    cache.persist();
+                }
+            }
+            LOGGER.fine("Running match algorithm on " + source.size() + " files...");
+            matchAlgorithm = new MatchAlgorithm(source, tokens, configuration.getMinimumTileSize(), listener,
+                    configuration.getThreads() > 0 ? executor : null);
+            matchAlgorithm.findMatches();
+            LOGGER.fine("Finished: " + matchAlgorithm.getMatches().size() + " duplicates found");
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Whether the files are tokenized on worker threads when {@link #go()}
+     * is called, instead of when they are added.
+     */
+    private boolean isTokenizingInGo() {
+        return configuration.getThreads() > 0 || configuration.getCacheLocation() != null;
     }
 
     public Iterator<Match> getMatches() {
@@ -146,7 +186,10 @@ public class CPD {
 
     @Experimental
     public void add(SourceCode sourceCode) throws IOException {
-        if (configuration.isSkipLexicalErrors()) {
+        if (isTokenizingInGo()) {
+            // tokenized in go()
+            pendingSources.add(sourceCode);
+        } else if (configuration.isSkipLexicalErrors()) {
             addAndSkipLexicalErrors(sourceCode);
         } else {
             addAndThrowLexicalError(sourceCode);
@@ -156,6 +199,10 @@ public class CPD {
     private void addAndThrowLexicalError(SourceCode sourceCode) throws IOException {
         LOGGER.fine("Tokenizing " + sourceCode.getFileName());
         configuration.tokenizer().tokenize(sourceCode, tokens);
+        addedFile(sourceCode);
+    }
+
+    private void addedFile(SourceCode sourceCode) {
         listener.addedFile(1, new File(sourceCode.getFileName()));
         source.put(sourceCode.getFileName(), sourceCode);
         numberOfTokensPerFile.put(sourceCode.getFileName(), tokens.size() - lastTokenSize - 1 /*EOF*/);
@@ -172,6 +219,98 @@ public class CPD {
         }
     }
 
+    /**
+     * Tokenizes the pending sources on the executor, or loads their tokens
+     * from the cache if they didn't change. The tokens of each file are
+     * then merged on the current thread, in the order the files were added,
+     * so that the token indices and image identifiers are the same as if
+     * the files had been tokenized sequentially.
+     *
+     * @param cache Cache of the tokens, may be null
+     */
+    private void tokenizeConcurrently(ExecutorService executor, final TokenCache cache) {
+        final Tokenizer tokenizer = configuration.tokenizer();
+        final int maxFilesInFlight = Math.max(1, configuration.getThreads()) * FILES_IN_FLIGHT_PER_THREAD;
+        final Deque<Future<TokenizedFile>> inFlight = new ArrayDeque<>();
+        try {
+            for (final SourceCode sourceCode : pendingSources) {
+                if (inFlight.size() >= maxFilesInFlight) {
+                    merge(inFlight.poll().get());
+                }
+                inFlight.add(executor.submit(new Callable<TokenizedFile>() {
+                    @Override
+                    public TokenizedFile call() throws IOException {
+                        return tokenize(tokenizer, sourceCode, cache);
+                    }
+                }));
+            }
+            while (!inFlight.isEmpty()) {
+                merge(inFlight.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while tokenizing", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException("Problem while tokenizing", cause);
+        } finally {
+            pendingSources.clear();
+        }
+    }
+
+    private TokenizedFile tokenize(Tokenizer tokenizer, SourceCode sourceCode, TokenCache cache) throws IOException {
+        long checksum = -1;
+        if (cache != null) {
+            checksum = TokenCache.checksum(sourceCode);
+            final TokenizedFile cached = cache.get(sourceCode, checksum);
+            if (cached != null) {
+                LOGGER.fine("Using cached tokens of " + sourceCode.getFileName());
+                return cached;
+            }
+        }
+
+        LOGGER.fine("Tokenizing " + sourceCode.getFileName());
+        // every file starts with an empty image table on the worker thread,
+        // the identifiers are translated when merging
+        TokenEntry.clearImages();
+        final Tokens fileTokens = new Tokens();
+        try {
+            tokenizer.tokenize(sourceCode, fileTokens);
+        } catch (TokenMgrError e) {
+            if (!configuration.isSkipLexicalErrors()) {
+                throw e;
+            }
+            return new TokenizedFile(sourceCode, e);
+        }
+        final TokenizedFile file = new TokenizedFile(sourceCode, fileTokens, TokenEntry.getImages());
+        if (cache != null) {
+            cache.put(file, checksum);
+        }
+        return file;
+    }
+
+    private void merge(TokenizedFile file) {
+        if (file.error != null) {
+            System.err.println("Skipping " + file.sourceCode.getFileName() + ". Reason: " + file.error.getMessage());
+            return;
+        }
+        // register the images in the order the tokenizer first used them,
+        // which is the order a sequential run registers them
+        final int[] identifiers = new int[file.images.length];
+        for (int i = 1; i < file.images.length; i++) {
+            if (file.images[i] != null) {
+                identifiers[i] = TokenEntry.getIdentifier(file.images[i]);
+            }
+        }
+        tokens.addAll(file.tokens, identifiers);
+        addedFile(file.sourceCode);
+    }
+
     /**
      * List names/paths of each source to be processed.
      *
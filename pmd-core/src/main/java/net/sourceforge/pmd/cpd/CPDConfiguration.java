@@ -144,6 +144,17 @@ public class CPDConfiguration extends AbstractConfiguration {
     @Parameter(names = { "--debug", "--verbose", "-v", "-D" }, description = "Debug mode.")
     private boolean debug = false;
 
+    @Parameter(names = { "--threads", "-t" },
+            description = "Number of threads used to tokenize and hash the files. 0 (the default) processes all files on the main thread.",
+            required = false)
+    private int threads = 0;
+
+    @Parameter(names = "--cache",
+            description = "Specify the location of the cache file for incremental analysis. "
+                    + "Only the files that changed since the last run are tokenized again.",
+            required = false)
+    private String cacheLocation;
+
     // this has to be a public static class, so that JCommander can use it!
     public static class LanguageConverter implements IStringConverter<Language> {
 
@@ -544,6 +555,47 @@ public class CPDConfiguration extends AbstractConfiguration {
         this.failOnViolation = failOnViolation;
     }
 
+    /**
+     * Returns the number of threads used to tokenize and hash the files.
+     * If zero, all files are processed sequentially while they are added.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of threads used to tokenize and hash the files.
+     * With a positive number, the files are tokenized concurrently when
+     * {@link CPD#go()} is called and the tokenizer of the language must
+     * support concurrent use. The report is the same as with the
+     * sequential mode.
+     *
+     * @param threads Number of threads, 0 to process all files on the main thread
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Returns the location of the cache file, that stores the tokens of
+     * every file between runs. Null if no cache is used.
+     */
+    public String getCacheLocation() {
+        return cacheLocation;
+    }
+
+    /**
+     * Sets the location of the cache file. With a cache, the files are
+     * tokenized when {@link CPD#go()} is called, and only the files that
+     * changed since the last run are tokenized again. The cache is
+     * invalidated when the language or the tokenizer options change.
+     *
+     * @param cacheLocation Path of the cache file, null to disable the cache
+     */
+    public void setCacheLocation(String cacheLocation) {
+        this.cacheLocation = cacheLocation;
+    }
+
     @Override
     public boolean isDebug() {
         return debug;
@@ -5,33 +5,44 @@
 package net.sourceforge.pmd.cpd;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class MatchAlgorithm {
 
     private static final int MOD = 37;
-    private int lastHash;
     private int lastMod = 1;
 
     private List<Match> matches;
     private Map<String, SourceCode> source;
     private Tokens tokens;
-    private List<TokenEntry> code;
     private CPDListener cpdListener;
     private int min;
+    private final ExecutorService executor;
 
     public MatchAlgorithm(Map<String, SourceCode> sourceCode, Tokens tokens, int min) {
         this(sourceCode, tokens, min, new CPDNullListener());
     }
 
     public MatchAlgorithm(Map<String, SourceCode> sourceCode, Tokens tokens, int min, CPDListener listener) {
+        this(sourceCode, tokens, min, listener, null);
+    }
+
+    /**
+     * Creates a match algorithm, that computes the hashes of the files
+     * concurrently with the given executor.
+     *
+     * @param executor Executor for the hashing, if null, everything is done on the current thread
+     */
+    MatchAlgorithm(Map<String, SourceCode> sourceCode, Tokens tokens, int min, CPDListener listener, ExecutorService executor) {
+        this.executor = executor;
         this.source = sourceCode;
         this.tokens = tokens;
-        this.code = tokens.getTokens();
         this.min = min;
         this.cpdListener = listener;
         for (int i = 0; i < min; i++) {
@@ -52,7 +63,15 @@ public class MatchAlgorithm {
     }
 
     public TokenEntry tokenAt(int offset, TokenEntry m) {
-        return code.get(offset + m.getIndex());
+        return tokens.getTokens().get(offset + m.getIndex());
+    }
+
+    TokenEntry tokenAt(int index) {
+        return tokens.getTokens().get(index);
+    }
+
+    int identifierAt(int index) {
+        return tokens.getIdentifier(index);
     }
 
     public int getMinimumTileSize() {
@@ -60,21 +79,21 @@ public class MatchAlgorithm {
     }
 
     public void findMatches() {
+        tokens.flush();
+
         cpdListener.phaseUpdate(CPDListener.HASH);
-        Map<TokenEntry, Object> markGroups = hash();
+        if (executor == null) {
+            hash(0, tokens.size() - 1, true, null);
+        } else {
+            hashConcurrently();
+        }
+        MarkGroups markGroups = new MarkGroups(tokens);
+        hash(0, tokens.size() - 1, false, markGroups);
 
         cpdListener.phaseUpdate(CPDListener.MATCH);
         MatchCollector matchCollector = new MatchCollector(this);
-        for (Iterator<Object> i = markGroups.values().iterator(); i.hasNext();) {
-            Object o = i.next();
-            if (o instanceof List) {
-                @SuppressWarnings("unchecked")
-                List<TokenEntry> l = (List<TokenEntry>) o;
-                Collections.reverse(l);
-                matchCollector.collect(l);
-            }
-            i.remove();
-        }
+        markGroups.collect(matchCollector);
+
         cpdListener.phaseUpdate(CPDListener.GROUPING);
         matches = matchCollector.getMatches();
 
@@ -93,43 +112,148 @@ public class MatchAlgorithm {
         cpdListener.phaseUpdate(CPDListener.DONE);
     }
 
+    /**
+     * Computes the rolling hashes of every file as a separate task. The
+     * hashes only depend on the tokens of a file, as they are reset at every
+     * EOF token.
+     */
+    private void hashConcurrently() {
+        List<Future<?>> futures = new ArrayList<>();
+        int from = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.isEOF(i)) {
+                futures.add(submitHashing(from, i));
+                from = i + 1;
+            }
+        }
+        if (from < tokens.size()) {
+            futures.add(submitHashing(from, tokens.size() - 1));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing the tokens", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Problem while hashing the tokens", e.getCause());
+        }
+    }
+
+    private Future<?> submitHashing(final int from, final int to) {
+        return executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                hash(from, to, true, null);
+            }
+        });
+    }
+
+    /**
+     * Walks the tokens between the given indices backwards.
+     *
+     * @param from          Index of the first token (inclusive)
+     * @param to            Index of the last token (inclusive)
+     * @param computeHashes Whether to compute the hash codes of the tokens,
+     *                      otherwise they must have been computed already
+     * @param markGroups    Groups to which the tokens are added, may be null
+     */
     @SuppressWarnings("PMD.JumbledIncrementer")
-    private Map<TokenEntry, Object> hash() {
-        Map<TokenEntry, Object> markGroups = new HashMap<>(tokens.size());
-        for (int i = code.size() - 1; i >= 0; i--) {
-            TokenEntry token = code.get(i);
-            if (!TokenEntry.EOF.equals(token)) {
-                int last = tokenAt(min, token).getIdentifier();
-                lastHash = MOD * lastHash + token.getIdentifier() - lastMod * last;
-                token.setHashCode(lastHash);
-                Object o = markGroups.get(token);
-
-                // Note that this insertion method is worthwhile since the vast
-                // majority
-                // markGroup keys will have only one value.
-                if (o == null) {
-                    markGroups.put(token, token);
-                } else if (o instanceof TokenEntry) {
-                    List<TokenEntry> l = new ArrayList<>();
-                    l.add((TokenEntry) o);
-                    l.add(token);
-                    markGroups.put(token, l);
-                } else {
-                    @SuppressWarnings("unchecked")
-                    List<TokenEntry> l = (List<TokenEntry>) o;
-                    l.add(token);
+    private void hash(int from, int to, boolean computeHashes, MarkGroups markGroups) {
+        int lastHash = 0;
+        for (int i = to; i >= from; i--) {
+            if (!tokens.isEOF(i)) {
+                if (computeHashes) {
+                    int last = tokens.getIdentifier(i + min);
+                    lastHash = MOD * lastHash + tokens.getIdentifier(i) - lastMod * last;
+                    tokens.setHashCode(i, lastHash);
+                }
+                if (markGroups != null) {
+                    markGroups.add(i);
                 }
             } else {
                 lastHash = 0;
                 for (int end = Math.max(0, i - min + 1); i > end; i--) {
-                    token = code.get(i - 1);
-                    lastHash = MOD * lastHash + token.getIdentifier();
-                    if (TokenEntry.EOF.equals(token)) {
+                    lastHash = MOD * lastHash + tokens.getIdentifier(i - 1);
+                    if (tokens.isEOF(i - 1)) {
                         break;
                     }
                 }
             }
         }
-        return markGroups;
+    }
+
+    /**
+     * Groups the token indices by the hash code of the tokens. This is an
+     * open addressing hash table, that stores the index of the first token
+     * of every group. The tokens of a group are linked through {@link #next}.
+     * Contrary to a map of lists of {@link TokenEntry}, this uses no objects
+     * per token.
+     */
+    private static final class MarkGroups {
+
+        private static final int MAX_CAPACITY = 1 << 30;
+
+        private final Tokens tokens;
+        /** Index + 1 of the first token of the group, 0 for an empty slot. */
+        private final int[] heads;
+        /** Index of the next token in the same group, -1 for the last one. */
+        private final int[] next;
+        private final int mask;
+
+        MarkGroups(Tokens tokens) {
+            this.tokens = tokens;
+            // load factor of at most 0.75
+            long minCapacity = Math.max(16, tokens.size() * 4L / 3 + 1);
+            int capacity = minCapacity >= MAX_CAPACITY ? MAX_CAPACITY : Integer.highestOneBit((int) minCapacity - 1) << 1;
+            this.heads = new int[capacity];
+            this.mask = capacity - 1;
+            this.next = new int[tokens.size()];
+        }
+
+        /**
+         * Adds the token to its group. Tokens must be added in decreasing
+         * order of their index, so that each group is sorted by index.
+         */
+        void add(int index) {
+            final int hashCode = tokens.getHashCode(index);
+            int slot = mix(hashCode) & mask;
+            while (heads[slot] != 0 && tokens.getHashCode(heads[slot] - 1) != hashCode) {
+                slot = (slot + 1) & mask;
+            }
+            next[index] = heads[slot] - 1;
+            heads[slot] = index + 1;
+        }
+
+        /**
+         * Passes every group with more than one token to the collector.
+         */
+        void collect(MatchCollector collector) {
+            int[] marks = new int[16];
+            for (int head : heads) {
+                if (head == 0 || next[head - 1] < 0) {
+                    continue;
+                }
+                int count = 0;
+                for (int index = head - 1; index >= 0; index = next[index]) {
+                    if (count == marks.length) {
+                        marks = Arrays.copyOf(marks, count * 2);
+                    }
+                    marks[count++] = index;
+                }
+                collector.collect(marks, count);
+            }
+        }
+
+        private static int mix(int hashCode) {
+            // the rolling hashes are not well distributed in the low bits
+            int h = hashCode * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
     }
 }
@@ -20,12 +20,26 @@ public class MatchCollector {
     }
 
     public void collect(List<TokenEntry> marks) {
+        int[] indices = new int[marks.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = marks.get(i).getIndex();
+        }
+        collect(indices, indices.length);
+    }
+
+    /**
+     * Collects the matches between the given tokens.
+     *
+     * @param marks Indices of the tokens, sorted
+     * @param count Number of valid entries in the array
+     */
+    void collect(int[] marks, int count) {
         // first get a pairwise collection of all maximal matches
-        for (int i = 0; i < marks.size() - 1; i++) {
-            TokenEntry mark1 = marks.get(i);
-            for (int j = i + 1; j < marks.size(); j++) {
-                TokenEntry mark2 = marks.get(j);
-                int diff = mark1.getIndex() - mark2.getIndex();
+        for (int i = 0; i < count - 1; i++) {
+            int mark1 = marks[i];
+            for (int j = i + 1; j < count; j++) {
+                int mark2 = marks[j];
+                int diff = mark1 - mark2;
                 if (-diff < ma.getMinimumTileSize()) {
                     continue;
                 }
@@ -47,32 +61,32 @@ public class MatchCollector {
         }
     }
 
-    private void reportMatch(TokenEntry mark1, TokenEntry mark2, int dupes) {
+    private void reportMatch(int mark1, int mark2, int dupes) {
         Map<Integer, Match> matches = matchTree.get(dupes);
         if (matches == null) {
             matches = new TreeMap<>();
             matchTree.put(dupes, matches);
             addNewMatch(mark1, mark2, dupes, matches);
         } else {
-            Match matchA = matchTree.get(dupes).get(mark1.getIndex());
-            Match matchB = matchTree.get(dupes).get(mark2.getIndex());
+            Match matchA = matchTree.get(dupes).get(mark1);
+            Match matchB = matchTree.get(dupes).get(mark2);
 
             if (matchA == null && matchB == null) {
                 addNewMatch(mark1, mark2, dupes, matches);
             } else if (matchA == null) {
-                matchB.addTokenEntry(mark1);
-                matches.put(mark1.getIndex(), matchB);
+                matchB.addTokenEntry(ma.tokenAt(mark1));
+                matches.put(mark1, matchB);
             } else if (matchB == null) {
-                matchA.addTokenEntry(mark2);
-                matches.put(mark2.getIndex(), matchA);
+                matchA.addTokenEntry(ma.tokenAt(mark2));
+                matches.put(mark2, matchA);
             }
         }
     }
 
-    private void addNewMatch(TokenEntry mark1, TokenEntry mark2, int dupes, Map<Integer, Match> matches) {
-        Match match = new Match(dupes, mark1, mark2);
-        matches.put(mark1.getIndex(), match);
-        matches.put(mark2.getIndex(), match);
+    private void addNewMatch(int mark1, int mark2, int dupes, Map<Integer, Match> matches) {
+        Match match = new Match(dupes, ma.tokenAt(mark1), ma.tokenAt(mark2));
+        matches.put(mark1, match);
+        matches.put(mark2, match);
         matchList.add(match);
     }
 
@@ -82,24 +96,25 @@ public class MatchCollector {
         return matchList;
     }
 
-    private boolean hasPreviousDupe(TokenEntry mark1, TokenEntry mark2) {
-        if (mark1.getIndex() == 0) {
+    private boolean hasPreviousDupe(int mark1, int mark2) {
+        if (mark1 == 0) {
             return false;
         }
-        return !matchEnded(ma.tokenAt(-1, mark1), ma.tokenAt(-1, mark2));
+        return !matchEnded(mark1 - 1, mark2 - 1);
     }
 
-    private int countDuplicateTokens(TokenEntry mark1, TokenEntry mark2) {
+    private int countDuplicateTokens(int mark1, int mark2) {
         int index = 0;
-        while (!matchEnded(ma.tokenAt(index, mark1), ma.tokenAt(index, mark2))) {
+        while (!matchEnded(mark1 + index, mark2 + index)) {
             index++;
         }
         return index;
     }
 
-    private boolean matchEnded(TokenEntry token1, TokenEntry token2) {
-        return token1.getIdentifier() != token2.getIdentifier()
-                || TokenEntry.EOF.equals(token1)
-                || TokenEntry.EOF.equals(token2);
+    private boolean matchEnded(int index1, int index2) {
+        int identifier1 = ma.identifierAt(index1);
+        int identifier2 = ma.identifierAt(index2);
+        // the EOF token has the identifier 0
+        return identifier1 != identifier2 || identifier1 == 0 || identifier2 == 0;
     }
 }
@@ -14,23 +14,37 @@ import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 
+import net.sourceforge.pmd.annotation.Experimental;
 import net.sourceforge.pmd.util.IOUtil;
 
 public class SourceCode {
 
     public abstract static class CodeLoader {
-        private SoftReference<List<String>> code;
+        private SoftReference<SourceText> text;
 
         public List<String> getCode() {
-            List<String> c = null;
-            if (code != null) {
-                c = code.get();
-            }
-            if (c != null) {
-                return c;
+            return getText().getLines();
+        }
+
+        /**
+         * Returns the text of the source. The text is read once, and kept
+         * as long as memory allows.
+         */
+        @Experimental
+        public SourceText getText() {
+            SourceText t = getLoadedText();
+            if (t == null) {
+                t = loadText();
+                this.text = new SoftReference<>(t);
             }
-            this.code = new SoftReference<>(load());
-            return code.get();
+            return t;
+        }
+
+        /**
+         * Returns the text if it is loaded, or null.
+         */
+        SourceText getLoadedText() {
+            return text == null ? null : text.get();
         }
 
         /**
@@ -40,12 +54,9 @@ public class SourceCode {
          * @param endLine   End line (inclusive, 1-based)
          */
         public List<String> getCodeSlice(int startLine, int endLine) {
-            List<String> c = null;
-            if (code != null) {
-                c = code.get();
-            }
-            if (c != null) {
-                return c.subList(startLine - 1, endLine);
+            SourceText t = getLoadedText();
+            if (t != null) {
+                return t.getLines().subList(startLine - 1, endLine);
             }
             return load(startLine, endLine);
         }
@@ -54,14 +65,20 @@ public class SourceCode {
 
         protected abstract Reader getReader() throws Exception;
 
+        /**
+         * @deprecated Use {@link #getText()}, the lines are read with the text
+         */
+        @Deprecated
         protected List<String> load() {
-            try (BufferedReader reader = new BufferedReader(getReader())) {
-                List<String> lines = new ArrayList<>();
-                String currentLine;
-                while ((currentLine = reader.readLine()) != null) {
-                    lines.add(currentLine);
-                }
-                return lines;
+            return loadText().getLines();
+        }
+
+        /**
+         * Reads the whole text.
+         */
+        protected SourceText loadText() {
+            try (Reader reader = getReader()) {
+                return SourceText.read(reader);
             } catch (Exception e) {
                 e.printStackTrace();
                 throw new RuntimeException("Problem while reading " + getFileName() + ":" + e.getMessage());
@@ -123,6 +140,10 @@ public class SourceCode {
             return encoding;
         }
 
+        File getFile() {
+            return file;
+        }
+
         @Override
         public String getFileName() {
             return file.getAbsolutePath();
@@ -193,14 +214,21 @@ public class SourceCode {
         return cl.getCode();
     }
 
-    /** Newlines are normalized to \n. */
+    /**
+     * Returns a copy of the text. Newlines are normalized to \n.
+     * Use {@link #getText()} to read the text without copying it.
+     */
     public StringBuilder getCodeBuffer() {
-        StringBuilder sb = new StringBuilder();
-        List<String> lines = cl.getCode();
-        for (String line : lines) {
-            sb.append(line).append('\n');
-        }
-        return sb;
+        return new StringBuilder(cl.getText());
+    }
+
+    /**
+     * Returns the text. Newlines are normalized to \n. The text is shared,
+     * it is read once for the tokenizer and the renderers.
+     */
+    @Experimental
+    public SourceText getText() {
+        return cl.getText();
     }
 
     /**
@@ -210,6 +238,12 @@ public class SourceCode {
      * @param endLine   End line (inclusive, 1-based)
      */
     public String getSlice(int startLine, int endLine) {
+        SourceText text = cl.getLoadedText();
+        if (text != null) {
+            return text.getSlice(startLine, endLine);
+        }
+
+        // the text was collected, only read the lines up to the slice
         List<String> lines = cl.getCodeSlice(startLine, endLine);
 
         StringBuilder sb = new StringBuilder();
@@ -225,4 +259,12 @@ public class SourceCode {
     public String getFileName() {
         return cl.getFileName();
     }
+
+    /**
+     * Returns the file the code is read from, or null if it is not read
+     * from a file.
+     */
+    File getFile() {
+        return cl instanceof FileCodeLoader ? ((FileCodeLoader) cl).getFile() : null;
+    }
 }
@@ -0,0 +1,204 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import net.sourceforge.pmd.annotation.Experimental;
+
+/**
+ * The text of a source file, read once. Newlines are normalized to \n,
+ * and every line, including the last one, ends with a newline. An index
+ * of the offsets of the lines allows to get lines and slices of lines
+ * without reading the file again, nor splitting the text into one string
+ * per line.
+ *
+ * <p>This is a {@link CharSequence}, so that tokenizers based on regular
+ * expressions can match it directly, and {@link #toString()} returns the
+ * text without copying it.
+ */
+@Experimental
+public final class SourceText implements CharSequence {
+
+    private final String text;
+    /**
+     * Offset of the start of every line, followed by the length of the
+     * text. The line {@code i} (0-based) spans {@code [lineStarts[i], lineStarts[i + 1])},
+     * including its newline.
+     */
+    private final int[] lineStarts;
+    private final int lineCount;
+
+    private SourceText(String text, int[] lineStarts, int lineCount) {
+        this.text = text;
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * Reads the text of the reader. The reader is not closed. Lines are
+     * split the same way {@link java.io.BufferedReader#readLine()} does.
+     *
+     * @param reader Reader of the source
+     *
+     * @throws IOException If the reader cannot be read
+     */
+    public static SourceText read(Reader reader) throws IOException {
+        StringBuilder sb = new StringBuilder(8192);
+        int[] lineStarts = new int[64];
+        int lineCount = 0;
+        boolean lineStarted = false;
+        boolean afterCr = false;
+
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            int copied = 0;
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (c == '\n' && afterCr) {
+                    // second half of \r\n, the line was already ended
+                    sb.append(buffer, copied, i - copied);
+                    copied = i + 1;
+                    afterCr = false;
+                    continue;
+                }
+                afterCr = c == '\r';
+                if (!lineStarted) {
+                    if (lineCount + 1 >= lineStarts.length) {
+                        lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+                    }
+                    lineStarts[lineCount++] = sb.length() + i - copied;
+                    lineStarted = true;
+                }
+                if (c == '\r') {
+                    sb.append(buffer, copied, i - copied).append('\n');
+                    copied = i + 1;
+                    lineStarted = false;
+                } else if (c == '\n') {
+                    lineStarted = false;
+                }
+            }
+            sb.append(buffer, copied, read - copied);
+        }
+        if (lineStarted) {
+            sb.append('\n');
+        }
+
+        lineStarts[lineCount] = sb.length();
+        return new SourceText(sb.toString(), lineStarts, lineCount);
+    }
+
+    /**
+     * Returns the text of the given string.
+     */
+    public static SourceText of(String text) {
+        try {
+            return read(new StringReader(text));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot happen with a StringReader", e);
+        }
+    }
+
+    /**
+     * Returns the number of lines.
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns a line, without its newline.
+     *
+     * @param line Line number (1-based)
+     *
+     * @throws IndexOutOfBoundsException If there is no such line
+     */
+    public String getLine(int line) {
+        checkLine(line);
+        return text.substring(lineStarts[line - 1], lineStarts[line] - 1);
+    }
+
+    /**
+     * Returns a range of lines, separated by \n, without the newline of
+     * the last line. The range is truncated to the lines of the text.
+     *
+     * @param startLine Start line (inclusive, 1-based)
+     * @param endLine   End line (inclusive, 1-based)
+     */
+    public String getSlice(int startLine, int endLine) {
+        int start = Math.max(startLine, 1);
+        int end = Math.min(endLine, lineCount);
+        if (start > end) {
+            return "";
+        }
+        return text.substring(lineStarts[start - 1], lineStarts[end] - 1);
+    }
+
+    /**
+     * Returns the lines, without their newline. The list is a read-only
+     * view, the lines are only extracted when they are accessed.
+     */
+    public List<String> getLines() {
+        return new LineList();
+    }
+
+    /**
+     * Returns a read-only buffer over the text. The buffer shares the
+     * text, and has its own position and limit.
+     */
+    public CharBuffer asCharBuffer() {
+        return CharBuffer.wrap(text);
+    }
+
+    @Override
+    public int length() {
+        return text.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return text.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return text.subSequence(start, end);
+    }
+
+    /**
+     * Returns the text, this does not copy it.
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    private void checkLine(int line) {
+        if (line < 1 || line > lineCount) {
+            throw new IndexOutOfBoundsException("Line " + line + " out of [1, " + lineCount + "]");
+        }
+    }
+
+    private final class LineList extends AbstractList<String> implements RandomAccess {
+
+        @Override
+        public String get(int index) {
+            return getLine(index + 1);
+        }
+
+        @Override
+        public int size() {
+            return lineCount;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.zip.Adler32;
+import java.util.zip.CheckedInputStream;
+
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.util.IOUtil;
+
+/**
+ * Persistent cache of the tokens of every file, so that only changed
+ * files are tokenized again on the next run. The entries are keyed by
+ * the checksum of the file, and the whole cache is invalidated when the
+ * PMD version, the language or the options of the tokenizer change.
+ *
+ * <p>The tokens of a file are kept serialized until they are requested,
+ * with the images of the file, as the identifiers of the images are only
+ * assigned when the file is merged into the tokens of the run.
+ *
+ * <p>Only the entries of files analysed in the current run are
+ * persisted. This class is thread-safe.
+ */
+class TokenCache {
+
+    private static final Logger LOG = Logger.getLogger(TokenCache.class.getName());
+
+    private final File cacheFile;
+    private final String configurationKey;
+    private final Map<String, CachedFile> loadedFiles = new HashMap<>();
+    private final Map<String, CachedFile> updatedFiles = new ConcurrentHashMap<>();
+
+    TokenCache(File cacheFile, CPDConfiguration configuration) {
+        this.cacheFile = cacheFile;
+        this.configurationKey = configurationKey(configuration);
+        load();
+    }
+
+    private static String configurationKey(CPDConfiguration configuration) {
+        return configuration.getLanguage().getTerseName()
+                + ';' + configuration.getSourceEncoding().name()
+                + ';' + configuration.isIgnoreLiterals()
+                + ';' + configuration.isIgnoreIdentifiers()
+                + ';' + configuration.isIgnoreAnnotations()
+                + ';' + configuration.isIgnoreUsings()
+                + ';' + configuration.isIgnoreLiteralSequences()
+                + ';' + configuration.isNoSkipBlocks()
+                + ';' + configuration.getSkipBlocksPattern();
+    }
+
+    private void load() {
+        if (cacheFile.isDirectory()) {
+            LOG.severe("The configured CPD cache location must be the path to a file, but is a directory.");
+            return;
+        }
+        if (!cacheFile.isFile() || cacheFile.length() == 0) {
+            return;
+        }
+
+        try (DataInputStream inputStream = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(cacheFile.toPath())))) {
+            final String cacheVersion = inputStream.readUTF();
+            final String cacheKey = inputStream.readUTF();
+            if (!PMDVersion.VERSION.equals(cacheVersion)) {
+                LOG.info("CPD cache invalidated, PMD version changed.");
+                return;
+            }
+            if (!configurationKey.equals(cacheKey)) {
+                LOG.info("CPD cache invalidated, language or tokenizer options changed.");
+                return;
+            }
+
+            final int count = inputStream.readInt();
+            for (int i = 0; i < count; i++) {
+                final String fileName = inputStream.readUTF();
+                final long checksum = inputStream.readLong();
+                final byte[] data = new byte[inputStream.readInt()];
+                inputStream.readFully(data);
+                loadedFiles.put(fileName, new CachedFile(checksum, data));
+            }
+            LOG.info("CPD cache loaded");
+        } catch (final EOFException e) {
+            loadedFiles.clear();
+            LOG.warning("CPD cache file " + cacheFile.getPath() + " is malformed, will not be used for current run");
+        } catch (final IOException e) {
+            loadedFiles.clear();
+            LOG.severe("Could not load CPD cache from file. " + e.getMessage());
+        }
+    }
+
+    /**
+     * Computes the checksum of the file of the source code.
+     *
+     * @return The checksum, or -1 if the source is not read from a file
+     *     or the file could not be read
+     */
+    static long checksum(SourceCode sourceCode) {
+        final File file = sourceCode.getFile();
+        if (file == null) {
+            return -1;
+        }
+        try (CheckedInputStream stream = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file.toPath())), new Adler32())) {
+            IOUtil.skipFully(stream, file.length());
+            return stream.getChecksum().getValue();
+        } catch (final IOException ignored) {
+            // the tokenizer will report the problem
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the cached tokens of the source code, if its checksum didn't
+     * change since they were cached. The entry is kept for the next run.
+     *
+     * @return The tokens, or null if they are not cached
+     */
+    TokenizedFile get(SourceCode sourceCode, long checksum) {
+        final CachedFile cached = loadedFiles.get(sourceCode.getFileName());
+        if (checksum == -1 || cached == null || cached.checksum != checksum) {
+            return null;
+        }
+        try {
+            final TokenizedFile file = decode(sourceCode, cached.data);
+            updatedFiles.put(sourceCode.getFileName(), cached);
+            return file;
+        } catch (final IOException e) {
+            LOG.warning("Cached tokens of " + sourceCode.getFileName() + " are malformed, will tokenize it again");
+            return null;
+        }
+    }
+
+    /**
+     * Stores the tokens of a file, that was tokenized without error.
+     */
+    void put(TokenizedFile file, long checksum) {
+        if (checksum == -1 || file.error != null) {
+            return;
+        }
+        try {
+            updatedFiles.put(file.sourceCode.getFileName(), new CachedFile(checksum, encode(file)));
+        } catch (final IOException e) {
+            // can't happen, we write to memory
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void persist() {
+        if (cacheFile.isDirectory()) {
+            LOG.severe("Cannot persist the CPD cache, the given path points to a directory.");
+            return;
+        }
+        final File parentFile = cacheFile.getAbsoluteFile().getParentFile();
+        if (parentFile != null && !parentFile.exists()) {
+            parentFile.mkdirs();
+        }
+
+        final File tmpFile = new File(cacheFile.getPath() + ".tmp");
+        try {
+            try (DataOutputStream outputStream = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmpFile.toPath())))) {
+                outputStream.writeUTF(PMDVersion.VERSION);
+                outputStream.writeUTF(configurationKey);
+                outputStream.writeInt(updatedFiles.size());
+                for (final Map.Entry<String, CachedFile> entry : updatedFiles.entrySet()) {
+                    outputStream.writeUTF(entry.getKey());
+                    outputStream.writeLong(entry.getValue().checksum);
+                    outputStream.writeInt(entry.getValue().data.length);
+                    outputStream.write(entry.getValue().data);
+                }
+            }
+            // an interrupted run must not leave a truncated cache behind
+            Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            LOG.info("CPD cache updated");
+        } catch (final IOException e) {
+            LOG.severe("Could not persist CPD cache to file. " + e.getMessage());
+        }
+    }
+
+    private static byte[] encode(TokenizedFile file) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(file.images.length);
+            for (int i = 1; i < file.images.length; i++) {
+                // writeUTF is limited to 64K, which literals may exceed
+                final byte[] image = file.images[i] == null ? null : file.images[i].getBytes(StandardCharsets.UTF_8);
+                out.writeInt(image == null ? -1 : image.length);
+                if (image != null) {
+                    out.write(image);
+                }
+            }
+
+            final Tokens tokens = file.tokens;
+            tokens.flush();
+            out.writeInt(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                out.writeInt(tokens.getIdentifier(i));
+                if (!tokens.isEOF(i)) {
+                    out.writeInt(tokens.getBeginLine(i));
+                    out.writeInt(tokens.getBeginColumn(i));
+                    out.writeInt(tokens.getEndColumn(i));
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static TokenizedFile decode(SourceCode sourceCode, byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            final String[] images = new String[in.readInt()];
+            for (int i = 1; i < images.length; i++) {
+                final int length = in.readInt();
+                if (length >= 0) {
+                    final byte[] image = new byte[length];
+                    in.readFully(image);
+                    images[i] = new String(image, StandardCharsets.UTF_8);
+                }
+            }
+
+            final String fileName = sourceCode.getFileName();
+            final Tokens tokens = new Tokens();
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final int identifier = in.readInt();
+                if (identifier == 0) {
+                    tokens.add(0, null, -1, -1, -1);
+                } else if (identifier < images.length) {
+                    tokens.add(identifier, fileName, in.readInt(), in.readInt(), in.readInt());
+                } else {
+                    throw new EOFException("Unknown image " + identifier);
+                }
+            }
+            return new TokenizedFile(sourceCode, tokens, images);
+        }
+    }
+
+    private static final class CachedFile {
+
+        private final long checksum;
+        private final byte[] data;
+
+        CachedFile(long checksum, byte[] data) {
+            this.checksum = checksum;
+            this.data = data;
+        }
+    }
+}
@@ -76,6 +76,19 @@ public class TokenEntry implements Comparable<TokenEntry> {
         this.index = TOKEN_COUNT.get().getAndIncrement();
     }
 
+    /**
+     * Recreates a token from the columns of {@link Tokens}.
+     */
+    TokenEntry(String tokenSrcID, int beginLine, int beginColumn, int endColumn, int identifier, int index, int hashCode) {
+        this.tokenSrcID = tokenSrcID;
+        this.beginLine = beginLine;
+        this.beginColumn = beginColumn;
+        this.endColumn = endColumn;
+        this.identifier = identifier;
+        this.index = index;
+        this.hashCode = hashCode;
+    }
+
     private boolean isOk(int coord) {
         return coord >= 1 || coord == -1;
     }
@@ -201,11 +214,36 @@ public class TokenEntry implements Comparable<TokenEntry> {
     }
 
     final void setImage(String image) {
+        this.identifier = getIdentifier(image);
+    }
+
+    /**
+     * Returns the identifier of the image on the current thread, registering
+     * the image if it was not seen before.
+     */
+    static int getIdentifier(String image) {
         Integer i = TOKENS.get().get(image);
         if (i == null) {
             i = TOKENS.get().size() + 1;
             TOKENS.get().put(image, i);
         }
-        this.identifier = i.intValue();
+        return i.intValue();
+    }
+
+    /**
+     * Returns the images registered on the current thread, indexed by their
+     * identifier. Index 0 is unused.
+     */
+    static String[] getImages() {
+        final Map<String, Integer> images = TOKENS.get();
+        int maxIdentifier = 0;
+        for (Integer identifier : images.values()) {
+            maxIdentifier = Math.max(maxIdentifier, identifier);
+        }
+        final String[] result = new String[maxIdentifier + 1];
+        for (Map.Entry<String, Integer> e : images.entrySet()) {
+            result[e.getValue()] = e.getKey();
+        }
+        return result;
     }
 }
@@ -0,0 +1,35 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import net.sourceforge.pmd.lang.ast.TokenMgrError;
+
+/**
+ * Tokens of a single file, with their own image table. These are
+ * tokenized on a worker thread or loaded from the {@link TokenCache},
+ * and then merged into the tokens of the {@link CPD} run.
+ */
+final class TokenizedFile {
+
+    final SourceCode sourceCode;
+    final Tokens tokens;
+    /** Images of the tokens, indexed by identifier. Index 0 is unused. */
+    final String[] images;
+    final TokenMgrError error;
+
+    TokenizedFile(SourceCode sourceCode, Tokens tokens, String[] images) {
+        this.sourceCode = sourceCode;
+        this.tokens = tokens;
+        this.images = images;
+        this.error = null;
+    }
+
+    TokenizedFile(SourceCode sourceCode, TokenMgrError error) {
+        this.sourceCode = sourceCode;
+        this.tokens = null;
+        this.images = null;
+        this.error = error;
+    }
+}
@@ -4,43 +4,238 @@
 
 package net.sourceforge.pmd.cpd;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * The tokens of all files analysed by CPD. The tokens are not kept as
+ * {@link TokenEntry} objects, but stored in parallel int arrays, one per
+ * attribute of the token. {@link TokenEntry} instances are only created
+ * when the tokens are accessed through {@link #getTokens()} or
+ * {@link #iterator()}. The index of a token is its position in this list.
+ *
+ * <p>The last added token is kept as it is, until the next token is
+ * added, as tokenizers may still change its image.
+ */
 public class Tokens {
 
-    private List<TokenEntry> tokens = new ArrayList<>();
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Identifier of the image, 0 for the EOF token. */
+    private int[] identifiers = new int[INITIAL_CAPACITY];
+    private int[] fileIds = new int[INITIAL_CAPACITY];
+    private int[] beginLines = new int[INITIAL_CAPACITY];
+    private int[] beginColumns = new int[INITIAL_CAPACITY];
+    private int[] endColumns = new int[INITIAL_CAPACITY];
+    /** Rolling hash codes, computed by the {@link MatchAlgorithm}. */
+    private int[] hashCodes = new int[INITIAL_CAPACITY];
+    /** Number of tokens stored in the arrays. */
+    private int size;
+    private TokenEntry lastToken;
+
+    private final List<String> fileNames = new ArrayList<>();
+    private final Map<String, Integer> fileNameIds = new HashMap<>();
+    private String lastFileName;
+    private int lastFileId = -1;
+
+    private final List<TokenEntry> tokenView = new TokenView();
 
     public void add(TokenEntry tokenEntry) {
-        this.tokens.add(tokenEntry);
+        flush();
+        this.lastToken = tokenEntry;
+    }
+
+    /**
+     * Adds the tokens of the other list, with the identifiers of their
+     * images translated.
+     *
+     * @param other       Tokens to add
+     * @param identifiers Identifiers on this list, indexed by the identifiers of the other list
+     */
+    void addAll(Tokens other, int[] identifiers) {
+        other.flush();
+        flush();
+        for (int i = 0; i < other.size; i++) {
+            if (other.isEOF(i)) {
+                append(0, null, -1, -1, -1);
+            } else {
+                append(identifiers[other.identifiers[i]], other.fileNames.get(other.fileIds[i]),
+                       other.beginLines[i], other.beginColumns[i], other.endColumns[i]);
+            }
+        }
+    }
+
+    /**
+     * Adds a token without creating a {@link TokenEntry}.
+     *
+     * @param identifier Identifier of the image, 0 for the EOF token
+     * @param fileName   Name of the file, null for the EOF token
+     */
+    void add(int identifier, String fileName, int beginLine, int beginColumn, int endColumn) {
+        flush();
+        append(identifier, fileName, beginLine, beginColumn, endColumn);
+    }
+
+    /**
+     * Moves the last added token into the arrays.
+     */
+    void flush() {
+        if (lastToken != null) {
+            if (TokenEntry.EOF.equals(lastToken)) {
+                append(0, null, -1, -1, -1);
+            } else {
+                append(lastToken.getIdentifier(), lastToken.getTokenSrcID(), lastToken.getBeginLine(),
+                       lastToken.getBeginColumn(), lastToken.getEndColumn());
+            }
+            lastToken = null;
+        }
+    }
+
+    private void append(int identifier, String fileName, int beginLine, int beginColumn, int endColumn) {
+        if (size == identifiers.length) {
+            final int newCapacity = size + (size >> 1);
+            identifiers = Arrays.copyOf(identifiers, newCapacity);
+            fileIds = Arrays.copyOf(fileIds, newCapacity);
+            beginLines = Arrays.copyOf(beginLines, newCapacity);
+            beginColumns = Arrays.copyOf(beginColumns, newCapacity);
+            endColumns = Arrays.copyOf(endColumns, newCapacity);
+            hashCodes = Arrays.copyOf(hashCodes, newCapacity);
+        }
+        identifiers[size] = identifier;
+        fileIds[size] = fileName == null ? -1 : fileId(fileName);
+        beginLines[size] = beginLine;
+        beginColumns[size] = beginColumn;
+        endColumns[size] = endColumn;
+        hashCodes[size] = 0;
+        size++;
+    }
+
+    private int fileId(String fileName) {
+        // the tokens of a file are added one after the other
+        if (fileName.equals(lastFileName)) {
+            return lastFileId;
+        }
+        Integer id = fileNameIds.get(fileName);
+        if (id == null) {
+            id = fileNames.size();
+            fileNames.add(fileName);
+            fileNameIds.put(fileName, id);
+        }
+        lastFileName = fileName;
+        lastFileId = id;
+        return id;
     }
 
     public Iterator<TokenEntry> iterator() {
-        return tokens.iterator();
+        return tokenView.iterator();
     }
 
     private TokenEntry get(int index) {
-        return tokens.get(index);
+        if (index == size && lastToken != null) {
+            return lastToken;
+        }
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        if (identifiers[index] == 0) {
+            return TokenEntry.EOF;
+        }
+        return new TokenEntry(fileNames.get(fileIds[index]), beginLines[index], beginColumns[index],
+                              endColumns[index], identifiers[index], index, hashCodes[index]);
     }
 
     public int size() {
-        return tokens.size();
+        return lastToken == null ? size : size + 1;
     }
 
     public TokenEntry getEndToken(TokenEntry mark, Match match) {
+        flush();
         return get(mark.getIndex() + match.getTokenCount() - 1);
     }
 
     public int getLineCount(TokenEntry mark, Match match) {
-        TokenEntry endTok = getEndToken(mark, match);
-        if (TokenEntry.EOF.equals(endTok)) {
-            endTok = get(mark.getIndex() + match.getTokenCount() - 2);
+        flush();
+        int endIndex = mark.getIndex() + match.getTokenCount() - 1;
+        if (isEOF(endIndex)) {
+            endIndex--;
         }
-        return endTok.getBeginLine() - mark.getBeginLine() + 1;
+        return getBeginLine(endIndex) - mark.getBeginLine() + 1;
     }
 
+    /**
+     * Returns a view of the tokens. The returned list supports removing
+     * tokens at the end, eg with {@code subList(from, size()).clear()}.
+     */
     public List<TokenEntry> getTokens() {
-        return tokens;
+        return tokenView;
+    }
+
+    /* The following accessors require the tokens to be flushed. */
+
+    int getIdentifier(int index) {
+        return identifiers[index];
+    }
+
+    boolean isEOF(int index) {
+        return identifiers[index] == 0;
+    }
+
+    int getBeginLine(int index) {
+        return beginLines[index];
+    }
+
+    int getBeginColumn(int index) {
+        return beginColumns[index];
+    }
+
+    int getEndColumn(int index) {
+        return endColumns[index];
+    }
+
+    int getHashCode(int index) {
+        return hashCodes[index];
+    }
+
+    void setHashCode(int index, int hashCode) {
+        hashCodes[index] = hashCode;
+    }
+
+    private void truncate(int newSize) {
+        if (newSize < size()) {
+            lastToken = null;
+            size = Math.min(size, newSize);
+        }
+    }
+
+    private final class TokenView extends AbstractList<TokenEntry> {
+
+        @Override
+        public TokenEntry get(int index) {
+            return Tokens.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return Tokens.this.size();
+        }
+
+        @Override
+        public boolean add(TokenEntry tokenEntry) {
+            Tokens.this.add(tokenEntry);
+            return true;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            if (toIndex != size()) {
+                throw new UnsupportedOperationException("Only the last tokens can be removed");
+            }
+            truncate(fromIndex);
+        }
     }
 }
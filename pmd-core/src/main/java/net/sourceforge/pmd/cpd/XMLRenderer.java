@@ -7,36 +7,31 @@ package net.sourceforge.pmd.cpd;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import net.sourceforge.pmd.cpd.renderer.CPDRenderer;
 import net.sourceforge.pmd.cpd.renderer.CPDReportRenderer;
-import net.sourceforge.pmd.util.CollectionUtil;
 import net.sourceforge.pmd.util.StringUtil;
 
 /**
+ * Renders the duplications as XML. They are written as they are iterated,
+ * with a {@link XMLStreamWriter}, so that the whole document is never held
+ * in memory.
+ *
  * @author Philippe T'Seyen - original implementation
  * @author Romain Pelisse - javax.xml implementation
- *
  */
 public final class XMLRenderer implements Renderer, CPDRenderer, CPDReportRenderer {
 
+    private static final String INDENT = "   ";
+    private static final int LINE_LENGTH = 80;
+    private static final String CDATA_END = "]]>";
+
     private String encoding;
 
     /**
@@ -69,31 +64,6 @@ public final class XMLRenderer implements Renderer, CPDRenderer, CPDReportRender
         return this.encoding;
     }
 
-    private Document createDocument() {
-        try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder parser = factory.newDocumentBuilder();
-            return parser.newDocument();
-        } catch (ParserConfigurationException e) {
-            throw new IllegalStateException(e);
-        }
-    }
-
-    private void dumpDocToWriter(Document doc, Writer writer) {
-        try {
-            TransformerFactory tf = TransformerFactory.newInstance();
-            Transformer transformer = tf.newTransformer();
-            transformer.setOutputProperty(OutputKeys.VERSION, "1.0");
-            transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-            transformer.setOutputProperty(OutputKeys.ENCODING, encoding);
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty(OutputKeys.CDATA_SECTION_ELEMENTS, "codefragment");
-            transformer.transform(new DOMSource(doc), new StreamResult(writer));
-        } catch (TransformerException e) {
-            throw new IllegalStateException(e);
-        }
-    }
-
     @Override
     public String render(Iterator<Match> matches) {
         StringWriter writer = new StringWriter();
@@ -107,81 +77,193 @@ public final class XMLRenderer implements Renderer, CPDRenderer, CPDReportRender
 
     @Override
     public void render(Iterator<Match> matches, Writer writer) throws IOException {
-        render(new CPDReport(CollectionUtil.toList(matches), Collections.<String, Integer>emptyMap()), writer);
+        render(matches, Collections.<String, Integer>emptyMap(), writer);
     }
 
     @Override
     public void render(final CPDReport report, final Writer writer) throws IOException {
-        final Document doc = createDocument();
-        final Element root = doc.createElement("pmd-cpd");
-        final Map<String, Integer> numberOfTokensPerFile = report.getNumberOfTokensPerFile();
-        final List<Match> matches = report.getMatches();
-        doc.appendChild(root);
-
-        final List<Map.Entry<String, Integer>> entries = new ArrayList<>(numberOfTokensPerFile.entrySet());
-        for (final Map.Entry<String, Integer> pair : entries) {
-            final Element fileElement = doc.createElement("file");
-            fileElement.setAttribute("path", pair.getKey());
-            fileElement.setAttribute("totalNumberOfTokens", String.valueOf(pair.getValue()));
-            root.appendChild(fileElement);
-        }
+        render(report.getMatches().iterator(), report.getNumberOfTokensPerFile(), writer);
+    }
+
+    private void render(Iterator<Match> matches, Map<String, Integer> numberOfTokensPerFile, Writer writer) throws IOException {
+        try {
+            // the declaration is written directly, XMLStreamWriter#writeStartDocument
+            // fails if the encoding doesn't match the one of an OutputStreamWriter
+            writer.write("<?xml version=\"1.0\" encoding=\"" + encoding + "\"?>");
+            final XMLStreamWriter xmlWriter = XMLOutputFactory.newFactory().createXMLStreamWriter(writer);
+            final IndentingXmlWriter out = new IndentingXmlWriter(xmlWriter, writer);
+
+            out.newLine(0);
+            if (numberOfTokensPerFile.isEmpty() && !matches.hasNext()) {
+                out.writeEmptyElement("pmd-cpd");
+                xmlWriter.writeEndDocument();
+                xmlWriter.flush();
+                writer.flush();
+                return;
+            }
+            out.writeStartElement("pmd-cpd");
+            for (final Map.Entry<String, Integer> pair : numberOfTokensPerFile.entrySet()) {
+                out.newLine(1);
+                out.writeEmptyElement("file");
+                out.writeAttribute("path", pair.getKey());
+                out.writeAttribute("totalNumberOfTokens", String.valueOf(pair.getValue()));
+            }
 
-        for (Match match : matches) {
-            root.appendChild(addCodeSnippet(doc,
-                    addFilesToDuplicationElement(doc, createDuplicationElement(doc, match), match), match));
+            while (matches.hasNext()) {
+                final Match match = matches.next();
+                out.newLine(1);
+                out.writeStartElement("duplication");
+                out.writeAttribute("lines", String.valueOf(match.getLineCount()));
+                out.writeAttribute("tokens", String.valueOf(match.getTokenCount()));
+                writeFiles(out, match);
+                writeCodeSnippet(out, xmlWriter, match);
+                out.newLine(1);
+                xmlWriter.writeEndElement();
+            }
+            out.newLine(0);
+            xmlWriter.writeEndElement();
+            xmlWriter.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
         }
-        dumpDocToWriter(doc, writer);
         writer.flush();
     }
 
-    private Element addFilesToDuplicationElement(Document doc, Element duplication, Match match) {
-        Mark mark;
+    private void writeFiles(IndentingXmlWriter out, Match match) throws XMLStreamException, IOException {
         for (Iterator<Mark> iterator = match.iterator(); iterator.hasNext();) {
-            mark = iterator.next();
-            final Element file = doc.createElement("file");
-            file.setAttribute("line", String.valueOf(mark.getBeginLine()));
-            // only remove invalid characters, escaping is done by the DOM impl.
-            String filenameXml10 = StringUtil.removedInvalidXml10Characters(mark.getFilename());
-            file.setAttribute("path", filenameXml10);
-            file.setAttribute("endline", String.valueOf(mark.getEndLine()));
+            final Mark mark = iterator.next();
+            out.newLine(2);
+            out.writeEmptyElement("file");
+            // the attributes are sorted by name, as they were when the report was a serialized DOM
             final int beginCol = mark.getBeginColumn();
             final int endCol = mark.getEndColumn();
+            final int endIndex = mark.getEndTokenIndex();
+            out.writeAttribute("begintoken", String.valueOf(mark.getBeginTokenIndex()));
             if (beginCol != -1) {
-                file.setAttribute("column", String.valueOf(beginCol));
+                out.writeAttribute("column", String.valueOf(beginCol));
             }
             if (endCol != -1) {
-                file.setAttribute("endcolumn", String.valueOf(endCol));
+                out.writeAttribute("endcolumn", String.valueOf(endCol));
             }
-            final int beginIndex = mark.getBeginTokenIndex();
-            final int endIndex = mark.getEndTokenIndex();
-            file.setAttribute("begintoken", String.valueOf(beginIndex));
+            out.writeAttribute("endline", String.valueOf(mark.getEndLine()));
             if (endIndex != -1) {
-                file.setAttribute("endtoken", String.valueOf(endIndex));
+                out.writeAttribute("endtoken", String.valueOf(endIndex));
             }
-            duplication.appendChild(file);
+            out.writeAttribute("line", String.valueOf(mark.getBeginLine()));
+            // only remove invalid characters, escaping is done by the XMLStreamWriter.
+            out.writeAttribute("path", StringUtil.removedInvalidXml10Characters(mark.getFilename()));
         }
-        return duplication;
     }
 
-    private Element addCodeSnippet(Document doc, Element duplication, Match match) {
+    private void writeCodeSnippet(IndentingXmlWriter out, XMLStreamWriter xmlWriter, Match match) throws XMLStreamException, IOException {
         String codeSnippet = match.getSourceCodeSlice();
         if (codeSnippet != null) {
             // the code snippet has normalized line endings
             String platformSpecific = codeSnippet.replace("\n", System.lineSeparator());
-            Element codefragment = doc.createElement("codefragment");
             // only remove invalid characters, escaping is not necessary in CDATA.
-            // if the string contains the end marker of a CDATA section, then the DOM impl will
-            // create two cdata sections automatically.
-            codefragment.appendChild(doc.createCDATASection(StringUtil.removedInvalidXml10Characters(platformSpecific)));
-            duplication.appendChild(codefragment);
+            String data = StringUtil.removedInvalidXml10Characters(platformSpecific);
+            out.newLine(2);
+            out.writeStartElement("codefragment");
+            // the end marker of a CDATA section can't appear in it, so it's split
+            // over two sections, like a DOM serializer does
+            int start = 0;
+            int end = data.indexOf(CDATA_END);
+            while (end >= 0) {
+                xmlWriter.writeCData(data.substring(start, end + 2));
+                start = end + 2;
+                end = data.indexOf(CDATA_END, start);
+            }
+            xmlWriter.writeCData(data.substring(start));
+            xmlWriter.writeEndElement();
         }
-        return duplication;
     }
 
-    private Element createDuplicationElement(Document doc, Match match) {
-        Element duplication = doc.createElement("duplication");
-        duplication.setAttribute("lines", String.valueOf(match.getLineCount()));
-        duplication.setAttribute("tokens", String.valueOf(match.getTokenCount()));
-        return duplication;
+    /**
+     * Writes the line breaks and the indentation, with the same layout
+     * the report had when it was serialized from a DOM: elements are
+     * indented by 3 spaces per level, and an attribute that would make the
+     * line longer than {@value #LINE_LENGTH} characters is moved to the
+     * next line, under the first attribute. Lines are separated by \n,
+     * and there is no line break after the root element.
+     *
+     * <p>The whitespace is written directly to the writer, see the XMLRenderer
+     * of PMD about the escaping of line separators by some XMLStreamWriters.
+     */
+    private static final class IndentingXmlWriter {
+        private final XMLStreamWriter xmlWriter;
+        private final Writer writer;
+        /** Length of the current line, as far as it matters for wrapping attributes. */
+        private int column;
+        /** Length of the indentation of attributes moved to the next line. */
+        private int attributeColumn;
+        private boolean firstAttribute;
+
+        IndentingXmlWriter(XMLStreamWriter xmlWriter, Writer writer) {
+            this.xmlWriter = xmlWriter;
+            this.writer = writer;
+        }
+
+        void newLine(int depth) throws XMLStreamException, IOException {
+            // close any open tag, and flush what the XMLStreamWriter buffered
+            xmlWriter.writeCharacters("");
+            xmlWriter.flush();
+            writer.write('\n');
+            for (int i = 0; i < depth; i++) {
+                writer.write(INDENT);
+            }
+            column = depth * INDENT.length();
+        }
+
+        void writeStartElement(String name) throws XMLStreamException {
+            xmlWriter.writeStartElement(name);
+            startTag(name);
+        }
+
+        void writeEmptyElement(String name) throws XMLStreamException {
+            xmlWriter.writeEmptyElement(name);
+            startTag(name);
+        }
+
+        private void startTag(String name) {
+            column += name.length() + 1;
+            attributeColumn = column + 1;
+            firstAttribute = true;
+        }
+
+        void writeAttribute(String name, String value) throws XMLStreamException, IOException {
+            // name="value" and the space before it
+            int length = name.length() + escapedLength(value) + 4;
+            if (!firstAttribute && column + length > LINE_LENGTH) {
+                // the XMLStreamWriter writes the space before the attribute
+                xmlWriter.flush();
+                writer.write('\n');
+                for (int i = 1; i < attributeColumn; i++) {
+                    writer.write(' ');
+                }
+                column = attributeColumn - 1;
+            }
+            xmlWriter.writeAttribute(name, value);
+            column += length;
+            firstAttribute = false;
+        }
+
+        private static int escapedLength(String value) {
+            int length = value.length();
+            for (int i = 0; i < value.length(); i++) {
+                switch (value.charAt(i)) {
+                case '&':
+                case '<':
+                case '>':
+                    length += 3;
+                    break;
+                case '"':
+                    length += 5;
+                    break;
+                default:
+                    break;
+                }
+            }
+            return length;
+        }
     }
 }
@@ -49,7 +49,8 @@ public abstract class AbstractNode implements Node {
 
     private static final SimpleDataKey<Object> LEGACY_USER_DATA = DataMap.simpleDataKey("legacy user data");
 
-    private final DataMap<DataKey<?, ?>> userData = DataMap.newDataMap();
+    /** Allocated on first use, as most nodes have no user data. */
+    private DataMap<DataKey<?, ?>> userData;
 
     /**
      * @deprecated Use {@link #getParent()}
@@ -540,17 +541,20 @@ public abstract class AbstractNode implements Node {
     @Override
     @Deprecated
     public Object getUserData() {
-        return userData.get(LEGACY_USER_DATA);
+        return userData == null ? null : userData.get(LEGACY_USER_DATA);
     }
 
     @Override
     @Deprecated
     public void setUserData(final Object userData) {
-        this.userData.set(LEGACY_USER_DATA, userData);
+        getUserMap().set(LEGACY_USER_DATA, userData);
     }
 
     @Override
     public DataMap<DataKey<?, ?>> getUserMap() {
+        if (userData == null) {
+            userData = DataMap.newDataMap();
+        }
         return userData;
     }
 
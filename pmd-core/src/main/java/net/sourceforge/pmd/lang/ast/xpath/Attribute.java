@@ -13,6 +13,7 @@ import java.util.Objects;
 import net.sourceforge.pmd.annotation.Experimental;
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.ast.xpath.AttributeAxisIterator.MethodWrapper;
 import net.sourceforge.pmd.lang.ast.xpath.internal.DeprecatedAttribute;
 
 /**
@@ -31,6 +32,7 @@ public class Attribute {
     private final Node parent;
     private final String name;
     private Method method;
+    private MethodWrapper accessor;
     private List<?> value;
     private String stringValue;
 
@@ -41,6 +43,12 @@ public class Attribute {
         this.method = m;
     }
 
+    /** Creates a new attribute belonging to the given node using a cached accessor. */
+    Attribute(Node parent, MethodWrapper accessor) {
+        this(parent, accessor.name, accessor.method);
+        this.accessor = accessor;
+    }
+
     /** Creates a new attribute belonging to the given node using its string value. */
     public Attribute(Node parent, String name, String value) {
         this.parent = parent;
@@ -93,6 +101,16 @@ public class Attribute {
             return value.get(0);
         }
 
+        if (accessor != null) {
+            try {
+                value = Collections.singletonList(accessor.getValue(parent));
+                return value.get(0);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            return null;
+        }
+
         // this lazy loading reduces calls to Method.invoke() by about 90%
         try {
             value = Collections.singletonList(method.invoke(parent, EMPTY_OBJ_ARRAY));
@@ -107,6 +125,18 @@ public class Attribute {
         if (stringValue != null) {
             return stringValue;
         }
+        if (accessor != null && value == null) {
+            try {
+                // int and boolean attributes are converted without boxing
+                stringValue = accessor.getPrimitiveStringValue(parent);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                stringValue = "";
+            }
+            if (stringValue != null) {
+                return stringValue;
+            }
+        }
         Object v = getValue();
 
         stringValue = v == null ? "" : String.valueOf(v);
@@ -4,9 +4,14 @@
 
 package net.sourceforge.pmd.lang.ast.xpath;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -137,7 +142,7 @@ public class AttributeAxisIterator implements Iterator<Attribute> {
             return null;
         }
         MethodWrapper m = methodWrappers[position++];
-        return new Attribute(node, m.name, m.method);
+        return new Attribute(node, m);
     }
 
 
@@ -146,15 +151,94 @@ public class AttributeAxisIterator implements Iterator<Attribute> {
      * name of the attribute. This is used to avoid recomputing
      * the name of the attribute for each attribute (it's only done
      * once and put inside the {@link #METHOD_CACHE}).
+     *
+     * <p>The accessor is also unreflected to method handles, which
+     * are invoked without the access checks and the argument array
+     * of {@link Method#invoke(Object, Object...)}. The int and boolean
+     * attributes get their own handle, so that their string value
+     * doesn't need the boxed value.
      */
-    private static class MethodWrapper {
-        public Method method;
-        public String name;
+    static final class MethodWrapper {
+        private static final MethodType OBJECT_ACCESSOR = MethodType.methodType(Object.class, Node.class);
+        private static final MethodType INT_ACCESSOR = MethodType.methodType(int.class, Node.class);
+        private static final MethodType BOOLEAN_ACCESSOR = MethodType.methodType(boolean.class, Node.class);
+
+        public final Method method;
+        public final String name;
+        /** Null if the method is not accessible, in which case it's invoked reflectively. */
+        private final MethodHandle handle;
+        private final MethodHandle intHandle;
+        private final MethodHandle booleanHandle;
 
 
         MethodWrapper(Method m) {
             this.method = m;
             this.name = truncateMethodName(m.getName());
+
+            MethodHandle unreflected;
+            try {
+                unreflected = MethodHandles.publicLookup().unreflect(m);
+            } catch (IllegalAccessException e) {
+                // eg the method is declared in a package-private class
+                unreflected = null;
+            }
+            Class<?> returnType = m.getReturnType();
+            this.handle = unreflected == null ? null : unreflected.asType(OBJECT_ACCESSOR);
+            this.intHandle = unreflected != null && returnType == int.class ? unreflected.asType(INT_ACCESSOR) : null;
+            this.booleanHandle = unreflected != null && returnType == boolean.class ? unreflected.asType(BOOLEAN_ACCESSOR) : null;
+        }
+
+
+        /**
+         * Returns the value of this attribute on the given node.
+         *
+         * @throws UndeclaredThrowableException If the accessor threw a checked exception
+         */
+        Object getValue(Node node) {
+            try {
+                if (handle == null) {
+                    return method.invoke(node);
+                }
+                return (Object) handle.invokeExact(node);
+            } catch (InvocationTargetException e) {
+                throw unchecked(e.getCause());
+            } catch (Throwable t) {
+                throw unchecked(t);
+            }
+        }
+
+
+        /**
+         * Returns the string value of this attribute on the given node,
+         * or null if it's not a primitive value.
+         *
+         * @throws UndeclaredThrowableException If the accessor threw a checked exception
+         */
+        String getPrimitiveStringValue(Node node) {
+            try {
+                if (intHandle != null) {
+                    return String.valueOf((int) intHandle.invokeExact(node));
+                } else if (booleanHandle != null) {
+                    return String.valueOf((boolean) booleanHandle.invokeExact(node));
+                }
+                return null;
+            } catch (Throwable t) {
+                throw unchecked(t);
+            }
+        }
+
+
+        /**
+         * Rethrows errors, and returns the exception to throw for the
+         * given exception of an accessor.
+         */
+        private static RuntimeException unchecked(Throwable t) {
+            if (t instanceof Error) {
+                throw (Error) t;
+            } else if (t instanceof RuntimeException) {
+                return (RuntimeException) t;
+            }
+            return new UndeclaredThrowableException(t);
         }
 
 
@@ -4,9 +4,13 @@
 
 package net.sourceforge.pmd.lang.ast.xpath.saxon;
 
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.ast.Node;
@@ -36,9 +40,17 @@ public class DocumentNode extends BaseNodeInfo implements DocumentInfo, AstNodeO
     protected final ElementNode rootNode;
 
     /**
-     * Mapping from AST Node to corresponding ElementNode.
+     * Mapping from AST Node to corresponding ElementNode. The element
+     * nodes are created on demand when they are looked up.
+     *
+     * @deprecated Use {@link #getElementNode(Node)}. Iterating this map
+     *     creates the element nodes of the whole tree.
      */
-    public final Map<Node, ElementNode> nodeToElementNode = new HashMap<>();
+    @Deprecated
+    public final Map<Node, ElementNode> nodeToElementNode = new ElementNodeMap();
+
+    /** The element nodes created so far, by AST node. */
+    private final Map<Node, ElementNode> elementNodes = new IdentityHashMap<>();
 
     private DeprecatedAttrLogger attrCtx;
 
@@ -56,6 +68,52 @@ public class DocumentNode extends BaseNodeInfo implements DocumentInfo, AstNodeO
         this.rootNode = new ElementNode(this, new IdGenerator(), null, node, -1, namePool);
     }
 
+    /**
+     * Returns the element node corresponding to the given AST node,
+     * creating it and its ancestors if needed.
+     *
+     * @param node A node of the AST of this document
+     *
+     * @return The element node, or null if the node is not part of this document
+     */
+    public ElementNode getElementNode(Node node) {
+        ElementNode cached = elementNodes.get(node);
+        if (cached != null) {
+            return cached;
+        }
+        Node parent = node.getParent();
+        if (parent == null) {
+            return node == rootNode.node ? rootNode : null;
+        }
+        ElementNode parentElement = getElementNode(parent);
+        if (parentElement == null) {
+            return null;
+        }
+        int index = node.getIndexInParent();
+        if (index < 0 || index >= parent.getNumChildren() || parent.getChild(index) != node) {
+            index = indexOfChild(parent, node);
+        }
+        return index < 0 ? null : parentElement.getChild(index);
+    }
+
+    void addElementNode(ElementNode elementNode) {
+        elementNodes.put(elementNode.node, elementNode);
+    }
+
+    // test only
+    boolean hasElementNode(Node node) {
+        return elementNodes.containsKey(node);
+    }
+
+    private static int indexOfChild(Node parent, Node child) {
+        for (int i = 0; i < parent.getNumChildren(); i++) {
+            if (parent.getChild(i) == child) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     @Deprecated
     public DocumentNode(Node node) {
         this(node, SaxonXPathRuleQuery.getNamePool());
@@ -116,4 +174,34 @@ public class DocumentNode extends BaseNodeInfo implements DocumentInfo, AstNodeO
     public void setAttrCtx(DeprecatedAttrLogger attrCtx) {
         this.attrCtx = attrCtx;
     }
+
+    /**
+     * Read-only view of the element nodes, backed by {@link #getElementNode(Node)}.
+     */
+    private class ElementNodeMap extends AbstractMap<Node, ElementNode> {
+
+        @Override
+        public ElementNode get(Object key) {
+            return key instanceof Node ? getElementNode((Node) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<Node, ElementNode>> entrySet() {
+            Set<Entry<Node, ElementNode>> entries = new LinkedHashSet<>();
+            collectEntries(rootNode, entries);
+            return Collections.unmodifiableSet(entries);
+        }
+
+        private void collectEntries(ElementNode element, Set<Entry<Node, ElementNode>> entries) {
+            entries.add(new SimpleImmutableEntry<>(element.node, element));
+            for (int i = 0; i < element.node.getNumChildren(); i++) {
+                collectEntries(element.getChild(i), entries);
+            }
+        }
+    }
 }
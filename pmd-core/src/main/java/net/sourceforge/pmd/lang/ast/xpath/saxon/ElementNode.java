@@ -4,9 +4,8 @@
 
 package net.sourceforge.pmd.lang.ast.xpath.saxon;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Map;
 
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.ast.Node;
@@ -20,7 +19,6 @@ import net.sf.saxon.om.DocumentInfo;
 import net.sf.saxon.om.EmptyIterator;
 import net.sf.saxon.om.NamePool;
 import net.sf.saxon.om.Navigator;
-import net.sf.saxon.om.Navigator.BaseEnumeration;
 import net.sf.saxon.om.NodeArrayIterator;
 import net.sf.saxon.om.NodeInfo;
 import net.sf.saxon.om.SequenceIterator;
@@ -36,6 +34,9 @@ import net.sf.saxon.value.Value;
 
 /**
  * A Saxon OM Element type node for an AST Node.
+ *
+ * <p>The element nodes are created lazily, the children of an element
+ * are only wrapped when an axis reaches them.
  */
 @Deprecated
 @InternalApi
@@ -46,9 +47,15 @@ public class ElementNode extends BaseNodeInfo implements AstNodeOwner {
     protected final Node node;
     protected final int id;
     protected final int siblingPosition;
-    protected final NodeInfo[] children;
+    /**
+     * The wrapped children, created on demand. The array is null until
+     * a child is requested, and may be only partially filled.
+     */
+    protected NodeInfo[] children;
 
-    private Map<Integer, AttributeNode> attributes;
+    private final IdGenerator idGenerator;
+    private boolean allChildrenCreated;
+    private AttributeNode[] attributes;
 
     @Deprecated
     public ElementNode(DocumentNode document, IdGenerator idGenerator, ElementNode parent, Node node, int siblingPosition) {
@@ -68,16 +75,9 @@ public class ElementNode extends BaseNodeInfo implements AstNodeOwner {
         this.node = node;
         this.id = idGenerator.getNextId();
         this.siblingPosition = siblingPosition;
+        this.idGenerator = idGenerator;
 
-        if (node.getNumChildren() > 0) {
-            this.children = new NodeInfo[node.getNumChildren()];
-            for (int i = 0; i < children.length; i++) {
-                children[i] = new ElementNode(document, idGenerator, this, node.getChild(i), i, namePool);
-            }
-        } else {
-            this.children = null;
-        }
-        document.nodeToElementNode.put(node, this);
+        document.addElementNode(this);
     }
 
     private static int determineType(Node node) {
@@ -93,20 +93,56 @@ public class ElementNode extends BaseNodeInfo implements AstNodeOwner {
         return Type.ELEMENT;
     }
 
-    private Map<Integer, AttributeNode> getAttributes() {
+    /**
+     * Returns the element node of the child at the given index, creating
+     * it if it doesn't exist yet.
+     */
+    ElementNode getChild(int index) {
+        if (children == null) {
+            children = new NodeInfo[node.getNumChildren()];
+        }
+        if (children[index] == null) {
+            children[index] = new ElementNode(document, idGenerator, this, node.getChild(index), index, getNamePool());
+        }
+        return (ElementNode) children[index];
+    }
+
+    private NodeInfo[] getChildren() {
+        if (!allChildrenCreated) {
+            for (int i = 0; i < node.getNumChildren(); i++) {
+                getChild(i);
+            }
+            allChildrenCreated = true;
+        }
+        return children;
+    }
+
+    private AttributeNode[] getAttributes() {
         if (attributes == null) {
-            attributes = new HashMap<>();
+            AttributeNode[] result = new AttributeNode[8];
             Iterator<Attribute> iter = node.getXPathAttributesIterator();
             int idx = 0;
             while (iter.hasNext()) {
-                Attribute next = iter.next();
-                AttributeNode attrNode = new AttributeNode(this, next, idx++);
-                attributes.put(attrNode.getFingerprint(), attrNode);
+                if (idx == result.length) {
+                    result = Arrays.copyOf(result, idx * 2);
+                }
+                result[idx] = new AttributeNode(this, iter.next(), idx);
+                idx++;
             }
+            attributes = Arrays.copyOf(result, idx);
         }
         return attributes;
     }
 
+    private AttributeNode getAttribute(int fingerprint) {
+        for (AttributeNode attribute : getAttributes()) {
+            if (attribute.getFingerprint() == fingerprint) {
+                return attribute;
+            }
+        }
+        return null;
+    }
+
     @Override
     public Node getUnderlyingNode() {
         return node;
@@ -129,7 +165,7 @@ public class ElementNode extends BaseNodeInfo implements AstNodeOwner {
 
     @Override
     public boolean hasChildNodes() {
-        return children != null;
+        return node.getNumChildren() > 0;
     }
 
     @Override
@@ -211,7 +247,7 @@ public class ElementNode extends BaseNodeInfo implements AstNodeOwner {
                 } else {
                     int fp = nodeTest.getFingerprint();
                     if (fp != -1) {
-                        return SingleNodeIterator.makeIterator(getAttributes().get(fp));
+                        return SingleNodeIterator.makeIterator(getAttribute(fp));
                     }
                 }
             }
@@ -228,12 +264,12 @@ public class ElementNode extends BaseNodeInfo implements AstNodeOwner {
         case Axis.ANCESTOR_OR_SELF:
             return new Navigator.AncestorEnumeration(this, true);
         case Axis.ATTRIBUTE:
-            return new AttributeEnumeration();
+            return new NodeArrayIterator(getAttributes());
         case Axis.CHILD:
-            if (children == null) {
+            if (!hasChildNodes()) {
                 return EmptyIterator.getInstance();
             } else {
-                return new NodeArrayIterator(children);
+                return new NodeArrayIterator(getChildren());
             }
         case Axis.DESCENDANT:
             return new Navigator.DescendantEnumeration(this, false, true);
@@ -242,10 +278,11 @@ public class ElementNode extends BaseNodeInfo implements AstNodeOwner {
         case Axis.FOLLOWING:
             return new Navigator.FollowingEnumeration(this);
         case Axis.FOLLOWING_SIBLING:
-            if (parent == null || siblingPosition == parent.children.length - 1) {
+            if (parent == null || siblingPosition == parent.node.getNumChildren() - 1) {
                 return EmptyIterator.getInstance();
             } else {
-                return new NodeArrayIterator(parent.children, siblingPosition + 1, parent.children.length);
+                NodeInfo[] siblings = parent.getChildren();
+                return new NodeArrayIterator(siblings, siblingPosition + 1, siblings.length);
             }
         case Axis.NAMESPACE:
             return super.iterateAxis(axisNumber);
@@ -257,7 +294,7 @@ public class ElementNode extends BaseNodeInfo implements AstNodeOwner {
             if (parent == null || siblingPosition == 0) {
                 return EmptyIterator.getInstance();
             } else {
-                return new NodeArrayIterator(parent.children, 0, siblingPosition);
+                return new NodeArrayIterator(parent.getChildren(), 0, siblingPosition);
             }
         case Axis.SELF:
             return SingleNodeIterator.makeIterator(this);
@@ -267,23 +304,4 @@ public class ElementNode extends BaseNodeInfo implements AstNodeOwner {
             return super.iterateAxis(axisNumber);
         }
     }
-
-    private class AttributeEnumeration extends BaseEnumeration {
-
-        private final Iterator<AttributeNode> iter = getAttributes().values().iterator();
-
-        @Override
-        public void advance() {
-            if (iter.hasNext()) {
-                current = iter.next();
-            } else {
-                current = null;
-            }
-        }
-
-        @Override
-        public SequenceIterator getAnother() {
-            return new AttributeEnumeration();
-        }
-    }
 }
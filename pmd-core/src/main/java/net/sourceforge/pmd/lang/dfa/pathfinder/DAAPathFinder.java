@@ -8,6 +8,7 @@ import javax.swing.tree.DefaultMutableTreeNode;
 
 import net.sourceforge.pmd.lang.dfa.DataFlowNode;
 import net.sourceforge.pmd.lang.dfa.NodeType;
+import net.sourceforge.pmd.lang.rule.TimeBudget;
 
 /**
  * Finds all paths of a data flow. Each loop will be 0 or 2 times traversed -&gt; 2
@@ -67,6 +68,8 @@ public class DAAPathFinder {
         int i = 0;
         boolean flag = true;
         do {
+            // the number of paths can be exponential in the size of the method
+            TimeBudget.checkCurrent();
             i++;
             // System.out.println("Building path from " +
             // currentPath.getLast());
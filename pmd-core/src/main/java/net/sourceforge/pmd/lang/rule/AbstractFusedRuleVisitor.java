@@ -0,0 +1,176 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.lang.ast.Node;
+
+/**
+ * Applies several {@link FusableRule}s in a single traversal of the AST.
+ * Every node is passed to the rules that are interested in its type.
+ *
+ * <p>Errors are handled like when applying the rules one by one: if a rule
+ * throws an exception, it is reported, and the rule is not applied to the
+ * rest of the file. The time spent in each rule is reported to the
+ * {@link TimeTracker} as one operation per rule and file. Only the
+ * {@link TimeBudget} of the file applies, the rules are not stopped
+ * individually.
+ */
+@Experimental
+public abstract class AbstractFusedRuleVisitor {
+    private static final Logger LOG = Logger.getLogger(AbstractFusedRuleVisitor.class.getName());
+
+    /**
+     * Applies the rules to the given nodes and all their descendants.
+     *
+     * @param nodes The root nodes, usually the compilation units
+     * @param rules The rules, as they appear in the ruleset. The rules
+     *              must be fusable rules using this visitor, or references
+     *              to such rules.
+     * @param ctx   The current context
+     */
+    public void apply(List<? extends Node> nodes, List<Rule> rules, RuleContext ctx) {
+        final Traversal traversal = new Traversal(rules, ctx);
+        try {
+            for (Node node : nodes) {
+                traversal.visit(node);
+            }
+        } catch (TimeBudgetExceededException e) {
+            traversal.budget.report(ctx, e);
+        } finally {
+            traversal.finish();
+        }
+    }
+
+    /**
+     * Returns true if the rule needs to visit nodes of the given type.
+     * This is called once per node type and rule for every file.
+     *
+     * @param rule     The fusable rule, not a rule reference
+     * @param nodeType The type of the node
+     */
+    protected abstract boolean isInterested(Rule rule, Class<? extends Node> nodeType);
+
+    /**
+     * Visits the given node with the given rule, without visiting the
+     * children of the node.
+     *
+     * @param rule The fusable rule, not a rule reference
+     */
+    protected abstract void visit(Rule rule, Node node, RuleContext ctx);
+
+    /**
+     * The state of the traversal of a single file.
+     */
+    private final class Traversal {
+        private final List<Rule> rules;
+        private final Rule[] actualRules;
+        private final RuleContext ctx;
+        private final boolean trackTime = TimeTracker.isRecordingOperations();
+        private final TimeBudget budget = TimeBudget.current();
+        private final long[] nanos;
+        private final boolean[] failed;
+        /** Indices of the interested rules, by node type. */
+        private final Map<Class<? extends Node>, int[]> interestedRules = new HashMap<>();
+
+        Traversal(List<Rule> rules, RuleContext ctx) {
+            this.rules = rules;
+            this.ctx = ctx;
+            this.actualRules = new Rule[rules.size()];
+            for (int i = 0; i < actualRules.length; i++) {
+                Rule actualRule = rules.get(i);
+                while (actualRule instanceof RuleReference) {
+                    actualRule = ((RuleReference) actualRule).getRule();
+                }
+                actualRules[i] = actualRule;
+            }
+            this.nanos = new long[rules.size()];
+            this.failed = new boolean[rules.size()];
+        }
+
+        void visit(Node node) {
+            if (budget != null) {
+                // only the budget of the file, the rules are interleaved
+                budget.check();
+            }
+            for (int i : interestedRules(node.getClass())) {
+                if (!failed[i]) {
+                    visit(i, node);
+                }
+            }
+            for (int i = 0; i < node.getNumChildren(); i++) {
+                visit(node.getChild(i));
+            }
+        }
+
+        private void visit(int ruleIndex, Node node) {
+            final long start = trackTime ? System.nanoTime() : 0;
+            try {
+                ctx.setCurrentRule(rules.get(ruleIndex));
+                AbstractFusedRuleVisitor.this.visit(actualRules[ruleIndex], node, ctx);
+            } catch (TimeBudgetExceededException e) {
+                // stops the traversal
+                throw e;
+            } catch (RuntimeException e) {
+                failed[ruleIndex] = true;
+                handleError(rules.get(ruleIndex), e);
+            } finally {
+                ctx.setCurrentRule(null);
+                if (trackTime) {
+                    nanos[ruleIndex] += System.nanoTime() - start;
+                }
+            }
+        }
+
+        private void handleError(Rule rule, RuntimeException e) {
+            if (ctx.isIgnoreExceptions()) {
+                ctx.getReport().addError(new Report.ProcessingError(e, String.valueOf(ctx.getSourceCodeFile())));
+
+                if (LOG.isLoggable(Level.WARNING)) {
+                    LOG.log(Level.WARNING, "Exception applying rule " + rule.getName() + " on file "
+                            + ctx.getSourceCodeFile() + ", continuing with next rule", e);
+                }
+            } else {
+                throw e;
+            }
+        }
+
+        private int[] interestedRules(Class<? extends Node> nodeType) {
+            int[] result = interestedRules.get(nodeType);
+            if (result == null) {
+                result = new int[actualRules.length];
+                int count = 0;
+                for (int i = 0; i < actualRules.length; i++) {
+                    if (isInterested(actualRules[i], nodeType)) {
+                        result[count++] = i;
+                    }
+                }
+                result = Arrays.copyOf(result, count);
+                interestedRules.put(nodeType, result);
+            }
+            return result;
+        }
+
+        void finish() {
+            if (trackTime) {
+                for (int i = 0; i < rules.size(); i++) {
+                    TimeTracker.recordOperation(TimedOperationCategory.RULE, rules.get(i).getName(), nanos[i], 0);
+                }
+            }
+        }
+    }
+}
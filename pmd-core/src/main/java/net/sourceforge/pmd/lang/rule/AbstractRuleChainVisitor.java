@@ -5,13 +5,12 @@
 package net.sourceforge.pmd.lang.rule;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -46,6 +45,24 @@ public abstract class AbstractRuleChainVisitor implements RuleChainVisitor {
      */
     protected Map<String, List<Node>> nodeNameToNodes;
 
+    /**
+     * Dense ids of the visited node names. The nodes of the current AST
+     * are indexed by these ids in {@link #nodesByKind}, the lists are the
+     * same as in {@link #nodeNameToNodes}.
+     */
+    private Map<String, Integer> nodeKinds;
+    private List<Node>[] nodesByKind;
+
+    /**
+     * Kind + 1 of the nodes by {@link Node#jjtGetId()}, -1 for nodes
+     * which are not visited, 0 if not known yet. Only used if
+     * {@link #isNodeNameDeterminedByJjtreeId()}.
+     */
+    private int[] kindsByJjtreeId = new int[0];
+
+    /** The rules of {@link #ruleSetRules}, with their visits resolved. */
+    private Map<RuleSet, List<ChainedRule>> chainedRules;
+
     /**
      * @see RuleChainVisitor#add(RuleSet, Rule)
      */
@@ -74,35 +91,43 @@ public abstract class AbstractRuleChainVisitor implements RuleChainVisitor {
 
         // For each RuleSet, only if this source file applies
         try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.RULECHAIN_RULE)) {
-            for (Map.Entry<RuleSet, List<Rule>> entry : ruleSetRules.entrySet()) {
+            final TimeBudget budget = TimeBudget.current();
+            for (Map.Entry<RuleSet, List<ChainedRule>> entry : chainedRules.entrySet()) {
                 RuleSet ruleSet = entry.getKey();
                 if (!ruleSet.applies(ctx.getSourceCodeFile())) {
                     continue;
                 }
 
                 // For each rule, allow it to visit the nodes it desires
-                for (Rule rule : entry.getValue()) {
+                for (ChainedRule chainedRule : entry.getValue()) {
+                    final Rule rule = chainedRule.rule;
                     int visits = 0;
                     if (!RuleSet.applies(rule, ctx.getLanguageVersion())) {
                         continue;
                     }
+                    if (budget != null && budget.isFileExhausted(ctx)) {
+                        return;
+                    }
                     // CPD-OFF
                     try (TimedOperation rcto = TimeTracker.startOperation(TimedOperationCategory.RULECHAIN_RULE, rule.getName())) {
                         ctx.setCurrentRule(rule);
-                        final List<String> nodeNames = rule.getRuleChainVisits();
-                        for (int j = 0; j < nodeNames.size(); j++) {
-                            List<Node> ns = nodeNameToNodes.get(nodeNames.get(j));
-                            for (Node node : ns) {
-                                // Visit with underlying Rule, not the RuleReference
-                                Rule actualRule = rule;
-                                while (actualRule instanceof RuleReference) {
-                                    actualRule = ((RuleReference) actualRule).getRule();
+                        if (budget != null) {
+                            budget.startRule(rule.getName());
+                        }
+                        for (int kind : chainedRule.kinds) {
+                            List<Node> ns = nodesByKind[kind];
+                            for (int j = 0; j < ns.size(); j++) {
+                                if (budget != null) {
+                                    budget.check();
                                 }
-                                visit(actualRule, node, ctx);
+                                // Visit with underlying Rule, not the RuleReference
+                                visit(chainedRule.actualRule, ns.get(j), ctx);
                             }
                             visits += ns.size();
                         }
                         rcto.close(visits);
+                    } catch (TimeBudgetExceededException e) {
+                        budget.report(ctx, e);
                     } catch (RuntimeException e) {
                         if (ctx.isIgnoreExceptions()) {
                             ctx.getReport().addError(new Report.ProcessingError(e, String.valueOf(ctx.getSourceCodeFile())));
@@ -116,6 +141,9 @@ public abstract class AbstractRuleChainVisitor implements RuleChainVisitor {
                         }
                     } finally {
                         ctx.setCurrentRule(null);
+                        if (budget != null) {
+                            budget.finishRule();
+                        }
                     }
                     // CPD-ON
                 }
@@ -137,10 +165,36 @@ public abstract class AbstractRuleChainVisitor implements RuleChainVisitor {
      * Index a single node for visitation by rules.
      */
     protected void indexNode(Node node) {
-        List<Node> nodes = nodeNameToNodes.get(node.getXPathNodeName());
-        if (nodes != null) {
-            nodes.add(node);
+        final int kind = isNodeNameDeterminedByJjtreeId() ? kindByJjtreeId(node) : kindByName(node);
+        if (kind >= 0) {
+            nodesByKind[kind].add(node);
+        }
+    }
+
+    /**
+     * Returns true if the {@link Node#getXPathNodeName() xpath node name}
+     * of every indexed node only depends on its {@link Node#jjtGetId() jjtree id},
+     * which is the case for the nodes generated by JJTree. The nodes are then
+     * indexed by their id, without looking up their name.
+     */
+    protected boolean isNodeNameDeterminedByJjtreeId() {
+        return false;
+    }
+
+    private int kindByName(Node node) {
+        final Integer kind = nodeKinds.get(node.getXPathNodeName());
+        return kind == null ? -1 : kind;
+    }
+
+    private int kindByJjtreeId(Node node) {
+        final int id = node.jjtGetId();
+        if (id >= kindsByJjtreeId.length) {
+            kindsByJjtreeId = Arrays.copyOf(kindsByJjtreeId, Math.max(id + 1, 2 * kindsByJjtreeId.length));
+        }
+        if (kindsByJjtreeId[id] == 0) {
+            kindsByJjtreeId[id] = kindByName(node) + 1;
         }
+        return kindsByJjtreeId[id] - 1;
     }
 
     /**
@@ -156,15 +210,18 @@ public abstract class AbstractRuleChainVisitor implements RuleChainVisitor {
             return;
         }
 
-        // Determine all node types that need visiting
-        Set<String> visitedNodes = new HashSet<>();
+        // Determine all node types that need visiting, and assign them
+        // dense ids in the order they are first used
+        nodeKinds = new HashMap<>();
+        chainedRules = new LinkedHashMap<>();
         for (Iterator<Map.Entry<RuleSet, List<Rule>>> entryIterator = ruleSetRules.entrySet().iterator(); entryIterator
                 .hasNext();) {
             Map.Entry<RuleSet, List<Rule>> entry = entryIterator.next();
+            List<ChainedRule> chained = new ArrayList<>(entry.getValue().size());
             for (Iterator<Rule> ruleIterator = entry.getValue().iterator(); ruleIterator.hasNext();) {
                 Rule rule = ruleIterator.next();
                 if (rule.isRuleChain()) {
-                    visitedNodes.addAll(rule.getRuleChainVisits());
+                    chained.add(new ChainedRule(rule, kindsOf(rule.getRuleChainVisits())));
 
                     logXPathRuleChainUsage(true, rule);
                 } else {
@@ -177,19 +234,38 @@ public abstract class AbstractRuleChainVisitor implements RuleChainVisitor {
             // Drop RuleSets in which all Rules have been dropped.
             if (entry.getValue().isEmpty()) {
                 entryIterator.remove();
+            } else {
+                chainedRules.put(entry.getKey(), chained);
             }
         }
 
         // Setup the data structure to manage mapping node names to node
         // instances. We intend to reuse this data structure between
         // visits to different ASTs.
+        @SuppressWarnings("unchecked")
+        List<Node>[] lists = new List[nodeKinds.size()];
+        nodesByKind = lists;
         nodeNameToNodes = new HashMap<>();
-        for (String s : visitedNodes) {
+        for (Map.Entry<String, Integer> kind : nodeKinds.entrySet()) {
             List<Node> nodes = new ArrayList<>(100);
-            nodeNameToNodes.put(s, nodes);
+            nodesByKind[kind.getValue()] = nodes;
+            nodeNameToNodes.put(kind.getKey(), nodes);
         }
     }
 
+    private int[] kindsOf(List<String> nodeNames) {
+        final int[] kinds = new int[nodeNames.size()];
+        for (int i = 0; i < kinds.length; i++) {
+            Integer kind = nodeKinds.get(nodeNames.get(i));
+            if (kind == null) {
+                kind = nodeKinds.size();
+                nodeKinds.put(nodeNames.get(i), kind);
+            }
+            kinds[i] = kind;
+        }
+        return kinds;
+    }
+
     private void logXPathRuleChainUsage(boolean usesRuleChain, Rule rule) {
         if (LOG.isLoggable(Level.FINE)) {
             Rule r;
@@ -212,8 +288,27 @@ public abstract class AbstractRuleChainVisitor implements RuleChainVisitor {
      * between visiting different ASTs.
      */
     protected void clear() {
-        for (List<Node> l : nodeNameToNodes.values()) {
+        for (List<Node> l : nodesByKind) {
             l.clear();
         }
     }
+
+    /**
+     * A rule of the rule chain, with the ids of the nodes it visits.
+     */
+    private static final class ChainedRule {
+        private final Rule rule;
+        private final Rule actualRule;
+        private final int[] kinds;
+
+        ChainedRule(Rule rule, int[] kinds) {
+            this.rule = rule;
+            this.kinds = kinds;
+            Rule actual = rule;
+            while (actual instanceof RuleReference) {
+                actual = ((RuleReference) actual).getRule();
+            }
+            this.actualRule = actual;
+        }
+    }
 }
@@ -0,0 +1,27 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule;
+
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.annotation.Experimental;
+
+/**
+ * A rule that doesn't control the traversal of the AST itself. Such rules
+ * are applied together with the other fusable rules of the same language
+ * in a single traversal, instead of each traversing the whole AST.
+ *
+ * <p>The visitor calls the rule for every node it is interested in, in
+ * document order. The rule must not depend on visiting the children of a
+ * node itself, nor on doing something after the children are visited.
+ */
+@Experimental
+public interface FusableRule extends Rule {
+
+    /**
+     * Returns the visitor which applies this rule. Rules with equal
+     * visitors are applied in the same traversal.
+     */
+    AbstractFusedRuleVisitor getFusedRuleVisitor();
+}
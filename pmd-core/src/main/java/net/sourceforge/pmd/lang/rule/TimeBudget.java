@@ -0,0 +1,197 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.annotation.InternalApi;
+
+/**
+ * The time allowed for the analysis of a file, and for each rule on that
+ * file. The budget is enforced cooperatively: the rulesets and the rule
+ * chain check it between rules and between the visits of nodes, and long
+ * running algorithms call {@link #checkCurrent()}. When the budget of a
+ * rule is exhausted, a {@link TimeBudgetExceededException} stops the rule,
+ * and the analysis goes on with the next rule. When the budget of the file
+ * is exhausted, the remaining rules are skipped. In both cases a
+ * processing error is added to the report.
+ *
+ * <p>The budget is confined to the thread analysing the file, it is set
+ * up for each file according to {@link PMDConfiguration#getFileTimeBudget()}
+ * and {@link PMDConfiguration#getRuleTimeBudget()}.
+ */
+@InternalApi
+public final class TimeBudget {
+
+    private static final Logger LOG = Logger.getLogger(TimeBudget.class.getName());
+
+    private static final ThreadLocal<TimeBudget> CURRENT = new ThreadLocal<>();
+
+    /** The clock is read on one {@link #check()} out of {@code CHECK_MASK + 1}. */
+    private static final int CHECK_MASK = 0xF;
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final String fileName;
+    private final long fileBudgetNanos;
+    private final long ruleBudgetNanos;
+    private final long fileStart;
+    private String rule;
+    private long ruleStart;
+    private int checks;
+    private boolean fileExceededReported;
+    private boolean exceeded;
+
+    TimeBudget(String fileName, long fileBudgetMillis, long ruleBudgetMillis) {
+        this.fileName = fileName;
+        this.fileBudgetNanos = Math.max(0, fileBudgetMillis) * NANOS_PER_MILLI;
+        this.ruleBudgetNanos = Math.max(0, ruleBudgetMillis) * NANOS_PER_MILLI;
+        this.fileStart = System.nanoTime();
+    }
+
+    /**
+     * Sets up the budget of the file analysed by the current thread. A
+     * budget of zero or less is unlimited.
+     *
+     * @param fileName         The name of the file
+     * @param fileBudgetMillis The time allowed for the analysis of the file, in milliseconds
+     * @param ruleBudgetMillis The time allowed for each rule on the file, in milliseconds
+     */
+    public static void startFile(String fileName, long fileBudgetMillis, long ruleBudgetMillis) {
+        if (fileBudgetMillis > 0 || ruleBudgetMillis > 0) {
+            CURRENT.set(new TimeBudget(fileName, fileBudgetMillis, ruleBudgetMillis));
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Removes the budget of the file analysed by the current thread.
+     */
+    public static void finishFile() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Returns the budget of the file analysed by the current thread, or
+     * null if the analysis is not limited.
+     */
+    public static TimeBudget current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Checks the budget of the current thread, if any.
+     *
+     * @throws TimeBudgetExceededException If the budget is exhausted
+     * @see #check()
+     */
+    public static void checkCurrent() {
+        final TimeBudget budget = CURRENT.get();
+        if (budget != null) {
+            budget.check();
+        }
+    }
+
+    /**
+     * Starts the budget of the given rule.
+     */
+    public void startRule(String ruleName) {
+        this.rule = ruleName;
+        this.ruleStart = System.nanoTime();
+        this.checks = 0;
+    }
+
+    /**
+     * Ends the budget of the current rule.
+     */
+    public void finishRule() {
+        this.rule = null;
+    }
+
+    /**
+     * Checks whether the budget of the current rule or of the file is
+     * exhausted. This is meant to be called often, so the clock is only
+     * read on some of the calls.
+     *
+     * @throws TimeBudgetExceededException If the budget is exhausted
+     */
+    public void check() {
+        if ((++checks & CHECK_MASK) == 0) {
+            checkNow();
+        }
+    }
+
+    /**
+     * Checks whether the budget of the current rule or of the file is
+     * exhausted.
+     *
+     * @throws TimeBudgetExceededException If the budget is exhausted
+     */
+    public void checkNow() {
+        final long now = System.nanoTime();
+        if (fileBudgetNanos > 0 && now - fileStart > fileBudgetNanos) {
+            throw fileExceeded(now);
+        }
+        if (rule != null && ruleBudgetNanos > 0 && now - ruleStart > ruleBudgetNanos) {
+            throw new TimeBudgetExceededException("Rule " + rule + " exceeded its time budget of "
+                + millis(ruleBudgetNanos) + " ms on " + fileName + " (" + millis(now - ruleStart) + " ms)", false);
+        }
+    }
+
+    /**
+     * Returns true if the budget of the file is exhausted, in which case
+     * the remaining rules must be skipped. The first time, a processing
+     * error is added to the report.
+     */
+    public boolean isFileExhausted(RuleContext ctx) {
+        final long now = System.nanoTime();
+        if (fileBudgetNanos > 0 && now - fileStart > fileBudgetNanos) {
+            report(ctx, fileExceeded(now));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if a rule or the file exceeded its budget. The results
+     * of the analysis of the file are then incomplete.
+     */
+    public boolean isExceeded() {
+        return exceeded;
+    }
+
+    /**
+     * Adds the given exception to the report, as a processing error. The
+     * exhaustion of the budget of the file is only reported once.
+     */
+    public void report(RuleContext ctx, TimeBudgetExceededException e) {
+        exceeded = true;
+        if (e.isFileBudget()) {
+            if (fileExceededReported) {
+                return;
+            }
+            fileExceededReported = true;
+        }
+        ctx.getReport().addError(new Report.ProcessingError(e, String.valueOf(ctx.getSourceCodeFile())));
+        if (LOG.isLoggable(Level.WARNING)) {
+            LOG.warning(e.getMessage());
+        }
+    }
+
+    private TimeBudgetExceededException fileExceeded(long now) {
+        return new TimeBudgetExceededException("The analysis of " + fileName + " exceeded its time budget of "
+            + millis(fileBudgetNanos) + " ms (" + millis(now - fileStart) + " ms)"
+            + (rule == null ? "" : " in rule " + rule) + ", the remaining rules are skipped", true);
+    }
+
+    private static long millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
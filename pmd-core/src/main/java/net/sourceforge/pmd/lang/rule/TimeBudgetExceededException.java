@@ -0,0 +1,32 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule;
+
+import net.sourceforge.pmd.annotation.InternalApi;
+
+/**
+ * Thrown when a rule, or the analysis of a file, exceeds its {@link TimeBudget}.
+ * It is reported as a processing error, see {@link TimeBudget#report(net.sourceforge.pmd.RuleContext, TimeBudgetExceededException)}.
+ */
+@InternalApi
+public class TimeBudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean fileBudget;
+
+    TimeBudgetExceededException(String message, boolean fileBudget) {
+        super(message);
+        this.fileBudget = fileBudget;
+    }
+
+    /**
+     * Returns true if the budget of the whole file is exceeded, false
+     * if only the budget of the current rule is exceeded.
+     */
+    public boolean isFileBudget() {
+        return fileBudget;
+    }
+}
@@ -7,6 +7,7 @@ package net.sourceforge.pmd.lang.rule.xpath;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -75,6 +76,24 @@ public class SaxonXPathRuleQuery extends AbstractXPathRuleQuery {
     /** Cache key for the wrapped tree for saxon. */
     private static final SimpleDataKey<DocumentNode> SAXON_TREE_CACHE_KEY = DataMap.simpleDataKey("saxon.tree");
 
+    /** Maximum number of compiled queries kept in {@link #COMPILED_QUERIES}. */
+    private static final int MAX_COMPILED_QUERIES = 1024;
+
+    /**
+     * Compiled queries, shared by all threads. Each thread analyses files with its own copy
+     * of the rules, but compiled expressions are thread-safe, as the values of the variables
+     * are only bound in the dynamic context. Least recently used queries are evicted first,
+     * as eg the designer creates a query for every edit of an expression.
+     */
+    private static final Map<List<String>, CompiledQuery> COMPILED_QUERIES = new LinkedHashMap<List<String>, CompiledQuery>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, CompiledQuery> eldest) {
+            return size() > MAX_COMPILED_QUERIES;
+        }
+    };
+
     /**
      * Contains for each nodeName a sub expression, used for implementing rule chain.
      */
@@ -117,7 +136,7 @@ public class SaxonXPathRuleQuery extends AbstractXPathRuleQuery {
             documentNode.setAttrCtx(attrCtx); //
 
             // Map AST Node -> Saxon Node
-            final ElementNode rootElementNode = documentNode.nodeToElementNode.get(node);
+            final ElementNode rootElementNode = documentNode.getElementNode(node);
             assert rootElementNode != null : "Cannot find " + node;
             final XPathDynamicContext xpathDynamicContext = createDynamicContext(rootElementNode);
 
@@ -223,20 +242,42 @@ public class SaxonXPathRuleQuery extends AbstractXPathRuleQuery {
         return root;
     }
 
-    private void addExpressionForNode(String nodeName, Expression expression) {
-        if (!nodeNameToXPaths.containsKey(nodeName)) {
-            nodeNameToXPaths.put(nodeName, new LinkedList<Expression>());
-        }
-        nodeNameToXPaths.get(nodeName).add(expression);
-    }
-
     /**
-     * Initialize the {@link #xpathExpression} and the {@link #xpathVariables}.
+     * Initialize the {@link #xpathExpression} and the {@link #xpathVariables}. The query is only
+     * compiled if no other query with the same expression, version and property names has been
+     * compiled before.
      */
     private void initializeXPathExpression() {
         if (xpathExpression != null) {
             return;
         }
+
+        final List<String> key = new ArrayList<>();
+        key.add(version);
+        key.add(super.xpath);
+        for (final PropertyDescriptor<?> propertyDescriptor : super.properties.keySet()) {
+            key.add(propertyDescriptor.name());
+        }
+
+        final CompiledQuery compiled;
+        synchronized (COMPILED_QUERIES) {
+            // compiling while holding the lock makes sure, every query is compiled only once,
+            // even if all threads initialize their rules at the same time
+            CompiledQuery cached = COMPILED_QUERIES.get(key);
+            if (cached == null) {
+                cached = compile();
+                COMPILED_QUERIES.put(key, cached);
+            }
+            compiled = cached;
+        }
+
+        xpathVariables = compiled.xpathVariables;
+        nodeNameToXPaths = compiled.nodeNameToXPaths;
+        super.ruleChainVisits.addAll(compiled.ruleChainVisits);
+        xpathExpression = compiled.xpathExpression;
+    }
+
+    private CompiledQuery compile() {
         try {
             final XPathEvaluator xpathEvaluator = new XPathEvaluator();
             final XPathStaticContext xpathStaticContext = xpathEvaluator.getStaticContext();
@@ -257,24 +298,26 @@ public class SaxonXPathRuleQuery extends AbstractXPathRuleQuery {
             static context, and reused later to associate an actual value on the dynamic context creation, in
             createDynamicContext(ElementNode).
             */
-            xpathVariables = new ArrayList<>();
+            final List<XPathVariable> variables = new ArrayList<>();
             for (final PropertyDescriptor<?> propertyDescriptor : super.properties.keySet()) {
                 final String name = propertyDescriptor.name();
                 if (!"xpath".equals(name)) {
                     final XPathVariable xpathVariable = xpathStaticContext.declareVariable(null, name);
-                    xpathVariables.add(xpathVariable);
+                    variables.add(xpathVariable);
                 }
             }
 
-            xpathExpression = xpathEvaluator.createExpression(super.xpath);
-            analyzeXPathForRuleChain(xpathEvaluator);
+            final XPathExpression expression = xpathEvaluator.createExpression(super.xpath);
+            final CompiledQuery compiled = new CompiledQuery(expression, Collections.unmodifiableList(variables));
+            analyzeXPathForRuleChain(xpathEvaluator, compiled);
+            return compiled;
         } catch (final XPathException e) {
             throw new RuntimeException(e);
         }
     }
     
-    private void analyzeXPathForRuleChain(final XPathEvaluator xpathEvaluator) {
-        final Expression expr = xpathExpression.getInternalExpression();
+    private void analyzeXPathForRuleChain(final XPathEvaluator xpathEvaluator, final CompiledQuery compiled) {
+        final Expression expr = compiled.xpathExpression.getInternalExpression();
 
         boolean useRuleChain = true;
 
@@ -287,7 +330,7 @@ public class SaxonXPathRuleQuery extends AbstractXPathRuleQuery {
             Expression modified = rca.visit(subexpression);
 
             if (rca.getRootElement() != null) {
-                addExpressionForNode(rca.getRootElement(), modified);
+                compiled.addExpressionForNode(rca.getRootElement(), modified);
             } else {
                 // couldn't find a root element for the expression, that means, we can't use rule chain at all
                 // even though, it would be possible for part of the expression.
@@ -297,16 +340,16 @@ public class SaxonXPathRuleQuery extends AbstractXPathRuleQuery {
         }
 
         if (useRuleChain) {
-            super.ruleChainVisits.addAll(nodeNameToXPaths.keySet());
+            compiled.ruleChainVisits.addAll(compiled.nodeNameToXPaths.keySet());
         } else {
-            nodeNameToXPaths.clear();
+            compiled.nodeNameToXPaths.clear();
             if (LOG.isLoggable(Level.FINE)) {
                 LOG.log(Level.FINE, "Unable to use RuleChain for XPath: " + xpath);
             }
         }
 
         // always add fallback expression
-        addExpressionForNode(AST_ROOT, xpathExpression.getInternalExpression());
+        compiled.addExpressionForNode(AST_ROOT, compiled.xpathExpression.getInternalExpression());
     }
 
     /**
@@ -370,4 +413,27 @@ public class SaxonXPathRuleQuery extends AbstractXPathRuleQuery {
     public static NamePool getNamePool() {
         return NAME_POOL;
     }
+
+    /**
+     * The result of compiling a query, shared by all queries with the same expression, version
+     * and properties. This is not modified anymore after the compilation.
+     */
+    private static final class CompiledQuery {
+        private final XPathExpression xpathExpression;
+        private final List<XPathVariable> xpathVariables;
+        private final Map<String, List<Expression>> nodeNameToXPaths = new HashMap<>();
+        private final List<String> ruleChainVisits = new ArrayList<>();
+
+        CompiledQuery(XPathExpression xpathExpression, List<XPathVariable> xpathVariables) {
+            this.xpathExpression = xpathExpression;
+            this.xpathVariables = xpathVariables;
+        }
+
+        private void addExpressionForNode(String nodeName, Expression expression) {
+            if (!nodeNameToXPaths.containsKey(nodeName)) {
+                nodeNameToXPaths.put(nodeName, new LinkedList<Expression>());
+            }
+            nodeNameToXPaths.get(nodeName).add(expression);
+        }
+    }
 }
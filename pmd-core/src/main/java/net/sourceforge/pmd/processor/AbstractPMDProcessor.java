@@ -136,7 +136,7 @@ public abstract class AbstractPMDProcessor {
             configuration.getAnalysisCache().checkValidity(rulesets, configuration.getClassLoader());
             final SourceCodeProcessor processor = new SourceCodeProcessor(configuration);
 
-            for (final DataSource dataSource : files) {
+            for (final DataSource dataSource : orderFiles(files)) {
                 // this is the real, canonical and absolute filename (not shortened)
                 String realFileName = dataSource.getNiceFileName(false, null);
 
@@ -156,6 +156,19 @@ public abstract class AbstractPMDProcessor {
         }
     }
 
+    /**
+     * Returns the files in the order in which they should be submitted
+     * to {@link #runAnalysis(PmdRunnable)}. By default, the given order
+     * is kept.
+     *
+     * @param files Files to analyse
+     *
+     * @return The files to analyse, possibly reordered
+     */
+    protected List<DataSource> orderFiles(List<DataSource> files) {
+        return files;
+    }
+
     protected abstract void runAnalysis(PmdRunnable runnable);
 
     protected abstract void collectReports(List<Renderer> renderers);
@@ -0,0 +1,175 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.renderers.Renderer;
+import net.sourceforge.pmd.util.datasource.DataSource;
+import net.sourceforge.pmd.util.datasource.internal.AbstractDataSource;
+import net.sourceforge.pmd.util.datasource.internal.LanguageAwareDataSource;
+
+/**
+ * A processor backed by a work-stealing {@link ForkJoinPool}. Contrary
+ * to {@link MultiThreadProcessor}, which submits every file upfront,
+ * at most {@link #getMaxFilesInFlight()} files are submitted but not
+ * yet rendered at any time. When this window is full, submitting a new
+ * file first waits for the next finished file and renders its report.
+ * This keeps the number of reports held in memory independent of the
+ * number of analysed files.
+ *
+ * <p>Files are submitted largest first, so that a single huge file
+ * doesn't end up being analysed last while all other threads are idle.
+ *
+ * @deprecated Is internal API
+ */
+@Deprecated
+@InternalApi
+public class WorkStealingProcessor extends AbstractPMDProcessor {
+
+    /** Number of files that may be in flight per analysis thread. */
+    private static final int FILES_IN_FLIGHT_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final CompletionService<Report> completionService;
+    private final int maxFilesInFlight;
+
+    private List<Renderer> renderers = Collections.emptyList();
+    private int filesInFlight;
+
+    public WorkStealingProcessor(final PMDConfiguration configuration) {
+        super(configuration);
+
+        final int threads = Math.max(1, configuration.getThreads());
+        // asyncMode: tasks that are never joined are processed in FIFO order,
+        // which preserves the largest-first ordering of the submissions
+        pool = new ForkJoinPool(threads, new PmdWorkerThreadFactory(), null, true);
+        completionService = new ExecutorCompletionService<>(pool);
+        maxFilesInFlight = threads * FILES_IN_FLIGHT_PER_THREAD;
+    }
+
+    /**
+     * Returns the maximum number of files that are submitted but whose
+     * report has not been rendered yet.
+     */
+    public int getMaxFilesInFlight() {
+        return maxFilesInFlight;
+    }
+
+    @Override
+    public void processFiles(RuleSets rulesets, List<DataSource> files, RuleContext ctx, List<Renderer> renderers) {
+        // remember the renderers, so that reports can be rendered while files are still submitted
+        this.renderers = renderers;
+        super.processFiles(rulesets, files, ctx, renderers);
+    }
+
+    @Override
+    protected List<DataSource> orderFiles(List<DataSource> files) {
+        if (configuration.isStressTest()) {
+            // keep the randomized order
+            return files;
+        }
+        // query the sizes only once, this may hit the file system
+        final Map<DataSource, Long> sizes = new IdentityHashMap<>();
+        for (DataSource file : files) {
+            sizes.put(file, sizeOf(file));
+        }
+        List<DataSource> sorted = new ArrayList<>(files);
+        Collections.sort(sorted, new Comparator<DataSource>() {
+            @Override
+            public int compare(DataSource left, DataSource right) {
+                // largest first; files with unknown size are scheduled last
+                return Long.compare(sizes.get(right), sizes.get(left));
+            }
+        });
+        return sorted;
+    }
+
+    @Override
+    protected void runAnalysis(PmdRunnable runnable) {
+        try {
+            while (filesInFlight >= maxFilesInFlight) {
+                // back-pressure: wait for the renderers to catch up
+                renderNext();
+            }
+            completionService.submit(runnable);
+            filesInFlight++;
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+        } catch (final ExecutionException ee) {
+            pool.shutdownNow();
+            throw rethrow(ee);
+        }
+    }
+
+    @Override
+    protected void collectReports(List<Renderer> renderers) {
+        try {
+            while (filesInFlight > 0) {
+                renderNext();
+            }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException ee) {
+            throw rethrow(ee);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void renderNext() throws InterruptedException, ExecutionException {
+        final Report report = completionService.take().get();
+        filesInFlight--;
+        super.renderReports(renderers, report);
+    }
+
+    private static RuntimeException rethrow(ExecutionException ee) {
+        final Throwable t = ee.getCause();
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else {
+            return new IllegalStateException("PmdRunnable exception", t);
+        }
+    }
+
+    private static long sizeOf(DataSource dataSource) {
+        DataSource ds = dataSource;
+        while (ds instanceof LanguageAwareDataSource) {
+            ds = ((LanguageAwareDataSource) ds).getBase();
+        }
+        return ds instanceof AbstractDataSource ? ((AbstractDataSource) ds).getSize() : -1;
+    }
+
+    private static class PmdWorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("PmdThread " + counter.incrementAndGet());
+            return thread;
+        }
+    }
+}
@@ -10,8 +10,10 @@ import static net.sourceforge.pmd.renderers.CodeClimateRule.CODECLIMATE_REMEDIAT
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -21,8 +23,7 @@ import net.sourceforge.pmd.Rule;
 import net.sourceforge.pmd.RuleViolation;
 import net.sourceforge.pmd.properties.PropertyDescriptor;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Renderer for Code Climate JSON format
@@ -38,6 +39,7 @@ public class CodeClimateRenderer extends AbstractIncrementingRenderer {
     protected static final List<String> INTERNAL_DEV_PROPERTIES = Arrays.asList("version", "xpath");
     private static final String PMD_PROPERTIES_URL = getPmdPropertiesURL();
     private Rule rule;
+    private final Map<Rule, String> bodies = new IdentityHashMap<>();
 
     public CodeClimateRenderer() {
         super(NAME, "Code Climate integration.");
@@ -54,54 +56,58 @@ public class CodeClimateRenderer extends AbstractIncrementingRenderer {
 
     @Override
     public void renderFileViolations(Iterator<RuleViolation> violations) throws IOException {
-        Gson gson = new GsonBuilder().disableHtmlEscaping().create();
-
         while (violations.hasNext()) {
             RuleViolation rv = violations.next();
             rule = rv.getRule();
-            String json = gson.toJson(asIssue(rv));
-            json = json.replace(BODY_PLACEHOLDER, getBody());
-            writer.write(json + NULL_CHARACTER + PMD.EOL);
+            writeIssue(rv);
+            writer.write(NULL_CHARACTER + PMD.EOL);
         }
     }
 
     /**
-     * Generate a CodeClimateIssue suitable for processing into JSON from the
-     * given RuleViolation.
-     *
-     * @param rv RuleViolation to convert.
+     * Writes the issue of the given RuleViolation as JSON, directly
+     * to the writer.
      *
-     * @return The generated issue.
+     * @param rv RuleViolation to write.
      */
-    private CodeClimateIssue asIssue(RuleViolation rv) {
-        CodeClimateIssue issue = new CodeClimateIssue();
-        issue.check_name = rule.getName();
-        issue.description = cleaned(rv.getDescription());
-        issue.content = new CodeClimateIssue.Content(BODY_PLACEHOLDER);
-        issue.location = getLocation(rv);
-        issue.remediation_points = getRemediationPoints();
-        issue.categories = getCategories();
+    private void writeIssue(RuleViolation rv) throws IOException {
+        // the writer is not closed, that would close the report writer
+        @SuppressWarnings("PMD.CloseResource")
+        JsonWriter json = new JsonWriter(writer);
+        json.setSerializeNulls(false);
+
+        json.beginObject();
+        json.name("type").value("issue");
+        json.name("check_name").value(rule.getName());
+        json.name("description").value(cleaned(rv.getDescription()));
+        // the body is already escaped
+        json.name("content").beginObject().name("body").jsonValue('"' + getBody() + '"').endObject();
+        json.name("categories").beginArray();
+        for (String category : getCategories()) {
+            json.value(category);
+        }
+        json.endArray();
+        writeLocation(json, rv);
+        json.name("severity").value(getSeverity());
+        json.name("remediation_points").value(getRemediationPoints());
+        json.endObject();
+        json.flush();
+    }
 
+    private String getSeverity() {
         switch (rule.getPriority()) {
         case HIGH:
-            issue.severity = "blocker";
-            break;
+            return "blocker";
         case MEDIUM_HIGH:
-            issue.severity = "critical";
-            break;
+            return "critical";
         case MEDIUM:
-            issue.severity = "major";
-            break;
+            return "major";
         case MEDIUM_LOW:
-            issue.severity = "minor";
-            break;
+            return "minor";
         case LOW:
         default:
-            issue.severity = "info";
-            break;
+            return "info";
         }
-
-        return issue;
     }
 
     @Override
@@ -109,20 +115,22 @@ public class CodeClimateRenderer extends AbstractIncrementingRenderer {
         return "json";
     }
 
-    private CodeClimateIssue.Location getLocation(RuleViolation rv) {
-        CodeClimateIssue.Location result;
-
+    private void writeLocation(JsonWriter json, RuleViolation rv) throws IOException {
         String pathWithoutCcRoot = StringUtils.removeStartIgnoreCase(
                 determineFileName(rv.getFilename()), "/code/");
 
+        int endLine;
         if (rule.hasDescriptor(CODECLIMATE_REMEDIATION_MULTIPLIER)
             && !rule.getProperty(CODECLIMATE_BLOCK_HIGHLIGHTING)) {
-            result = new CodeClimateIssue.Location(pathWithoutCcRoot, rv.getBeginLine(), rv.getBeginLine());
+            endLine = rv.getBeginLine();
         } else {
-            result = new CodeClimateIssue.Location(pathWithoutCcRoot, rv.getBeginLine(), rv.getEndLine());
+            endLine = rv.getEndLine();
         }
 
-        return result;
+        json.name("location").beginObject();
+        json.name("path").value(pathWithoutCcRoot);
+        json.name("lines").beginObject().name("begin").value(rv.getBeginLine()).name("end").value(endLine).endObject();
+        json.endObject();
     }
 
     private int getRemediationPoints() {
@@ -148,7 +156,17 @@ public class CodeClimateRenderer extends AbstractIncrementingRenderer {
         return result;
     }
 
-    private <T> String getBody() {
+    private String getBody() {
+        // the body only depends on the rule, it's the largest part of the issue
+        String body = bodies.get(rule);
+        if (body == null) {
+            body = buildBody();
+            bodies.put(rule, body);
+        }
+        return body;
+    }
+
+    private <T> String buildBody() {
         StringBuilder result = new StringBuilder();
         result.append("## ")
                 .append(rule.getName())
@@ -7,8 +7,10 @@ package net.sourceforge.pmd.renderers.internal.sarif;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import net.sourceforge.pmd.PMDVersion;
 import net.sourceforge.pmd.Report;
@@ -33,6 +35,7 @@ import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.ToolExecutionNotifi
 
 public class SarifLogBuilder {
     private final List<ReportingDescriptor> rules = new ArrayList<>();
+    private final Map<ReportingDescriptor, Integer> ruleIndices = new HashMap<>();
     private final List<Result> results = new ArrayList<>();
     private final List<ToolConfigurationNotification> toolConfigurationNotifications = new ArrayList<>();
     private final List<ToolExecutionNotification> toolExecutionNotifications = new ArrayList<>();
@@ -42,18 +45,26 @@ public class SarifLogBuilder {
     }
 
     public SarifLogBuilder add(RuleViolation violation) {
+        results.add(toResult(violation));
+        return this;
+    }
+
+    /**
+     * Returns the result for the given violation, without adding it to
+     * the results of the log. The descriptor of its rule is added to the
+     * rules of the log, if it is not there already.
+     */
+    public Result toResult(RuleViolation violation) {
         final ReportingDescriptor ruleDescriptor = getReportingDescriptor(violation);
-        int ruleIndex = rules.indexOf(ruleDescriptor);
-        if (ruleIndex == -1) {
+        Integer ruleIndex = ruleIndices.get(ruleDescriptor);
+        if (ruleIndex == null) {
+            ruleIndex = rules.size();
             rules.add(ruleDescriptor);
-            ruleIndex = rules.size() - 1;
+            ruleIndices.put(ruleDescriptor, ruleIndex);
         }
 
         final Location location = getRuleViolationLocation(violation);
-        final Result result = resultFrom(ruleDescriptor, ruleIndex, location);
-        results.add(result);
-
-        return this;
+        return resultFrom(ruleDescriptor, ruleIndex, location);
     }
 
     public SarifLogBuilder addRunTimeError(Report.ProcessingError error) {
@@ -0,0 +1,89 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers.internal.sarif;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.RuleViolation;
+import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.Invocation;
+import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.Result;
+import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.Run;
+import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.Tool;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes a SARIF log with a single run while the violations are added,
+ * instead of building the whole log in memory. The results are written
+ * first, the tool, whose descriptors of rules are only known at the end,
+ * and the invocation are written by {@link #finish()}. Only the distinct
+ * rule descriptors and the errors are kept in memory.
+ */
+public class SarifLogWriter {
+    private final Gson gson = new GsonBuilder()
+            .disableHtmlEscaping()
+            .setPrettyPrinting()
+            .create();
+
+    private final SarifLogBuilder builder = SarifLogBuilder.sarifLogBuilder();
+    private final JsonWriter out;
+
+    public SarifLogWriter(Writer writer) {
+        this.out = gson.newJsonWriter(writer);
+    }
+
+    /**
+     * Writes the start of the log, up to the start of the results.
+     */
+    public void start() throws IOException {
+        final SarifLog log = SarifLog.builder().build();
+        out.beginObject();
+        out.name("$schema").value(log.getSchema());
+        out.name("version").value(log.getVersion());
+        out.name("runs").beginArray();
+        out.beginObject();
+        out.name("results").beginArray();
+    }
+
+    /**
+     * Writes the result of the given violation.
+     */
+    public void add(RuleViolation violation) {
+        gson.toJson(builder.toResult(violation), Result.class, out);
+    }
+
+    public void addRunTimeError(Report.ProcessingError error) {
+        builder.addRunTimeError(error);
+    }
+
+    public void addConfigurationError(Report.ConfigurationError error) {
+        builder.addConfigurationError(error);
+    }
+
+    /**
+     * Writes the end of the log, and flushes the writer.
+     */
+    public void finish() throws IOException {
+        out.endArray();
+
+        final Run run = builder.build().getRuns().get(0);
+        out.name("tool");
+        gson.toJson(run.getTool(), Tool.class, out);
+        out.name("invocations").beginArray();
+        for (Invocation invocation : run.getInvocations()) {
+            gson.toJson(invocation, Invocation.class, out);
+        }
+        out.endArray();
+
+        out.endObject();
+        out.endArray();
+        out.endObject();
+        out.flush();
+    }
+}
@@ -36,6 +36,8 @@ public class ClasspathClassLoader extends URLClassLoader {
 
     private static final Logger LOG = Logger.getLogger(ClasspathClassLoader.class.getName());
 
+    private volatile File indexDirectory;
+
     static {
         registerAsParallelCapable();
     }
@@ -103,6 +105,33 @@ public class ClasspathClassLoader extends URLClassLoader {
         return file.getAbsoluteFile().toURI().normalize().toURL();
     }
 
+    /**
+     * Returns the directory in which the index of the classes of this
+     * classpath is persisted, or null if it is not persisted.
+     */
+    public File getIndexDirectory() {
+        return indexDirectory;
+    }
+
+    public void setIndexDirectory(File indexDirectory) {
+        this.indexDirectory = indexDirectory;
+    }
+
+    /**
+     * Finds the resource with the given name, searching the entries of
+     * this classpath before the parent loader. This is the order in which
+     * {@link #loadClass(String, boolean)} finds classes, whereas
+     * {@link #getResource(String)} searches the parent first.
+     *
+     * @param name Name of the resource
+     *
+     * @return The URL of the resource, or null if it can't be found
+     */
+    public URL getResourceChildFirst(String name) {
+        URL url = findResource(name);
+        return url != null ? url : getResource(name);
+    }
+
     @Override
     public String toString() {
         return new StringBuilder(getClass().getSimpleName())
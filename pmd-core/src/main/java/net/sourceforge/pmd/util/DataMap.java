@@ -17,7 +17,17 @@ import java.util.Map;
  */
 public final class DataMap<K> {
 
-    private final Map<DataKey<? extends K, ?>, Object> map = new IdentityHashMap<>();
+    /**
+     * Most data maps hold very few entries, eg the user data of AST nodes.
+     * These are stored in a small array, and only moved to a map if there
+     * are more.
+     */
+    private static final int MAX_ARRAY_ENTRIES = 3;
+
+    /** Keys and values, interleaved. Null once the map is used. */
+    private Object[] entries = new Object[2 * MAX_ARRAY_ENTRIES];
+    private int size;
+    private Map<DataKey<? extends K, ?>, Object> map;
 
     private DataMap() {
 
@@ -34,6 +44,27 @@ public final class DataMap<K> {
      */
     @SuppressWarnings("unchecked")
     public <T> T set(DataKey<? extends K, ? super T> key, T data) {
+        if (map != null) {
+            return (T) map.put(key, data);
+        }
+
+        int index = indexOf(key);
+        if (index >= 0) {
+            Object previous = entries[index + 1];
+            entries[index + 1] = data;
+            return (T) previous;
+        } else if (size < MAX_ARRAY_ENTRIES) {
+            entries[2 * size] = key;
+            entries[2 * size + 1] = data;
+            size++;
+            return null;
+        }
+
+        map = new IdentityHashMap<>();
+        for (int i = 0; i < 2 * size; i += 2) {
+            map.put((DataKey<? extends K, ?>) entries[i], entries[i + 1]);
+        }
+        entries = null;
         return (T) map.put(key, data);
     }
 
@@ -47,7 +78,11 @@ public final class DataMap<K> {
      */
     @SuppressWarnings("unchecked")
     public <T> T get(DataKey<? extends K, ? extends T> key) {
-        return (T) map.get(key);
+        if (map != null) {
+            return (T) map.get(key);
+        }
+        int index = indexOf(key);
+        return index >= 0 ? (T) entries[index + 1] : null;
     }
 
     /**
@@ -58,7 +93,17 @@ public final class DataMap<K> {
      * @return True if some value is set
      */
     public boolean isSet(DataKey<? extends K, ?> key) {
-        return map.containsKey(key);
+        return map != null ? map.containsKey(key) : indexOf(key) >= 0;
+    }
+
+    /** Returns the index of the key in the entries array, or -1. */
+    private int indexOf(DataKey<? extends K, ?> key) {
+        for (int i = 0; i < 2 * size; i += 2) {
+            if (entries[i] == key) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     public static <K> DataMap<K> newDataMap() {
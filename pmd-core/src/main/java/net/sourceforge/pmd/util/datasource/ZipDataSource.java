@@ -34,6 +34,11 @@ public class ZipDataSource extends AbstractDataSource {
         return zipFile.getInputStream(zipEntry);
     }
 
+    @Override
+    public long getSize() {
+        return zipEntry.getSize();
+    }
+
     @Override
     public String getNiceFileName(boolean shortNames, String inputFileName) {
         // FIXME: this could probably be done better
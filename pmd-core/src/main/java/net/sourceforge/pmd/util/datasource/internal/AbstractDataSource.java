@@ -10,6 +10,15 @@ import net.sourceforge.pmd.util.datasource.DataSource;
 
 public abstract class AbstractDataSource implements DataSource {
 
+    /**
+     * Returns the size in bytes of the underlying source, if it can be
+     * determined cheaply, or -1 if unknown. This is only a hint, used
+     * e.g. to schedule the largest files first.
+     */
+    public long getSize() {
+        return -1;
+    }
+
     @Override
     public void close() throws IOException {
         // empty default implementation
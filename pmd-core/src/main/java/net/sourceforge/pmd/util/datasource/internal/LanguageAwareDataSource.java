@@ -25,6 +25,13 @@ public class LanguageAwareDataSource implements DataSource {
         return version;
     }
 
+    /**
+     * Returns the data source this instance delegates to.
+     */
+    public DataSource getBase() {
+        return base;
+    }
+
     @Override
     public InputStream getInputStream() throws IOException {
         return base.getInputStream();
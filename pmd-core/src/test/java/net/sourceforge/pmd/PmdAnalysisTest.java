@@ -118,6 +118,28 @@ public class PmdAnalysisTest {
         }
     }
 
+    @Test
+    public void testStreamingAnalysisCountsViolations() throws IOException {
+        final Language language = Dummy2LanguageModule.getInstance();
+        PMDConfiguration config = new PMDConfiguration();
+        config.setIgnoreIncrementalAnalysis(true);
+        RuleSet ruleset = RuleSet.forSingleRule(new TestRule());
+        Renderer renderer = mock(Renderer.class);
+
+        try (PmdAnalysis pmd = PmdAnalysis.create(config)) {
+            pmd.addRuleSet(ruleset);
+            pmd.addRenderer(renderer);
+            pmd.files().addFile(new SimpleTestTextFile("test content foo", "foo.txt", "foo.txt", language.getDefaultVersion()));
+            pmd.files().addFile(new SimpleTestTextFile("test content bar", "bar.txt", "bar.txt", language.getDefaultVersion()));
+            ReportStats stats = pmd.performAnalysisAndCollectStats();
+            Assert.assertEquals(0, stats.getNumErrors());
+            Assert.assertEquals(2, stats.getNumViolations());
+        }
+
+        // the base report, plus one per file
+        verify(renderer, times(3)).renderFileReport(ArgumentMatchers.<Report>any());
+    }
+
     public static class TestRule extends AbstractRule {
         public TestRule() {
             setLanguage(Dummy2LanguageModule.getInstance());
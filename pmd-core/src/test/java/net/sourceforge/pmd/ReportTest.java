@@ -122,6 +122,26 @@ public class ReportTest implements ThreadSafeReportListener {
         assertTrue("no metric", metricSemaphore);
     }
 
+    @Test
+    public void testStreamingReportOnlyCountsViolations() {
+        Report global = Report.newStreamingReport();
+        Report fileReport = new Report();
+        RuleContext ctx = new RuleContext();
+        ctx.setSourceCodeFile(new File("foo"));
+        Rule rule = new MockRule("name", "desc", "msg", "rulesetname");
+        fileReport.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(5, 5), rule.getMessage()));
+        fileReport.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(10, 5), rule.getMessage()));
+        fileReport.addError(new Report.ProcessingError(new RuntimeException("error"), "foo"));
+
+        global.merge(fileReport);
+
+        assertTrue(global.getViolations().isEmpty());
+        assertEquals(1, global.getProcessingErrors().size());
+        assertEquals(2, global.getStats().getNumViolations());
+        assertEquals(1, global.getStats().getNumErrors());
+        assertEquals(fileReport.getViolations().size(), fileReport.getStats().getNumViolations());
+    }
+
     @Test
     public void testSummary() {
         Report r = new Report();
@@ -0,0 +1,126 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.benchmark.RuleProfile.FileCost;
+import net.sourceforge.pmd.benchmark.RuleProfile.RuleCost;
+
+public class RuleProfilerTest {
+
+    @Test
+    public void testCostsArePerRule() {
+        RuleProfiler profiler = new RuleProfiler(2);
+        profiler.fileStarted("A.java");
+        profiler.operationRecorded(TimedOperationCategory.RULE, "Fast", 1000, 0);
+        profiler.operationRecorded(TimedOperationCategory.RULECHAIN_RULE, "Slow", 5000000, 12);
+        profiler.fileFinished("A.java");
+        profiler.fileStarted("B.java");
+        profiler.operationRecorded(TimedOperationCategory.RULE, "Fast", 3000, 0);
+        profiler.operationRecorded(TimedOperationCategory.RULECHAIN_RULE, "Slow", 9000000, 30);
+        profiler.fileFinished("B.java");
+
+        List<RuleCost> costs = profiler.getProfile().getRuleCosts();
+        assertEquals(2, costs.size());
+        RuleCost slow = costs.get(0);
+        assertEquals("Slow", slow.getRule());
+        assertEquals(2, slow.getFileCount());
+        assertEquals(14000000, slow.getTotalNanos());
+        assertEquals(9000000, slow.getMaxNanos());
+        assertEquals(42, slow.getNodeCount());
+        assertEquals(-1, slow.getAllocatedBytes());
+        assertTrue(slow.getP50Nanos() <= slow.getP99Nanos());
+        assertEquals("Fast", costs.get(1).getRule());
+    }
+
+    @Test
+    public void testUnlabeledAndOtherOperationsAreIgnored() {
+        RuleProfiler profiler = new RuleProfiler();
+        profiler.operationRecorded(TimedOperationCategory.RULE, null, 1000, 0);
+        profiler.operationRecorded(TimedOperationCategory.PARSER, "Parser", 1000, 0);
+        assertNull(profiler.operationStarted(TimedOperationCategory.RULECHAIN_RULE, null));
+        assertNull(profiler.operationStarted(TimedOperationCategory.COLLECT_FILES, "Files"));
+
+        assertTrue(profiler.getProfile().getRuleCosts().isEmpty());
+    }
+
+    @Test
+    public void testSlowestFilesAreKept() {
+        RuleProfiler profiler = new RuleProfiler(2);
+        for (int i = 1; i <= 5; i++) {
+            profiler.fileStarted("F" + i + ".java");
+            profiler.operationRecorded(TimedOperationCategory.RULECHAIN_RULE, "Rule", i * 1000, i);
+            profiler.fileFinished("F" + i + ".java");
+        }
+
+        List<FileCost> slowest = profiler.getProfile().getSlowestFiles();
+        assertEquals(2, slowest.size());
+        assertEquals("F5.java", slowest.get(0).getFileName());
+        assertEquals(5000, slowest.get(0).getNanos());
+        assertEquals(5, slowest.get(0).getNodeCount());
+        assertEquals("F4.java", slowest.get(1).getFileName());
+    }
+
+    @Test
+    public void testStartedOperationIsProfiled() {
+        RuleProfiler profiler = new RuleProfiler();
+        profiler.fileStarted("A.java");
+        TimedOperation operation = profiler.operationStarted(TimedOperationCategory.RULECHAIN_RULE, "Rule");
+        operation.close(7);
+        operation.close(7);
+        profiler.fileFinished("A.java");
+
+        RuleCost cost = profiler.getProfile().getRuleCosts().get(0);
+        assertEquals(1, cost.getFileCount());
+        assertEquals(7, cost.getNodeCount());
+        assertEquals("A.java", profiler.getProfile().getSlowestFiles().get(0).getFileName());
+    }
+
+    @Test
+    public void testCsvRenderer() throws IOException {
+        RuleProfiler profiler = new RuleProfiler(1);
+        profiler.fileStarted("a,b.java");
+        profiler.operationRecorded(TimedOperationCategory.RULECHAIN_RULE, "Rule", 2000000, 3);
+        profiler.fileFinished("a,b.java");
+
+        StringWriter writer = new StringWriter();
+        new CsvRuleProfileRenderer().render(profiler.getProfile(), writer);
+        String[] lines = writer.toString().split(PMD.EOL);
+
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("kind,rule,file,"));
+        assertTrue(lines[1], lines[1].startsWith("rule,Rule,,1,2.000,"));
+        assertTrue(lines[1], lines[1].endsWith(",,,,3"));
+        assertEquals("slowest,Rule,\"a,b.java\",1,2.000,,,2.000,,,,3", lines[2]);
+    }
+
+    @Test
+    public void testJsonRenderer() throws IOException {
+        RuleProfiler profiler = new RuleProfiler(1);
+        profiler.fileStarted("A.java");
+        profiler.operationRecorded(TimedOperationCategory.RULECHAIN_RULE, "Rule", 2000000, 3);
+        profiler.fileFinished("A.java");
+
+        StringWriter writer = new StringWriter();
+        new JsonRuleProfileRenderer().render(profiler.getProfile(), writer);
+        String json = writer.toString();
+
+        assertTrue(json, json.contains("\"rule\": \"Rule\""));
+        assertTrue(json, json.contains("\"totalMillis\": 2.0"));
+        assertTrue(json, json.contains("\"file\": \"A.java\""));
+        assertTrue(json, json.contains("\"nodes\": 3"));
+        assertTrue(json, !json.contains("allocatedBytes"));
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.RuleViolation;
+import net.sourceforge.pmd.lang.Language;
+
+public class IndexedFileAnalysisCacheTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File cacheFile;
+    private File sourceFile;
+    private RuleSets ruleSets;
+    private ClassLoader classLoader;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheFile = new File(tempFolder.getRoot(), "pmd-analysis.cache");
+        sourceFile = tempFolder.newFile("Source.java");
+        ruleSets = mock(RuleSets.class);
+        classLoader = mock(ClassLoader.class);
+    }
+
+    @Test
+    public void testStoreCreatesFiles() {
+        final IndexedFileAnalysisCache cache = new IndexedFileAnalysisCache(cacheFile);
+        cache.checkValidity(ruleSets, classLoader);
+        cache.persist();
+        assertTrue("Index file doesn't exist after store", cacheFile.exists());
+        assertTrue("Data file doesn't exist after store", new File(cacheFile.getPath() + ".data").exists());
+    }
+
+    @Test
+    public void testLoadFromDirectoryShouldntThrow() {
+        final IndexedFileAnalysisCache cache = new IndexedFileAnalysisCache(tempFolder.getRoot());
+        cache.checkValidity(ruleSets, classLoader);
+        cache.persist();
+    }
+
+    @Test
+    public void testLoadFromMalformedFileShouldntThrow() throws IOException {
+        Files.write(cacheFile.toPath(), "not a cache".getBytes());
+        Files.write(new File(cacheFile.getPath() + ".data").toPath(), "not a cache".getBytes());
+
+        final IndexedFileAnalysisCache cache = new IndexedFileAnalysisCache(cacheFile);
+        cache.checkValidity(ruleSets, classLoader);
+        assertFalse("Cache believes an unknown file is up to date", cache.isUpToDate(sourceFile));
+    }
+
+    @Test
+    public void testStorePersistsFilesWithViolations() {
+        final IndexedFileAnalysisCache cache = new IndexedFileAnalysisCache(cacheFile);
+        cache.checkValidity(ruleSets, classLoader);
+        cache.isUpToDate(sourceFile);
+        cache.ruleViolationAdded(mockViolation(sourceFile));
+        cache.persist();
+
+        final IndexedFileAnalysisCache reloadedCache = new IndexedFileAnalysisCache(cacheFile);
+        reloadedCache.checkValidity(ruleSets, classLoader);
+        assertTrue("Cache believes unmodified file with violations is not up to date",
+                reloadedCache.isUpToDate(sourceFile));
+
+        final List<RuleViolation> cachedViolations = reloadedCache.getCachedViolations(sourceFile);
+        assertEquals("Cached rule violations count mismatch", 1, cachedViolations.size());
+        assertEquals(sourceFile.getPath(), cachedViolations.get(0).getFilename());
+    }
+
+    @Test
+    public void testRulesetChangeInvalidatesCache() {
+        setupCacheWithFiles(sourceFile);
+
+        final IndexedFileAnalysisCache reloadedCache = new IndexedFileAnalysisCache(cacheFile);
+        when(ruleSets.getChecksum()).thenReturn(1L);
+        reloadedCache.checkValidity(ruleSets, classLoader);
+        assertFalse("Cache believes unmodified file is up to date after ruleset changed",
+                reloadedCache.isUpToDate(sourceFile));
+    }
+
+    @Test
+    public void testIncrementalUpdate() throws IOException {
+        final File changedFile = tempFolder.newFile("Changed.java");
+        final File removedFile = tempFolder.newFile("Removed.java");
+        setupCacheWithFiles(sourceFile, changedFile, removedFile);
+
+        Files.write(changedFile.toPath(), "some text".getBytes());
+
+        // second run, the removed file is not analysed anymore
+        final IndexedFileAnalysisCache cache = new IndexedFileAnalysisCache(cacheFile);
+        cache.checkValidity(ruleSets, classLoader);
+        assertTrue(cache.isUpToDate(sourceFile));
+        assertFalse(cache.isUpToDate(changedFile));
+        cache.ruleViolationAdded(mockViolation(changedFile));
+        cache.persist();
+
+        final IndexedFileAnalysisCache reloadedCache = new IndexedFileAnalysisCache(cacheFile);
+        reloadedCache.checkValidity(ruleSets, classLoader);
+        assertTrue(reloadedCache.isUpToDate(sourceFile));
+        assertTrue(reloadedCache.isUpToDate(changedFile));
+        assertEquals(1, reloadedCache.getCachedViolations(changedFile).size());
+        assertFalse("Files that are not analysed anymore should be dropped", reloadedCache.isUpToDate(removedFile));
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        final List<File> removedFiles = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            removedFiles.add(tempFolder.newFile("Removed" + i + ".java"));
+        }
+        final IndexedFileAnalysisCache cache = new IndexedFileAnalysisCache(cacheFile, 0);
+        cache.checkValidity(ruleSets, classLoader);
+        cache.isUpToDate(sourceFile);
+        cache.ruleViolationAdded(mockViolation(sourceFile));
+        for (final File f : removedFiles) {
+            cache.isUpToDate(f);
+        }
+        cache.persist();
+        final long uncompactedLength = cache.getDataFile(0).length();
+
+        // second run, most records are not referenced anymore
+        final IndexedFileAnalysisCache compactedCache = new IndexedFileAnalysisCache(cacheFile, 0);
+        compactedCache.checkValidity(ruleSets, classLoader);
+        assertTrue(compactedCache.isUpToDate(sourceFile));
+        compactedCache.persist();
+
+        final File compactedDataFile = compactedCache.getDataFile(1);
+        assertTrue("Compacted data file doesn't exist", compactedDataFile.isFile());
+        assertTrue("Data file wasn't compacted", compactedDataFile.length() < uncompactedLength);
+
+        final IndexedFileAnalysisCache reloadedCache = new IndexedFileAnalysisCache(cacheFile, 0);
+        reloadedCache.checkValidity(ruleSets, classLoader);
+        assertTrue(reloadedCache.isUpToDate(sourceFile));
+        assertEquals(1, reloadedCache.getCachedViolations(sourceFile).size());
+        assertFalse(reloadedCache.isUpToDate(removedFiles.get(0)));
+    }
+
+    @Test
+    public void testPersistAfterInvalidation() {
+        setupCacheWithFiles(sourceFile);
+
+        // the data file of the invalidated cache is still mapped
+        final IndexedFileAnalysisCache cache = new IndexedFileAnalysisCache(cacheFile);
+        when(ruleSets.getChecksum()).thenReturn(1L);
+        cache.checkValidity(ruleSets, classLoader);
+        assertFalse(cache.isUpToDate(sourceFile));
+        cache.ruleViolationAdded(mockViolation(sourceFile));
+        cache.persist();
+        assertTrue("Data file of the next generation doesn't exist", cache.getDataFile(1).isFile());
+
+        final IndexedFileAnalysisCache reloadedCache = new IndexedFileAnalysisCache(cacheFile);
+        reloadedCache.checkValidity(ruleSets, classLoader);
+        assertTrue(reloadedCache.isUpToDate(sourceFile));
+        assertEquals(1, reloadedCache.getCachedViolations(sourceFile).size());
+    }
+
+    @Test
+    public void testManyFiles() throws IOException {
+        final List<File> files = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            files.add(tempFolder.newFile("Source" + i + ".java"));
+        }
+        setupCacheWithFiles(files.toArray(new File[0]));
+
+        final IndexedFileAnalysisCache reloadedCache = new IndexedFileAnalysisCache(cacheFile);
+        reloadedCache.checkValidity(ruleSets, classLoader);
+        for (final File f : files) {
+            assertTrue("Cache believes a known, unchanged file is not up to date: " + f,
+                    reloadedCache.isUpToDate(f));
+        }
+        assertFalse("Cache believes an unknown file is up to date", reloadedCache.isUpToDate(sourceFile));
+    }
+
+    private void setupCacheWithFiles(final File... files) {
+        final IndexedFileAnalysisCache cache = new IndexedFileAnalysisCache(cacheFile);
+        cache.checkValidity(ruleSets, classLoader);
+
+        for (final File f : files) {
+            cache.isUpToDate(f);
+        }
+        cache.persist();
+    }
+
+    private static RuleViolation mockViolation(final File file) {
+        final RuleViolation rv = mock(RuleViolation.class);
+        when(rv.getFilename()).thenReturn(file.getPath());
+        final net.sourceforge.pmd.Rule rule = mock(net.sourceforge.pmd.Rule.class, Mockito.RETURNS_SMART_NULLS);
+        when(rule.getLanguage()).thenReturn(mock(Language.class));
+        when(rv.getRule()).thenReturn(rule);
+        return rv;
+    }
+}
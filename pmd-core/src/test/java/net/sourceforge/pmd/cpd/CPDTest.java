@@ -11,7 +11,9 @@ import org.apache.commons.lang3.SystemUtils;
 import org.junit.Assert;
 import org.junit.Assume;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * Unit test for {@link CPD}
@@ -21,6 +23,9 @@ public class CPDTest {
     private static final String BASE_TEST_RESOURCE_PATH = "src/test/resources/net/sourceforge/pmd/cpd/files/";
     private static final String TARGET_TEST_RESOURCE_PATH = "target/classes/net/sourceforge/pmd/cpd/files/";
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     private CPD cpd;
 
     // Symlinks are not well supported under Windows - so the tests are
@@ -130,6 +135,50 @@ public class CPDTest {
         }
     }
 
+    /**
+     * Tokenizing and hashing the files concurrently must find the same
+     * duplicates in the same order as the sequential mode.
+     */
+    @Test
+    public void testConcurrentModeSameMatches() throws Exception {
+        String sequential = renderMatches(0, null);
+        String concurrent = renderMatches(2, null);
+
+        Assert.assertFalse(sequential.isEmpty());
+        Assert.assertEquals(sequential, concurrent);
+    }
+
+    @Test
+    public void testCachedTokensSameMatches() throws Exception {
+        File cacheFile = new File(tempFolder.getRoot(), "cpd.cache");
+        String sequential = renderMatches(0, null);
+        String firstRun = renderMatches(0, cacheFile.getPath());
+        Assert.assertTrue("Cache file should have been created", cacheFile.isFile());
+        long cacheSize = cacheFile.length();
+
+        String secondRun = renderMatches(2, cacheFile.getPath());
+        Assert.assertEquals(sequential, firstRun);
+        Assert.assertEquals(sequential, secondRun);
+        Assert.assertEquals("The cache should contain the same files", cacheSize, cacheFile.length());
+    }
+
+    private String renderMatches(int threads, String cacheLocation) throws Exception {
+        CPDConfiguration configuration = new CPDConfiguration();
+        configuration.setLanguage(new AnyLanguage("any"));
+        configuration.setMinimumTileSize(10);
+        configuration.setThreads(threads);
+        configuration.setCacheLocation(cacheLocation);
+        configuration.postContruct();
+        CPD cpd = new CPD(configuration);
+
+        cpd.add(new File("./" + BASE_TEST_RESOURCE_PATH, "dup2.java"));
+        cpd.add(new File("./" + BASE_TEST_RESOURCE_PATH, "real-file.txt"));
+        cpd.add(new File("./" + BASE_TEST_RESOURCE_PATH, "dup1.java"));
+        cpd.go();
+
+        return new SimpleRenderer().render(cpd.getMatches());
+    }
+
     /**
      * Simple listener that fails, if too many files were added and not skipped.
      */
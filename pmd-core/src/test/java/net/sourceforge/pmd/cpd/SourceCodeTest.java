@@ -5,8 +5,10 @@
 package net.sourceforge.pmd.cpd;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.io.File;
+import java.util.Arrays;
 
 import org.junit.Test;
 
@@ -30,6 +32,31 @@ public class SourceCodeTest {
         assertEquals("Line 1\nLine 2", sourceCode.getSlice(1, 2));
     }
 
+    @Test
+    public void testTextNormalizesLineEndings() {
+        SourceCode sourceCode = new SourceCode(new SourceCode.StringCodeLoader("a\r\nb\rc\n\nd", "Foo.java"));
+
+        SourceText text = sourceCode.getText();
+        assertEquals("a\nb\nc\n\nd\n", text.toString());
+        assertEquals(5, text.getLineCount());
+        assertEquals(Arrays.asList("a", "b", "c", "", "d"), sourceCode.getCode());
+        assertEquals("a\nb\nc\n\nd\n", sourceCode.getCodeBuffer().toString());
+        assertEquals("c\n\nd", sourceCode.getSlice(3, 5));
+        assertEquals("d", sourceCode.getSlice(5, 8));
+    }
+
+    @Test
+    public void testTextIsShared() {
+        SourceCode sourceCode = new SourceCode(new SourceCode.StringCodeLoader(SAMPLE_CODE, "Foo.java"));
+
+        SourceText text = sourceCode.getText();
+        assertSame(text, sourceCode.getText());
+        assertSame(text.toString(), sourceCode.getText().toString());
+        assertEquals(SAMPLE_CODE, text.toString());
+        assertEquals("Line 3", text.getLine(3));
+        assertEquals("Line 2\nLine 3", sourceCode.getSlice(2, 3));
+    }
+
     @Test
     public void testEncodingDetectionFromBOM() throws Exception {
         FileCodeLoader loader = new SourceCode.FileCodeLoader(new File(BASE_RESOURCE_PATH + "file_with_utf8_bom.java"),
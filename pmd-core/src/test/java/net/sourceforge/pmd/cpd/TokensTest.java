@@ -0,0 +1,79 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Iterator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TokensTest {
+
+    @Before
+    public void setUp() {
+        TokenEntry.clearImages();
+    }
+
+    @Test
+    public void testTokensAreRecreated() {
+        Tokens tokens = new Tokens();
+        tokens.add(new TokenEntry("public", "Foo.java", 1, 1, 6));
+        tokens.add(new TokenEntry("class", "Foo.java", 1, 8, 12));
+        tokens.add(TokenEntry.getEOF());
+        tokens.add(new TokenEntry("public", "Bar.java", 3, 2, 7));
+        tokens.add(TokenEntry.getEOF());
+
+        assertEquals(5, tokens.size());
+        TokenEntry token = tokens.getTokens().get(3);
+        assertEquals("public", token.toString());
+        assertEquals("Bar.java", token.getTokenSrcID());
+        assertEquals(3, token.getBeginLine());
+        assertEquals(2, token.getBeginColumn());
+        assertEquals(7, token.getEndColumn());
+        assertEquals(3, token.getIndex());
+        assertEquals(tokens.getTokens().get(0).getIdentifier(), token.getIdentifier());
+        assertSame(TokenEntry.EOF, tokens.getTokens().get(2));
+
+        Iterator<TokenEntry> iterator = tokens.iterator();
+        assertEquals("public", iterator.next().toString());
+        assertEquals("class", iterator.next().toString());
+        assertSame(TokenEntry.EOF, iterator.next());
+    }
+
+    @Test
+    public void testLastTokenCanBeChanged() {
+        Tokens tokens = new Tokens();
+        tokens.add(new TokenEntry("Foo", "Foo.java", 1, 1, 3));
+        tokens.add(new TokenEntry("74", "Foo.java", 1, 5, 7));
+        tokens.getTokens().get(tokens.size() - 1).setImage("Foo");
+        tokens.add(TokenEntry.getEOF());
+
+        assertEquals("Foo", tokens.getTokens().get(1).toString());
+        assertEquals(tokens.getTokens().get(0).getIdentifier(), tokens.getTokens().get(1).getIdentifier());
+    }
+
+    @Test
+    public void testRestoreState() {
+        Tokens tokens = new Tokens();
+        tokens.add(new TokenEntry("public", "Foo.java", 1, 1, 6));
+        tokens.add(TokenEntry.getEOF());
+
+        TokenEntry.State state = new TokenEntry.State();
+        tokens.add(new TokenEntry("public", "Bar.java", 1, 1, 6));
+        tokens.add(new TokenEntry("class", "Bar.java", 1, 8, 12));
+        state.restore(tokens);
+
+        assertEquals(2, tokens.size());
+        assertSame(TokenEntry.EOF, tokens.getTokens().get(1));
+
+        tokens.add(new TokenEntry("interface", "Baz.java", 1, 1, 9));
+        assertEquals(3, tokens.size());
+        assertEquals("interface", tokens.getTokens().get(2).toString());
+        assertEquals("Baz.java", tokens.getTokens().get(2).getTokenSrcID());
+    }
+}
@@ -13,7 +13,9 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -248,6 +250,45 @@ public class XMLRendererTest {
         assertEquals("3", attrs_2.getNamedItem("endtoken").getNodeValue());
     }
 
+    @Test
+    public void testLayout() throws IOException {
+        TokenEntry.clearImages();
+        final CPDReportRenderer renderer = new XMLRenderer("UTF-8");
+        final String filename = "/var/Foo.java";
+        final String longFilename = "/var/project/src/main/java/net/sourceforge/pmd/Bar.java";
+        final Mark mark1 = createMark("public", filename, 1, 6, "code\nfragment", 2, 3);
+        final Mark mark2 = createMark("stuff", filename, 73, 6, "code\nfragment", 4, 5);
+        final Map<String, Integer> numberOfTokensPerFile = new LinkedHashMap<>();
+        numberOfTokensPerFile.put(filename, 888);
+        numberOfTokensPerFile.put(longFilename, 12);
+        final CPDReport report = new CPDReport(Collections.singletonList(new Match(75, mark1, mark2)), numberOfTokensPerFile);
+        final StringWriter writer = new StringWriter();
+        renderer.render(report, writer);
+
+        // the layout of the report when it was serialized from a DOM by Saxon
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<pmd-cpd>\n"
+                + "   <file path=\"/var/Foo.java\" totalNumberOfTokens=\"888\"/>\n"
+                + "   <file path=\"" + longFilename + "\"\n"
+                + "         totalNumberOfTokens=\"12\"/>\n"
+                + "   <duplication lines=\"6\" tokens=\"75\">\n"
+                + "      <file begintoken=\"0\" column=\"2\" endcolumn=\"3\" endline=\"6\" endtoken=\"1\"\n"
+                + "            line=\"1\" path=\"/var/Foo.java\"/>\n"
+                + "      <file begintoken=\"2\" column=\"4\" endcolumn=\"5\" endline=\"78\" endtoken=\"3\"\n"
+                + "            line=\"73\" path=\"/var/Foo.java\"/>\n"
+                + "      <codefragment><![CDATA[code" + System.lineSeparator() + "fragment]]></codefragment>\n"
+                + "   </duplication>\n"
+                + "</pmd-cpd>", writer.toString());
+    }
+
+    @Test
+    public void testLayoutOfEmptyReport() throws IOException {
+        final CPDRenderer renderer = new XMLRenderer("UTF-8");
+        final StringWriter writer = new StringWriter();
+        renderer.render(Collections.<Match>emptyIterator(), writer);
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<pmd-cpd/>", writer.toString());
+    }
+
     @Test
     public void testRendererEncodedPath() throws IOException {
         CPDRenderer renderer = new XMLRenderer();
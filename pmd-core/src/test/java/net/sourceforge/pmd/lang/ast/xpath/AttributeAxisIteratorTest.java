@@ -71,6 +71,36 @@ public class AttributeAxisIteratorTest {
         assertFalse(atts.containsKey("NodeList"));
     }
 
+    @Test
+    public void testAttributeValues() {
+        DummyNode dummyNode = new DummyNode(1);
+        dummyNode.testingOnlySetBeginLine(3);
+        dummyNode.setImage("foo");
+
+        Map<String, Attribute> atts = toMap(new AttributeAxisIterator(dummyNode));
+        assertEquals("3", atts.get("BeginLine").getStringValue());
+        assertEquals(3, atts.get("BeginLine").getValue());
+        assertEquals("false", atts.get("FindBoundary").getStringValue());
+        assertEquals(Boolean.FALSE, atts.get("FindBoundary").getValue());
+        assertEquals("foo", atts.get("Image").getStringValue());
+        assertEquals(int.class, atts.get("BeginLine").getType());
+    }
+
+    @Test
+    public void testFailingAttributes() {
+        Map<String, Attribute> atts = toMap(new AttributeAxisIterator(new DummyNodeWithFailingAttributes(1)));
+
+        // exceptions are reported, and the attribute has no value
+        assertEquals("", atts.get("Exception").getStringValue());
+        assertEquals(null, atts.get("Exception").getValue());
+        try {
+            atts.get("Error").getStringValue();
+            Assert.fail("Errors must not be swallowed");
+        } catch (StackOverflowError expected) {
+            // expected
+        }
+    }
+
     private Map<String, Attribute> toMap(AttributeAxisIterator it) {
         Map<String, Attribute> atts = new HashMap<>();
         while (it.hasNext()) {
@@ -109,4 +139,19 @@ public class AttributeAxisIteratorTest {
             return Collections.emptyList();
         }
     }
+
+    public static class DummyNodeWithFailingAttributes extends DummyNode {
+
+        public DummyNodeWithFailingAttributes(int id) {
+            super(id);
+        }
+
+        public String getException() {
+            throw new IllegalStateException("failing attribute");
+        }
+
+        public int getError() {
+            throw new StackOverflowError();
+        }
+    }
 }
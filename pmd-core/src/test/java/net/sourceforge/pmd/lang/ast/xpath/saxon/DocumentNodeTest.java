@@ -0,0 +1,52 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.ast.xpath.saxon;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.sourceforge.pmd.lang.ast.DummyNode;
+
+public class DocumentNodeTest {
+
+    @Test
+    public void testElementNodesAreCreatedLazily() {
+        DummyNode node = new DummyNode(1, false, "dummy");
+        DummyNode foo = new DummyNode(2, false, "foo");
+        DummyNode bar = new DummyNode(2, false, "bar");
+        DummyNode baz = new DummyNode(2, false, "baz");
+        node.jjtAddChild(foo, 0);
+        node.jjtAddChild(bar, 1);
+        bar.jjtAddChild(baz, 0);
+
+        DocumentNode document = new DocumentNode(node);
+        Assert.assertFalse(document.hasElementNode(baz));
+
+        ElementNode elementBaz = document.getElementNode(baz);
+        Assert.assertTrue(document.hasElementNode(baz));
+        Assert.assertSame(elementBaz, document.nodeToElementNode.get(baz));
+        Assert.assertSame(document.getElementNode(bar), elementBaz.getParent());
+        Assert.assertFalse(document.hasElementNode(foo));
+
+        Assert.assertEquals(4, document.nodeToElementNode.size());
+        Assert.assertSame(elementBaz, document.getElementNode(baz));
+        Assert.assertTrue(document.hasElementNode(foo));
+    }
+
+    @Test
+    public void testElementNodesAreNotSharedByDocuments() {
+        DummyNode node = new DummyNode(1, false, "dummy");
+        DummyNode foo = new DummyNode(2, false, "foo");
+        node.jjtAddChild(foo, 0);
+
+        DocumentNode first = new DocumentNode(node);
+        DocumentNode second = new DocumentNode(node);
+        ElementNode elementFoo = first.getElementNode(foo);
+
+        Assert.assertFalse(second.hasElementNode(foo));
+        Assert.assertNotSame(elementFoo, second.getElementNode(foo));
+        Assert.assertSame(elementFoo, first.getElementNode(foo));
+    }
+}
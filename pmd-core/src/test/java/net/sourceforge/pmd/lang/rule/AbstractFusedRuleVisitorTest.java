@@ -0,0 +1,99 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.lang.ast.DummyNode;
+import net.sourceforge.pmd.lang.ast.DummyNodeWithListAndEnum;
+import net.sourceforge.pmd.lang.ast.Node;
+
+public class AbstractFusedRuleVisitorTest {
+
+    @Test
+    public void testVisitsInDocumentOrder() {
+        RecordingVisitor visitor = new RecordingVisitor();
+        Rule first = new MockRule("First", "desc", "msg", "rulesetname");
+        Rule second = new MockRule("Second", "desc", "msg", "rulesetname");
+        RuleReference reference = new RuleReference();
+        reference.setRule(second);
+
+        visitor.apply(Collections.<Node>singletonList(createTree()), Arrays.<Rule>asList(first, reference), new RuleContext());
+
+        assertEquals(Arrays.asList("First:Root", "Second:Root", "First:Foo", "Second:Foo", "First:Bar", "Second:Bar",
+                                   "First:Foo", "Second:Foo"), visitor.visits);
+    }
+
+    @Test
+    public void testOnlyInterestedRulesAreCalled() {
+        RecordingVisitor visitor = new RecordingVisitor();
+        Rule first = new MockRule("First", "desc", "msg", "rulesetname");
+        Rule enumOnly = new MockRule("EnumOnly", "desc", "msg", "rulesetname");
+        DummyNode root = new DummyNode(0, false, "Root");
+        root.jjtAddChild(new DummyNodeWithListAndEnum(1), 0);
+        root.jjtAddChild(new DummyNode(2, false, "Foo"), 1);
+
+        visitor.apply(Collections.<Node>singletonList(root), Arrays.asList(first, enumOnly), new RuleContext());
+
+        assertEquals(Arrays.asList("First:Root", "First:dummyNode", "EnumOnly:dummyNode", "First:Foo"), visitor.visits);
+    }
+
+    @Test
+    public void testFailingRuleIsNotAppliedAnymore() {
+        RecordingVisitor visitor = new RecordingVisitor();
+        Rule first = new MockRule("First", "desc", "msg", "rulesetname");
+        Rule failing = new MockRule("Failing", "desc", "msg", "rulesetname");
+        visitor.failingRule = "Failing";
+        RuleContext ctx = new RuleContext();
+        ctx.setReport(new Report());
+        ctx.setIgnoreExceptions(true);
+
+        visitor.apply(Collections.<Node>singletonList(createTree()), Arrays.asList(failing, first), ctx);
+
+        assertEquals(Arrays.asList("Failing:Root", "First:Root", "First:Foo", "First:Bar", "First:Foo"), visitor.visits);
+        assertTrue(ctx.getReport().errors().hasNext());
+    }
+
+    private static DummyNode createTree() {
+        DummyNode root = new DummyNode(0, false, "Root");
+        DummyNode foo = new DummyNode(1, false, "Foo");
+        DummyNode bar = new DummyNode(2, false, "Bar");
+        DummyNode otherFoo = new DummyNode(1, false, "Foo");
+        root.jjtAddChild(foo, 0);
+        root.jjtAddChild(bar, 1);
+        bar.jjtAddChild(otherFoo, 0);
+        return root;
+    }
+
+    private static class RecordingVisitor extends AbstractFusedRuleVisitor {
+
+        private final List<String> visits = new ArrayList<>();
+        private String failingRule;
+
+        @Override
+        protected boolean isInterested(Rule rule, Class<? extends Node> nodeType) {
+            return !"EnumOnly".equals(rule.getName()) || nodeType == DummyNodeWithListAndEnum.class;
+        }
+
+        @Override
+        protected void visit(Rule rule, Node node, RuleContext ctx) {
+            visits.add(rule.getName() + ":" + node.getXPathNodeName());
+            if (rule.getName().equals(failingRule)) {
+                throw new IllegalStateException("Failure");
+            }
+        }
+    }
+}
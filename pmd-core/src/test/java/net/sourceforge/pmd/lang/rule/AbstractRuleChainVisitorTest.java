@@ -0,0 +1,148 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RuleSet;
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.ast.DummyNode;
+import net.sourceforge.pmd.lang.ast.Node;
+
+public class AbstractRuleChainVisitorTest {
+
+    @Test
+    public void testVisitsByName() {
+        assertVisits(new RecordingRuleChainVisitor(false));
+    }
+
+    @Test
+    public void testVisitsByJjtreeId() {
+        assertVisits(new RecordingRuleChainVisitor(true));
+    }
+
+    private void assertVisits(RecordingRuleChainVisitor visitor) {
+        Rule fooRule = ruleVisiting("FooRule", "Foo");
+        Rule fooBarRule = ruleVisiting("FooBarRule", "Bar", "Foo");
+        Rule noChainRule = new MockRule("NoChainRule", "desc", "msg", "rulesetname");
+        visitor.add(RuleSet.forSingleRule(fooRule), fooRule);
+        visitor.add(RuleSet.forSingleRule(fooBarRule), fooBarRule);
+        visitor.add(RuleSet.forSingleRule(noChainRule), noChainRule);
+
+        RuleContext ctx = new RuleContext();
+        ctx.setLanguageVersion(LanguageRegistry.getLanguage(DummyLanguageModule.NAME).getDefaultVersion());
+
+        // run twice, to make sure the nodes of the first file are cleared
+        for (int i = 0; i < 2; i++) {
+            visitor.visits.clear();
+            visitor.visitAll(Collections.<Node>singletonList(createTree()), ctx);
+            assertEquals(Arrays.asList("FooRule:Foo", "FooRule:Foo", "FooBarRule:Bar", "FooBarRule:Foo", "FooBarRule:Foo"),
+                         visitor.visits);
+        }
+    }
+
+    @Test
+    public void testRuleIsStoppedWhenItExceedsItsBudget() {
+        RecordingRuleChainVisitor visitor = new RecordingRuleChainVisitor(false);
+        visitor.slowRule = "SlowRule";
+        Rule slowRule = ruleVisiting("SlowRule", "Foo");
+        Rule fastRule = ruleVisiting("FastRule", "Foo");
+        visitor.add(RuleSet.forSingleRule(slowRule), slowRule);
+        visitor.add(RuleSet.forSingleRule(fastRule), fastRule);
+
+        RuleContext ctx = new RuleContext();
+        ctx.setLanguageVersion(LanguageRegistry.getLanguage(DummyLanguageModule.NAME).getDefaultVersion());
+
+        DummyNode root = new DummyNode(0, false, "Root");
+        for (int i = 0; i < 100; i++) {
+            root.jjtAddChild(new DummyNode(1, false, "Foo"), i);
+        }
+
+        TimeBudget.startFile("Foo.dummy", 0, 10);
+        try {
+            visitor.visitAll(Collections.<Node>singletonList(root), ctx);
+            assertTrue(TimeBudget.current().isExceeded());
+        } finally {
+            TimeBudget.finishFile();
+        }
+
+        assertEquals(100, Collections.frequency(visitor.visits, "FastRule:Foo"));
+        assertTrue(Collections.frequency(visitor.visits, "SlowRule:Foo") < 100);
+        assertEquals(1, ctx.getReport().getProcessingErrors().size());
+        assertTrue(ctx.getReport().getProcessingErrors().get(0).getError() instanceof TimeBudgetExceededException);
+    }
+
+    private static Rule ruleVisiting(String name, String... nodeNames) {
+        Rule rule = new MockRule(name, "desc", "msg", "rulesetname");
+        for (String nodeName : nodeNames) {
+            rule.addRuleChainVisit(nodeName);
+        }
+        return rule;
+    }
+
+    private static DummyNode createTree() {
+        DummyNode root = new DummyNode(0, false, "Root");
+        DummyNode foo = new DummyNode(1, false, "Foo");
+        DummyNode bar = new DummyNode(2, false, "Bar");
+        DummyNode otherFoo = new DummyNode(1, false, "Foo");
+        root.jjtAddChild(foo, 0);
+        root.jjtAddChild(bar, 1);
+        bar.jjtAddChild(otherFoo, 0);
+        return root;
+    }
+
+    private static class RecordingRuleChainVisitor extends AbstractRuleChainVisitor {
+
+        private final boolean byJjtreeId;
+        private final List<String> visits = new ArrayList<>();
+        private String slowRule;
+
+        RecordingRuleChainVisitor(boolean byJjtreeId) {
+            this.byJjtreeId = byJjtreeId;
+        }
+
+        @Override
+        protected void visit(Rule rule, Node node, RuleContext ctx) {
+            visits.add(rule.getName() + ":" + node.getXPathNodeName());
+            if (rule.getName().equals(slowRule)) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        protected void indexNodes(List<Node> nodes, RuleContext ctx) {
+            for (Node node : nodes) {
+                indexNodeRec(node);
+            }
+        }
+
+        private void indexNodeRec(Node node) {
+            indexNode(node);
+            for (int i = 0; i < node.getNumChildren(); i++) {
+                indexNodeRec(node.getChild(i));
+            }
+        }
+
+        @Override
+        protected boolean isNodeNameDeterminedByJjtreeId() {
+            return byJjtreeId;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.RuleContext;
+
+public class TimeBudgetTest {
+
+    @Test
+    public void testNoBudgetWhenUnlimited() {
+        TimeBudget.startFile("Foo.java", 0, 0);
+        assertNull(TimeBudget.current());
+        TimeBudget.checkCurrent();
+    }
+
+    @Test
+    public void testRuleBudget() throws InterruptedException {
+        TimeBudget budget = new TimeBudget("Foo.java", 0, 1);
+        budget.startRule("SlowRule");
+        Thread.sleep(5);
+        try {
+            budget.checkNow();
+            fail("Expected the budget to be exceeded");
+        } catch (TimeBudgetExceededException e) {
+            assertFalse(e.isFileBudget());
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Rule SlowRule exceeded its time budget of 1 ms on Foo.java"));
+        }
+
+        // the next rule has its own budget
+        budget.finishRule();
+        budget.startRule("FastRule");
+        budget.checkNow();
+    }
+
+    @Test
+    public void testFileBudgetIsReportedOnce() throws InterruptedException {
+        TimeBudget budget = new TimeBudget("Foo.java", 1, 0);
+        RuleContext ctx = new RuleContext();
+        assertFalse(budget.isExceeded());
+        Thread.sleep(5);
+
+        try {
+            budget.checkNow();
+            fail("Expected the budget to be exceeded");
+        } catch (TimeBudgetExceededException e) {
+            assertTrue(e.isFileBudget());
+            budget.report(ctx, e);
+        }
+        assertTrue(budget.isFileExhausted(ctx));
+        assertTrue(budget.isFileExhausted(ctx));
+
+        assertTrue(budget.isExceeded());
+        assertEquals(1, ctx.getReport().getProcessingErrors().size());
+    }
+}
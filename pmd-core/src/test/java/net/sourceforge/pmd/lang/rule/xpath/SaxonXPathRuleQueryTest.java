@@ -297,4 +297,25 @@ public class SaxonXPathRuleQueryTest {
         assertExpression(expectedSubexpression, query.nodeNameToXPaths.get("WhileStatement").get(0));
         assertExpression(expectedSubexpression, query.nodeNameToXPaths.get("DoStatement").get(0));
     }
+
+    @Test
+    public void compiledQueriesAreShared() {
+        String xpath = "//dummyNode[@Image = $image]";
+        PropertyDescriptor<String> image = PropertyFactory.stringProperty("image").desc("desc").defaultValue("a").build();
+        SaxonXPathRuleQuery queryA = createQuery(xpath, image);
+        SaxonXPathRuleQuery queryB = createQuery(xpath, image);
+        queryB.setProperties(Collections.<PropertyDescriptor<?>, Object>singletonMap(image, "b"));
+
+        DummyNode dummy = new DummyNode(1, false, "dummyNode");
+        dummy.setImage("b");
+        Assert.assertEquals(0, queryA.evaluate(dummy, new RuleContext()).size());
+        Assert.assertEquals(1, queryB.evaluate(dummy, new RuleContext()).size());
+        Assert.assertSame(queryA.xpathExpression, queryB.xpathExpression);
+        Assert.assertSame(queryA.nodeNameToXPaths, queryB.nodeNameToXPaths);
+
+        SaxonXPathRuleQuery otherVersion = createQuery(xpath, image);
+        otherVersion.setVersion(XPathRuleQuery.XPATH_1_0_COMPATIBILITY);
+        Assert.assertEquals(otherVersion.getRuleChainVisits(), queryA.getRuleChainVisits());
+        Assert.assertNotSame(queryA.xpathExpression, otherVersion.xpathExpression);
+    }
 }
@@ -86,4 +86,15 @@ public class ElementNodeTest {
 
         Assert.assertEquals(Type.COMMENT, elementFoo.getNodeKind());
     }
+
+    @Test
+    public void testNodeOfOtherTree() {
+        DummyNode node = new DummyNode(1, false, "dummy");
+        DummyNode other = new DummyNode(1, false, "dummy");
+        other.jjtAddChild(new DummyNode(2, false, "foo"), 0);
+
+        DocumentNode document = new DocumentNode(node);
+
+        Assert.assertNull(document.getElementNode(other.getChild(0)));
+    }
 }
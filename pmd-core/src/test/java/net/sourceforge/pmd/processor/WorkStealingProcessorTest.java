@@ -0,0 +1,142 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.processor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.renderers.AbstractAccumulatingRenderer;
+import net.sourceforge.pmd.renderers.Renderer;
+import net.sourceforge.pmd.util.datasource.DataSource;
+import net.sourceforge.pmd.util.datasource.internal.AbstractDataSource;
+
+public class WorkStealingProcessorTest {
+
+    @Test
+    public void testLargestFilesFirst() throws IOException {
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setThreads(1);
+
+        List<DataSource> files = new ArrayList<>();
+        files.add(new SizedDataSource("small.dummy", 10));
+        files.add(new SizedDataSource("unknown.dummy", -1));
+        files.add(new SizedDataSource("huge.dummy", 10000));
+        files.add(new SizedDataSource("medium.dummy", 100));
+
+        RecordingRenderer renderer = new RecordingRenderer();
+        renderer.start();
+        new WorkStealingProcessor(configuration)
+            .processFiles(new RuleSets(), files, new RuleContext(), Collections.<Renderer>singletonList(renderer));
+        renderer.end();
+
+        Assert.assertEquals(Arrays.asList("huge.dummy", "medium.dummy", "small.dummy", "unknown.dummy"),
+                            renderer.startedFiles);
+    }
+
+    @Test
+    public void testMoreFilesThanWindow() throws IOException {
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setThreads(2);
+        WorkStealingProcessor processor = new WorkStealingProcessor(configuration);
+
+        List<DataSource> files = new ArrayList<>();
+        int numFiles = processor.getMaxFilesInFlight() * 3 + 1;
+        for (int i = 0; i < numFiles; i++) {
+            files.add(new SizedDataSource("file" + i + ".dummy", i));
+        }
+
+        RecordingRenderer renderer = new RecordingRenderer();
+        renderer.start();
+        processor.processFiles(new RuleSets(), files, new RuleContext(), Collections.<Renderer>singletonList(renderer));
+        renderer.end();
+
+        Assert.assertEquals(numFiles, renderer.startedFiles.size());
+        // one report per file, plus the initial report with the configuration errors
+        Assert.assertEquals(numFiles + 1, renderer.renderedReports.get());
+        Assert.assertTrue("At most " + processor.getMaxFilesInFlight() + " files should be in flight, but there were "
+                              + renderer.maxFilesInFlight.get(),
+                          renderer.maxFilesInFlight.get() <= processor.getMaxFilesInFlight());
+    }
+
+    private static class SizedDataSource extends AbstractDataSource {
+        private final String name;
+        private final long size;
+
+        SizedDataSource(String name, long size) {
+            this.name = name;
+            this.size = size;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new ByteArrayInputStream("ABC".getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String getNiceFileName(boolean shortNames, String inputFileName) {
+            return name;
+        }
+    }
+
+    private static class RecordingRenderer extends AbstractAccumulatingRenderer {
+
+        private final List<String> startedFiles = Collections.synchronizedList(new ArrayList<String>());
+        private final AtomicInteger renderedReports = new AtomicInteger();
+        /**
+         * Peak number of files whose analysis started, but whose report is not
+         * rendered yet. These are a subset of the files in flight.
+         */
+        private final AtomicInteger maxFilesInFlight = new AtomicInteger();
+
+        RecordingRenderer() {
+            super("recording", "Records the analysed files");
+        }
+
+        @Override
+        public void startFileAnalysis(DataSource dataSource) {
+            startedFiles.add(dataSource.getNiceFileName(false, null));
+            // the first rendered report is the one with the configuration errors
+            int filesInFlight = startedFiles.size() - Math.max(0, renderedReports.get() - 1);
+            int max;
+            do {
+                max = maxFilesInFlight.get();
+            } while (filesInFlight > max && !maxFilesInFlight.compareAndSet(max, filesInFlight));
+        }
+
+        @Override
+        public void renderFileReport(Report report) throws IOException {
+            renderedReports.incrementAndGet();
+        }
+
+        @Override
+        public String defaultFileExtension() {
+            return null;
+        }
+
+        @Override
+        public void end() throws IOException {
+            // nothing to do
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.util.DataMap.SimpleDataKey;
+
+public class DataMapTest {
+
+    @Test
+    public void testFewEntries() {
+        DataMap<SimpleDataKey<?>> map = DataMap.newDataMap();
+        SimpleDataKey<String> a = DataMap.simpleDataKey("a");
+        SimpleDataKey<String> b = DataMap.simpleDataKey("b");
+
+        assertFalse(map.isSet(a));
+        assertNull(map.get(a));
+
+        assertNull(map.set(a, "1"));
+        assertNull(map.set(b, null));
+        assertEquals("1", map.set(a, "2"));
+
+        assertEquals("2", map.get(a));
+        assertTrue(map.isSet(b));
+        assertNull(map.get(b));
+    }
+
+    @Test
+    public void testManyEntries() {
+        DataMap<SimpleDataKey<?>> map = DataMap.newDataMap();
+        List<SimpleDataKey<Integer>> keys = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            SimpleDataKey<Integer> key = DataMap.simpleDataKey("key" + i);
+            keys.add(key);
+            assertNull(map.set(key, i));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(map.isSet(keys.get(i)));
+            assertEquals(Integer.valueOf(i), map.get(keys.get(i)));
+        }
+        assertEquals(Integer.valueOf(0), map.set(keys.get(0), 42));
+        assertEquals(Integer.valueOf(42), map.get(keys.get(0)));
+    }
+
+    @Test
+    public void testKeysAreComparedByIdentity() {
+        DataMap<SimpleDataKey<?>> map = DataMap.newDataMap();
+        map.set(DataMap.<String>simpleDataKey("a"), "1");
+
+        assertFalse(map.isSet(DataMap.<String>simpleDataKey("a")));
+    }
+}
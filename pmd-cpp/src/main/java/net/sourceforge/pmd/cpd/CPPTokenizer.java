@@ -81,7 +81,7 @@ public class CPPTokenizer extends JavaCCTokenizer {
     @Override
     protected TokenManager getLexerForSource(SourceCode sourceCode) {
         try {
-            StringBuilder buffer = sourceCode.getCodeBuffer();
+            SourceText buffer = sourceCode.getText();
             return new CppTokenManager(IOUtil.skipBOM(new StringReader(maybeSkipBlocks(buffer.toString()))));
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -22,7 +22,7 @@ public class GroovyTokenizer implements Tokenizer {
 
     @Override
     public void tokenize(SourceCode sourceCode, Tokens tokenEntries) {
-        StringBuilder buffer = sourceCode.getCodeBuffer();
+        SourceText buffer = sourceCode.getText();
 
         GroovyLexer lexer = new GroovyLexer(new StringReader(buffer.toString()));
         TokenStream tokenStream = lexer.plumb();
@@ -17,7 +17,7 @@ public class HtmlTokenizer implements Tokenizer {
 
     @Override
     public void tokenize(SourceCode sourceCode, Tokens tokenEntries) {
-        String data = sourceCode.getCodeBuffer().toString();
+        String data = sourceCode.getText().toString();
 
         Document doc = Parser.xmlParser().parseInput(data, "");
         HtmlTreeBuilder builder = new HtmlTreeBuilder();
@@ -28,7 +28,8 @@ public class JavaTokenizer extends JavaCCTokenizer {
     private boolean ignoreLiterals;
     private boolean ignoreIdentifiers;
 
-    private ConstructorDetector constructorDetector;
+    // per thread, so that files can be tokenized concurrently
+    private final ThreadLocal<ConstructorDetector> constructorDetector = new ThreadLocal<>();
 
     public void setProperties(Properties properties) {
         ignoreAnnotations = Boolean.parseBoolean(properties.getProperty(IGNORE_ANNOTATIONS, "false"));
@@ -38,14 +39,17 @@ public class JavaTokenizer extends JavaCCTokenizer {
 
     @Override
     public void tokenize(SourceCode sourceCode, Tokens tokenEntries) throws IOException {
-        constructorDetector = new ConstructorDetector(ignoreIdentifiers);
-        super.tokenize(sourceCode, tokenEntries);
+        constructorDetector.set(new ConstructorDetector(ignoreIdentifiers));
+        try {
+            super.tokenize(sourceCode, tokenEntries);
+        } finally {
+            constructorDetector.remove();
+        }
     }
 
     @Override
     protected TokenManager getLexerForSource(SourceCode sourceCode) {
-        final StringBuilder stringBuilder = sourceCode.getCodeBuffer();
-        return new JavaTokenManager(new StringReader(stringBuilder.toString()));
+        return new JavaTokenManager(new StringReader(sourceCode.getText().toString()));
     }
 
     @Override
@@ -58,7 +62,8 @@ public class JavaTokenizer extends JavaCCTokenizer {
         String image = currentToken.getImage();
         Token javaToken = (Token) currentToken;
 
-        constructorDetector.restoreConstructorToken(tokenEntries, javaToken);
+        ConstructorDetector detector = constructorDetector.get();
+        detector.restoreConstructorToken(tokenEntries, javaToken);
 
         if (ignoreLiterals && (javaToken.kind == JavaParserConstants.STRING_LITERAL
                 || javaToken.kind == JavaParserConstants.CHARACTER_LITERAL
@@ -70,7 +75,7 @@ public class JavaTokenizer extends JavaCCTokenizer {
             image = String.valueOf(javaToken.kind);
         }
 
-        constructorDetector.processToken(javaToken);
+        detector.processToken(javaToken);
 
         return new TokenEntry(image, fileName, currentToken.getBeginLine(), currentToken.getBeginColumn(), currentToken.getEndColumn());
     }
@@ -0,0 +1,64 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.rule;
+
+import java.util.List;
+
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.java.ast.JavaNode;
+import net.sourceforge.pmd.lang.java.rule.internal.JavaFusedRuleVisitor;
+import net.sourceforge.pmd.lang.rule.AbstractFusedRuleVisitor;
+import net.sourceforge.pmd.lang.rule.FusableRule;
+
+/**
+ * Base class for Java rules that don't control the traversal of the AST.
+ * All these rules are applied in a single traversal of the AST, instead
+ * of one traversal per rule.
+ *
+ * <p>Each visit method is called for every node of its type, in document
+ * order, whether or not the visit method of the parent node visited its
+ * children. Calling {@code super.visit(node, data)} doesn't visit the
+ * children anymore, and rules must not depend on the order in which
+ * the visit methods of different nodes are called, except that a parent
+ * is visited before its children.
+ */
+@Experimental
+public abstract class AbstractFusableJavaRule extends AbstractJavaRule implements FusableRule {
+
+    @Override
+    public AbstractFusedRuleVisitor getFusedRuleVisitor() {
+        return JavaFusedRuleVisitor.INSTANCE;
+    }
+
+    /**
+     * Visits every node, for when the rule is not applied by a ruleset,
+     * eg in the designer. The traversal is the same as when fused.
+     */
+    @Override
+    protected final void visitAll(List<? extends Node> nodes, RuleContext ctx) {
+        for (Node node : nodes) {
+            if (node instanceof JavaNode) {
+                visitTree((JavaNode) node, ctx);
+            }
+        }
+    }
+
+    private void visitTree(JavaNode node, RuleContext ctx) {
+        node.jjtAccept(this, ctx);
+        for (JavaNode child : node.children()) {
+            visitTree(child, ctx);
+        }
+    }
+
+    /**
+     * Does nothing, the children are visited by the traversal.
+     */
+    @Override
+    public Object visit(JavaNode node, Object data) {
+        return data;
+    }
+}
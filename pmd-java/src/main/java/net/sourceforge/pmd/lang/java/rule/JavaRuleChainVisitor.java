@@ -50,4 +50,9 @@ public class JavaRuleChainVisitor extends AbstractRuleChainVisitor {
             ((JavaNode) node).jjtAccept((JavaParserVisitor) rule, ctx);
         }
     }
+
+    @Override
+    protected boolean isNodeNameDeterminedByJjtreeId() {
+        return true;
+    }
 }
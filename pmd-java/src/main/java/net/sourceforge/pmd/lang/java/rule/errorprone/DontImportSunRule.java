@@ -5,9 +5,9 @@
 package net.sourceforge.pmd.lang.java.rule.errorprone;
 
 import net.sourceforge.pmd.lang.java.ast.ASTImportDeclaration;
-import net.sourceforge.pmd.lang.java.rule.AbstractJavaRule;
+import net.sourceforge.pmd.lang.java.rule.AbstractFusableJavaRule;
 
-public class DontImportSunRule extends AbstractJavaRule {
+public class DontImportSunRule extends AbstractFusableJavaRule {
 
     @Override
     public Object visit(ASTImportDeclaration node, Object data) {
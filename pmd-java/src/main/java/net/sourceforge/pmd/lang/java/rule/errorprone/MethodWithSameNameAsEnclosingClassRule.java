@@ -8,9 +8,9 @@ import java.util.List;
 
 import net.sourceforge.pmd.lang.java.ast.ASTClassOrInterfaceDeclaration;
 import net.sourceforge.pmd.lang.java.ast.ASTMethodDeclarator;
-import net.sourceforge.pmd.lang.java.rule.AbstractJavaRule;
+import net.sourceforge.pmd.lang.java.rule.AbstractFusableJavaRule;
 
-public class MethodWithSameNameAsEnclosingClassRule extends AbstractJavaRule {
+public class MethodWithSameNameAsEnclosingClassRule extends AbstractFusableJavaRule {
 
     @Override
     public Object visit(ASTClassOrInterfaceDeclaration node, Object data) {
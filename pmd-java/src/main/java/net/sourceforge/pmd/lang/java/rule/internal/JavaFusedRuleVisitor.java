@@ -0,0 +1,79 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.rule.internal;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.java.ast.JavaNode;
+import net.sourceforge.pmd.lang.java.ast.JavaParserVisitor;
+import net.sourceforge.pmd.lang.java.rule.AbstractFusableJavaRule;
+import net.sourceforge.pmd.lang.rule.AbstractFusedRuleVisitor;
+
+/**
+ * Applies all {@link AbstractFusableJavaRule}s of a ruleset in a single
+ * traversal. A rule is only called for the node types of the visit methods
+ * it overrides.
+ */
+public final class JavaFusedRuleVisitor extends AbstractFusedRuleVisitor {
+
+    public static final JavaFusedRuleVisitor INSTANCE = new JavaFusedRuleVisitor();
+
+    /** Parameter types of the overridden visit methods, by rule class. */
+    private static final ConcurrentMap<Class<?>, List<Class<?>>> VISITED_TYPES = new ConcurrentHashMap<>();
+
+    private JavaFusedRuleVisitor() {
+        // singleton, all fusable java rules are applied together
+    }
+
+    @Override
+    protected boolean isInterested(Rule rule, Class<? extends Node> nodeType) {
+        if (!JavaNode.class.isAssignableFrom(nodeType)) {
+            return false;
+        }
+        for (Class<?> visitedType : visitedTypes(rule.getClass())) {
+            if (visitedType.isAssignableFrom(nodeType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void visit(Rule rule, Node node, RuleContext ctx) {
+        ((JavaNode) node).jjtAccept((JavaParserVisitor) rule, ctx);
+    }
+
+    private static List<Class<?>> visitedTypes(Class<?> ruleClass) {
+        List<Class<?>> result = VISITED_TYPES.get(ruleClass);
+        if (result == null) {
+            result = new ArrayList<>();
+            for (Class<?> c = ruleClass; c != AbstractFusableJavaRule.class; c = c.getSuperclass()) {
+                for (Method method : c.getDeclaredMethods()) {
+                    if (isVisitMethod(method)) {
+                        result.add(method.getParameterTypes()[0]);
+                    }
+                }
+            }
+            VISITED_TYPES.putIfAbsent(ruleClass, result);
+        }
+        return result;
+    }
+
+    private static boolean isVisitMethod(Method method) {
+        return "visit".equals(method.getName())
+                && !method.isBridge()
+                && !Modifier.isStatic(method.getModifiers())
+                && method.getParameterTypes().length == 2
+                && JavaNode.class.isAssignableFrom(method.getParameterTypes()[0]);
+    }
+}
@@ -105,6 +105,7 @@ import net.sourceforge.pmd.lang.java.ast.TypeNode;
 import net.sourceforge.pmd.lang.java.symboltable.ClassScope;
 import net.sourceforge.pmd.lang.java.symboltable.VariableNameDeclaration;
 import net.sourceforge.pmd.lang.java.typeresolution.internal.NullableClassLoader;
+import net.sourceforge.pmd.lang.java.typeresolution.internal.SymbolIndex;
 import net.sourceforge.pmd.lang.java.typeresolution.typedefinition.JavaTypeDefinition;
 import net.sourceforge.pmd.lang.symboltable.NameOccurrence;
 import net.sourceforge.pmd.lang.symboltable.Scope;
@@ -1544,10 +1545,18 @@ public class ClassTypeResolver extends JavaParserVisitorAdapter implements Nulla
     }
 
     /**
-     * Check whether the supplied class name exists.
+     * Check whether the supplied class name exists. The class is not loaded.
      */
     public boolean classNameExists(String fullyQualifiedClassName) {
-        return pmdClassLoader.loadClassOrNull(fullyQualifiedClassName) != null;
+        return getSymbolIndex().exists(fullyQualifiedClassName);
+    }
+
+    /**
+     * Returns the symbols of the classes on the auxclasspath, which
+     * are read without loading the classes.
+     */
+    public SymbolIndex getSymbolIndex() {
+        return pmdClassLoader.getSymbolIndex();
     }
 
     @Override
@@ -7,6 +7,7 @@ package net.sourceforge.pmd.lang.java.typeresolution;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -15,7 +16,10 @@ import java.util.concurrent.ConcurrentMap;
 import org.objectweb.asm.ClassReader;
 
 import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
 import net.sourceforge.pmd.lang.java.typeresolution.internal.NullableClassLoader;
+import net.sourceforge.pmd.lang.java.typeresolution.internal.SymbolIndex;
 import net.sourceforge.pmd.lang.java.typeresolution.visitors.PMDASMVisitor;
 
 /*
@@ -34,39 +38,68 @@ import net.sourceforge.pmd.lang.java.typeresolution.visitors.PMDASMVisitor;
  *
  * Note: since git show 46ad3a4700b7a233a177fa77d08110127a85604c the cache is using
  * a concurrent hash map to avoid synchronizing on the class loader instance.
+ *
+ * The imported classes of a class are cached again though: they are looked up
+ * for every compilation unit that extends or uses the class, and reading them
+ * means parsing the class file and all its inner classes with ASM. Only the
+ * name maps are kept, not the classes, so that the memory problem above doesn't
+ * come back. The maps are immutable, which allows to share them between threads
+ * without locking.
  */
 @InternalApi
 @Deprecated
 public final class PMDASMClassLoader extends ClassLoader implements NullableClassLoader {
 
-    private static PMDASMClassLoader cachedPMDASMClassLoader;
-    private static ClassLoader cachedClassLoader;
+    private static final String IMPORTS_CACHE_HIT = "Imported classes cache hit";
+    private static final String IMPORTS_CACHE_MISS = "Imported classes cache miss";
+
+    private static volatile PMDASMClassLoader cachedPMDASMClassLoader;
+
+    private final ClassLoader parent;
 
     /**
      * Caches the names of the classes that we can't load or that don't exist.
      */
     private final ConcurrentMap<String, Boolean> dontBother = new ConcurrentHashMap<>();
 
+    /**
+     * Caches the imported classes of each class, see {@link #getImportedClasses(String)}.
+     */
+    private final ConcurrentMap<String, Map<String, String>> importedClasses = new ConcurrentHashMap<>();
+
+    /**
+     * Reads the class files of the parent loader without loading them.
+     * Created lazily, as it may need to open the indexes of the auxclasspath.
+     */
+    private volatile SymbolIndex symbolIndex;
+
     static {
         registerAsParallelCapable();
     }
 
     private PMDASMClassLoader(ClassLoader parent) {
         super(parent);
+        this.parent = parent;
     }
 
     /**
      * A new PMDASMClassLoader is created for each compilation unit, this method
      * allows to reuse the same PMDASMClassLoader across all the compilation
      * units.
+     *
+     * <p>This is called for every compilation unit by every analysis thread,
+     * so it doesn't lock. If the parent changes, threads racing to replace the
+     * cached instance may get distinct instances for the same parent. This is
+     * harmless, the instances only hold caches.
      */
-    public static synchronized PMDASMClassLoader getInstance(ClassLoader parent) {
-        if (parent.equals(cachedClassLoader)) {
-            return cachedPMDASMClassLoader;
+    public static PMDASMClassLoader getInstance(ClassLoader parent) {
+        PMDASMClassLoader cached = cachedPMDASMClassLoader;
+        if (cached != null && parent.equals(cached.parent)) {
+            return cached;
         }
-        cachedClassLoader = parent;
-        cachedPMDASMClassLoader = new PMDASMClassLoader(parent);
-        return cachedPMDASMClassLoader;
+        cached = new PMDASMClassLoader(parent);
+        cachedPMDASMClassLoader = cached;
+        return cached;
     }
 
     @Override
@@ -110,10 +143,57 @@ public final class PMDASMClassLoader extends ClassLoader implements NullableClas
         return !dontBother.containsKey(name);
     }
 
-    public synchronized Map<String, String> getImportedClasses(String name) throws ClassNotFoundException {
+    /**
+     * Returns the symbols of the classes available to this class loader.
+     * Use this instead of loading a class, when only its name or its
+     * hierarchy is needed.
+     */
+    public SymbolIndex getSymbolIndex() {
+        SymbolIndex result = symbolIndex;
+        if (result == null) {
+            synchronized (this) {
+                result = symbolIndex;
+                if (result == null) {
+                    result = SymbolIndex.create(parent);
+                    symbolIndex = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the simple names of the classes used in the signatures and
+     * the code of the given class and its inner classes, mapped to their
+     * binary names. The result is cached and unmodifiable.
+     *
+     * @param name Binary name of the class
+     *
+     * @throws ClassNotFoundException If the class file can't be read
+     */
+    public Map<String, String> getImportedClasses(String name) throws ClassNotFoundException {
+        Map<String, String> result = importedClasses.get(name);
+        if (result != null) {
+            if (TimeTracker.isRecordingOperations()) {
+                TimeTracker.recordOperation(TimedOperationCategory.TYPE_RESOLUTION, IMPORTS_CACHE_HIT, 0, 0);
+            }
+            return result;
+        }
         if (dontBother.containsKey(name)) {
             throw new ClassNotFoundException(name);
         }
+
+        final long start = System.nanoTime();
+        result = Collections.unmodifiableMap(readImportedClasses(name));
+        Map<String, String> previous = importedClasses.putIfAbsent(name, result);
+        if (TimeTracker.isRecordingOperations()) {
+            TimeTracker.recordOperation(TimedOperationCategory.TYPE_RESOLUTION, IMPORTS_CACHE_MISS,
+                                        System.nanoTime() - start, 0);
+        }
+        return previous != null ? previous : result;
+    }
+
+    private Map<String, String> readImportedClasses(String name) throws ClassNotFoundException {
         try (InputStream classResource = getResourceAsStream(name.replace('.', '/') + ".class")) {
             ClassReader reader = new ClassReader(classResource);
             PMDASMVisitor asmVisitor = new PMDASMVisitor(name);
@@ -0,0 +1,162 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.typeresolution.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Immutable metadata of a class, read from its class file without
+ * loading the class. Names are binary names, eg {@code java.util.Map$Entry}.
+ *
+ * @see SymbolIndex
+ */
+public final class ClassSymbol {
+
+    private final String binaryName;
+    private final int accessFlags;
+    private final String superName;
+    private final List<String> interfaces;
+    private final String genericSignature;
+    private final String enclosingName;
+    private final boolean localOrAnonymous;
+    private final List<String> memberClasses;
+    private final List<MemberSymbol> fields;
+    private final List<MemberSymbol> methods;
+
+    ClassSymbol(String binaryName, int accessFlags, String superName, List<String> interfaces,
+                String genericSignature, String enclosingName, boolean localOrAnonymous,
+                List<String> memberClasses, List<MemberSymbol> fields, List<MemberSymbol> methods) {
+        this.binaryName = binaryName;
+        this.accessFlags = accessFlags;
+        this.superName = superName;
+        this.interfaces = Collections.unmodifiableList(new ArrayList<>(interfaces));
+        this.genericSignature = genericSignature;
+        this.enclosingName = enclosingName;
+        this.localOrAnonymous = localOrAnonymous;
+        this.memberClasses = Collections.unmodifiableList(new ArrayList<>(memberClasses));
+        this.fields = Collections.unmodifiableList(new ArrayList<>(fields));
+        this.methods = Collections.unmodifiableList(new ArrayList<>(methods));
+    }
+
+    public String getBinaryName() {
+        return binaryName;
+    }
+
+    /**
+     * Returns the access flags of the class, as defined by {@link Opcodes}.
+     * For nested classes, these are the flags of the source declaration.
+     */
+    public int getAccessFlags() {
+        return accessFlags;
+    }
+
+    public boolean isInterface() {
+        return (accessFlags & Opcodes.ACC_INTERFACE) != 0;
+    }
+
+    public boolean isAnnotation() {
+        return (accessFlags & Opcodes.ACC_ANNOTATION) != 0;
+    }
+
+    public boolean isEnum() {
+        return (accessFlags & Opcodes.ACC_ENUM) != 0;
+    }
+
+    /**
+     * Returns the binary name of the superclass, or null for {@code java.lang.Object}.
+     * Interfaces have {@code java.lang.Object} as superclass.
+     */
+    public String getSuperName() {
+        return superName;
+    }
+
+    /**
+     * Returns the binary names of the directly implemented interfaces.
+     */
+    public List<String> getInterfaces() {
+        return interfaces;
+    }
+
+    /**
+     * Returns the generic signature of the class, as specified by JVMS 4.7.9.1,
+     * or null if the class is neither generic nor has generic supertypes.
+     */
+    public String getGenericSignature() {
+        return genericSignature;
+    }
+
+    /**
+     * Returns the binary name of the class declaring this member class,
+     * or null if this is a top-level, local or anonymous class.
+     */
+    public String getEnclosingName() {
+        return enclosingName;
+    }
+
+    /**
+     * Returns true if this is a local or anonymous class. Those have no
+     * canonical name.
+     */
+    public boolean isLocalOrAnonymous() {
+        return localOrAnonymous;
+    }
+
+    /**
+     * Returns the binary names of the member classes declared by this class.
+     */
+    public List<String> getMemberClasses() {
+        return memberClasses;
+    }
+
+    /**
+     * Returns the fields declared by this class. Synthetic fields are excluded.
+     */
+    public List<MemberSymbol> getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns the methods and constructors declared by this class.
+     * Synthetic and bridge methods are excluded.
+     */
+    public List<MemberSymbol> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Returns the field with the given name, or null if this class
+     * doesn't declare it.
+     */
+    public MemberSymbol getField(String name) {
+        for (MemberSymbol field : fields) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the declared methods with the given name.
+     */
+    public List<MemberSymbol> getMethods(String name) {
+        List<MemberSymbol> result = new ArrayList<>();
+        for (MemberSymbol method : methods) {
+            if (method.getName().equals(name)) {
+                result.add(method);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ClassSymbol[" + binaryName + "]";
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.typeresolution.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Builds a {@link ClassSymbol} from a class file. Method bodies, debug
+ * information and annotations are skipped.
+ */
+final class ClassSymbolReader extends ClassVisitor {
+
+    private static final int ASM_API = Opcodes.ASM9; // latest, non-experimental API version
+
+    private String internalName;
+    private int accessFlags;
+    private String superName;
+    private final List<String> interfaces = new ArrayList<>();
+    private String genericSignature;
+    private String enclosingName;
+    private boolean localOrAnonymous;
+    private final List<String> memberClasses = new ArrayList<>();
+    private final List<MemberSymbol> fields = new ArrayList<>();
+    private final List<MemberSymbol> methods = new ArrayList<>();
+
+    private ClassSymbolReader() {
+        super(ASM_API);
+    }
+
+    static ClassSymbol read(byte[] classFile) {
+        ClassSymbolReader visitor = new ClassSymbolReader();
+        new ClassReader(classFile).accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return visitor.toSymbol();
+    }
+
+    private ClassSymbol toSymbol() {
+        return new ClassSymbol(toBinaryName(internalName), accessFlags, toBinaryName(superName), interfaces,
+                               genericSignature, toBinaryName(enclosingName), localOrAnonymous,
+                               memberClasses, fields, methods);
+    }
+
+    private static String toBinaryName(String internalName) {
+        return internalName == null ? null : internalName.replace('/', '.');
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        this.internalName = name;
+        // ACC_SUPER is only meaningful to the VM
+        this.accessFlags = access & ~Opcodes.ACC_SUPER;
+        this.superName = superName;
+        this.genericSignature = signature;
+        if (interfaces != null) {
+            for (String itf : interfaces) {
+                this.interfaces.add(toBinaryName(itf));
+            }
+        }
+    }
+
+    @Override
+    public void visitInnerClass(String name, String outerName, String innerName, int access) {
+        if (name.equals(internalName)) {
+            // the class file flags of nested classes lose eg private and static
+            accessFlags = access | accessFlags & Opcodes.ACC_DEPRECATED;
+            enclosingName = outerName;
+            localOrAnonymous = outerName == null;
+        } else if (internalName.equals(outerName)) {
+            memberClasses.add(toBinaryName(name));
+        }
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+        if ((access & Opcodes.ACC_SYNTHETIC) == 0) {
+            fields.add(new MemberSymbol(name, access, descriptor, signature));
+        }
+        return null;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+        if ((access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) == 0 && !"<clinit>".equals(name)) {
+            methods.add(new MemberSymbol(name, access, descriptor, signature));
+        }
+        return null;
+    }
+}
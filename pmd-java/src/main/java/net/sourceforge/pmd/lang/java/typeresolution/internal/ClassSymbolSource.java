@@ -0,0 +1,18 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.typeresolution.internal;
+
+/**
+ * An entry of the auxclasspath whose symbols are read by the
+ * {@link SymbolIndex} itself, instead of through the class loader.
+ */
+interface ClassSymbolSource {
+
+    /**
+     * Returns the symbol of the class with the given binary name, or
+     * null if this entry doesn't contain it.
+     */
+    ClassSymbol get(String binaryName);
+}
@@ -0,0 +1,401 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.typeresolution.internal;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.Adler32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.cache.internal.ZipFileFingerprinter;
+import net.sourceforge.pmd.util.IOUtil;
+
+/**
+ * The symbols of all the classes of a jar, stored in a file that is
+ * memory-mapped. The file is named after the jar and its fingerprint,
+ * as computed for the analysis cache, so that it is built once per
+ * version of the jar, and can be shared by several projects. When a jar
+ * changed and is indexed again, the indexes of the other versions of
+ * the jar, ie of the jars with the same file name, are deleted. Jars
+ * are usually named after their version, so the index directory doesn't
+ * keep growing with each build of a snapshot jar.
+ *
+ * <p>The file contains a header, an open-addressing hash table keyed
+ * by the hash of the binary names of the classes, and the records of
+ * the classes. Each slot of the table holds the position of a record,
+ * so that only the looked up symbols are decoded. This class is thread-safe.
+ */
+final class JarSymbolIndex implements ClassSymbolSource {
+
+    private static final Logger LOG = Logger.getLogger(JarSymbolIndex.class.getName());
+
+    private static final int MAGIC = 0x504D4453; // "PMDS"
+    private static final int FORMAT_VERSION = 1;
+    private static final String INDEX_FILE_SUFFIX = ".symbols";
+
+    // hash (long), record offset (int), record length (int)
+    private static final int SLOT_SIZE = 8 + 4 + 4;
+    private static final int MIN_CAPACITY = 16;
+    /** The header is read at once, it's shorter than this, unless the index is malformed. */
+    private static final int MAX_HEADER_SIZE = 256;
+
+    private final ByteBuffer buffer;
+    private final int slotsStart;
+    private final int capacity;
+
+    private JarSymbolIndex(ByteBuffer buffer, int slotsStart, int capacity) {
+        this.buffer = buffer;
+        this.slotsStart = slotsStart;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Opens the index of the given classpath entry, building it if it
+     * doesn't exist yet.
+     *
+     * @return The index, or null if the entry is not a jar, or it can't be indexed
+     */
+    static JarSymbolIndex open(URL classpathEntry, File indexDirectory) {
+        final File jar;
+        try {
+            jar = new File(classpathEntry.toURI());
+        } catch (final URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+        final String name = jar.getName();
+        if (!jar.isFile() || !name.endsWith(".jar") && !name.endsWith(".zip")) {
+            return null;
+        }
+
+        try {
+            final Adler32 fingerprint = new Adler32();
+            new ZipFileFingerprinter().fingerprint(classpathEntry, fingerprint);
+            final File indexFile = new File(indexDirectory,
+                                            name + '-' + Long.toHexString(fingerprint.getValue()) + INDEX_FILE_SUFFIX);
+
+            JarSymbolIndex index = indexFile.isFile() ? load(indexFile) : null;
+            if (index == null) {
+                build(jar, indexFile);
+                deleteStaleIndexes(indexFile, name);
+                index = load(indexFile);
+            }
+            return index;
+        } catch (final IOException e) {
+            LOG.warning("Could not index the classes of " + jar + ", " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static JarSymbolIndex load(File indexFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            // The header is checked before the file is mapped: an outdated index
+            // is replaced, and a mapped file can't be replaced on Windows.
+            final ByteBuffer header = ByteBuffer.allocate((int) Math.min(size, MAX_HEADER_SIZE));
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    break;
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION
+                || !PMDVersion.VERSION.equals(readString(header))) {
+                LOG.fine("Symbol index " + indexFile + " has an outdated format, rebuilding it");
+                return null;
+            }
+            final int capacity = header.getInt();
+            final int slotsStart = header.position();
+            if (Integer.bitCount(capacity) != 1 || size - slotsStart < (long) capacity * SLOT_SIZE) {
+                LOG.warning("Symbol index " + indexFile + " is malformed, rebuilding it");
+                return null;
+            }
+            return new JarSymbolIndex(channel.map(MapMode.READ_ONLY, 0, size), slotsStart, capacity);
+        } catch (final BufferUnderflowException e) {
+            LOG.warning("Symbol index " + indexFile + " is malformed, rebuilding it");
+            return null;
+        }
+    }
+
+    /**
+     * Returns the symbol of the class with the given binary name, or
+     * null if the jar doesn't contain it.
+     */
+    @Override
+    public ClassSymbol get(String binaryName) {
+        final long hash = hash(binaryName);
+        int i = bucket(hash, capacity);
+        for (int probes = 0; probes < capacity; probes++) {
+            final int slot = slotsStart + i * SLOT_SIZE;
+            final int length = buffer.getInt(slot + 12);
+            if (length == 0) {
+                // empty slot, end of the probe sequence
+                return null;
+            }
+            if (buffer.getLong(slot) == hash) {
+                final ByteBuffer record = buffer.duplicate();
+                record.position(buffer.getInt(slot + 8));
+                record.limit(record.position() + length);
+                try {
+                    if (binaryName.equals(readString(record))) {
+                        return readSymbol(binaryName, record);
+                    }
+                } catch (final BufferUnderflowException | IllegalArgumentException e) {
+                    LOG.warning("Malformed record of " + binaryName + " in a symbol index");
+                    return null;
+                }
+            }
+            i = (i + 1) & (capacity - 1);
+        }
+        return null;
+    }
+
+    private static void build(File jar, File indexFile) throws IOException {
+        final List<byte[]> records = new ArrayList<>();
+        final List<Long> hashes = new ArrayList<>();
+        final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        final DataOutputStream record = new DataOutputStream(recordBytes);
+
+        try (ZipFile zip = new ZipFile(jar)) {
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                final String entryName = entry.getName();
+                if (entry.isDirectory() || !entryName.endsWith(".class")
+                    || entryName.startsWith("META-INF/") || entryName.endsWith("module-info.class")) {
+                    continue;
+                }
+
+                final ClassSymbol symbol;
+                try (InputStream stream = zip.getInputStream(entry)) {
+                    symbol = ClassSymbolReader.read(IOUtil.toByteArray(stream));
+                } catch (final RuntimeException e) {
+                    // malformed class file, it can't be resolved without the index either
+                    continue;
+                }
+
+                recordBytes.reset();
+                writeString(record, symbol.getBinaryName());
+                writeSymbol(record, symbol);
+                record.flush();
+                records.add(recordBytes.toByteArray());
+                hashes.add(hash(symbol.getBinaryName()));
+            }
+        }
+
+        int tableCapacity = MIN_CAPACITY;
+        while (tableCapacity < records.size() * 2) {
+            tableCapacity <<= 1;
+        }
+        final int[] table = new int[tableCapacity];
+        for (int r = 0; r < records.size(); r++) {
+            int i = bucket(hashes.get(r), tableCapacity);
+            while (table[i] != 0) {
+                i = (i + 1) & (tableCapacity - 1);
+            }
+            table[i] = r + 1; // 0 marks an empty slot
+        }
+
+        final File directory = indexFile.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        // concurrent runs may build the same index, each writes its own temporary file
+        final Path tmp = Files.createTempFile(directory.toPath(), indexFile.getName(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, PMDVersion.VERSION);
+                out.writeInt(tableCapacity);
+
+                int offset = out.size() + tableCapacity * SLOT_SIZE;
+                final int[] offsets = new int[records.size()];
+                for (int r = 0; r < records.size(); r++) {
+                    offsets[r] = offset;
+                    offset += records.get(r).length;
+                }
+                for (final int r : table) {
+                    if (r == 0) {
+                        out.writeLong(0);
+                        out.writeInt(0);
+                        out.writeInt(0);
+                    } else {
+                        out.writeLong(hashes.get(r - 1));
+                        out.writeInt(offsets[r - 1]);
+                        out.writeInt(records.get(r - 1).length);
+                    }
+                }
+                for (final byte[] bytes : records) {
+                    out.write(bytes);
+                }
+            }
+            try {
+                Files.move(tmp, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(tmp, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            LOG.fine("Indexed " + records.size() + " classes of " + jar);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Deletes the indexes of the other versions of the jar. An index that
+     * is still mapped by another analysis can't be deleted on Windows, it
+     * is then deleted the next time the jar is indexed.
+     */
+    private static void deleteStaleIndexes(File indexFile, String jarName) {
+        final File[] siblings = indexFile.getAbsoluteFile().getParentFile().listFiles();
+        if (siblings == null) {
+            return;
+        }
+        for (final File sibling : siblings) {
+            if (!sibling.getName().equals(indexFile.getName()) && isIndexOf(sibling.getName(), jarName)) {
+                try {
+                    Files.deleteIfExists(sibling.toPath());
+                } catch (final IOException e) {
+                    LOG.fine("Could not delete the stale symbol index " + sibling + ", " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if the file name is {@code <jarName>-<fingerprint>.symbols}.
+     */
+    private static boolean isIndexOf(String fileName, String jarName) {
+        final int start = jarName.length() + 1;
+        final int end = fileName.length() - INDEX_FILE_SUFFIX.length();
+        if (end <= start || !fileName.startsWith(jarName + '-') || !fileName.endsWith(INDEX_FILE_SUFFIX)) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (Character.digit(fileName.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeSymbol(DataOutputStream out, ClassSymbol symbol) throws IOException {
+        out.writeInt(symbol.getAccessFlags());
+        writeString(out, symbol.getSuperName());
+        writeStrings(out, symbol.getInterfaces());
+        writeString(out, symbol.getGenericSignature());
+        writeString(out, symbol.getEnclosingName());
+        out.writeBoolean(symbol.isLocalOrAnonymous());
+        writeStrings(out, symbol.getMemberClasses());
+        writeMembers(out, symbol.getFields());
+        writeMembers(out, symbol.getMethods());
+    }
+
+    private static ClassSymbol readSymbol(String binaryName, ByteBuffer in) {
+        final int accessFlags = in.getInt();
+        final String superName = readString(in);
+        final List<String> interfaces = readStrings(in);
+        final String genericSignature = readString(in);
+        final String enclosingName = readString(in);
+        final boolean localOrAnonymous = in.get() != 0;
+        final List<String> memberClasses = readStrings(in);
+        final List<MemberSymbol> fields = readMembers(in);
+        final List<MemberSymbol> methods = readMembers(in);
+        return new ClassSymbol(binaryName, accessFlags, superName, interfaces, genericSignature,
+                               enclosingName, localOrAnonymous, memberClasses, fields, methods);
+    }
+
+    private static void writeMembers(DataOutputStream out, List<MemberSymbol> members) throws IOException {
+        out.writeInt(members.size());
+        for (final MemberSymbol member : members) {
+            writeString(out, member.getName());
+            out.writeInt(member.getAccessFlags());
+            writeString(out, member.getDescriptor());
+            writeString(out, member.getGenericSignature());
+        }
+    }
+
+    private static List<MemberSymbol> readMembers(ByteBuffer in) {
+        final int count = in.getInt();
+        final List<MemberSymbol> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            members.add(new MemberSymbol(readString(in), in.getInt(), readString(in), readString(in)));
+        }
+        return members;
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (final String string : strings) {
+            writeString(out, string);
+        }
+    }
+
+    private static List<String> readStrings(ByteBuffer in) {
+        final int count = in.getInt();
+        final List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        final int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long hash(String binaryName) {
+        long hash = 1125899906842597L;
+        for (int i = 0; i < binaryName.length(); i++) {
+            hash = 31 * hash + binaryName.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int bucket(long hash, int capacity) {
+        final long mixed = hash ^ (hash >>> 32);
+        return (int) (mixed ^ (mixed >>> 16)) & (capacity - 1);
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.typeresolution.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Immutable metadata of a field or method of a {@link ClassSymbol}.
+ * Type names are binary names, or primitive and array names like
+ * {@code int[]}.
+ */
+public final class MemberSymbol {
+
+    private final String name;
+    private final int accessFlags;
+    private final String descriptor;
+    private final String genericSignature;
+
+    MemberSymbol(String name, int accessFlags, String descriptor, String genericSignature) {
+        this.name = name;
+        this.accessFlags = accessFlags;
+        this.descriptor = descriptor;
+        this.genericSignature = genericSignature;
+    }
+
+    /**
+     * Returns the name of the member. Constructors are named {@code <init>}.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the access flags of the member, as defined by {@link Opcodes}.
+     */
+    public int getAccessFlags() {
+        return accessFlags;
+    }
+
+    public boolean isStatic() {
+        return (accessFlags & Opcodes.ACC_STATIC) != 0;
+    }
+
+    public boolean isMethod() {
+        return descriptor.charAt(0) == '(';
+    }
+
+    public boolean isConstructor() {
+        return "<init>".equals(name);
+    }
+
+    public boolean isVarargs() {
+        return isMethod() && (accessFlags & Opcodes.ACC_VARARGS) != 0;
+    }
+
+    /**
+     * Returns the erased descriptor of the member, as specified by JVMS 4.3.
+     */
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * Returns the generic signature of the member, or null if its type
+     * doesn't mention type variables or parameterized types.
+     */
+    public String getGenericSignature() {
+        return genericSignature;
+    }
+
+    /**
+     * Returns the erased type of a field, or the erased return type of
+     * a method.
+     */
+    public String getTypeName() {
+        Type type = Type.getType(descriptor);
+        return isMethod() ? type.getReturnType().getClassName() : type.getClassName();
+    }
+
+    /**
+     * Returns the erased parameter types of a method, or an empty list
+     * for a field.
+     */
+    public List<String> getParameterTypeNames() {
+        if (!isMethod()) {
+            return Collections.emptyList();
+        }
+        Type[] types = Type.getArgumentTypes(descriptor);
+        List<String> names = new ArrayList<>(types.length);
+        for (Type type : types) {
+            names.add(type.getClassName());
+        }
+        return names;
+    }
+
+    @Override
+    public String toString() {
+        return "MemberSymbol[" + name + descriptor + "]";
+    }
+}
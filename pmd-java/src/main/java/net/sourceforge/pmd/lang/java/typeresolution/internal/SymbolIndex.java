@@ -0,0 +1,277 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.typeresolution.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.sourceforge.pmd.util.ClasspathClassLoader;
+import net.sourceforge.pmd.util.IOUtil;
+
+/**
+ * Index of the {@link ClassSymbol}s of a classpath. The class files are
+ * read with ASM from the resources of a class loader, so looking up a
+ * symbol never defines the class in the JVM, nor runs its static
+ * initializers. This avoids the metaspace cost and the linkage errors
+ * of loading the classes of the auxclasspath, when only their names or
+ * their hierarchy are needed.
+ *
+ * <p>Symbols are read on demand and cached, including the negative
+ * cases. When an index directory is configured on the auxclasspath
+ * (see {@link ClasspathClassLoader#getIndexDirectory()}), the symbols
+ * of its jars are read from persistent {@link JarSymbolIndex jar indexes}
+ * instead, so that the jars don't need to be searched nor read. The
+ * entries of the auxclasspath are then searched in order, and before its
+ * parent loader, like the auxclasspath loads classes. This class is
+ * thread-safe.
+ */
+public final class SymbolIndex {
+
+    private final ClassLoader classLoader;
+    private final List<ClassSymbolSource> entries;
+    private final ConcurrentMap<String, ClassSymbol> symbols = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Boolean> unresolved = new ConcurrentHashMap<>();
+    /** Empty sets mark types whose hierarchy is not entirely on the classpath. */
+    private final ConcurrentMap<String, Set<String>> superTypes = new ConcurrentHashMap<>();
+
+    public SymbolIndex(ClassLoader classLoader) {
+        this(classLoader, Collections.<ClassSymbolSource>emptyList());
+    }
+
+    /**
+     * @param classLoader Loader used to read the classes that are not in the entries
+     * @param entries     Leading entries of the auxclasspath, searched first, in order
+     */
+    private SymbolIndex(ClassLoader classLoader, List<ClassSymbolSource> entries) {
+        this.classLoader = classLoader;
+        this.entries = entries;
+    }
+
+    /**
+     * Creates the symbol index of the given class loader. If it's an
+     * auxclasspath with an index directory, the persistent indexes of
+     * its jars are used, and built if needed.
+     */
+    public static SymbolIndex create(ClassLoader classLoader) {
+        if (!(classLoader instanceof ClasspathClassLoader)) {
+            return new SymbolIndex(classLoader);
+        }
+        ClasspathClassLoader auxclasspath = (ClasspathClassLoader) classLoader;
+        File indexDirectory = auxclasspath.getIndexDirectory();
+        if (indexDirectory == null) {
+            return new SymbolIndex(classLoader);
+        }
+
+        List<ClassSymbolSource> entries = new ArrayList<>();
+        boolean allIndexed = true;
+        for (URL url : auxclasspath.getURLs()) {
+            ClassSymbolSource entry = JarSymbolIndex.open(url, indexDirectory);
+            if (entry == null) {
+                entry = DirectorySource.open(url);
+            }
+            if (entry == null) {
+                // eg a jar that can't be indexed. The auxclasspath loader searches its
+                // entries in order, so this one and the next ones are searched with it
+                allIndexed = false;
+                break;
+            }
+            entries.add(entry);
+        }
+        // the auxclasspath loader loads its own classes first, so do we. If all its
+        // entries are indexed, the other classes can only come from the parent
+        ClassLoader fallback = allIndexed && auxclasspath.getParent() != null ? auxclasspath.getParent() : classLoader;
+        return new SymbolIndex(fallback, Collections.unmodifiableList(entries));
+    }
+
+    /**
+     * Returns the symbol of the class with the given binary name,
+     * or null if there is no such class file on the classpath, or
+     * it is malformed.
+     */
+    public ClassSymbol resolve(String binaryName) {
+        ClassSymbol symbol = symbols.get(binaryName);
+        if (symbol != null || unresolved.containsKey(binaryName)) {
+            return symbol;
+        }
+
+        symbol = read(binaryName);
+        if (symbol == null) {
+            unresolved.put(binaryName, Boolean.TRUE);
+            return null;
+        }
+        ClassSymbol previous = symbols.putIfAbsent(binaryName, symbol);
+        return previous != null ? previous : symbol;
+    }
+
+    /**
+     * Returns the symbol of the class with the given canonical name,
+     * eg {@code java.util.Map.Entry}. Binary names are accepted too.
+     * Returns null if the class can't be found.
+     */
+    public ClassSymbol resolveCanonical(String canonicalName) {
+        ClassSymbol symbol = resolve(canonicalName);
+        if (symbol == null) {
+            // allow path separators (.) as inner class name separators
+            int lastDotIndex = canonicalName.lastIndexOf('.');
+            if (lastDotIndex >= 0) {
+                return resolveCanonical(canonicalName.substring(0, lastDotIndex)
+                                            + '$' + canonicalName.substring(lastDotIndex + 1));
+            }
+        }
+        return symbol;
+    }
+
+    /**
+     * Returns whether a class file exists for the given binary name.
+     */
+    public boolean exists(String binaryName) {
+        return resolve(binaryName) != null;
+    }
+
+    /**
+     * Returns the binary names of all the supertypes of the given class,
+     * including itself. Returns null if the class or one of its supertypes
+     * can't be found, as the result would be incomplete, or if the class
+     * files declare a cyclic hierarchy.
+     */
+    public Set<String> getSuperTypeNames(String binaryName) {
+        return getSuperTypeNames(binaryName, new HashSet<String>());
+    }
+
+    /**
+     * @param inProgress Types whose supertypes are being computed by the
+     *                   current thread, to detect cycles
+     */
+    private Set<String> getSuperTypeNames(String binaryName, Set<String> inProgress) {
+        Set<String> result = superTypes.get(binaryName);
+        if (result == null) {
+            if (!inProgress.add(binaryName)) {
+                // a malformed classpath may declare a cyclic hierarchy, which
+                // can't be resolved, as if a supertype were missing
+                return null;
+            }
+            result = computeSuperTypeNames(binaryName, inProgress);
+            inProgress.remove(binaryName);
+            superTypes.putIfAbsent(binaryName, result);
+        }
+        return result.isEmpty() ? null : result;
+    }
+
+    private Set<String> computeSuperTypeNames(String binaryName, Set<String> inProgress) {
+        ClassSymbol symbol = resolve(binaryName);
+        if (symbol == null) {
+            return Collections.emptySet();
+        }
+
+        Set<String> result = new LinkedHashSet<>();
+        result.add(binaryName);
+        if (symbol.getSuperName() != null && !addSuperTypeNames(symbol.getSuperName(), result, inProgress)) {
+            return Collections.emptySet();
+        }
+        for (String itf : symbol.getInterfaces()) {
+            if (!addSuperTypeNames(itf, result, inProgress)) {
+                return Collections.emptySet();
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    private boolean addSuperTypeNames(String binaryName, Set<String> result, Set<String> inProgress) {
+        Set<String> names = getSuperTypeNames(binaryName, inProgress);
+        if (names == null) {
+            return false;
+        }
+        result.addAll(names);
+        return true;
+    }
+
+    /**
+     * Returns true if the class with the first binary name is a subtype
+     * of, or the same as, the class with the second binary name. Returns
+     * null if this can't be determined, because the hierarchy of the
+     * first class is not entirely on the classpath.
+     */
+    public Boolean isSubtype(String binaryName, String superTypeBinaryName) {
+        Set<String> names = getSuperTypeNames(binaryName);
+        return names == null ? null : names.contains(superTypeBinaryName);
+    }
+
+    private ClassSymbol read(String binaryName) {
+        for (ClassSymbolSource entry : entries) {
+            ClassSymbol symbol = entry.get(binaryName);
+            if (symbol != null) {
+                return symbol;
+            }
+        }
+        URL url = findClassFile(binaryName.replace('.', '/') + ".class");
+        if (url == null) {
+            return null;
+        }
+        try (InputStream stream = url.openStream()) {
+            return ClassSymbolReader.read(IOUtil.toByteArray(stream));
+        } catch (IOException | RuntimeException e) {
+            // an unreadable or malformed class file, ASM throws eg IllegalArgumentException
+            return null;
+        }
+    }
+
+    /**
+     * Finds a class file in the order in which the class loader would
+     * load the class, ie child first for the auxclasspath.
+     */
+    private URL findClassFile(String path) {
+        if (classLoader instanceof ClasspathClassLoader) {
+            return ((ClasspathClassLoader) classLoader).getResourceChildFirst(path);
+        }
+        return classLoader.getResource(path);
+    }
+
+    /**
+     * A directory of the auxclasspath, whose class files are read directly.
+     */
+    private static final class DirectorySource implements ClassSymbolSource {
+
+        private final File directory;
+
+        private DirectorySource(File directory) {
+            this.directory = directory;
+        }
+
+        static DirectorySource open(URL classpathEntry) {
+            try {
+                File directory = new File(classpathEntry.toURI());
+                return directory.isDirectory() ? new DirectorySource(directory) : null;
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public ClassSymbol get(String binaryName) {
+            File classFile = new File(directory, binaryName.replace('.', File.separatorChar) + ".class");
+            if (!classFile.isFile()) {
+                return null;
+            }
+            try {
+                return ClassSymbolReader.read(Files.readAllBytes(classFile.toPath()));
+            } catch (IOException | RuntimeException e) {
+                // an unreadable or malformed class file
+                return null;
+            }
+        }
+    }
+}
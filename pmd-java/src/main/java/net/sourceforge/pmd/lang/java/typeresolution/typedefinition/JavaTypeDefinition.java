@@ -61,7 +61,8 @@ public abstract class JavaTypeDefinition implements TypeDefinition {
         if (clazz == null) {
             return null;
         }
-        return new JavaTypeDefinitionSimple(clazz, boundGenerics);
+        return boundGenerics.length == 0 ? JavaTypeDefinitionSimple.forRawClass(clazz)
+                                         : JavaTypeDefinitionSimple.forParameterizedClass(clazz, boundGenerics);
     }
 
     @Override
@@ -166,10 +167,18 @@ public abstract class JavaTypeDefinition implements TypeDefinition {
     @Override
     public abstract int hashCode();
 
+    /**
+     * Returns the set of the supertypes of this type, including itself.
+     * The set is cached and unmodifiable.
+     */
     public abstract Set<JavaTypeDefinition> getSuperTypeSet();
 
     protected abstract Set<JavaTypeDefinition> getSuperTypeSet(Set<JavaTypeDefinition> destinationSet);
 
+    /**
+     * Returns the set of the erasures of the supertypes of this type,
+     * including itself. The set is cached and unmodifiable.
+     */
     public abstract Set<Class<?>> getErasedSuperTypeSet();
 
 
@@ -17,28 +17,57 @@ import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
 /* default */ class JavaTypeDefinitionSimple extends JavaTypeDefinition {
 
-    static final JavaTypeDefinitionSimple OBJECT_DEFINITION = new JavaTypeDefinitionSimple(Object.class);
+    /**
+     * The canonical type definitions of each class. A ClassValue doesn't prevent
+     * the classes of the auxclasspath from being unloaded, which a static map would.
+     */
+    private static final ClassValue<CanonicalTypes> CANONICAL_TYPES = new ClassValue<CanonicalTypes>() {
+        @Override
+        protected CanonicalTypes computeValue(Class<?> type) {
+            return new CanonicalTypes(type);
+        }
+    };
+
+    static final JavaTypeDefinitionSimple OBJECT_DEFINITION = forRawClass(Object.class);
     private final Class<?> clazz;
-    private JavaTypeDefinition[] genericArgs;
+    // the resolved generic types, an element is only set once it's resolved
+    private volatile JavaTypeDefinition[] genericArgs;
+    // the generic types being resolved by the thread holding the lock, to circuit-break recursions
+    private boolean[] resolvingGenericArgs;
     // cached because calling clazz.getTypeParameters().length create a new array every time
     private int typeParameterCount = -1;
     private final int typeArgumentCount;
+    // canonical instances are the only ones of their class and type arguments
+    private final boolean canonical;
+
+    private volatile JavaTypeDefinition enclosingClass;
+    private volatile boolean enclosingClassResolved;
+    private volatile Set<JavaTypeDefinition> superTypeSet;
+    private volatile Set<Class<?>> erasedSuperTypeSet;
 
     private static final Logger LOG = Logger.getLogger(JavaTypeDefinitionSimple.class.getName());
 
     protected JavaTypeDefinitionSimple(Class<?> clazz, JavaTypeDefinition... boundGenerics) {
+        this(clazz, false, boundGenerics);
+    }
+
+    private JavaTypeDefinitionSimple(Class<?> clazz, boolean canonical, JavaTypeDefinition... boundGenerics) {
         super(EXACT);
         this.clazz = clazz;
+        this.canonical = canonical;
 
         typeArgumentCount = boundGenerics.length;
         if (boundGenerics.length > 0) {
@@ -46,6 +75,37 @@ import java.util.logging.Logger;
         } // otherwise stays null
     }
 
+    /**
+     * Returns the canonical definition of the raw class, or of the class
+     * if it's not generic.
+     */
+    static JavaTypeDefinitionSimple forRawClass(Class<?> clazz) {
+        return CANONICAL_TYPES.get(clazz).raw;
+    }
+
+    /**
+     * Returns the definition of the class parameterized with the given
+     * type arguments. The instance is canonical if the arguments are,
+     * otherwise it's a new instance.
+     */
+    static JavaTypeDefinitionSimple forParameterizedClass(Class<?> clazz, JavaTypeDefinition... boundGenerics) {
+        CanonicalTypes types = CANONICAL_TYPES.get(clazz);
+        if (!types.canBeParameterizedWith(boundGenerics)) {
+            return new JavaTypeDefinitionSimple(clazz, boundGenerics);
+        }
+
+        List<JavaTypeDefinition> key = Arrays.asList(boundGenerics);
+        JavaTypeDefinitionSimple result = types.parameterized.get(key);
+        if (result == null) {
+            result = new JavaTypeDefinitionSimple(clazz, true, boundGenerics);
+            JavaTypeDefinitionSimple previous = types.parameterized.putIfAbsent(Arrays.asList(result.genericArgs), result);
+            if (previous != null) {
+                result = previous;
+            }
+        }
+        return result;
+    }
+
     private Class<?> loadEnclosing(Class<?> clazz) {
         try {
             return clazz.getEnclosingClass();
@@ -80,7 +140,11 @@ import java.util.logging.Logger;
 
     @Override
     public JavaTypeDefinition getEnclosingClass() {
-        return JavaTypeDefinition.forClass(loadEnclosing(clazz));
+        if (!enclosingClassResolved) {
+            enclosingClass = JavaTypeDefinition.forClass(loadEnclosing(clazz));
+            enclosingClassResolved = true;
+        }
+        return enclosingClass;
     }
 
     @Override
@@ -145,24 +209,48 @@ import java.util.logging.Logger;
 
     @Override
     public JavaTypeDefinition getGenericType(final int index) {
+        // Check if it has been lazily initialized first
+        final JavaTypeDefinition[] resolved = genericArgs;
+        if (resolved != null && resolved[index] != null) {
+            return resolved[index];
+        }
+        return resolveGenericType(index);
+    }
+
+    /*
+     * Canonical definitions are shared between threads, so the generic types are resolved
+     * under the lock of the definition. Resolving them may only need the generic types of
+     * the enclosing classes, so the locks are always taken in the same order.
+     */
+    private synchronized JavaTypeDefinition resolveGenericType(final int index) {
         if (genericArgs == null) {
             genericArgs = new JavaTypeDefinition[getTypeParameterCount()];
         }
+        if (resolvingGenericArgs == null) {
+            resolvingGenericArgs = new boolean[genericArgs.length];
+        }
 
-        // Check if it has been lazily initialized first
         final JavaTypeDefinition cachedDefinition = genericArgs[index];
         if (cachedDefinition != null) {
             return cachedDefinition;
         }
 
         /*
-         * Set a default to circuit-break any recursions (ie: raw types with no generic info)
+         * Circuit-break any recursions (ie: raw types with no generic info)
          * Object.class is a right answer in those scenarios
          */
-        genericArgs[index] = forClass(Object.class);
+        if (resolvingGenericArgs[index]) {
+            return forClass(Object.class);
+        }
 
-        final TypeVariable<?> typeVariable = clazz.getTypeParameters()[index];
-        final JavaTypeDefinition typeDefinition = resolveTypeDefinition(typeVariable.getBounds()[0]);
+        final JavaTypeDefinition typeDefinition;
+        resolvingGenericArgs[index] = true;
+        try {
+            final TypeVariable<?> typeVariable = clazz.getTypeParameters()[index];
+            typeDefinition = resolveTypeDefinition(typeVariable.getBounds()[0]);
+        } finally {
+            resolvingGenericArgs[index] = false;
+        }
 
         // cache result
         genericArgs[index] = typeDefinition;
@@ -336,6 +424,11 @@ import java.util.logging.Logger;
 
         JavaTypeDefinitionSimple otherTypeDef = (JavaTypeDefinitionSimple) obj;
 
+        if (canonical && otherTypeDef.canonical) {
+            // there's only one canonical definition per class and type arguments
+            return false;
+        }
+
         // This should cover
         // raw vs proper
         // proper vs raw
@@ -366,11 +459,22 @@ import java.util.logging.Logger;
 
     @Override
     public Set<JavaTypeDefinition> getSuperTypeSet() {
-        return getSuperTypeSet(new HashSet<JavaTypeDefinition>());
+        Set<JavaTypeDefinition> result = superTypeSet;
+        if (result == null) {
+            // computed concurrently at worst, the results are equal
+            result = Collections.unmodifiableSet(computeSuperTypeSet(new HashSet<JavaTypeDefinition>()));
+            superTypeSet = result;
+        }
+        return result;
     }
 
     @Override
     protected Set<JavaTypeDefinition> getSuperTypeSet(Set<JavaTypeDefinition> destinationSet) {
+        destinationSet.addAll(getSuperTypeSet());
+        return destinationSet;
+    }
+
+    private Set<JavaTypeDefinition> computeSuperTypeSet(Set<JavaTypeDefinition> destinationSet) {
         destinationSet.add(this);
 
         try {
@@ -393,9 +497,18 @@ import java.util.logging.Logger;
 
     @Override
     public Set<Class<?>> getErasedSuperTypeSet() {
-        Set<Class<?>> result = new HashSet<>();
-        result.add(Object.class);
-        return getErasedSuperTypeSet(this.clazz, result);
+        Set<Class<?>> result = erasedSuperTypeSet;
+        if (result == null) {
+            if (!canonical || typeArgumentCount > 0) {
+                // the erasure is the same for all the parameterizations
+                return forRawClass(clazz).getErasedSuperTypeSet();
+            }
+            result = new HashSet<>();
+            result.add(Object.class);
+            result = Collections.unmodifiableSet(getErasedSuperTypeSet(this.clazz, result));
+            erasedSuperTypeSet = result;
+        }
+        return result;
     }
 
     private static Set<Class<?>> getErasedSuperTypeSet(Class<?> clazz, Set<Class<?>> destinationSet) {
@@ -445,4 +558,51 @@ import java.util.logging.Logger;
     public boolean isIntersectionType() {
         return false;
     }
+
+
+    /**
+     * The canonical definitions of a class.
+     */
+    private static final class CanonicalTypes {
+
+        final JavaTypeDefinitionSimple raw;
+        final ConcurrentMap<List<JavaTypeDefinition>, JavaTypeDefinitionSimple> parameterized = new ConcurrentHashMap<>();
+
+        CanonicalTypes(Class<?> clazz) {
+            raw = new JavaTypeDefinitionSimple(clazz, true);
+        }
+
+        /**
+         * Only canonical type arguments are cached, so that the canonical definitions
+         * can be compared by reference. They must also be loaded by the class loader
+         * of the class or one of its parents, so that the cache doesn't keep the
+         * classes of another class loader alive.
+         */
+        boolean canBeParameterizedWith(JavaTypeDefinition[] boundGenerics) {
+            if (boundGenerics.length != raw.getTypeParameterCount()) {
+                return false;
+            }
+            ClassLoader loader = raw.clazz.getClassLoader();
+            for (JavaTypeDefinition arg : boundGenerics) {
+                if (!(arg instanceof JavaTypeDefinitionSimple) || !((JavaTypeDefinitionSimple) arg).canonical
+                    || !isVisibleFrom(((JavaTypeDefinitionSimple) arg).clazz, loader)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isVisibleFrom(Class<?> clazz, ClassLoader loader) {
+            ClassLoader classLoader = clazz.getClassLoader();
+            if (classLoader == null) {
+                return true; // bootstrap classes
+            }
+            for (ClassLoader current = loader; current != null; current = current.getParent()) {
+                if (current == classLoader) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
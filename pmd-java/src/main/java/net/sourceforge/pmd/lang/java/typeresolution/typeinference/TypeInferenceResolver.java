@@ -173,7 +173,7 @@ public final class TypeInferenceResolver {
         Set<Class<?>> result = new HashSet<>();
 
         if (!erasedSuperTypeSets.isEmpty()) {
-            result = erasedSuperTypeSets.get(0).getErasedSuperTypeSet();
+            result.addAll(erasedSuperTypeSets.get(0).getErasedSuperTypeSet());
         }
 
         for (int i = 1; i < erasedSuperTypeSets.size(); ++i) {
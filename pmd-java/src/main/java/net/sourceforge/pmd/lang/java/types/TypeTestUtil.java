@@ -18,7 +18,11 @@ import net.sourceforge.pmd.lang.java.ast.ASTImplementsList;
 import net.sourceforge.pmd.lang.java.ast.ASTImportDeclaration;
 import net.sourceforge.pmd.lang.java.ast.ASTName;
 import net.sourceforge.pmd.lang.java.ast.TypeNode;
+import net.sourceforge.pmd.lang.java.typeresolution.ClassTypeResolver;
 import net.sourceforge.pmd.lang.java.typeresolution.TypeHelper;
+import net.sourceforge.pmd.lang.java.typeresolution.internal.ClassSymbol;
+import net.sourceforge.pmd.lang.java.typeresolution.internal.SymbolIndex;
+import net.sourceforge.pmd.lang.java.typeresolution.typedefinition.JavaTypeDefinition;
 
 /**
  * Public utilities to test the type of nodes.
@@ -65,7 +69,13 @@ public final class TypeTestUtil {
         AssertionUtil.requireParamNotNull("class", clazz);
         if (node == null) {
             return false;
-        } else if (node.getType() == clazz) {
+        }
+        Class<?> nodeType = node.getType();
+        if (nodeType == clazz) {
+            return true;
+        } else if (nodeType != null && !nodeType.isPrimitive()
+            && JavaTypeDefinition.forClass(nodeType).getErasedSuperTypeSet().contains(clazz)) {
+            // the supertypes are cached on the canonical type definition
             return true;
         }
 
@@ -111,6 +121,11 @@ public final class TypeTestUtil {
             return isAnnotationSubtype(nodeType, canonicalName);
         }
 
+        final Boolean isSubtype = isSubtypeFromSymbols(node, nodeType, canonicalName);
+        if (isSubtype != null) {
+            return isSubtype;
+        }
+
         final Class<?> clazz = loadClassWithNodeClassloader(node, canonicalName);
 
 
@@ -292,6 +307,26 @@ public final class TypeTestUtil {
         return false;
     }
 
+    /**
+     * Tests the subtyping relation using the class files of the auxclasspath,
+     * which avoids loading the class with the given name. Returns null if
+     * the symbols are not sufficient to decide.
+     */
+    private static Boolean isSubtypeFromSymbols(TypeNode n, Class<?> nodeType, String canonicalName) {
+        ClassTypeResolver classTypeResolver = n.getRoot().getClassTypeResolver();
+        if (classTypeResolver == null || nodeType.isArray() || nodeType.isPrimitive()) {
+            return null;
+        }
+        SymbolIndex symbols = classTypeResolver.getSymbolIndex();
+        ClassSymbol target = symbols.resolveCanonical(canonicalName);
+        if (target == null) {
+            return null;
+        } else if (target.isLocalOrAnonymous()) {
+            return false; // no canonical name, give up: we shouldn't be able to access them
+        }
+        return symbols.isSubtype(nodeType.getName(), target.getBinaryName());
+    }
+
     static Class<?> loadClassWithNodeClassloader(final TypeNode n, final String clazzName) {
         if (n.getType() != null) {
             return TypesFromReflection.loadClass(n.getRoot().getClassTypeResolver(), clazzName);
@@ -0,0 +1,146 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.typeresolution.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sourceforge.pmd.util.IOUtil;
+
+public class JarSymbolIndexTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testIndexIsBuiltAndReused() throws IOException {
+        File jar = createJar("lib.jar", JarSymbolIndexTest.class, Nested.class);
+        File indexDirectory = new File(tempFolder.getRoot(), "index");
+
+        JarSymbolIndex index = JarSymbolIndex.open(jar.toURI().toURL(), indexDirectory);
+        assertNotNull(index);
+        File[] indexFiles = indexDirectory.listFiles();
+        assertEquals(1, indexFiles.length);
+        long lastModified = indexFiles[0].lastModified();
+
+        index = JarSymbolIndex.open(jar.toURI().toURL(), indexDirectory);
+        assertEquals(Arrays.asList(indexFiles), Arrays.asList(indexDirectory.listFiles()));
+        assertEquals(lastModified, indexFiles[0].lastModified());
+
+        ClassSymbol nested = index.get(Nested.class.getName());
+        assertNotNull(nested);
+        assertEquals(JarSymbolIndexTest.class.getName(), nested.getEnclosingName());
+        assertEquals(1, nested.getMethods("foo").size());
+        assertEquals("java.util.List", nested.getMethods("foo").get(0).getTypeName());
+        assertEquals("java.lang.Object", nested.getSuperName());
+        assertNull(index.get("java.lang.String"));
+    }
+
+    @Test
+    public void testChangedJarIsIndexedAgain() throws IOException {
+        File indexDirectory = new File(tempFolder.getRoot(), "index");
+        File jar = createJar("lib.jar", Nested.class);
+        JarSymbolIndex.open(jar.toURI().toURL(), indexDirectory);
+        File previousIndexFile = indexDirectory.listFiles()[0];
+
+        jar = createJar("lib.jar", JarSymbolIndexTest.class);
+        JarSymbolIndex index = JarSymbolIndex.open(jar.toURI().toURL(), indexDirectory);
+
+        // the previous index is deleted, unless it's still mapped on Windows
+        List<String> indexNames = new ArrayList<>(Arrays.asList(indexDirectory.list()));
+        indexNames.remove(previousIndexFile.getName());
+        assertEquals(1, indexNames.size());
+        assertNull(index.get(Nested.class.getName()));
+        assertNotNull(index.get(JarSymbolIndexTest.class.getName()));
+    }
+
+    @Test
+    public void testStaleIndexesAreDeleted() throws IOException {
+        File indexDirectory = tempFolder.newFolder("index");
+        // not mapped, so that they can be deleted on Windows too
+        File stale = new File(indexDirectory, "lib.jar-1234abcd.symbols");
+        File otherJar = new File(indexDirectory, "otherlib.jar-1234abcd.symbols");
+        File otherFile = new File(indexDirectory, "lib.jar-notes.symbols");
+        for (File file : Arrays.asList(stale, otherJar, otherFile)) {
+            assertTrue(file.createNewFile());
+        }
+
+        File jar = createJar("lib.jar", Nested.class);
+        assertNotNull(JarSymbolIndex.open(jar.toURI().toURL(), indexDirectory));
+
+        assertFalse(stale.exists());
+        assertTrue(otherJar.exists());
+        assertTrue(otherFile.exists());
+        assertEquals(3, indexDirectory.listFiles().length);
+    }
+
+    @Test
+    public void testOutdatedIndexIsBuiltAgain() throws IOException {
+        File indexDirectory = new File(tempFolder.getRoot(), "index");
+        File jar = createJar("lib.jar", Nested.class);
+        JarSymbolIndex previousIndex = JarSymbolIndex.open(jar.toURI().toURL(), indexDirectory);
+
+        // change the PMD version stored in the header
+        File indexFile = indexDirectory.listFiles()[0];
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+            file.seek(12);
+            file.write('X');
+        }
+
+        JarSymbolIndex index = JarSymbolIndex.open(jar.toURI().toURL(), indexDirectory);
+        assertNotNull(index);
+        assertEquals(Arrays.asList(indexFile), Arrays.asList(indexDirectory.listFiles()));
+        assertNotNull(index.get(Nested.class.getName()));
+        // the index that was opened before is still usable
+        assertNotNull(previousIndex.get(Nested.class.getName()));
+    }
+
+    @Test
+    public void testDirectoriesAreNotIndexed() throws IOException {
+        File indexDirectory = new File(tempFolder.getRoot(), "index");
+
+        assertNull(JarSymbolIndex.open(tempFolder.newFolder("classes").toURI().toURL(), indexDirectory));
+    }
+
+    private File createJar(String name, Class<?>... classes) throws IOException {
+        File jar = new File(tempFolder.getRoot(), name);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar.toPath()))) {
+            for (Class<?> clazz : classes) {
+                String resource = clazz.getName().replace('.', '/') + ".class";
+                out.putNextEntry(new ZipEntry(resource));
+                try (InputStream classFile = JarSymbolIndexTest.class.getClassLoader().getResourceAsStream(resource)) {
+                    out.write(IOUtil.toByteArray(classFile));
+                }
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static class Nested {
+
+        java.util.List<String> foo() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.typeresolution.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import net.sourceforge.pmd.util.ClasspathClassLoader;
+
+public class SymbolIndexTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final SymbolIndex index = new SymbolIndex(SymbolIndexTest.class.getClassLoader());
+
+    @Test
+    public void testResolveClass() {
+        ClassSymbol symbol = index.resolve("java.util.ArrayList");
+
+        assertNotNull(symbol);
+        assertEquals("java.util.ArrayList", symbol.getBinaryName());
+        assertEquals("java.util.AbstractList", symbol.getSuperName());
+        assertTrue(symbol.getInterfaces().contains("java.util.List"));
+        assertTrue(symbol.getGenericSignature().startsWith("<E:Ljava/lang/Object;>Ljava/util/AbstractList<TE;>;"));
+        assertFalse(symbol.isInterface());
+        assertSame(symbol, index.resolve("java.util.ArrayList"));
+    }
+
+    @Test
+    public void testResolveMembers() {
+        ClassSymbol symbol = index.resolve("java.util.List");
+        assertTrue(symbol.isInterface());
+
+        List<MemberSymbol> get = symbol.getMethods("get");
+        assertEquals(1, get.size());
+        assertEquals("java.lang.Object", get.get(0).getTypeName());
+        assertEquals(Collections.singletonList("int"), get.get(0).getParameterTypeNames());
+        assertEquals("(I)TE;", get.get(0).getGenericSignature());
+
+        MemberSymbol field = index.resolve("java.lang.String").getField("CASE_INSENSITIVE_ORDER");
+        assertNotNull(field);
+        assertTrue(field.isStatic());
+        assertFalse(field.isMethod());
+        assertEquals("java.util.Comparator", field.getTypeName());
+    }
+
+    @Test
+    public void testUnresolvedClass() {
+        assertNull(index.resolve("im.sure.that.this.does.not.Exist"));
+        assertFalse(index.exists("im.sure.that.this.does.not.Exist"));
+        assertNull(index.getSuperTypeNames("im.sure.that.this.does.not.Exist"));
+        assertNull(index.isSubtype("im.sure.that.this.does.not.Exist", "java.lang.Object"));
+    }
+
+    @Test
+    public void testResolveCanonicalName() {
+        ClassSymbol entry = index.resolveCanonical("java.util.Map.Entry");
+
+        assertNotNull(entry);
+        assertEquals("java.util.Map$Entry", entry.getBinaryName());
+        assertEquals("java.util.Map", entry.getEnclosingName());
+        assertTrue(index.resolve("java.util.Map").getMemberClasses().contains("java.util.Map$Entry"));
+        assertSame(entry, index.resolveCanonical("java.util.Map$Entry"));
+    }
+
+    @Test
+    public void testSuperTypes() {
+        Set<String> superTypes = index.getSuperTypeNames("java.util.ArrayList");
+
+        assertNotNull(superTypes);
+        assertTrue(superTypes.containsAll(Arrays.asList("java.util.ArrayList", "java.util.AbstractList",
+                                                        "java.util.Collection", "java.lang.Iterable",
+                                                        "java.io.Serializable", "java.lang.Object")));
+        assertEquals(Boolean.TRUE, index.isSubtype("java.util.ArrayList", "java.util.Collection"));
+        assertEquals(Boolean.FALSE, index.isSubtype("java.util.ArrayList", "java.util.Map"));
+        assertEquals(Boolean.TRUE, index.isSubtype("java.util.List", "java.lang.Object"));
+    }
+
+    @Test
+    public void testNestedClasses() {
+        Runnable anon = new Runnable() {
+            @Override
+            public void run() {
+                // nothing to do
+            }
+        };
+
+        ClassSymbol anonSymbol = index.resolve(anon.getClass().getName());
+        assertTrue(anonSymbol.isLocalOrAnonymous());
+        assertNull(anonSymbol.getEnclosingName());
+        assertEquals(Boolean.TRUE, index.isSubtype(anonSymbol.getBinaryName(), "java.lang.Runnable"));
+
+        ClassSymbol nested = index.resolve(Nested.class.getName());
+        assertFalse(nested.isLocalOrAnonymous());
+        assertEquals(SymbolIndexTest.class.getName(), nested.getEnclosingName());
+        // the static modifier is only recorded in the InnerClasses attribute
+        assertTrue((nested.getAccessFlags() & Modifier.STATIC) != 0);
+    }
+
+    @Test
+    public void testCyclicHierarchy() throws IOException {
+        File classes = tempFolder.newFolder("classes");
+        writeClass(classes, "cycle.A", "cycle.B");
+        writeClass(classes, "cycle.B", "cycle.A");
+        writeClass(classes, "cycle.C", "cycle.A");
+
+        try (ClasspathClassLoader loader = new ClasspathClassLoader(classes.getPath(), null)) {
+            SymbolIndex cyclic = new SymbolIndex(loader);
+            assertNull(cyclic.getSuperTypeNames("cycle.C"));
+            assertNull(cyclic.getSuperTypeNames("cycle.A"));
+            assertNull(cyclic.isSubtype("cycle.B", "cycle.A"));
+            assertNotNull(cyclic.getSuperTypeNames("java.lang.Object"));
+        }
+    }
+
+    @Test
+    public void testAuxclasspathIsSearchedFirst() throws IOException {
+        File classes = tempFolder.newFolder("classes");
+        // shadows the class of the parent loader
+        writeClass(classes, Nested.class.getName(), "java.lang.Thread");
+
+        ClassLoader parent = SymbolIndexTest.class.getClassLoader();
+        try (ClasspathClassLoader loader = new ClasspathClassLoader(classes.getPath(), parent)) {
+            SymbolIndex childFirst = new SymbolIndex(loader);
+            assertEquals("java.lang.Thread", childFirst.resolve(Nested.class.getName()).getSuperName());
+        }
+    }
+
+    @Test
+    public void testIndexedAuxclasspathIsSearchedInOrder() throws IOException {
+        File classes = tempFolder.newFolder("classes");
+        writeClass(classes, "order.Shadowed", "java.lang.Exception");
+        File jar = tempFolder.newFile("lib.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar.toPath()))) {
+            out.putNextEntry(new ZipEntry("order/Shadowed.class"));
+            out.write(classFile("order.Shadowed", "java.lang.Thread"));
+            out.closeEntry();
+        }
+        File indexDirectory = new File(tempFolder.getRoot(), "index");
+
+        String classesFirst = classes.getPath() + File.pathSeparator + jar.getPath();
+        try (ClasspathClassLoader loader = new ClasspathClassLoader(classesFirst, null)) {
+            loader.setIndexDirectory(indexDirectory);
+            assertEquals("java.lang.Exception", SymbolIndex.create(loader).resolve("order.Shadowed").getSuperName());
+        }
+
+        String jarFirst = jar.getPath() + File.pathSeparator + classes.getPath();
+        try (ClasspathClassLoader loader = new ClasspathClassLoader(jarFirst, null)) {
+            loader.setIndexDirectory(indexDirectory);
+            assertEquals("java.lang.Thread", SymbolIndex.create(loader).resolve("order.Shadowed").getSuperName());
+        }
+    }
+
+    private static void writeClass(File directory, String binaryName, String superName) throws IOException {
+        File file = new File(directory, binaryName.replace('.', '/') + ".class");
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), classFile(binaryName, superName));
+    }
+
+    private static byte[] classFile(String binaryName, String superName) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC, binaryName.replace('.', '/'), null,
+                     superName.replace('.', '/'), null);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static class Nested {
+    }
+}
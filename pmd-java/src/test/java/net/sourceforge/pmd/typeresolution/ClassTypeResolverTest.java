@@ -14,6 +14,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
@@ -1749,6 +1750,20 @@ public class ClassTypeResolverTest {
         assertTrue(set.contains(List.class));
     }
 
+    @Test
+    public void testJavaTypeDefinitionIsCanonical() {
+        assertSame(forClass(List.class), forClass(List.class));
+        assertSame(forClass(List.class, forClass(Integer.class)), forClass(List.class, forClass(Integer.class)));
+        assertNotEquals(forClass(List.class), forClass(List.class, forClass(Integer.class)));
+        assertSame(forClass(List.class).getErasedSuperTypeSet(),
+                   forClass(List.class, forClass(Integer.class)).getErasedSuperTypeSet());
+
+        JavaTypeDefinition wildcard = forClass(UPPER_WILDCARD, forClass(Number.class));
+        JavaTypeDefinition withWildcard = forClass(List.class, wildcard);
+        assertNotSame(withWildcard, forClass(List.class, wildcard));
+        assertEquals(withWildcard, forClass(List.class, wildcard));
+    }
+
     @Test
     public void testMethodInitialBounds() throws NoSuchMethodException {
         JavaTypeDefinition context = forClass(GenericMethodsImplicit.class,
@@ -6,14 +6,20 @@ package net.sourceforge.pmd.typeresolution;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.Map;
+import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.benchmark.TimingReport;
 import net.sourceforge.pmd.lang.java.typeresolution.PMDASMClassLoader;
 
 public class PMDASMClassLoaderTest {
@@ -57,6 +63,40 @@ public class PMDASMClassLoaderTest {
                 imports.get("ClassWithImportInnerOnDemand"));
     }
 
+    @Test
+    public void testImportedClassesAreCached() throws Exception {
+        String className = "net.sourceforge.pmd.typeresolution.ClassWithImportOnDemand";
+        Map<String, String> imports = cl.getImportedClasses(className);
+
+        assertSame(imports, cl.getImportedClasses(className));
+        assertSame(cl, PMDASMClassLoader.getInstance(getClass().getClassLoader()));
+        try {
+            imports.put("Foo", "foo.Foo");
+            fail("The cached imports should be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testImportedClassesCacheIsTracked() throws Exception {
+        String className = "net.sourceforge.pmd.typeresolution.ClassWithImportInnerOnDemand";
+        PMDASMClassLoader cl = PMDASMClassLoader.getInstance(new MockedClassLoader());
+
+        TimeTracker.startGlobalTracking();
+        TimingReport report;
+        try {
+            cl.getImportedClasses(className);
+            cl.getImportedClasses(className);
+        } finally {
+            report = TimeTracker.stopGlobalTracking();
+        }
+
+        Set<String> labels = report.getLabeledMeasurements(TimedOperationCategory.TYPE_RESOLUTION).keySet();
+        assertTrue(labels.contains("Imported classes cache miss"));
+        assertTrue(labels.contains("Imported classes cache hit"));
+    }
+
     /**
      * Unit test for bug 3546093.
      *
@@ -21,7 +21,7 @@ public class EcmascriptTokenizer extends JavaCCTokenizer {
 
     @Override
     protected TokenManager getLexerForSource(SourceCode sourceCode) {
-        StringBuilder buffer = sourceCode.getCodeBuffer();
+        SourceText buffer = sourceCode.getText();
         return new Ecmascript5TokenManager(IOUtil.skipBOM(new StringReader(buffer.toString())));
     }
 
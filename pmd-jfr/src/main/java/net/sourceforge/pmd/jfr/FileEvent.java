@@ -0,0 +1,25 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The whole analysis of a file.
+ */
+@Name("net.sourceforge.pmd.File")
+@Label("PMD File Analysis")
+@Category("PMD")
+@Description("The analysis of a file")
+@StackTrace(false)
+class FileEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    String file;
+}
@@ -0,0 +1,120 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.jfr;
+
+import jdk.jfr.EventType;
+
+import net.sourceforge.pmd.benchmark.TimedOperation;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.benchmark.TimedOperationListener;
+
+/**
+ * Reports the operations of the analysis as JDK Flight Recorder events.
+ * This is enabled by putting this module on the classpath. The events
+ * are only created while a recording of them is running, eg one started
+ * with {@code -XX:StartFlightRecording} or {@code jcmd <pid> JFR.start}.
+ * Otherwise, the overhead is a check per operation.
+ */
+public class JfrTimedOperationListener implements TimedOperationListener {
+
+    private static final EventType OPERATION_EVENT = EventType.getEventType(OperationEvent.class);
+    private static final EventType RECORDED_OPERATION_EVENT = EventType.getEventType(RecordedOperationEvent.class);
+    private static final EventType FILE_EVENT = EventType.getEventType(FileEvent.class);
+
+    /** The file being analysed by each thread. */
+    private final ThreadLocal<String> currentFile = new ThreadLocal<>();
+    private final ThreadLocal<FileEvent> currentFileEvent = new ThreadLocal<>();
+
+    @Override
+    public boolean isEnabled() {
+        return RECORDED_OPERATION_EVENT.isEnabled();
+    }
+
+    @Override
+    public void fileStarted(String fileName) {
+        currentFile.set(fileName);
+        if (FILE_EVENT.isEnabled()) {
+            FileEvent event = new FileEvent();
+            event.begin();
+            currentFileEvent.set(event);
+        }
+    }
+
+    @Override
+    public void fileFinished(String fileName) {
+        FileEvent event = currentFileEvent.get();
+        if (event != null) {
+            currentFileEvent.remove();
+            event.end();
+            if (event.shouldCommit()) {
+                event.file = fileName;
+                event.commit();
+            }
+        }
+        currentFile.remove();
+    }
+
+    @Override
+    public TimedOperation operationStarted(TimedOperationCategory category, String label) {
+        if (!OPERATION_EVENT.isEnabled()) {
+            return null;
+        }
+        return new Operation(category, label, currentFile.get());
+    }
+
+    @Override
+    public void operationRecorded(TimedOperationCategory category, String label, long nanos, long extraDataCounter) {
+        if (!RECORDED_OPERATION_EVENT.isEnabled()) {
+            return;
+        }
+        RecordedOperationEvent event = new RecordedOperationEvent();
+        if (event.shouldCommit()) {
+            event.category = category.displayName();
+            event.label = label;
+            event.file = currentFile.get();
+            event.time = nanos;
+            event.count = extraDataCounter;
+            event.commit();
+        }
+    }
+
+    private static final class Operation implements TimedOperation {
+
+        private final OperationEvent event = new OperationEvent();
+        private final TimedOperationCategory category;
+        private final String label;
+        private final String file;
+        private boolean closed;
+
+        Operation(TimedOperationCategory category, String label, String file) {
+            this.category = category;
+            this.label = label;
+            this.file = file;
+            event.begin();
+        }
+
+        @Override
+        public void close() {
+            close(0);
+        }
+
+        @Override
+        public void close(int extraDataCounter) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            event.end();
+            // the fields are only filled if the event passes the threshold of the recording
+            if (event.shouldCommit()) {
+                event.category = category.displayName();
+                event.label = label;
+                event.file = file;
+                event.count = extraDataCounter;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An operation of the analysis of a file, eg parsing it, or applying
+ * a rule to it.
+ */
+@Name("net.sourceforge.pmd.Operation")
+@Label("PMD Operation")
+@Category("PMD")
+@Description("An operation of the analysis of a file")
+@StackTrace(false)
+class OperationEvent extends jdk.jfr.Event {
+
+    @Label("Category")
+    String category;
+
+    @Label("Label")
+    @Description("Eg the name of the rule")
+    String label;
+
+    @Label("File")
+    String file;
+
+    @Label("Count")
+    @Description("Eg the number of nodes visited by a rule")
+    long count;
+}
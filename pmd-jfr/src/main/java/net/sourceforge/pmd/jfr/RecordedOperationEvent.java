@@ -0,0 +1,42 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * An operation that is interleaved with others, eg a rule that is
+ * applied in the same traversal as other rules. Its duration is the
+ * sum of its parts, and not the duration of the event.
+ */
+@Name("net.sourceforge.pmd.RecordedOperation")
+@Label("PMD Recorded Operation")
+@Category("PMD")
+@Description("An operation of the analysis of a file, interleaved with others")
+@StackTrace(false)
+class RecordedOperationEvent extends jdk.jfr.Event {
+
+    @Label("Category")
+    String category;
+
+    @Label("Label")
+    @Description("Eg the name of the rule")
+    String label;
+
+    @Label("File")
+    String file;
+
+    @Label("Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long time;
+
+    @Label("Count")
+    long count;
+}
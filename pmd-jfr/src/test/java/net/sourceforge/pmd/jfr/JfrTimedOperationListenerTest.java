@@ -0,0 +1,78 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperation;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class JfrTimedOperationListenerTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testEventsAreRecorded() throws IOException {
+        assertFalse(TimeTracker.isRecordingOperations());
+
+        Path output = tempFolder.getRoot().toPath().resolve("pmd.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(OperationEvent.class);
+            recording.enable(RecordedOperationEvent.class);
+            recording.enable(FileEvent.class);
+            recording.start();
+
+            assertTrue(TimeTracker.isRecordingOperations());
+            TimeTracker.startFile("Foo.java");
+            try (TimedOperation op = TimeTracker.startOperation(TimedOperationCategory.RULE, "MyRule")) {
+                op.close(3);
+            }
+            TimeTracker.recordOperation(TimedOperationCategory.RULECHAIN_RULE, "OtherRule", 42, 5);
+            TimeTracker.finishFile("Foo.java");
+
+            recording.stop();
+            recording.dump(output);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(output);
+        RecordedEvent operation = findEvent(events, "net.sourceforge.pmd.Operation");
+        assertEquals(TimedOperationCategory.RULE.displayName(), operation.getString("category"));
+        assertEquals("MyRule", operation.getString("label"));
+        assertEquals("Foo.java", operation.getString("file"));
+        assertEquals(3, operation.getLong("count"));
+
+        RecordedEvent recorded = findEvent(events, "net.sourceforge.pmd.RecordedOperation");
+        assertEquals("OtherRule", recorded.getString("label"));
+        assertEquals(42, recorded.getDuration("time").toNanos());
+        assertEquals(5, recorded.getLong("count"));
+
+        assertEquals("Foo.java", findEvent(events, "net.sourceforge.pmd.File").getString("file"));
+    }
+
+    private static RecordedEvent findEvent(List<RecordedEvent> events, String name) {
+        for (RecordedEvent event : events) {
+            if (name.equals(event.getEventType().getName())) {
+                return event;
+            }
+        }
+        throw new AssertionError("No event " + name + " in " + events);
+    }
+}
@@ -50,4 +50,9 @@ public class JspRuleChainVisitor extends AbstractRuleChainVisitor {
             ((XPathRule) rule).evaluate(node, ctx);
         }
     }
+
+    @Override
+    protected boolean isNodeNameDeterminedByJjtreeId() {
+        return true;
+    }
 }
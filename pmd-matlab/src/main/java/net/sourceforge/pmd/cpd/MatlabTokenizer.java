@@ -18,7 +18,7 @@ public class MatlabTokenizer extends JavaCCTokenizer {
 
     @Override
     protected TokenManager getLexerForSource(SourceCode sourceCode) {
-        StringBuilder buffer = sourceCode.getCodeBuffer();
+        SourceText buffer = sourceCode.getText();
         return new MatlabTokenManager(IOUtil.skipBOM(new StringReader(buffer.toString())));
     }
 }
@@ -18,8 +18,7 @@ import net.sourceforge.pmd.lang.modelica.ast.Token;
 public class ModelicaTokenizer extends JavaCCTokenizer {
     @Override
     protected TokenManager getLexerForSource(SourceCode sourceCode) {
-        final StringBuilder stringBuilder = sourceCode.getCodeBuffer();
-        return new ModelicaTokenManager(new StringReader(stringBuilder.toString()));
+        return new ModelicaTokenManager(new StringReader(sourceCode.getText().toString()));
     }
 
     @Override
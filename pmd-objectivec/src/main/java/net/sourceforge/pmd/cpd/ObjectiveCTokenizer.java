@@ -18,7 +18,7 @@ public class ObjectiveCTokenizer extends JavaCCTokenizer {
 
     @Override
     protected TokenManager getLexerForSource(SourceCode sourceCode) {
-        StringBuilder buffer = sourceCode.getCodeBuffer();
+        SourceText buffer = sourceCode.getText();
         return new ObjectiveCTokenManager(IOUtil.skipBOM(new StringReader(buffer.toString())));
     }
 }
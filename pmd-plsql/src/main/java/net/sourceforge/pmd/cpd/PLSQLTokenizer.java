@@ -74,7 +74,7 @@ public class PLSQLTokenizer extends JavaCCTokenizer {
 
     @Override
     protected TokenManager getLexerForSource(SourceCode sourceCode) {
-        StringBuilder stringBuilder = sourceCode.getCodeBuffer();
-        return new PLSQLTokenManager(IOUtil.skipBOM(new StringReader(stringBuilder.toString())));
+        SourceText text = sourceCode.getText();
+        return new PLSQLTokenManager(IOUtil.skipBOM(new StringReader(text.toString())));
     }
 }
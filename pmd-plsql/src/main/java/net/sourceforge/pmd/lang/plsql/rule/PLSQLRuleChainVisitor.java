@@ -65,4 +65,9 @@ public class PLSQLRuleChainVisitor extends AbstractRuleChainVisitor {
         }
         LOGGER.exiting(CLASS_NAME, "visit");
     }
+
+    @Override
+    protected boolean isNodeNameDeterminedByJjtreeId() {
+        return true;
+    }
 }
@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -45,19 +46,11 @@ class ApexClassPropertyTypes extends SalesforceFieldTypes {
 
             for (Path apexDirectory : apexDirectories) {
                 Path apexFilePath = apexDirectory.resolve(className + APEX_CLASS_FILE_SUFFIX);
-                if (Files.exists(apexFilePath) && Files.isRegularFile(apexFilePath)) {
-                    Parser parser = getApexParser();
-                    try (BufferedReader reader = Files.newBufferedReader(apexFilePath, StandardCharsets.UTF_8)) {
-                        Node node = parser.parse(apexFilePath.toString(), reader);
-                        ApexClassPropertyTypesVisitor visitor = new ApexClassPropertyTypesVisitor();
-                        visitor.visit((ApexNode<?>) node, null);
-                        for (Pair<String, BasicType> variable : visitor.getVariables()) {
-                            putDataType(variable.getKey(), DataType.fromBasicType(variable.getValue()));
-                        }
-                    } catch (IOException e) {
-                        throw new ContextedRuntimeException(e)
-                                .addContextValue("expression", expression)
-                                .addContextValue("apexFilePath", apexFilePath);
+                List<Pair<String, DataType>> variables = SalesforceMetadataCache.APEX_CLASSES.getTypes(apexFilePath,
+                    path -> parseApexClass(expression, path));
+                if (variables != null) {
+                    for (Pair<String, DataType> variable : variables) {
+                        putDataType(variable.getKey(), variable.getValue());
                     }
 
                     if (containsExpression(expression)) {
@@ -69,6 +62,27 @@ class ApexClassPropertyTypes extends SalesforceFieldTypes {
         }
     }
 
+    /**
+     * Parses an Apex class and returns the types of the properties it declares.
+     */
+    private List<Pair<String, DataType>> parseApexClass(String expression, Path apexFilePath) {
+        Parser parser = getApexParser();
+        try (BufferedReader reader = Files.newBufferedReader(apexFilePath, StandardCharsets.UTF_8)) {
+            Node node = parser.parse(apexFilePath.toString(), reader);
+            ApexClassPropertyTypesVisitor visitor = new ApexClassPropertyTypesVisitor();
+            visitor.visit((ApexNode<?>) node, null);
+            List<Pair<String, DataType>> variables = new ArrayList<>();
+            for (Pair<String, BasicType> variable : visitor.getVariables()) {
+                variables.add(Pair.of(variable.getKey(), DataType.fromBasicType(variable.getValue())));
+            }
+            return variables;
+        } catch (IOException e) {
+            throw new ContextedRuntimeException(e)
+                    .addContextValue("expression", expression)
+                    .addContextValue("apexFilePath", apexFilePath);
+        }
+    }
+
     @Override
     protected DataType putDataType(String name, DataType dataType) {
         DataType previousType = super.putDataType(name, dataType);
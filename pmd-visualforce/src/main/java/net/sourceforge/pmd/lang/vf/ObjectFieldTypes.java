@@ -8,6 +8,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -25,6 +27,7 @@ import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 import org.apache.commons.lang3.exception.ContextedRuntimeException;
+import org.apache.commons.lang3.tuple.Pair;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -61,43 +64,14 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
      */
     private final Set<String> objectFileProcessed;
 
-    // XML Parsing objects
-    private final DocumentBuilder documentBuilder;
-    private final XPathExpression customObjectFieldsExpression;
-    private final XPathExpression customFieldFullNameExpression;
-    private final XPathExpression customFieldTypeExpression;
-    private final XPathExpression sfdxCustomFieldFullNameExpression;
-    private final XPathExpression sfdxCustomFieldTypeExpression;
+    /**
+     * XML parsing objects, they are not thread-safe but can be reused for the files of this page.
+     * Created when the first file is parsed, since the files are usually already cached.
+     */
+    private MetadataParser parser;
 
     ObjectFieldTypes() {
         this.objectFileProcessed = new HashSet<>();
-
-        try {
-            DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-            documentBuilderFactory.setNamespaceAware(false);
-            documentBuilderFactory.setValidating(false);
-            documentBuilderFactory.setIgnoringComments(true);
-            documentBuilderFactory.setIgnoringElementContentWhitespace(true);
-            documentBuilderFactory.setExpandEntityReferences(false);
-            documentBuilderFactory.setCoalescing(false);
-            documentBuilderFactory.setXIncludeAware(false);
-            documentBuilderFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            documentBuilderFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-            documentBuilder = documentBuilderFactory.newDocumentBuilder();
-        } catch (ParserConfigurationException e) {
-            throw new RuntimeException(e);
-        }
-
-        try {
-            XPath xPath = XPathFactory.newInstance().newXPath();
-            this.customObjectFieldsExpression = xPath.compile("/CustomObject/fields");
-            this.customFieldFullNameExpression = xPath.compile("fullName/text()");
-            this.customFieldTypeExpression = xPath.compile("type/text()");
-            this.sfdxCustomFieldFullNameExpression = xPath.compile("/CustomField/fullName/text()");
-            this.sfdxCustomFieldTypeExpression = xPath.compile("/CustomField/type/text()");
-        } catch (XPathExpressionException e) {
-            throw new RuntimeException(e);
-        }
     }
 
     /**
@@ -165,20 +139,9 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
      * Determine the type of the custom field.
      */
     private void parseSfdxCustomField(String customObjectName, Path sfdxCustomFieldPath) {
-        try {
-            Document document = documentBuilder.parse(sfdxCustomFieldPath.toFile());
-            Node fullNameNode = (Node) sfdxCustomFieldFullNameExpression.evaluate(document, XPathConstants.NODE);
-            Node typeNode = (Node) sfdxCustomFieldTypeExpression.evaluate(document, XPathConstants.NODE);
-            String type = typeNode.getNodeValue();
-            DataType dataType = DataType.fromString(type);
-
-            String key = customObjectName + "." + fullNameNode.getNodeValue();
-            putDataType(key, dataType);
-        } catch (IOException | SAXException | XPathExpressionException e) {
-            throw new ContextedRuntimeException(e)
-                    .addContextValue("customObjectName", customObjectName)
-                    .addContextValue("sfdxCustomFieldPath", sfdxCustomFieldPath);
-        }
+        List<Pair<String, DataType>> fields = SalesforceMetadataCache.OBJECT_FIELDS.getTypes(sfdxCustomFieldPath,
+            path -> getParser().parseSfdxCustomField(customObjectName, path));
+        putDataTypes(fields);
     }
 
     /**
@@ -189,36 +152,28 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
 
         String customObjectName = fileName.substring(0, fileName.lastIndexOf(MDAPI_OBJECT_FILE_SUFFIX));
         if (!objectFileProcessed.contains(customObjectName)) {
-            try {
-                Document document = documentBuilder.parse(mdapiObjectFile.toFile());
-                NodeList fieldsNodes = (NodeList) customObjectFieldsExpression.evaluate(document, XPathConstants.NODESET);
-                for (int i = 0; i < fieldsNodes.getLength(); i++) {
-                    Node fieldsNode = fieldsNodes.item(i);
-                    Node fullNameNode = (Node) customFieldFullNameExpression.evaluate(fieldsNode, XPathConstants.NODE);
-                    if (fullNameNode == null) {
-                        throw new RuntimeException("fullName evaluate failed for " + customObjectName + " " + fieldsNode.getTextContent());
-                    }
-                    String name = fullNameNode.getNodeValue();
-                    if (endsWithIgnoreCase(name, CUSTOM_OBJECT_SUFFIX)) {
-                        Node typeNode = (Node) customFieldTypeExpression.evaluate(fieldsNode, XPathConstants.NODE);
-                        if (typeNode == null) {
-                            throw new RuntimeException("type evaluate failed for object=" + customObjectName + ", field=" + name + " " + fieldsNode.getTextContent());
-                        }
-                        String type = typeNode.getNodeValue();
-                        DataType dataType = DataType.fromString(type);
-                        String key = customObjectName + "." + fullNameNode.getNodeValue();
-                        putDataType(key, dataType);
-                    }
-                }
-            } catch (IOException | SAXException | XPathExpressionException e) {
-                throw new ContextedRuntimeException(e)
-                        .addContextValue("customObjectName", customObjectName)
-                        .addContextValue("mdapiObjectFile", mdapiObjectFile);
-            }
+            List<Pair<String, DataType>> fields = SalesforceMetadataCache.OBJECT_FIELDS.getTypes(mdapiObjectFile,
+                path -> getParser().parseMdapiCustomObject(customObjectName, path));
+            putDataTypes(fields);
             objectFileProcessed.add(customObjectName);
         }
     }
 
+    private MetadataParser getParser() {
+        if (parser == null) {
+            parser = new MetadataParser();
+        }
+        return parser;
+    }
+
+    private void putDataTypes(List<Pair<String, DataType>> fields) {
+        if (fields != null) {
+            for (Pair<String, DataType> field : fields) {
+                putDataType(field.getKey(), field.getValue());
+            }
+        }
+    }
+
     /**
      * Add the set of standard fields which aren't present in the metadata file, but may be refernced from the
      * visualforce page.
@@ -232,7 +187,7 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
     /**
      * Null safe endsWithIgnoreCase
      */
-    private boolean endsWithIgnoreCase(String str, String suffix) {
+    private static boolean endsWithIgnoreCase(String str, String suffix) {
         return str != null && str.toLowerCase(Locale.ROOT).endsWith(suffix.toLowerCase(Locale.ROOT));
     }
 
@@ -250,4 +205,93 @@ class ObjectFieldTypes extends SalesforceFieldTypes {
         }
         return previousType;
     }
+
+    /**
+     * Parses metadata files into the types of the custom fields they declare.
+     */
+    private static final class MetadataParser {
+        private final DocumentBuilder documentBuilder;
+        private final XPathExpression customObjectFieldsExpression;
+        private final XPathExpression customFieldFullNameExpression;
+        private final XPathExpression customFieldTypeExpression;
+        private final XPathExpression sfdxCustomFieldFullNameExpression;
+        private final XPathExpression sfdxCustomFieldTypeExpression;
+
+        MetadataParser() {
+            try {
+                DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+                documentBuilderFactory.setNamespaceAware(false);
+                documentBuilderFactory.setValidating(false);
+                documentBuilderFactory.setIgnoringComments(true);
+                documentBuilderFactory.setIgnoringElementContentWhitespace(true);
+                documentBuilderFactory.setExpandEntityReferences(false);
+                documentBuilderFactory.setCoalescing(false);
+                documentBuilderFactory.setXIncludeAware(false);
+                documentBuilderFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+                documentBuilderFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+                documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                throw new RuntimeException(e);
+            }
+
+            try {
+                XPath xPath = XPathFactory.newInstance().newXPath();
+                this.customObjectFieldsExpression = xPath.compile("/CustomObject/fields");
+                this.customFieldFullNameExpression = xPath.compile("fullName/text()");
+                this.customFieldTypeExpression = xPath.compile("type/text()");
+                this.sfdxCustomFieldFullNameExpression = xPath.compile("/CustomField/fullName/text()");
+                this.sfdxCustomFieldTypeExpression = xPath.compile("/CustomField/type/text()");
+            } catch (XPathExpressionException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        List<Pair<String, DataType>> parseSfdxCustomField(String customObjectName, Path sfdxCustomFieldPath) {
+            try {
+                Document document = documentBuilder.parse(sfdxCustomFieldPath.toFile());
+                Node fullNameNode = (Node) sfdxCustomFieldFullNameExpression.evaluate(document, XPathConstants.NODE);
+                Node typeNode = (Node) sfdxCustomFieldTypeExpression.evaluate(document, XPathConstants.NODE);
+                String type = typeNode.getNodeValue();
+                DataType dataType = DataType.fromString(type);
+
+                String key = customObjectName + "." + fullNameNode.getNodeValue();
+                return Collections.singletonList(Pair.of(key, dataType));
+            } catch (IOException | SAXException | XPathExpressionException e) {
+                throw new ContextedRuntimeException(e)
+                        .addContextValue("customObjectName", customObjectName)
+                        .addContextValue("sfdxCustomFieldPath", sfdxCustomFieldPath);
+            }
+        }
+
+        List<Pair<String, DataType>> parseMdapiCustomObject(String customObjectName, Path mdapiObjectFile) {
+            try {
+                Document document = documentBuilder.parse(mdapiObjectFile.toFile());
+                NodeList fieldsNodes = (NodeList) customObjectFieldsExpression.evaluate(document, XPathConstants.NODESET);
+                List<Pair<String, DataType>> fields = new ArrayList<>();
+                for (int i = 0; i < fieldsNodes.getLength(); i++) {
+                    Node fieldsNode = fieldsNodes.item(i);
+                    Node fullNameNode = (Node) customFieldFullNameExpression.evaluate(fieldsNode, XPathConstants.NODE);
+                    if (fullNameNode == null) {
+                        throw new RuntimeException("fullName evaluate failed for " + customObjectName + " " + fieldsNode.getTextContent());
+                    }
+                    String name = fullNameNode.getNodeValue();
+                    if (endsWithIgnoreCase(name, CUSTOM_OBJECT_SUFFIX)) {
+                        Node typeNode = (Node) customFieldTypeExpression.evaluate(fieldsNode, XPathConstants.NODE);
+                        if (typeNode == null) {
+                            throw new RuntimeException("type evaluate failed for object=" + customObjectName + ", field=" + name + " " + fieldsNode.getTextContent());
+                        }
+                        String type = typeNode.getNodeValue();
+                        DataType dataType = DataType.fromString(type);
+                        String key = customObjectName + "." + fullNameNode.getNodeValue();
+                        fields.add(Pair.of(key, dataType));
+                    }
+                }
+                return fields;
+            } catch (IOException | SAXException | XPathExpressionException e) {
+                throw new ContextedRuntimeException(e)
+                        .addContextValue("customObjectName", customObjectName)
+                        .addContextValue("mdapiObjectFile", mdapiObjectFile);
+            }
+        }
+    }
 }
@@ -0,0 +1,132 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.vf;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * Cache of the types declared in Apex classes and object metadata files. Many Visualforce pages share the same
+ * controllers and objects, this avoids parsing their files again for every page. The cache is shared by all the
+ * pages analysed by this JVM, and is thread-safe. An entry is used as long as the modification time and size of
+ * its file don't change.
+ *
+ * <p>Since the cache outlives a single analysis, it is bounded: only the {@link #DEFAULT_MAX_ENTRIES} most recently
+ * used files are kept, and their types are only softly referenced, so that the garbage collector can reclaim them
+ * when memory runs low.
+ */
+final class SalesforceMetadataCache {
+
+    /** Maximum number of files whose types are kept by the shared instances. */
+    static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    /** Types declared by Apex classes, by path of the class file. */
+    static final SalesforceMetadataCache APEX_CLASSES = new SalesforceMetadataCache(DEFAULT_MAX_ENTRIES);
+    /** Types of custom fields, by path of the object or field metadata file. */
+    static final SalesforceMetadataCache OBJECT_FIELDS = new SalesforceMetadataCache(DEFAULT_MAX_ENTRIES);
+
+    /** Entries in access order, the eldest entry is the least recently used one. Guarded by itself. */
+    private final Map<Path, Entry> entries;
+
+    SalesforceMetadataCache(final int maxEntries) {
+        this.entries = new LinkedHashMap<Path, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the types declared in the given file, as pairs of name and type in the order they are declared.
+     * The types are loaded with {@code loader} if they are not cached, or if the file changed since they were
+     * cached. Failures of the loader are not cached.
+     *
+     * @param file   Metadata file
+     * @param loader Function that parses the file
+     *
+     * @return the types, or null if the file is not a regular file
+     */
+    List<Pair<String, DataType>> getTypes(Path file, Function<Path, List<Pair<String, DataType>>> loader) {
+        Path key = file.toAbsolutePath().normalize();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        } catch (IOException e) {
+            remove(key);
+            return null;
+        }
+        if (!attributes.isRegularFile()) {
+            remove(key);
+            return null;
+        }
+
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.lastModified == lastModified && entry.size == size) {
+            List<Pair<String, DataType>> types = entry.types.get();
+            if (types != null) {
+                return types;
+            }
+        }
+
+        // The file is parsed outside of the lock, concurrent pages may parse the same file, they get the same
+        // types, and this doesn't block other files
+        List<Pair<String, DataType>> types = Collections.unmodifiableList(loader.apply(file));
+        synchronized (entries) {
+            entries.put(key, new Entry(lastModified, size, types));
+        }
+        return types;
+    }
+
+    private void remove(Path key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Forgets all the cached types.
+     */
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry {
+        private final long lastModified;
+        private final long size;
+        private final SoftReference<List<Pair<String, DataType>>> types;
+
+        Entry(long lastModified, long size, List<Pair<String, DataType>> types) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.types = new SoftReference<>(types);
+        }
+    }
+}
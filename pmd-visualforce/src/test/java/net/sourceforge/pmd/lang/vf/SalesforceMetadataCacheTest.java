@@ -0,0 +1,95 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.vf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SalesforceMetadataCacheTest {
+
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    private final Function<Path, List<Pair<String, DataType>>> loader = path -> {
+        loadCount.incrementAndGet();
+        return Collections.singletonList(Pair.of("Foo.bar", DataType.Text));
+    };
+
+    @After
+    public void clearCache() {
+        SalesforceMetadataCache.APEX_CLASSES.clear();
+    }
+
+    @Test
+    public void testFileIsLoadedOnce() throws IOException {
+        Path file = tempFolder.newFile("Foo.cls").toPath();
+
+        List<Pair<String, DataType>> types = SalesforceMetadataCache.APEX_CLASSES.getTypes(file, loader);
+        assertEquals(Collections.singletonList(Pair.of("Foo.bar", DataType.Text)), types);
+        assertSame(types, SalesforceMetadataCache.APEX_CLASSES.getTypes(file, loader));
+        assertSame(types, SalesforceMetadataCache.APEX_CLASSES.getTypes(file.getParent().resolve("./Foo.cls"), loader));
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testChangedFileIsLoadedAgain() throws IOException {
+        Path file = tempFolder.newFile("Foo.cls").toPath();
+        SalesforceMetadataCache.APEX_CLASSES.getTypes(file, loader);
+
+        Files.write(file, "public class Foo {}".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000));
+        SalesforceMetadataCache.APEX_CLASSES.getTypes(file, loader);
+        assertEquals(2, loadCount.get());
+        assertEquals(1, SalesforceMetadataCache.APEX_CLASSES.size());
+    }
+
+    @Test
+    public void testMissingFile() {
+        Path file = tempFolder.getRoot().toPath().resolve("Missing.cls");
+
+        assertNull(SalesforceMetadataCache.APEX_CLASSES.getTypes(file, loader));
+        assertNull(SalesforceMetadataCache.APEX_CLASSES.getTypes(tempFolder.getRoot().toPath(), loader));
+        assertEquals(0, loadCount.get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedFileIsEvicted() throws IOException {
+        SalesforceMetadataCache cache = new SalesforceMetadataCache(2);
+        Path foo = tempFolder.newFile("Foo.cls").toPath();
+        Path bar = tempFolder.newFile("Bar.cls").toPath();
+        Path baz = tempFolder.newFile("Baz.cls").toPath();
+
+        cache.getTypes(foo, loader);
+        cache.getTypes(bar, loader);
+        cache.getTypes(foo, loader);
+        cache.getTypes(baz, loader);
+        assertEquals(2, cache.size());
+        assertEquals(3, loadCount.get());
+
+        cache.getTypes(foo, loader);
+        assertEquals(3, loadCount.get());
+        cache.getTypes(bar, loader);
+        assertEquals(4, loadCount.get());
+    }
+}
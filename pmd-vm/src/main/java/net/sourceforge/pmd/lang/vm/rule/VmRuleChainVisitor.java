@@ -51,4 +51,9 @@ public class VmRuleChainVisitor extends AbstractRuleChainVisitor {
             ((XPathRule) rule).evaluate(node, ctx);
         }
     }
+
+    @Override
+    protected boolean isNodeNameDeterminedByJjtreeId() {
+        return true;
+    }
 }